@@ -1,5 +1,6 @@
 package com.sololeveling;
 
+import com.sololeveling.persistence.WriteAheadLog;
 import net.runelite.client.config.*;
 
 import java.awt.*;
@@ -318,11 +319,234 @@ public interface SoloLevelingConfig extends Config
 		return true;
 	}
 
+	@ConfigItem(
+		keyName = "generatedTaskLimit",
+		name = "Generated Task Limit",
+		description = "Maximum number of generated tasks kept. Tasks you haven't seen are removed first.",
+		section = tasksSection,
+		position = 8
+	)
+	@Range(min = 5, max = 500)
+	default int generatedTaskLimit()
+	{
+		return 50;
+	}
+
+	@ConfigItem(
+		keyName = "generatedTaskLifetime",
+		name = "Generated Task Lifetime (hours)",
+		description = "How long generated tasks are kept. Quest tasks always expire at the daily reset.",
+		section = tasksSection,
+		position = 9
+	)
+	@Range(min = 1, max = 168)
+	default int generatedTaskLifetime()
+	{
+		return 24;
+	}
+
+	@ConfigItem(
+		keyName = "difficultyWeights",
+		name = "Difficulty Weights",
+		description = "Relative chance of Easy, Medium, Hard, Elite and Master random tasks, comma-separated",
+		section = tasksSection,
+		position = 10
+	)
+	default String difficultyWeights()
+	{
+		return "40,30,20,5,5";
+	}
+
+	@ConfigItem(
+		keyName = "categoryWeights",
+		name = "Category Weights",
+		description = "Relative chance of Combat, Skilling, Exploration, Minigame, Quest, Achievement Diary, Collection Log "
+			+ "and Miscellaneous random tasks, comma-separated. Leave empty for equal chances.",
+		section = tasksSection,
+		position = 11
+	)
+	default String categoryWeights()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "adaptiveTaskWeights",
+		name = "Adapt to Completions",
+		description = "Generate more of the kinds of random tasks you complete",
+		section = tasksSection,
+		position = 12
+	)
+	default boolean adaptiveTaskWeights()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "showPlan",
+		name = "Show Task Plan",
+		description = "Display the tasks that earn the most points in the time you have, in the order to do them",
+		section = tasksSection,
+		position = 13
+	)
+	default boolean showPlan()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "planHours",
+		name = "Plan Length (hours)",
+		description = "How much playing time the task plan should fill",
+		section = tasksSection,
+		position = 14
+	)
+	@Range(min = 1, max = 24)
+	default int planHours()
+	{
+		return 2;
+	}
+
+	// === HISCORES SETTINGS ===
+	@ConfigSection(
+		name = "Hiscores",
+		description = "Configure hiscores lookups and caching",
+		position = 5
+	)
+	String hiscoresSection = "hiscores";
+
+	@ConfigItem(
+		keyName = "hiscoreCacheTtl",
+		name = "Cache Duration (minutes)",
+		description = "How long looked-up hiscores are considered fresh before they are refreshed in the background",
+		section = hiscoresSection,
+		position = 1
+	)
+	@Range(min = 1, max = 1440)
+	default int hiscoreCacheTtl()
+	{
+		return 30;
+	}
+
+	@ConfigItem(
+		keyName = "hiscoreCacheSize",
+		name = "Cached Players",
+		description = "Maximum number of players whose hiscores are kept in the cache",
+		section = hiscoresSection,
+		position = 2
+	)
+	@Range(min = 10, max = 5000)
+	default int hiscoreCacheSize()
+	{
+		return 200;
+	}
+
+	@ConfigItem(
+		keyName = "bulkLookupConcurrency",
+		name = "Bulk Lookup Parallelism",
+		description = "How many hiscores requests a clan or group lookup may have in flight at once",
+		section = hiscoresSection,
+		position = 3
+	)
+	@Range(min = 1, max = 8)
+	default int bulkLookupConcurrency()
+	{
+		return 4;
+	}
+
+	@ConfigItem(
+		keyName = "bulkLookupRate",
+		name = "Bulk Lookup Rate",
+		description = "Maximum hiscores requests per second during clan or group lookups",
+		section = hiscoresSection,
+		position = 4
+	)
+	@Range(min = 1, max = 10)
+	default int bulkLookupRate()
+	{
+		return 2;
+	}
+
+	@ConfigItem(
+		keyName = "backfillFromHiscores",
+		name = "Load Stats on Startup",
+		description = "Look up the last logged-in player's hiscores on startup so the overlay has stats before login finishes",
+		section = hiscoresSection,
+		position = 5
+	)
+	default boolean backfillFromHiscores()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "lastPlayerName",
+		name = "",
+		description = "",
+		hidden = true
+	)
+	default String lastPlayerName()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "lastPlayerName",
+		name = "",
+		description = ""
+	)
+	void lastPlayerName(String name);
+
+	// === RIVAL SETTINGS ===
+	@ConfigSection(
+		name = "Rivals",
+		description = "Track the hiscores of other players",
+		position = 6
+	)
+	String rivalsSection = "rivals";
+
+	@ConfigItem(
+		keyName = "rivals",
+		name = "Rivals",
+		description = "Comma-separated names of players whose XP gains to track",
+		section = rivalsSection,
+		position = 1
+	)
+	default String rivals()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "showRivals",
+		name = "Show Rivals",
+		description = "Display the XP your rivals gained today in the overlay",
+		section = rivalsSection,
+		position = 2
+	)
+	default boolean showRivals()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "rivalPollInterval",
+		name = "Poll Interval (minutes)",
+		description = "How often to check active rivals' hiscores. Inactive rivals are checked less often.",
+		section = rivalsSection,
+		position = 3
+	)
+	@Range(min = 15, max = 360)
+	default int rivalPollInterval()
+	{
+		return 30;
+	}
+
 	// === ADVANCED SETTINGS ===
 	@ConfigSection(
 		name = "Advanced",
 		description = "Advanced Solo Leveling plugin settings",
-		position = 5
+		position = 7
 	)
 	String advancedSection = "advanced";
 
@@ -362,6 +586,30 @@ public interface SoloLevelingConfig extends Config
 		return false;
 	}
 
+	@ConfigItem(
+		keyName = "taskSeed",
+		name = "Task Seed",
+		description = "Seed for random task generation, so the same tasks come up every time. 0 picks a new seed every session.",
+		section = advancedSection,
+		position = 4
+	)
+	default int taskSeed()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "stateSyncPolicy",
+		name = "Save to Disk",
+		description = "How often saved progress is forced to disk. It survives a client crash either way; forcing it more often also protects against power loss.",
+		section = advancedSection,
+		position = 5
+	)
+	default WriteAheadLog.SyncPolicy stateSyncPolicy()
+	{
+		return WriteAheadLog.SyncPolicy.PERIODIC;
+	}
+
 	enum OverlayPosition
 	{
 		TOP_LEFT("Top Left"),
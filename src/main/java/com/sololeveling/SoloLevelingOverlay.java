@@ -1,13 +1,15 @@
 package com.sololeveling;
 
+import com.sololeveling.task.GoalPlanner;
 import com.sololeveling.task.Task;
 import com.sololeveling.task.TaskCategory;
 import com.sololeveling.task.TaskDifficulty;
 import com.sololeveling.task.TaskSource;
+import com.sololeveling.tracking.RivalTracker;
+import com.sololeveling.util.ExperienceTable;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Skill;
-import net.runelite.api.Player;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
@@ -24,6 +26,9 @@ import java.util.Map;
 @Slf4j
 public class SoloLevelingOverlay extends Overlay
 {
+	// Plan steps shown; the rest of the plan stays queued behind them
+	private static final int MAX_PLAN_STEPS = 3;
+
 	private final Client client;
 	private final SoloLevelingPlugin plugin;
 	private final SoloLevelingConfig config;
@@ -43,7 +48,8 @@ public class SoloLevelingOverlay extends Overlay
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
-		if (!config.showOverlay() || client.getLocalPlayer() == null)
+		// Stats seeded from the hiscores are enough to render before login finishes
+		if (!config.showOverlay() || !plugin.hasPlayerData())
 		{
 			return null;
 		}
@@ -98,6 +104,18 @@ public class SoloLevelingOverlay extends Overlay
 			addTasks();
 		}
 
+		// Task plan
+		if (config.showPlan())
+		{
+			addPlan();
+		}
+
+		// Rivals
+		if (config.showRivals())
+		{
+			addRivals();
+		}
+
 		// Hunter Status
 		addHunterStatus();
 
@@ -152,11 +170,12 @@ public class SoloLevelingOverlay extends Overlay
 				Skill skill = entry.getKey();
 				long timeSince = (currentTime - entry.getValue()) / 1000;
 				String timeText = timeSince < 60 ? timeSince + "s" : (timeSince / 60) + "m";
+				long xp = plugin.getSkillExperience(skill);
 				
 				panelComponent.getChildren().add(LineComponent.builder()
 					.left("  " + getSkillEmoji(skill) + " " + skill.getName())
 					.leftColor(config.textColor())
-					.right(timeText + " ago")
+					.right(formatLevel(xp) + " · " + timeText + " ago")
 					.rightColor(Color.GRAY)
 					.build());
 			}
@@ -223,6 +242,79 @@ public class SoloLevelingOverlay extends Overlay
 		}
 	}
 	
+	private void addPlan()
+	{
+		GoalPlanner.Plan plan = plugin.getTaskPlan();
+		if (plan.getSteps().isEmpty())
+		{
+			return;
+		}
+
+		panelComponent.getChildren().add(LineComponent.builder()
+			.left("━━━━━━━━━━━━━━━━")
+			.leftColor(config.primaryColor())
+			.build());
+
+		panelComponent.getChildren().add(LineComponent.builder()
+			.left("🧭 Plan:")
+			.leftColor(config.textColor())
+			.right(plan.getTotalPoints() + " pts")
+			.rightColor(config.secondaryColor())
+			.build());
+
+		for (GoalPlanner.Step step : plan.getSteps().subList(0, Math.min(MAX_PLAN_STEPS, plan.getSteps().size())))
+		{
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left("  " + step.getTask().getName())
+				.leftColor(config.textColor())
+				.right(Math.max(1, Math.round(step.getHours() * 60)) + "m")
+				.rightColor(config.secondaryColor())
+				.build());
+		}
+	}
+
+	private void addRivals()
+	{
+		List<RivalTracker.RivalGain> highlights = plugin.getRivalHighlights();
+		if (highlights.isEmpty())
+		{
+			return;
+		}
+
+		panelComponent.getChildren().add(LineComponent.builder()
+			.left("━━━━━━━━━━━━━━━━")
+			.leftColor(config.primaryColor())
+			.build());
+
+		panelComponent.getChildren().add(LineComponent.builder()
+			.left("⚔️ Rivals Today:")
+			.leftColor(config.textColor())
+			.build());
+
+		for (RivalTracker.RivalGain gain : highlights)
+		{
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left("  " + gain.getRival())
+				.leftColor(config.textColor())
+				.right("+" + formatXp(gain.getExperience()) + " " + gain.getSkill().getName())
+				.rightColor(config.secondaryColor())
+				.build());
+		}
+	}
+
+	private String formatXp(long xp)
+	{
+		if (xp >= 1_000_000)
+		{
+			return String.format("%.1fm", xp / 1_000_000.0);
+		}
+		if (xp >= 10_000)
+		{
+			return (xp / 1000) + "k";
+		}
+		return numberFormat.format(xp);
+	}
+
 	/**
 	 * Get appropriate color for difficulty level
 	 */
@@ -260,6 +352,18 @@ public class SoloLevelingOverlay extends Overlay
 			.rightColor(config.primaryColor())
 			.build());
 
+		// Kills, shown once there are some to report
+		long killsToday = plugin.getKillsToday();
+		if (killsToday > 0)
+		{
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left("⚔ Kills (hour/today):")
+				.leftColor(config.textColor())
+				.right(numberFormat.format(plugin.getKillsLastHour()) + " / " + numberFormat.format(killsToday))
+				.rightColor(config.primaryColor())
+				.build());
+		}
+
 		// Next milestone
 		String nextMilestone = getNextMilestone();
 		if (!nextMilestone.isEmpty())
@@ -317,15 +421,15 @@ public class SoloLevelingOverlay extends Overlay
 		// 4. Achievement diary completion
 		// 5. Combat achievements
 
-		int totalLevel = plugin.getTotalLevel();
-		Player player = client.getLocalPlayer();
-		if (player == null)
+		if (!plugin.hasPlayerData())
 		{
 			return 0;
 		}
 
-		int combatLevel = player.getCombatLevel();
-		int questPoints = client.getVarpValue(101); // Quest points varbit
+		// These fall back to the hiscores-seeded stats while the player isn't logged in
+		int totalLevel = plugin.getTotalLevel();
+		int combatLevel = plugin.getCombatLevel();
+		int questPoints = plugin.getQuestPoints();
 
 		// Calculate the power level using a weighted formula
 		// Base power from total level (50%)
@@ -351,8 +455,51 @@ public class SoloLevelingOverlay extends Overlay
 		return powerLevel;
 	}
 
+	/**
+	 * Level and progress through it, such as "68 (42%)", counting virtual levels past 99
+	 */
+	private String formatLevel(long xp)
+	{
+		int level = ExperienceTable.getLevelForXp(xp);
+		if (level >= ExperienceTable.MAX_VIRTUAL_LEVEL)
+		{
+			return String.valueOf(level);
+		}
+		return level + " (" + (int) (ExperienceTable.getLevelProgress(xp) * 100) + "%)";
+	}
+
 	private String getNextMilestone()
 	{
+		// The skill closest to its next level, once there are stats to go on
+		if (plugin.hasPlayerData())
+		{
+			Skill closest = null;
+			int closestXp = Integer.MAX_VALUE;
+			for (Skill skill : Skill.values())
+			{
+				if (skill == Skill.OVERALL)
+				{
+					continue;
+				}
+				long xp = plugin.getSkillExperience(skill);
+				if (ExperienceTable.getLevelForXp(xp) >= ExperienceTable.MAX_REAL_LEVEL)
+				{
+					continue;
+				}
+				int remaining = ExperienceTable.getXpToNextLevel(xp);
+				if (remaining < closestXp)
+				{
+					closest = skill;
+					closestXp = remaining;
+				}
+			}
+			if (closest != null)
+			{
+				int nextLevel = ExperienceTable.getLevelForXp(plugin.getSkillExperience(closest)) + 1;
+				return closest.getName() + " " + nextLevel + " (" + formatXp(closestXp) + " XP)";
+			}
+		}
+
 		int totalLevel = plugin.getTotalLevel();
 		
 		if (totalLevel < 1000)
@@ -2,18 +2,30 @@ package com.sololeveling;
 
 import com.google.inject.Provides;
 import com.sololeveling.api.OsrsApiManager;
+import com.sololeveling.persistence.ProgressExport;
+import com.sololeveling.persistence.ProgressExporter;
+import com.sololeveling.persistence.WriteAheadLog;
+import com.sololeveling.task.GoalPlanner;
 import com.sololeveling.task.Task;
 import com.sololeveling.task.TaskCategory;
 import com.sololeveling.task.TaskDifficulty;
+import com.sololeveling.task.TaskGenerationContext;
 import com.sololeveling.task.TaskManager;
+import com.sololeveling.task.TaskSamplers;
 import com.sololeveling.task.TaskSource;
 import com.sololeveling.tracking.PlayerTracker;
+import com.sololeveling.tracking.ProfileStore;
+import com.sololeveling.tracking.RivalTracker;
+import com.sololeveling.tracking.SkillHistoryStore;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.events.*;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.events.NpcLootReceived;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.OverlayManager;
@@ -21,9 +33,21 @@ import net.runelite.client.util.ColorUtil;
 
 import javax.inject.Inject;
 import java.awt.*;
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -53,19 +77,69 @@ public class SoloLevelingPlugin extends Plugin
 	@Inject
 	private SoloLevelingOverlay overlay;
 
+	@Inject
+	private ScheduledExecutorService executor;
+
+	// Task ids continue across sessions, so they never collide with tasks from earlier sessions
+	private static final File TASK_SEQUENCE_FILE = new File(RuneLite.RUNELITE_DIR, "solo-leveling/task-sequence.dat");
+
 	// Task manager for task tracking
-	private final TaskManager taskManager = new TaskManager();
+	private final TaskManager taskManager = new TaskManager(new TaskGenerationContext(TASK_SEQUENCE_FILE, 0));
 
 	// Player progress tracker
 	private final PlayerTracker playerTracker = new PlayerTracker();
 
+	// Activities recorded on every event, interned once
+	private final int killsActivity = playerTracker.getActivities().intern(PlayerTracker.ACTIVITY_KILLS);
+	private final int levelUpsActivity = playerTracker.getActivities().intern(PlayerTracker.ACTIVITY_LEVEL_UPS);
+	private final int tasksCompletedActivity =
+		playerTracker.getActivities().intern(PlayerTracker.ACTIVITY_TASKS_COMPLETED);
+
 	// API manager for Hiscores and Wiki integration
-	private final OsrsApiManager apiManager = new OsrsApiManager();
+	@Inject
+	private OsrsApiManager apiManager;
+
+	// Polls rivals' hiscores in the background
+	@Inject
+	private RivalTracker rivalTracker;
+
+	// Orders incomplete tasks into a plan for the overlay, in the background
+	@Inject
+	private GoalPlanner goalPlanner;
+
+	// Keeps the tracker's counters per account across sessions
+	@Inject
+	private ProfileStore profileStore;
+
+	// Keeps each account's long-term skill history
+	@Inject
+	private SkillHistoryStore skillHistoryStore;
+
+	// Journals task and tracker changes as they happen, so a crash loses next to nothing
+	@Inject
+	private WriteAheadLog stateLog;
+
+	// Writes and reads progress exports for ::slexport and ::slimport
+	@Inject
+	private ProgressExporter progressExporter;
+
+	// Account whose profile the tracker holds, or -1; saving waits until its saved profile has been merged in
+	private long profileAccount = -1;
+	private boolean profileLoaded;
+	private boolean skillHistoryLoaded;
 
 	// Track experience gains and levels
 	private final Map<Skill, Integer> previousExperience = new HashMap<>();
 	private final Map<Skill, Integer> previousLevels = new HashMap<>();
 	private final Map<Skill, Long> lastExperienceGain = new HashMap<>();
+
+	// Whether the logged-in player's name has been remembered for the next startup's hiscores backfill
+	private boolean playerNameSaved;
+
+	// Whether the task manager is attached to the recovered journal; nothing touches tasks until it is
+	private boolean tasksReady;
+	// Counts startUp and shutDown calls, so a recovery finishing after the plugin stopped is ignored
+	private int taskSession;
 	
 	// Solo Leveling themed messages
 	private static final String[] LEVEL_UP_MESSAGES = {
@@ -93,6 +167,24 @@ public class SoloLevelingPlugin extends Plugin
 	{
 		logger.info("Solo Leveling plugin started! Welcome, Hunter!");
 		overlayManager.add(overlay);
+
+		// Warm the hiscores and wiki caches from disk off the client thread
+		applyApiConfig();
+		executor.execute(apiManager::loadCaches);
+		executor.execute(rivalTracker::start);
+
+		// Continue the id sequence and replay the journal off the client thread, queued ahead of the profile
+		// load that reads the journal, then attach the task manager on the client thread
+		tasksReady = false;
+		int session = ++taskSession;
+		taskManager.getGenerationContext().setSeed(config.taskSeed());
+		stateLog.setSyncPolicy(config.stateSyncPolicy());
+		executor.execute(() ->
+		{
+			taskManager.getGenerationContext().load(executor);
+			stateLog.recover();
+			clientThread.invoke(() -> startTasks(session));
+		});
 		
 		// Initialize experience tracking
 		if (client.getGameState() == GameState.LOGGED_IN)
@@ -101,16 +193,36 @@ public class SoloLevelingPlugin extends Plugin
 
 			// Initialize player tracker
 			playerTracker.initialize(client);
+			loadProfile();
+		}
+		else
+		{
+			// Seed the tracker from the hiscores so the overlay has something to show before login
+			backfillFromHiscores();
+		}
+	}
+
+	/**
+	 * Attach the task manager to the recovered journal and build the task list, once startUp's recovery is done
+	 */
+	private void startTasks(int session)
+	{
+		if (session != taskSession)
+		{
+			// Stopped, or restarted, while the journal was being replayed
+			return;
 		}
 
-		// Initialize task manager
+		taskManager.attach(stateLog);
 		taskManager.initialize();
+		tasksReady = true;
 		
 		// Add debug logging for task initialization
 		log.info("DEBUG: Task initialization started");
 		
 		// Create some initial tasks to ensure there's something to display
 		createInitialTasks();
+		requestTaskPlan();
 		
 		// Add more debug info
 		log.info("DEBUG: TaskManager has {} total tasks", taskManager.getAllTasks().size());
@@ -167,16 +279,227 @@ public class SoloLevelingPlugin extends Plugin
 		previousLevels.clear();
 		lastExperienceGain.clear();
 
-		// Save player tracker session time
+		// Save player tracker session time and the profile it belongs to
 		playerTracker.updateSessionTime();
+		saveProfile();
+		profileAccount = -1;
+
+		// Persist looked-up hiscores and wiki content so the next start doesn't refetch them
+		log.debug("Hiscores cache stats: {}", apiManager.getHiscoresCacheStats());
+		log.debug("Generated task pool stats: {}", taskManager.getGeneratedTaskStats());
+		log.debug("API endpoint stats: {}", apiManager.getEndpointStats());
+		executor.execute(apiManager::saveCaches);
+		executor.execute(rivalTracker::stop);
+		executor.execute(taskManager.getGenerationContext()::save);
+
+		// The executor runs one job at a time, so this closes after any recovery startUp queued and before a
+		// restart's recover()
+		tasksReady = false;
+		taskSession++;
+		executor.execute(stateLog::close);
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged configChanged)
+	{
+		if (!configChanged.getGroup().equals("sololeveling"))
+		{
+			return;
+		}
+
+		applyApiConfig();
+		if (configChanged.getKey().equals("stateSyncPolicy"))
+		{
+			stateLog.setSyncPolicy(config.stateSyncPolicy());
+		}
+		if (configChanged.getKey().equals("taskSeed"))
+		{
+			taskManager.getGenerationContext().setSeed(config.taskSeed());
+		}
+		if (configChanged.getKey().equals("planHours") || configChanged.getKey().equals("showPlan"))
+		{
+			clientThread.invoke(this::requestTaskPlan);
+		}
+	}
+
+	private void applyApiConfig()
+	{
+		apiManager.configureHiscoresCache(config.hiscoreCacheTtl(), config.hiscoreCacheSize());
+		apiManager.configureBulkLookups(config.bulkLookupConcurrency(), config.bulkLookupRate());
+		rivalTracker.setRivals(Arrays.asList(config.rivals().split(",")));
+		rivalTracker.setPollInterval(config.rivalPollInterval());
+		taskManager.setGeneratedTaskLimit(config.generatedTaskLimit());
+		taskManager.getSamplers().setDifficultyWeights(
+			TaskSamplers.parseWeights(config.difficultyWeights(), TaskDifficulty.values().length));
+		taskManager.getSamplers().setCategoryWeights(
+			TaskSamplers.parseWeights(config.categoryWeights(), TaskCategory.values().length));
+		taskManager.getSamplers().setAdaptive(config.adaptiveTaskWeights());
+	}
+
+	/**
+	 * Load the logged-in account's saved profile and skill history in the background, unless already loaded
+	 */
+	private void loadProfile()
+	{
+		long account = client.getAccountHash();
+		if (account == -1 || account == profileAccount)
+		{
+			return;
+		}
+
+		profileAccount = account;
+		profileLoaded = false;
+		skillHistoryLoaded = false;
+		profileStore.load(account, profile -> clientThread.invoke(() ->
+		{
+			// The player may have logged out, or into another account, while the profile was read
+			if (profileAccount != account)
+			{
+				return;
+			}
+			if (profile != null)
+			{
+				playerTracker.restoreProfile(profile);
+			}
+			playerTracker.restoreJournal(stateLog, account, profile);
+			profileLoaded = true;
+		}));
+		skillHistoryStore.load(account, history -> clientThread.invoke(() ->
+		{
+			if (profileAccount != account)
+			{
+				return;
+			}
+			if (history != null)
+			{
+				playerTracker.getSkillHistory().restore(history);
+			}
+			skillHistoryLoaded = true;
+		}));
+	}
+
+	/**
+	 * Save the current account's profile and skill history in the background
+	 */
+	private void saveProfile()
+	{
+		if (profileAccount != -1 && profileLoaded)
+		{
+			profileStore.save(playerTracker.toProfile(profileAccount));
+		}
+		if (profileAccount != -1 && skillHistoryLoaded)
+		{
+			skillHistoryStore.save(profileAccount, playerTracker.getSkillHistory().copy());
+		}
+	}
+
+	/**
+	 * The current task plan, for the overlay
+	 */
+	public GoalPlanner.Plan getTaskPlan()
+	{
+		return goalPlanner.getPlan();
+	}
+
+	/**
+	 * Replan the incomplete tasks in the background from a snapshot of the player's progress
+	 */
+	private void requestTaskPlan()
+	{
+		if (!config.showPlan())
+		{
+			return;
+		}
+
+		goalPlanner.requestPlan(new GoalPlanner.PlanRequest(
+			new ArrayList<>(taskManager.getIncompleteTasks()),
+			new HashMap<>(playerTracker.getSkillExperience()),
+			playerTracker.getExperienceRates(),
+			config.planHours()));
+	}
+
+	/**
+	 * Each rival's biggest XP gain today, for the overlay
+	 */
+	public List<RivalTracker.RivalGain> getRivalHighlights()
+	{
+		List<RivalTracker.RivalGain> highlights = new ArrayList<>();
+		Set<String> seen = new HashSet<>();
+		for (RivalTracker.RivalGain gain : rivalTracker.getGainsToday())
+		{
+			// Gains come largest first within each rival
+			if (seen.add(gain.getRival()))
+			{
+				highlights.add(gain);
+			}
+		}
+		return highlights;
+	}
+
+	/**
+	 * Look up the last logged-in player's hiscores and seed the player tracker with them.
+	 * Live values replace the seeded ones skill by skill as the client reports them after login.
+	 */
+	private void backfillFromHiscores()
+	{
+		String playerName = config.lastPlayerName();
+		if (!config.backfillFromHiscores() || playerName == null || playerName.isEmpty())
+		{
+			return;
+		}
+
+		apiManager.getPlayerHiscores(playerName, hiscores ->
+		{
+			int seeded = playerTracker.seedFromHiscores(hiscores);
+			if (seeded == 0)
+			{
+				return;
+			}
+			log.debug("Seeded {} skills for {} from the hiscores", seeded, playerName);
+			generatePersonalizedTask(playerName);
+		});
+	}
+
+	/**
+	 * Remember the logged-in player's name so the next startup can backfill their stats.
+	 * The local player isn't always available yet when the login state change arrives, so this is retried
+	 * every tick until it succeeds.
+	 */
+	private void savePlayerName()
+	{
+		Player player = client.getLocalPlayer();
+		if (playerNameSaved || player == null || player.getName() == null)
+		{
+			return;
+		}
+
+		playerNameSaved = true;
+		if (!player.getName().equals(config.lastPlayerName()))
+		{
+			config.lastPlayerName(player.getName());
+		}
 	}
 
 	@Subscribe
 	public void onGameStateChanged(GameStateChanged gameStateChanged)
 	{
-		if (gameStateChanged.getGameState() == GameState.LOGGED_IN)
+		if (gameStateChanged.getGameState() == GameState.LOGIN_SCREEN)
+		{
+			// The next login may be a different account
+			playerNameSaved = false;
+			if (profileAccount != -1)
+			{
+				playerTracker.endSession();
+				saveProfile();
+				playerTracker.resetProfile();
+				profileAccount = -1;
+			}
+		}
+		else if (gameStateChanged.getGameState() == GameState.LOGGED_IN)
 		{
 			initializeExperienceTracking();
+			playerTracker.startSession();
+			loadProfile();
 			
 			if (config.showLoginMessage())
 			{
@@ -215,6 +538,7 @@ public class SoloLevelingPlugin extends Plugin
 			// Check for level up
 			if (currentLevel > previousLevel)
 			{
+				playerTracker.recordActivity(levelUpsActivity, currentLevel - previousLevel);
 				if (config.showLevelUps())
 				{
 					String message = String.format(getRandomLevelUpMessage(), skill.getName(), currentLevel);
@@ -227,14 +551,121 @@ public class SoloLevelingPlugin extends Plugin
 		// Update tracking
 		previousExperience.put(skill, currentXp);
 		previousLevels.put(skill, currentLevel);
+		// Live values replace anything seeded from the hiscores
+		playerTracker.updateSkill(skill, currentLevel, currentXp);
 		lastExperienceGain.put(skill, System.currentTimeMillis());
 	}
 
+	@Subscribe
+	public void onNpcLootReceived(NpcLootReceived npcLootReceived)
+	{
+		playerTracker.recordActivity(killsActivity, 1);
+	}
+
+	@Subscribe
+	public void onCommandExecuted(CommandExecuted commandExecuted)
+	{
+		String[] arguments = commandExecuted.getArguments();
+		if (commandExecuted.getCommand().equalsIgnoreCase("slexport"))
+		{
+			ProgressExporter.Format format = ProgressExporter.Format.JSON;
+			if (arguments.length > 0)
+			{
+				try
+				{
+					format = ProgressExporter.Format.valueOf(arguments[0].toUpperCase());
+				}
+				catch (IllegalArgumentException e)
+				{
+					sendMessage("Usage: ::slexport [json|csv|pack]", Color.ORANGE);
+					return;
+				}
+			}
+			exportProgress(format);
+		}
+		else if (commandExecuted.getCommand().equalsIgnoreCase("slimport"))
+		{
+			if (arguments.length == 0)
+			{
+				sendMessage("Usage: ::slimport <export name>", Color.ORANGE);
+				return;
+			}
+			importProgress(new File(ProgressExporter.EXPORT_DIRECTORY, arguments[0]));
+		}
+	}
+
+	/**
+	 * Export tasks, counters and skill history to the export directory, as JSON or a directory of CSV files, or
+	 * just the tasks as a pack to share
+	 */
+	private void exportProgress(ProgressExporter.Format format)
+	{
+		String name = "progress-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+			+ format.getExtension();
+		File target = new File(ProgressExporter.EXPORT_DIRECTORY, name);
+		if (!ProgressExporter.EXPORT_DIRECTORY.exists() && !ProgressExporter.EXPORT_DIRECTORY.mkdirs())
+		{
+			sendMessage("Unable to create " + ProgressExporter.EXPORT_DIRECTORY, Color.RED);
+			return;
+		}
+
+		progressExporter.export(ProgressExport.of(taskManager, playerTracker), format, target, file ->
+			clientThread.invoke(() -> sendMessage(file != null
+				? "Progress exported to " + file.getName()
+				: "Progress export failed, see the client log", file != null ? Color.CYAN : Color.RED)));
+	}
+
+	/**
+	 * Merge an export into the current account. Waits for the account's saved profile, so the import isn't
+	 * counted twice once it loads.
+	 */
+	private void importProgress(File source)
+	{
+		if (profileAccount == -1 || !profileLoaded || !skillHistoryLoaded || !tasksReady)
+		{
+			sendMessage("Log in and wait for your profile to load before importing", Color.ORANGE);
+			return;
+		}
+		if (!source.exists())
+		{
+			sendMessage("No export named " + source.getName(), Color.ORANGE);
+			return;
+		}
+
+		long account = profileAccount;
+		progressExporter.importFrom(source, progress -> clientThread.invoke(() ->
+		{
+			if (progress == null)
+			{
+				sendMessage("Progress import failed, see the client log", Color.RED);
+				return;
+			}
+			if (profileAccount != account)
+			{
+				// Logged out or switched accounts while it was read
+				return;
+			}
+			// A shared task pack only adds tasks; it says nothing about this player's progress
+			boolean pack = source.getName().endsWith(ProgressExporter.Format.PACK.getExtension());
+			int added = taskManager.importTasks(progress.getTasks(), !pack);
+			playerTracker.importProgress(progress);
+			saveProfile();
+			sendMessage(String.format("Imported %d tasks (%d new) from %s", progress.getTasks().size(), added,
+				source.getName()), Color.CYAN);
+		}));
+	}
+
+	private void sendMessage(String message, Color color)
+	{
+		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", ColorUtil.wrapWithColorTag(message, color), null);
+	}
+
 	@Subscribe
 	public void onGameTick(GameTick gameTick)
 	{
 		// Update game tick count in player tracker
 		playerTracker.recordGameTick();
+		savePlayerName();
 
 		// Check for quest completions
 		clientThread.invoke(this::checkQuestCompletions);
@@ -245,6 +676,28 @@ public class SoloLevelingPlugin extends Plugin
 			clientThread.invoke(this::generateRandomChallenge);
 		}
 
+		// Drop expired generated tasks about once a minute
+		if (playerTracker.getGameTicks() % 100 == 0)
+		{
+			clientThread.invoke(taskManager::expireGeneratedTasks);
+		}
+
+		// Replan every few minutes, as XP rates and the task list drift
+		if (playerTracker.getGameTicks() % 500 == 0)
+		{
+			clientThread.invoke(this::requestTaskPlan);
+		}
+
+		// Save the profile every few minutes, and journal the counters in between so a crash loses next to nothing
+		if (playerTracker.getGameTicks() % 300 == 0)
+		{
+			saveProfile();
+		}
+		else if (playerTracker.getGameTicks() % 10 == 0 && profileAccount != -1 && profileLoaded)
+		{
+			playerTracker.journal(stateLog, profileAccount);
+		}
+
 		// Check for task completions
 		clientThread.invoke(this::checkTaskCompletions);
 	}
@@ -260,7 +713,7 @@ public class SoloLevelingPlugin extends Plugin
 		clientThread.invoke(this::checkQuestTaskCompletions);
 
 		// Check if player has quest cape
-		if (playerTracker.hasQuestCape() && Math.random() < 0.5) // 50% chance
+		if (playerTracker.hasQuestCape() && random().nextDouble() < 0.5) // 50% chance
 		{
 			clientThread.invoke(this::generateQuestChallenge);
 		}
@@ -287,23 +740,39 @@ public class SoloLevelingPlugin extends Plugin
 
 	private String getRandomLevelUpMessage()
 	{
-		return LEVEL_UP_MESSAGES[(int) (Math.random() * LEVEL_UP_MESSAGES.length)];
+		return LEVEL_UP_MESSAGES[random().nextInt(LEVEL_UP_MESSAGES.length)];
 	}
 
 	private String getRandomXpMessage()
 	{
-		return XP_GAIN_MESSAGES[(int) (Math.random() * XP_GAIN_MESSAGES.length)];
+		return XP_GAIN_MESSAGES[random().nextInt(XP_GAIN_MESSAGES.length)];
+	}
+
+	/**
+	 * The calling thread's random stream, seeded from the configured task seed
+	 */
+	private SplittableRandom random()
+	{
+		return taskManager.getGenerationContext().random();
 	}
 
 	public Map<Skill, Long> getLastExperienceGain()
 	{
 		return lastExperienceGain;
 	}
+	/**
+	 * Whether there are stats to show, either from the logged-in client or seeded from the hiscores
+	 */
+	public boolean hasPlayerData()
+	{
+		return client.getLocalPlayer() != null || playerTracker.hasSkillData();
+	}
+
 	public int getTotalLevel()
 	{
 		if (client.getLocalPlayer() == null)
 		{
-			return 0;
+			return playerTracker.getTotalLevel();
 		}
 		
 		int totalLevel = 0;
@@ -323,7 +792,7 @@ public class SoloLevelingPlugin extends Plugin
 	{
 		if (client.getLocalPlayer() == null)
 		{
-			return 0;
+			return playerTracker.getTotalExperience();
 		}
 		
 		long totalXp = 0;
@@ -339,6 +808,46 @@ public class SoloLevelingPlugin extends Plugin
 		return totalXp;
 	}
 
+	/**
+	 * NPCs killed in the last hour, to the minute
+	 */
+	public long getKillsLastHour()
+	{
+		return playerTracker.getActivities().getLastHour(killsActivity, System.currentTimeMillis());
+	}
+
+	/**
+	 * NPCs killed since local midnight
+	 */
+	public long getKillsToday()
+	{
+		return playerTracker.getActivities().getToday(killsActivity, System.currentTimeMillis());
+	}
+
+	public long getSkillExperience(Skill skill)
+	{
+		if (client.getLocalPlayer() == null)
+		{
+			return playerTracker.getSkillExperience().getOrDefault(skill, 0L);
+		}
+		return client.getSkillExperience(skill);
+	}
+
+	public int getCombatLevel()
+	{
+		Player player = client.getLocalPlayer();
+		return player != null ? player.getCombatLevel() : playerTracker.getCombatLevel();
+	}
+
+	public int getQuestPoints()
+	{
+		if (client.getLocalPlayer() == null)
+		{
+			return playerTracker.getQuestPoints();
+		}
+		return client.getVarpValue(101); // Quest points varp
+	}
+
 	/**
 	 * Get tasks that should be displayed in the overlay.
 	 * Filters tasks based on configuration settings.
@@ -398,9 +907,28 @@ public class SoloLevelingPlugin extends Plugin
 			log.debug("DEBUG: Filtered task: {}", task.getName());
 		}
 
+		// Shown tasks are kept over generated tasks the player hasn't seen
+		taskManager.markTasksViewed(filteredTasks);
+
 		return filteredTasks;
 	}
 
+	/**
+	 * When a newly generated task should expire
+	 */
+	private long generatedTaskExpiry()
+	{
+		return System.currentTimeMillis() + TimeUnit.HOURS.toMillis(config.generatedTaskLifetime());
+	}
+
+	/**
+	 * The next daily reset at midnight UTC, when quest tasks expire
+	 */
+	private static long nextDailyReset()
+	{
+		return LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+	}
+
 	/**
 	 * Complete a task and show a message if configured.
 	 *
@@ -410,6 +938,12 @@ public class SoloLevelingPlugin extends Plugin
 	public boolean completeTask(String taskId)
 	{
 		boolean completed = taskManager.completeTask(taskId);
+		if (completed)
+		{
+			playerTracker.recordActivity(tasksCompletedActivity, 1);
+			goalPlanner.taskCompleted(taskId);
+			requestTaskPlan();
+		}
 
 		if (completed && config.showTaskCompletionMessages() && client.getGameState() == GameState.LOGGED_IN)
 		{
@@ -448,7 +982,7 @@ public class SoloLevelingPlugin extends Plugin
 	 * Generate a random challenge (placeholder implementation)
 	 */
 	private void generateRandomChallenge() {
-		if (!config.showRandomTasks()) {
+		if (!tasksReady || !config.showRandomTasks()) {
 			return;
 		}
 		
@@ -460,7 +994,7 @@ public class SoloLevelingPlugin extends Plugin
 		
 		Task randomTask = taskManager.createRandomTask(difficulty, category);
 		if (randomTask != null) {
-			taskManager.addTask(randomTask);
+			taskManager.addGeneratedTask(randomTask, generatedTaskExpiry());
 			
 			if (config.showTaskCompletionMessages()) {
 				String message = "🌟 New task generated: " + randomTask.getName();
@@ -483,7 +1017,7 @@ public class SoloLevelingPlugin extends Plugin
 	 * Check for quest task completions (placeholder implementation)
 	 */
 	private void checkQuestTaskCompletions() {
-		if (playerTracker == null || taskManager == null) {
+		if (!tasksReady) {
 			return;
 		}
 		
@@ -507,10 +1041,13 @@ public class SoloLevelingPlugin extends Plugin
 	 * Generate a quest challenge (placeholder implementation)
 	 */
 	private void generateQuestChallenge() {
+		if (!tasksReady) {
+			return;
+		}
 		log.debug("DEBUG: Generating quest challenge");
 		Task questTask = taskManager.createQuestTask();
 		if (questTask != null) {
-			taskManager.addTask(questTask);
+			taskManager.addGeneratedTask(questTask, nextDailyReset());
 			
 			if (config.showTaskCompletionMessages()) {
 				String message = "📜 New quest task: " + questTask.getName();
@@ -524,26 +1061,33 @@ public class SoloLevelingPlugin extends Plugin
 	 * Get a random difficulty level
 	 */
 	private TaskDifficulty getRandomDifficulty() {
-		double rand = Math.random();
-		if (rand < 0.4) {
-			return TaskDifficulty.EASY;
-		} else if (rand < 0.7) {
-			return TaskDifficulty.MEDIUM;
-		} else if (rand < 0.9) {
-			return TaskDifficulty.HARD;
-		} else if (rand < 0.95) {
-			return TaskDifficulty.ELITE;
-		} else {
-			return TaskDifficulty.MASTER;
-		}
+		return taskManager.getSamplers().sampleDifficulty(random());
 	}
 
 	/**
 	 * Get a random category
 	 */
 	private TaskCategory getRandomCategory() {
-		TaskCategory[] categories = TaskCategory.values();
-		return categories[(int)(Math.random() * categories.length)];
+		return taskManager.getSamplers().sampleCategory(random());
+	}
+
+	/**
+	 * Generate a task aimed at the player's strongest or weakest skills
+	 */
+	private void generatePersonalizedTask(String playerName) {
+		if (!tasksReady || !config.showRandomTasks() || !playerTracker.hasSkillData()) {
+			return;
+		}
+
+		Map<TaskDifficulty, Integer> completedDifficulties = new HashMap<>();
+		for (Task task : taskManager.getCompletedTasks()) {
+			completedDifficulties.merge(task.getDifficulty(), 1, Integer::sum);
+		}
+
+		Task task = taskManager.createPersonalizedTask(playerName, playerTracker.getSkillLevels(), completedDifficulties);
+		if (task != null) {
+			taskManager.addGeneratedTask(task, generatedTaskExpiry());
+		}
 	}
 
 	/**
@@ -589,44 +1133,4 @@ public class SoloLevelingPlugin extends Plugin
 				return "resources";
 		}
 	}
-
-	/**
-	 * Get a random monster for task generation
-	 */
-	private String getRandomMonster() {
-		String[] monsters = {
-			"Goblin", "Hill Giant", "Moss Giant", "Skeleton", "Zombie", "Ghost",
-			"Bandit", "Farmer", "Guard", "Lesser Demon", "Greater Demon", "Black Demon",
-			"Green Dragon", "Blue Dragon", "Red Dragon", "Black Dragon", "Iron Dragon", "Steel Dragon",
-			"Abyssal Demon", "Dark Beast", "Cave Kraken", "Gargoyle", "Nechryael", "Spiritual Mage"
-		};
-		return monsters[(int)(Math.random() * monsters.length)];
-	}
-
-	/**
-	 * Get a random item for task generation
-	 */
-	private String getRandomItem() {
-		String[] items = {
-			"Bones", "Big Bones", "Feathers", "Runes", "Herbs", "Gems",
-			"Coal", "Iron Ore", "Gold Ore", "Mithril Ore", "Adamantite Ore", "Runite Ore",
-			"Logs", "Oak Logs", "Willow Logs", "Maple Logs", "Yew Logs", "Magic Logs",
-			"Raw Shrimp", "Raw Trout", "Raw Salmon", "Raw Lobster", "Raw Swordfish", "Raw Shark"
-		};
-		return items[(int)(Math.random() * items.length)];
-	}
-
-	/**
-	 * Get a random skill for task generation
-	 */
-	private String getRandomSkill() {
-		Skill[] skills = {
-			Skill.ATTACK, Skill.STRENGTH, Skill.DEFENCE, Skill.RANGED, Skill.PRAYER, Skill.MAGIC,
-			Skill.RUNECRAFT, Skill.CONSTRUCTION, Skill.HITPOINTS, Skill.AGILITY, Skill.HERBLORE,
-			Skill.THIEVING, Skill.CRAFTING, Skill.FLETCHING, Skill.SLAYER, Skill.HUNTER,
-			Skill.MINING, Skill.SMITHING, Skill.FISHING, Skill.COOKING, Skill.FIREMAKING,
-			Skill.WOODCUTTING, Skill.FARMING
-		};
-		return skills[(int)(Math.random() * skills.length)].getName();
-	}
 }
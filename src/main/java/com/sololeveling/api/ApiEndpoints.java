@@ -0,0 +1,24 @@
+package com.sololeveling.api;
+
+import lombok.Value;
+import okhttp3.HttpUrl;
+
+/**
+ * Base URLs of the APIs {@link OsrsApiManager} talks to, so tests and benchmarks can point it at a local stand-in
+ */
+@Value
+public class ApiEndpoints {
+    public static final ApiEndpoints OSRS = new ApiEndpoints(
+            HttpUrl.parse("https://secure.runescape.com"),
+            HttpUrl.parse("https://oldschool.runescape.wiki/api.php"));
+
+    /**
+     * Root of the hiscores site; the table path and index_lite.ws are appended per lookup
+     */
+    HttpUrl hiscores;
+
+    /**
+     * The MediaWiki api.php endpoint
+     */
+    HttpUrl wiki;
+}
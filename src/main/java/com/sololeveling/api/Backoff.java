@@ -0,0 +1,31 @@
+package com.sololeveling.api;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter.
+ * Each delay is drawn between half and all of the exponential cap, so retries from many clients spread out
+ * instead of arriving in lockstep.
+ */
+public class Backoff {
+    private final long baseMillis;
+    private final long maxMillis;
+
+    public Backoff(long baseMillis, long maxMillis) {
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Delay before the given retry
+     *
+     * @param attempt the number of attempts already made, starting at 1
+     * @return the delay in milliseconds
+     */
+    public long delayMillis(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 20);
+        long cap = Math.min(maxMillis, baseMillis << shift);
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+}
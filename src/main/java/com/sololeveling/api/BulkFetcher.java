@@ -0,0 +1,210 @@
+package com.sololeveling.api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs many independent lookups with bounded parallelism under a shared rate limit.
+ * Results are streamed to a listener as they arrive, and transient failures are retried with jittered backoff.
+ * The fetch function is supplied per batch, so a batch can be pointed at any HTTP endpoint - including a local
+ * stand-in during tests.
+ */
+@Slf4j
+public class BulkFetcher {
+    private final ScheduledExecutorService scheduler;
+    private final TokenBucket rateLimiter;
+    private final Backoff backoff;
+    private volatile int maxConcurrency;
+    private volatile int maxAttempts;
+
+    public BulkFetcher(ScheduledExecutorService scheduler, TokenBucket rateLimiter, Backoff backoff,
+                       int maxConcurrency, int maxAttempts) {
+        this.scheduler = scheduler;
+        this.rateLimiter = rateLimiter;
+        this.backoff = backoff;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Change the parallelism of batches started from now on
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Fetch every key. Duplicate keys are fetched once.
+     *
+     * @param keys the keys to fetch
+     * @param fetcher starts the lookup for a single key
+     * @param listener receives each result or failure as soon as it is known
+     * @return a future completing with every successful result once all keys have finished
+     */
+    public <K, V> CompletableFuture<Map<K, V>> fetchAll(Collection<K> keys, Function<K, CompletableFuture<V>> fetcher,
+                                                        Listener<K, V> listener) {
+        Batch<K, V> batch = new Batch<>(new LinkedHashSet<>(keys), fetcher, listener, maxConcurrency, maxAttempts);
+        batch.pump();
+        return batch.completion;
+    }
+
+    /**
+     * Whether a failure is worth retrying: network errors, throttling and server errors.
+     * An open circuit isn't, since retrying would only wait out the backoff to be rejected again.
+     */
+    static boolean isTransient(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CircuitOpenException) {
+            return false;
+        }
+        if (cause instanceof HttpStatusException) {
+            int status = ((HttpStatusException) cause).getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * Receives results of a bulk fetch as they arrive
+     */
+    public interface Listener<K, V> {
+        void onResult(K key, V value);
+
+        default void onFailure(K key, Throwable error) {
+        }
+    }
+
+    private final class Batch<K, V> {
+        private final Queue<Job<K>> pending = new ArrayDeque<>();
+        private final Map<K, V> results = new ConcurrentHashMap<>();
+        private final CompletableFuture<Map<K, V>> completion = new CompletableFuture<>();
+        private final Function<K, CompletableFuture<V>> fetcher;
+        private final Listener<K, V> listener;
+        private final int concurrency;
+        private final int attempts;
+        private int inFlight;
+        private int remaining;
+
+        Batch(Collection<K> keys, Function<K, CompletableFuture<V>> fetcher, Listener<K, V> listener,
+              int concurrency, int attempts) {
+            this.fetcher = fetcher;
+            this.listener = listener;
+            this.concurrency = concurrency;
+            this.attempts = attempts;
+            for (K key : keys) {
+                pending.add(new Job<>(key));
+            }
+            this.remaining = pending.size();
+            if (remaining == 0) {
+                completion.complete(Collections.emptyMap());
+            }
+        }
+
+        /**
+         * Start queued jobs until the concurrency bound is reached
+         */
+        synchronized void pump() {
+            while (inFlight < concurrency && !pending.isEmpty()) {
+                Job<K> job = pending.poll();
+                inFlight++;
+
+                long waitNanos = rateLimiter.reserve();
+                if (waitNanos > 0) {
+                    scheduler.schedule(() -> launch(job), waitNanos, TimeUnit.NANOSECONDS);
+                } else {
+                    scheduler.execute(() -> launch(job));
+                }
+            }
+        }
+
+        private void launch(Job<K> job) {
+            job.attempt++;
+
+            CompletableFuture<V> future;
+            try {
+                future = fetcher.apply(job.key);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+
+            future.whenComplete((value, ex) -> {
+                if (ex == null) {
+                    results.put(job.key, value);
+                    notify(() -> listener.onResult(job.key, value));
+                    finish();
+                } else if (job.attempt < attempts && isTransient(ex)) {
+                    retry(job);
+                } else {
+                    notify(() -> listener.onFailure(job.key, ex));
+                    finish();
+                }
+            });
+        }
+
+        /**
+         * Give the concurrency slot back while waiting out the backoff, then requeue the job
+         */
+        private void retry(Job<K> job) {
+            long delay = backoff.delayMillis(job.attempt);
+            log.debug("Retrying bulk lookup of {} in {}ms (attempt {})", job.key, delay, job.attempt + 1);
+            synchronized (this) {
+                inFlight--;
+            }
+            scheduler.schedule(() -> {
+                synchronized (this) {
+                    pending.add(job);
+                }
+                pump();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void finish() {
+            boolean done;
+            synchronized (this) {
+                inFlight--;
+                done = --remaining == 0;
+            }
+
+            if (done) {
+                completion.complete(results);
+            } else {
+                pump();
+            }
+        }
+
+        private void notify(Runnable callback) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.warn("Bulk lookup listener threw", e);
+            }
+        }
+    }
+
+    private static final class Job<K> {
+        private final K key;
+        private int attempt;
+
+        Job(K key) {
+            this.key = key;
+        }
+    }
+}
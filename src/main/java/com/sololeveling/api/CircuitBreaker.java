@@ -0,0 +1,127 @@
+package com.sololeveling.api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for a single upstream.
+ * After enough consecutive failures the circuit opens and requests are rejected without touching the network.
+ * Once the cool-down has passed a single probe is let through (half-open): if it succeeds the circuit closes,
+ * otherwise it opens again for another cool-down.
+ * Each granted request carries a permit naming the open it was let through after, so a slow answer to a request
+ * sent before the circuit last opened can't close it or trip it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    // Bumped every time the circuit opens, and handed out as the permit for requests let through after it
+    private long generation;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long rejected;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDuration, TimeUnit unit) {
+        this(name, failureThreshold, openDuration, unit, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, long openDuration, TimeUnit unit, LongSupplier nanoClock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Ask to send a request. Every granted request must be followed by exactly one of
+     * {@link #onSuccess}, {@link #onFailure} or {@link #onIgnored}, passing back its permit.
+     *
+     * @return the request's permit, or -1 if the request should fail fast instead
+     */
+    public synchronized long tryAcquire() {
+        switch (state) {
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    rejected++;
+                    return -1;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return generation;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    rejected++;
+                    return -1;
+                }
+                probeInFlight = true;
+                return generation;
+            default:
+                return generation;
+        }
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state != State.CLOSED) {
+            log.info("{} recovered, closing circuit", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * The request ended without saying anything about the upstream's health, e.g. it was cancelled
+     */
+    public synchronized void onIgnored(long permit) {
+        if (permit == generation) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Number of requests failed fast since the breaker was created
+     */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    private void open() {
+        log.warn("{} is failing, pausing requests for {}s", name, TimeUnit.NANOSECONDS.toSeconds(openNanos));
+        state = State.OPEN;
+        generation++;
+        openedAt = nanoClock.getAsLong();
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+}
@@ -0,0 +1,12 @@
+package com.sololeveling.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of making a request while an endpoint's circuit breaker is open
+ */
+public class CircuitOpenException extends IOException {
+    public CircuitOpenException(String endpoint) {
+        super(endpoint + " is unavailable, not sending requests until it recovers");
+    }
+}
@@ -0,0 +1,387 @@
+package com.sololeveling.api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Disk-backed key to blob store for content that rarely changes, such as wiki extracts.
+ * Blobs are appended to a data file that is memory-mapped for reads; an index file maps each key to its blob
+ * along with the HTTP validators (ETag / Last-Modified) needed to revalidate it. Keys missing from disk fall
+ * back to a read-only snapshot bundle shipped inside the plugin jar, whose entries keep the time and validators
+ * they were fetched with, so a stale one can still be served while it is revalidated.
+ */
+@Slf4j
+public class ContentStore {
+    private static final int INDEX_MAGIC = 0x534C4349; // "SLCI"
+    private static final int BUNDLE_MAGIC = 0x534C4342; // "SLCB"
+    private static final int FORMAT_VERSION = 1;
+    // Bundles written before entries kept their validators are ignored
+    private static final int BUNDLE_VERSION = 2;
+
+    // Rewrite the data file on open once this much of it is superseded blobs
+    private static final long COMPACT_MIN_DEAD_BYTES = 1 << 20;
+
+    private final File indexFile;
+    private final File dataFile;
+    private final LongSupplier clock;
+    private final Map<String, Entry> index = new HashMap<>();
+    private final Map<String, Entry> bundle = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long deadBytes;
+    private boolean dirty;
+
+    public ContentStore(File directory, String name) {
+        this(directory, name, System::currentTimeMillis);
+    }
+
+    ContentStore(File directory, String name, LongSupplier clock) {
+        this.indexFile = new File(directory, name + ".idx");
+        this.dataFile = new File(directory, name + ".dat");
+        this.clock = clock;
+    }
+
+    /**
+     * Open the store, loading the index and compacting the data file if it is mostly dead space.
+     * Does file I/O, so call it off the client thread.
+     */
+    public synchronized void open() throws IOException {
+        File directory = dataFile.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        if (!readIndex()) {
+            // No usable index: anything in the data file is unreachable, so start over
+            index.clear();
+            deadBytes = 0;
+            Files.deleteIfExists(dataFile.toPath());
+        }
+
+        if (deadBytes >= COMPACT_MIN_DEAD_BYTES && deadBytes > dataFile.length() / 2) {
+            compact();
+        }
+
+        channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        remap();
+    }
+
+    /**
+     * Load a snapshot bundle as a fallback for keys that aren't on disk yet
+     *
+     * @param in the bundle, as written by {@link #writeBundle}; closed by this method
+     */
+    public synchronized void loadBundle(InputStream in) throws IOException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != BUNDLE_MAGIC || data.readUnsignedByte() != BUNDLE_VERSION) {
+                log.debug("Ignoring content bundle with an unknown format");
+                return;
+            }
+
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = data.readUTF();
+                long fetchedAt = data.readLong();
+                String etag = readOptionalUTF(data);
+                String lastModified = readOptionalUTF(data);
+                byte[] blob = new byte[data.readInt()];
+                data.readFully(blob);
+                bundle.put(key, new Entry(key, -1, blob.length, fetchedAt, etag, lastModified, blob));
+            }
+        }
+        log.debug("Loaded {} bundled content entries", bundle.size());
+    }
+
+    /**
+     * Look up a key on disk, then in the bundle
+     *
+     * @return the entry, or null if the key isn't stored anywhere
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = index.get(key);
+        return entry != null ? entry : bundle.get(key);
+    }
+
+    /**
+     * Read the blob for an entry returned by {@link #get}
+     */
+    public synchronized byte[] read(Entry entry) throws IOException {
+        if (entry.bundled != null) {
+            return entry.bundled;
+        }
+        if (channel == null) {
+            throw new IOException("Content store is not open");
+        }
+
+        if (entry.offset + entry.length > mapped.capacity()) {
+            remap();
+        }
+        byte[] blob = new byte[entry.length];
+        ByteBuffer view = mapped.duplicate();
+        view.position((int) entry.offset);
+        view.get(blob);
+        return blob;
+    }
+
+    /**
+     * Store a blob, replacing any previous value for the key
+     */
+    public synchronized void put(String key, byte[] blob, String etag, String lastModified) throws IOException {
+        if (channel == null) {
+            return;
+        }
+
+        long offset = channel.size();
+        ByteBuffer buffer = ByteBuffer.wrap(blob);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+
+        Entry previous = index.put(key, new Entry(key, offset, blob.length, clock.getAsLong(), etag, lastModified, null));
+        if (previous != null) {
+            deadBytes += previous.length;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Mark an entry as revalidated, e.g. after a 304 Not Modified response. A bundled entry is copied to disk,
+     * so it stays fresh across restarts.
+     */
+    public synchronized void touch(String key) throws IOException {
+        Entry entry = index.get(key);
+        if (entry != null) {
+            index.put(key, new Entry(key, entry.offset, entry.length, clock.getAsLong(),
+                    entry.etag, entry.lastModified, null));
+            dirty = true;
+            return;
+        }
+
+        Entry bundled = bundle.get(key);
+        if (bundled != null) {
+            put(key, bundled.bundled, bundled.etag, bundled.lastModified);
+        }
+    }
+
+    /**
+     * Write the index if it changed since the last flush
+     */
+    public synchronized void flush() throws IOException {
+        if (!dirty || channel == null) {
+            return;
+        }
+        channel.force(false);
+        writeIndex();
+        dirty = false;
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        flush();
+        channel.close();
+        channel = null;
+        mapped = null;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Write every entry, on disk or bundled, as a snapshot bundle in the format read by {@link #loadBundle}. Each
+     * keeps the time it was fetched and its validators.
+     */
+    public synchronized void writeBundle(OutputStream out) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>(bundle);
+        entries.putAll(index);
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(BUNDLE_MAGIC);
+        data.writeByte(BUNDLE_VERSION);
+        data.writeInt(entries.size());
+        for (Entry entry : entries.values()) {
+            byte[] blob = read(entry);
+            data.writeUTF(entry.key);
+            data.writeLong(entry.fetchedAt);
+            writeOptionalUTF(data, entry.etag);
+            writeOptionalUTF(data, entry.lastModified);
+            data.writeInt(blob.length);
+            data.write(blob);
+        }
+        data.flush();
+    }
+
+    private void remap() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    /**
+     * @return false if the index is missing, from another format, or disagrees with the data file
+     */
+    private boolean readIndex() throws IOException {
+        if (!indexFile.exists() || !dataFile.exists()) {
+            return false;
+        }
+
+        long dataLength = dataFile.length();
+        long liveBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readUnsignedByte() != FORMAT_VERSION) {
+                return false;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                long offset = in.readLong();
+                int length = in.readInt();
+                long fetchedAt = in.readLong();
+                String etag = readOptionalUTF(in);
+                String lastModified = readOptionalUTF(in);
+                if (offset + length > dataLength) {
+                    return false;
+                }
+                index.put(key, new Entry(key, offset, length, fetchedAt, etag, lastModified, null));
+                liveBytes += length;
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+
+        deadBytes = dataLength - liveBytes;
+        return true;
+    }
+
+    private void writeIndex() throws IOException {
+        File temp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(index.size());
+            for (Entry entry : index.values()) {
+                out.writeUTF(entry.key);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.length);
+                out.writeLong(entry.fetchedAt);
+                writeOptionalUTF(out, entry.etag);
+                writeOptionalUTF(out, entry.lastModified);
+            }
+        }
+        Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Copy live blobs into a fresh data file. Only called before the data file is mapped.
+     */
+    private void compact() throws IOException {
+        File temp = new File(dataFile.getPath() + ".tmp");
+        Map<String, Entry> compacted = new LinkedHashMap<>();
+        try (FileChannel source = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Entry entry : index.values()) {
+                long copied = 0;
+                while (copied < entry.length) {
+                    copied += source.transferTo(entry.offset + copied, entry.length - copied, target);
+                }
+                compacted.put(entry.key, new Entry(entry.key, position, entry.length, entry.fetchedAt,
+                        entry.etag, entry.lastModified, null));
+                position += entry.length;
+            }
+            target.force(false);
+        }
+
+        Files.move(temp.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Compacted {}, reclaimed {} bytes", dataFile, deadBytes);
+        index.clear();
+        index.putAll(compacted);
+        deadBytes = 0;
+        writeIndex();
+    }
+
+    private static String readOptionalUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeOptionalUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Where a blob lives and how to revalidate it
+     */
+    public static final class Entry {
+        private final String key;
+        private final long offset;
+        private final int length;
+        private final long fetchedAt;
+        private final String etag;
+        private final String lastModified;
+        private final byte[] bundled;
+
+        private Entry(String key, long offset, int length, long fetchedAt, String etag, String lastModified, byte[] bundled) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+            this.fetchedAt = fetchedAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.bundled = bundled;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * When the blob was fetched or last revalidated, in epoch millis
+         */
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Whether the blob came from the bundled snapshot rather than the on-disk store
+         */
+        public boolean isBundled() {
+            return bundled != null;
+        }
+    }
+}
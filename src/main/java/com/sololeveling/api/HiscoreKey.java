@@ -0,0 +1,26 @@
+package com.sololeveling.api;
+
+import lombok.Value;
+import net.runelite.client.util.Text;
+
+import java.util.Locale;
+
+/**
+ * Cache key for a hiscores lookup: a normalized username on a specific hiscore table
+ */
+@Value
+public class HiscoreKey {
+    String username;
+    HiscoreType type;
+
+    /**
+     * Build a key, normalizing the username so "Zezima", "zezima " and "zezima_" share an entry
+     */
+    public static HiscoreKey of(String username, HiscoreType type) {
+        return new HiscoreKey(normalize(username), type);
+    }
+
+    static String normalize(String username) {
+        return Text.toJagexName(username).toLowerCase(Locale.ROOT);
+    }
+}
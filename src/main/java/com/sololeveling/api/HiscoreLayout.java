@@ -0,0 +1,109 @@
+package com.sololeveling.api;
+
+import net.runelite.api.Skill;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Row layout of the index_lite hiscores format.
+ * Skill rows ("rank,level,xp") come first in the order below, followed by activity, clue and boss rows
+ * ("rank,score"). Rows Jagex appends after these tables are still parsed, they just have no name.
+ */
+public final class HiscoreLayout {
+    // Resolved by name so the table keeps working on clients that don't know every skill yet
+    private static final String[] SKILL_ROWS = {
+            "OVERALL", "ATTACK", "DEFENCE", "STRENGTH", "HITPOINTS", "RANGED", "PRAYER", "MAGIC",
+            "COOKING", "WOODCUTTING", "FLETCHING", "FISHING", "FIREMAKING", "CRAFTING", "SMITHING",
+            "MINING", "HERBLORE", "AGILITY", "THIEVING", "SLAYER", "FARMING", "RUNECRAFT", "HUNTER",
+            "CONSTRUCTION", "SAILING"
+    };
+
+    private static final String[] ACTIVITY_ROWS = {
+            "League Points", "Deadman Points",
+            "Bounty Hunter - Hunter", "Bounty Hunter - Rogue",
+            "Bounty Hunter (Legacy) - Hunter", "Bounty Hunter (Legacy) - Rogue",
+            "Clue Scrolls (all)", "Clue Scrolls (beginner)", "Clue Scrolls (easy)", "Clue Scrolls (medium)",
+            "Clue Scrolls (hard)", "Clue Scrolls (elite)", "Clue Scrolls (master)",
+            "LMS - Rank", "PvP Arena - Rank", "Soul Wars Zeal", "Rifts closed", "Colosseum Glory",
+            "Collections Logged",
+            "Abyssal Sire", "Alchemical Hydra", "Amoxliatl", "Araxxor", "Artio", "Barrows Chests",
+            "Bryophyta", "Callisto", "Cal'varion", "Cerberus", "Chambers of Xeric",
+            "Chambers of Xeric: Challenge Mode", "Chaos Elemental", "Chaos Fanatic", "Commander Zilyana",
+            "Corporeal Beast", "Crazy Archaeologist", "Dagannoth Prime", "Dagannoth Rex", "Dagannoth Supreme",
+            "Deranged Archaeologist", "Doom of Mokhaiotl", "Duke Sucellus", "General Graardor", "Giant Mole",
+            "Grotesque Guardians", "Hespori", "Kalphite Queen", "King Black Dragon", "Kraken", "Kree'Arra",
+            "K'ril Tsutsaroth", "Lunar Chests", "Mimic", "Nex", "Nightmare", "Phosani's Nightmare", "Obor",
+            "Phantom Muspah", "Sarachnis", "Scorpia", "Scurrius", "Skotizo", "Sol Heredit", "Spindel",
+            "Tempoross", "The Gauntlet", "The Corrupted Gauntlet", "The Hueycoatl", "The Leviathan",
+            "The Royal Titans", "The Whisperer", "Theatre of Blood", "Theatre of Blood: Hard Mode",
+            "Thermonuclear Smoke Devil", "Tombs of Amascut", "Tombs of Amascut: Expert Mode", "TzKal-Zuk",
+            "TzTok-Jad", "Vardorvis", "Venenatis", "Vet'ion", "Vorkath", "Wintertodt", "Yama", "Zalcano",
+            "Zulrah"
+    };
+
+    private static final Skill[] SKILLS_BY_ROW = new Skill[SKILL_ROWS.length];
+    private static final int[] ROW_BY_SKILL = new int[Skill.values().length];
+    private static final Map<String, Integer> ROW_BY_ACTIVITY = new HashMap<>();
+
+    static {
+        Arrays.fill(ROW_BY_SKILL, -1);
+        for (Skill skill : Skill.values()) {
+            for (int row = 0; row < SKILL_ROWS.length; row++) {
+                if (SKILL_ROWS[row].equals(skill.name())) {
+                    SKILLS_BY_ROW[row] = skill;
+                    ROW_BY_SKILL[skill.ordinal()] = row;
+                }
+            }
+        }
+        for (int row = 0; row < ACTIVITY_ROWS.length; row++) {
+            ROW_BY_ACTIVITY.put(ACTIVITY_ROWS[row], row);
+        }
+    }
+
+    private HiscoreLayout() {
+    }
+
+    /**
+     * Number of named skill rows, including overall
+     */
+    public static int skillRowCount() {
+        return SKILL_ROWS.length;
+    }
+
+    /**
+     * Number of named activity rows
+     */
+    public static int activityRowCount() {
+        return ACTIVITY_ROWS.length;
+    }
+
+    /**
+     * The skill on a skill row, or null if the row is unknown to this client
+     */
+    public static Skill getSkill(int row) {
+        return row >= 0 && row < SKILLS_BY_ROW.length ? SKILLS_BY_ROW[row] : null;
+    }
+
+    /**
+     * The skill row for a skill, or -1 if hiscores don't list it
+     */
+    public static int getSkillRow(Skill skill) {
+        return ROW_BY_SKILL[skill.ordinal()];
+    }
+
+    /**
+     * The name of an activity row, or null for rows added after this table
+     */
+    public static String getActivityName(int row) {
+        return row >= 0 && row < ACTIVITY_ROWS.length ? ACTIVITY_ROWS[row] : null;
+    }
+
+    /**
+     * The activity row for a name such as "Zulrah" or "Clue Scrolls (all)", or -1 if unknown
+     */
+    public static int getActivityRow(String name) {
+        return ROW_BY_ACTIVITY.getOrDefault(name, -1);
+    }
+}
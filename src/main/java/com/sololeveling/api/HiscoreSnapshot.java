@@ -0,0 +1,177 @@
+package com.sololeveling.api;
+
+import net.runelite.api.Skill;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable, compact copy of a player's hiscores taken at a point in time.
+ * Values are stored column-wise in flat arrays indexed by hiscores row (see {@link HiscoreLayout}):
+ * rank/level/xp for skills and rank/score for activities, bosses and clues.
+ * Unranked entries hold -1.
+ */
+public final class HiscoreSnapshot {
+    private final long fetchedAt;
+    private final int[] skillRanks;
+    private final int[] skillLevels;
+    private final long[] skillExperience;
+    private final int[] activityRanks;
+    private final int[] activityScores;
+
+    HiscoreSnapshot(long fetchedAt, int[] skillRanks, int[] skillLevels, long[] skillExperience,
+                    int[] activityRanks, int[] activityScores) {
+        this.fetchedAt = fetchedAt;
+        this.skillRanks = skillRanks;
+        this.skillLevels = skillLevels;
+        this.skillExperience = skillExperience;
+        this.activityRanks = activityRanks;
+        this.activityScores = activityScores;
+    }
+
+    /**
+     * Build a snapshot from per-skill data. Skills missing from the map are treated as unranked.
+     */
+    public static HiscoreSnapshot fromSkillMap(Map<Skill, OsrsApiManager.PlayerSkillData> skillData, long fetchedAt) {
+        int rows = HiscoreLayout.skillRowCount();
+        int[] ranks = new int[rows];
+        int[] levels = new int[rows];
+        long[] experience = new long[rows];
+        Arrays.fill(ranks, -1);
+        Arrays.fill(levels, -1);
+        Arrays.fill(experience, -1);
+
+        for (Map.Entry<Skill, OsrsApiManager.PlayerSkillData> entry : skillData.entrySet()) {
+            int row = HiscoreLayout.getSkillRow(entry.getKey());
+            if (row >= 0) {
+                ranks[row] = entry.getValue().getRank();
+                levels[row] = entry.getValue().getLevel();
+                experience[row] = entry.getValue().getExperience();
+            }
+        }
+
+        return new HiscoreSnapshot(fetchedAt, ranks, levels, experience, new int[0], new int[0]);
+    }
+
+    /**
+     * When this snapshot was fetched, in epoch millis
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public int getRank(Skill skill) {
+        int row = skillRow(skill);
+        return row < 0 ? -1 : skillRanks[row];
+    }
+
+    /**
+     * The skill's level, or 1 if the player is unranked in it
+     */
+    public int getLevel(Skill skill) {
+        int row = skillRow(skill);
+        return row < 0 || skillLevels[row] < 0 ? 1 : skillLevels[row];
+    }
+
+    /**
+     * The skill's experience, or 0 if the player is unranked in it
+     */
+    public long getExperience(Skill skill) {
+        int row = skillRow(skill);
+        return row < 0 || skillExperience[row] < 0 ? 0 : skillExperience[row];
+    }
+
+    /**
+     * Number of activity rows in this snapshot, which may exceed the rows {@link HiscoreLayout} can name
+     */
+    public int getActivityCount() {
+        return activityRanks.length;
+    }
+
+    public int getActivityRank(int row) {
+        return row >= 0 && row < activityRanks.length ? activityRanks[row] : -1;
+    }
+
+    /**
+     * Score, kill count or clue count on an activity row, or -1 if unranked
+     */
+    public int getActivityScore(int row) {
+        return row >= 0 && row < activityScores.length ? activityScores[row] : -1;
+    }
+
+    /**
+     * Score for a named activity such as "Zulrah" or "Clue Scrolls (all)", or -1 if unranked or unknown
+     */
+    public int getActivityScore(String activity) {
+        return getActivityScore(HiscoreLayout.getActivityRow(activity));
+    }
+
+    /**
+     * Expand the snapshot into the per-skill map returned by the original API
+     */
+    public Map<Skill, OsrsApiManager.PlayerSkillData> toSkillMap() {
+        Map<Skill, OsrsApiManager.PlayerSkillData> skillData = new EnumMap<>(Skill.class);
+        for (int row = 0; row < skillRanks.length; row++) {
+            Skill skill = HiscoreLayout.getSkill(row);
+            if (skill == null || skill == Skill.OVERALL) {
+                continue;
+            }
+            skillData.put(skill, new OsrsApiManager.PlayerSkillData(skillRanks[row], getLevel(skill), getExperience(skill)));
+        }
+        return skillData;
+    }
+
+    private int skillRow(Skill skill) {
+        int row = HiscoreLayout.getSkillRow(skill);
+        return row < skillRanks.length ? row : -1;
+    }
+
+    /**
+     * Serialize the snapshot for the on-disk cache
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(fetchedAt);
+        out.writeByte(skillRanks.length);
+        for (int i = 0; i < skillRanks.length; i++) {
+            out.writeInt(skillRanks[i]);
+            out.writeShort(skillLevels[i]);
+            out.writeLong(skillExperience[i]);
+        }
+        out.writeShort(activityRanks.length);
+        for (int i = 0; i < activityRanks.length; i++) {
+            out.writeInt(activityRanks[i]);
+            out.writeInt(activityScores[i]);
+        }
+    }
+
+    /**
+     * Read a snapshot written by {@link #writeTo}
+     */
+    static HiscoreSnapshot readFrom(DataInput in) throws IOException {
+        long fetchedAt = in.readLong();
+
+        int skills = in.readUnsignedByte();
+        int[] skillRanks = new int[skills];
+        int[] skillLevels = new int[skills];
+        long[] skillExperience = new long[skills];
+        for (int i = 0; i < skills; i++) {
+            skillRanks[i] = in.readInt();
+            skillLevels[i] = in.readShort();
+            skillExperience[i] = in.readLong();
+        }
+
+        int activities = in.readUnsignedShort();
+        int[] activityRanks = new int[activities];
+        int[] activityScores = new int[activities];
+        for (int i = 0; i < activities; i++) {
+            activityRanks[i] = in.readInt();
+            activityScores[i] = in.readInt();
+        }
+
+        return new HiscoreSnapshot(fetchedAt, skillRanks, skillLevels, skillExperience, activityRanks, activityScores);
+    }
+}
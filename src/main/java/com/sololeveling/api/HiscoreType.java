@@ -0,0 +1,28 @@
+package com.sololeveling.api;
+
+/**
+ * The hiscore tables a player can be looked up on
+ */
+public enum HiscoreType {
+    NORMAL("hiscore_oldschool"),
+    IRONMAN("hiscore_oldschool_ironman"),
+    HARDCORE_IRONMAN("hiscore_oldschool_hardcore_ironman"),
+    ULTIMATE_IRONMAN("hiscore_oldschool_ultimate"),
+    DEADMAN("hiscore_oldschool_deadman"),
+    SEASONAL("hiscore_oldschool_seasonal"),
+    TOURNAMENT("hiscore_oldschool_tournament"),
+    FRESH_START("hiscore_oldschool_fresh_start");
+
+    private final String path;
+
+    HiscoreType(String path) {
+        this.path = path;
+    }
+
+    /**
+     * The "m=" path segment used by the hiscores site for this table
+     */
+    public String getPath() {
+        return path;
+    }
+}
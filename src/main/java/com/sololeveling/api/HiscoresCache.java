@@ -0,0 +1,194 @@
+package com.sololeveling.api;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded LRU cache of hiscore snapshots.
+ * Entries older than the TTL are still served, but flagged stale so the caller can revalidate them.
+ * The cache can be written to disk on shutdown and reloaded on startup.
+ */
+@Slf4j
+public class HiscoresCache {
+    private static final int FILE_MAGIC = 0x534C4843; // "SLHC"
+    private static final int FILE_VERSION = 2;
+
+    private final LinkedHashMap<HiscoreKey, HiscoreSnapshot> entries = new LinkedHashMap<HiscoreKey, HiscoreSnapshot>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<HiscoreKey, HiscoreSnapshot> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongSupplier clock;
+    private volatile long ttlMillis;
+    private volatile int maxEntries;
+
+    public HiscoresCache(long ttl, TimeUnit unit, int maxEntries) {
+        this(ttl, unit, maxEntries, System::currentTimeMillis);
+    }
+
+    HiscoresCache(long ttl, TimeUnit unit, int maxEntries, LongSupplier clock) {
+        this.clock = clock;
+        configure(ttl, unit, maxEntries);
+    }
+
+    /**
+     * Change the TTL and size bound. Shrinking the bound evicts least recently used entries immediately.
+     */
+    public synchronized void configure(long ttl, TimeUnit unit, int maxEntries) {
+        this.ttlMillis = unit.toMillis(ttl);
+        this.maxEntries = Math.max(1, maxEntries);
+
+        while (entries.size() > this.maxEntries) {
+            HiscoreKey eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Look up a snapshot, recording a hit, stale hit or miss
+     *
+     * @return the cached snapshot, possibly stale, or null
+     */
+    public synchronized HiscoreSnapshot get(HiscoreKey key) {
+        HiscoreSnapshot snapshot = entries.get(key);
+        if (snapshot == null) {
+            misses.increment();
+        } else if (isStale(snapshot)) {
+            staleHits.increment();
+        } else {
+            hits.increment();
+        }
+        return snapshot;
+    }
+
+    public synchronized void put(HiscoreKey key, HiscoreSnapshot snapshot) {
+        entries.put(key, snapshot);
+    }
+
+    public synchronized void invalidate(HiscoreKey key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Whether a snapshot has outlived the TTL and should be revalidated
+     */
+    public boolean isStale(HiscoreSnapshot snapshot) {
+        return clock.getAsLong() - snapshot.getFetchedAt() > ttlMillis;
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), staleHits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    /**
+     * Write all entries to disk, least recently used first so the access order survives a reload
+     */
+    public void save(File file) throws IOException {
+        List<Map.Entry<HiscoreKey, HiscoreSnapshot>> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries.entrySet());
+        }
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create " + parent);
+        }
+
+        // Write to a temp file and move it into place so a crash can't leave a half-written cache
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeByte(FILE_VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<HiscoreKey, HiscoreSnapshot> entry : snapshot) {
+                out.writeUTF(entry.getKey().getUsername());
+                out.writeByte(entry.getKey().getType().ordinal());
+                entry.getValue().writeTo(out);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Saved {} hiscore snapshots to {}", snapshot.size(), file);
+    }
+
+    /**
+     * Warm the cache from disk. Files from another format version are ignored.
+     */
+    public void load(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        HiscoreType[] types = HiscoreType.values();
+        Map<HiscoreKey, HiscoreSnapshot> loaded = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readUnsignedByte() != FILE_VERSION) {
+                log.debug("Ignoring hiscores cache with an unknown layout: {}", file);
+                return;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String username = in.readUTF();
+                int type = in.readUnsignedByte();
+                HiscoreSnapshot value = HiscoreSnapshot.readFrom(in);
+                if (type < types.length) {
+                    loaded.put(new HiscoreKey(username, types[type]), value);
+                }
+            }
+        }
+
+        synchronized (this) {
+            // Entries fetched while we were loading are newer, so keep them
+            for (Map.Entry<HiscoreKey, HiscoreSnapshot> entry : loaded.entrySet()) {
+                entries.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        log.debug("Loaded {} hiscore snapshots from {}", loaded.size(), file);
+    }
+
+    /**
+     * Point-in-time cache counters
+     */
+    @Value
+    public static class Stats {
+        long hits;
+        long staleHits;
+        long misses;
+        long evictions;
+        int size;
+    }
+}
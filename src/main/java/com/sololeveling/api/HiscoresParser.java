@@ -0,0 +1,172 @@
+package com.sololeveling.api;
+
+import com.sololeveling.util.ExperienceTable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for the index_lite hiscores format.
+ * Works directly on bytes - no lines, Strings or boxed numbers are created - and fills the columns of a
+ * {@link HiscoreSnapshot}. Rows with three fields are skills, rows with two fields are activities, so the
+ * whole payload is read regardless of how many rows Jagex adds.
+ */
+public final class HiscoresParser {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_FIELDS = 3;
+
+    // Scratch space reused by each thread so parsing only allocates the snapshot's own arrays
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private HiscoresParser() {
+    }
+
+    /**
+     * Parse a complete index_lite payload from a stream
+     *
+     * @param in the response body; not closed by this method
+     * @param fetchedAt the time to stamp on the snapshot
+     */
+    public static HiscoreSnapshot parse(InputStream in, long fetchedAt) throws IOException {
+        Scratch scratch = SCRATCH.get();
+        scratch.reset();
+
+        byte[] buffer = scratch.buffer;
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+            scratch.feed(buffer, 0, read);
+        }
+        scratch.endLine();
+        return scratch.toSnapshot(fetchedAt);
+    }
+
+    /**
+     * Parse a complete index_lite payload already held in memory
+     */
+    public static HiscoreSnapshot parse(byte[] payload, int offset, int length, long fetchedAt) {
+        Scratch scratch = SCRATCH.get();
+        scratch.reset();
+        scratch.feed(payload, offset, length);
+        scratch.endLine();
+        return scratch.toSnapshot(fetchedAt);
+    }
+
+    private static final class Scratch {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final long[] fields = new long[MAX_FIELDS];
+
+        private int[] skillRanks = new int[32];
+        private int[] skillLevels = new int[32];
+        private long[] skillExperience = new long[32];
+        private int skillCount;
+
+        private int[] activityRanks = new int[128];
+        private int[] activityScores = new int[128];
+        private int activityCount;
+
+        // Per-line state
+        private int fieldCount;
+        private long value;
+        private boolean negative;
+        private boolean digits;
+        private boolean malformed;
+
+        void reset() {
+            skillCount = 0;
+            activityCount = 0;
+            resetLine();
+        }
+
+        void feed(byte[] data, int offset, int length) {
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                byte b = data[i];
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    digits = true;
+                } else if (b == ',') {
+                    endField();
+                } else if (b == '\n') {
+                    endLine();
+                } else if (b == '-' && !digits && !negative) {
+                    negative = true;
+                } else if (b != '\r' && b != ' ') {
+                    malformed = true;
+                }
+            }
+        }
+
+        private void endField() {
+            if (fieldCount < MAX_FIELDS) {
+                fields[fieldCount] = malformed || !digits ? -1 : (negative ? -value : value);
+            }
+            fieldCount++;
+            value = 0;
+            negative = false;
+            digits = false;
+            malformed = false;
+        }
+
+        void endLine() {
+            if (fieldCount == 0 && !digits && !negative && !malformed) {
+                // Blank line, or the trailing newline at the end of the payload
+                return;
+            }
+            endField();
+
+            if (fieldCount == 3) {
+                addSkill((int) fields[0], (int) fields[1], fields[2]);
+            } else if (fieldCount == 2) {
+                addActivity((int) fields[0], (int) fields[1]);
+            }
+            resetLine();
+        }
+
+        private void resetLine() {
+            fieldCount = 0;
+            value = 0;
+            negative = false;
+            digits = false;
+            malformed = false;
+        }
+
+        private void addSkill(int rank, int level, long xp) {
+            if (skillCount == skillRanks.length) {
+                int capacity = skillCount * 2;
+                skillRanks = Arrays.copyOf(skillRanks, capacity);
+                skillLevels = Arrays.copyOf(skillLevels, capacity);
+                skillExperience = Arrays.copyOf(skillExperience, capacity);
+            }
+            // A skill row with XP but no usable level gets the level from the curve; the first row is the overall
+            // total, whose XP doesn't map to a level
+            if (level < 0 && xp >= 0 && skillCount > 0) {
+                level = ExperienceTable.getRealLevelForXp(xp);
+            }
+            skillRanks[skillCount] = rank;
+            skillLevels[skillCount] = level;
+            skillExperience[skillCount] = xp;
+            skillCount++;
+        }
+
+        private void addActivity(int rank, int score) {
+            if (activityCount == activityRanks.length) {
+                int capacity = activityCount * 2;
+                activityRanks = Arrays.copyOf(activityRanks, capacity);
+                activityScores = Arrays.copyOf(activityScores, capacity);
+            }
+            activityRanks[activityCount] = rank;
+            activityScores[activityCount] = score;
+            activityCount++;
+        }
+
+        HiscoreSnapshot toSnapshot(long fetchedAt) {
+            return new HiscoreSnapshot(fetchedAt,
+                    Arrays.copyOf(skillRanks, skillCount),
+                    Arrays.copyOf(skillLevels, skillCount),
+                    Arrays.copyOf(skillExperience, skillCount),
+                    Arrays.copyOf(activityRanks, activityCount),
+                    Arrays.copyOf(activityScores, activityCount));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.sololeveling.api;
+
+import okhttp3.HttpUrl;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an OSRS endpoint answers with a non-successful HTTP status
+ */
+public class HttpStatusException extends IOException {
+    private final int statusCode;
+
+    public HttpStatusException(HttpUrl url, int statusCode) {
+        super("HTTP " + statusCode + " from " + url);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,69 @@
+package com.sololeveling.api;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets.
+ * Each power of two is split into four buckets, so reported percentiles are within about 25% of the true
+ * value from 1ms up to a minute, using a few hundred bytes regardless of how many samples are recorded.
+ */
+public class LatencyHistogram {
+    private static final long[] BUCKET_LIMITS_MILLIS = bucketLimits(65_536);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_LIMITS_MILLIS.length + 1);
+    private final LongAdder total = new LongAdder();
+
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int index = Arrays.binarySearch(BUCKET_LIMITS_MILLIS, millis);
+        counts.incrementAndGet(index >= 0 ? index : -index - 1);
+        total.increment();
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile
+     *
+     * @param percentile between 0 and 1, e.g. 0.99
+     * @return latency in milliseconds, or -1 if nothing has been recorded
+     */
+    public long getPercentileMillis(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return -1;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return i < BUCKET_LIMITS_MILLIS.length ? BUCKET_LIMITS_MILLIS[i] : Long.MAX_VALUE;
+            }
+        }
+        return BUCKET_LIMITS_MILLIS[BUCKET_LIMITS_MILLIS.length - 1];
+    }
+
+    /**
+     * Inclusive bucket limits 0 to 7, then four per power of two: 9, 11, 13, 15, 19, 23, 27, 31...
+     */
+    private static long[] bucketLimits(long max) {
+        long[] limits = new long[128];
+        int n = 0;
+        for (long limit = 0; limit < 4; limit++) {
+            limits[n++] = limit;
+        }
+        for (long power = 4; power < max; power <<= 1) {
+            long step = power / 4;
+            for (int i = 0; i < 4; i++) {
+                limits[n++] = power + step * (i + 1) - 1;
+            }
+        }
+        return Arrays.copyOf(limits, n);
+    }
+}
@@ -1,233 +1,763 @@
 package com.sololeveling.api;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Skill;
-
-import java.io.BufferedReader;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
- * Manages API calls to the OSRS Hiscores and Wiki
+ * Manages API calls to the OSRS Hiscores and Wiki.
+ * All lookups run asynchronously on RuneLite's shared OkHttp client and never block the caller.
  */
 @Slf4j
+@Singleton
 public class OsrsApiManager {
-    private static final String HISCORE_ENDPOINT = "https://secure.runescape.com/m=hiscore_oldschool/index_lite.ws?player=";
-    private static final String WIKI_API_ENDPOINT = "https://oldschool.runescape.wiki/api.php";
+    private static final String WIKI_PAGE_URL = "https://oldschool.runescape.wiki/w/";
     private static final String USER_AGENT = "SoloLevelingPlugin/1.0";
 
-    private final Gson gson = new Gson();
+    private static final long CONNECT_TIMEOUT_SECONDS = 5;
+    private static final long READ_TIMEOUT_SECONDS = 10;
+    // Bounds a whole attempt, so a server trickling bytes can't hold a connection past this
+    private static final long CALL_TIMEOUT_SECONDS = 15;
+
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    private static final long CIRCUIT_OPEN_SECONDS = 30;
+    private static final int ENDPOINT_MAX_ATTEMPTS = 2;
+
+    private static final File HISCORES_CACHE_FILE = new File(RuneLite.RUNELITE_DIR, "solo-leveling/hiscores.cache");
+    private static final int DEFAULT_HISCORES_CACHE_TTL_MINUTES = 30;
+    private static final int DEFAULT_HISCORES_CACHE_SIZE = 200;
+
+    private static final File WIKI_CONTENT_DIR = new File(RuneLite.RUNELITE_DIR, "solo-leveling");
+    private static final String WIKI_SNAPSHOT_RESOURCE = "/com/sololeveling/wiki-snapshot.bin";
+    // Wiki pages rarely change, so stored copies are served as-is for a week before being revalidated
+    private static final long WIKI_CONTENT_TTL_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final int DEFAULT_BULK_CONCURRENCY = 4;
+    private static final int DEFAULT_BULK_REQUESTS_PER_SECOND = 2;
+    private static final int BULK_BURST = 5;
+    // Each bulk attempt is already retried once by the endpoint, so this bounds a player at four requests
+    private static final int BULK_MAX_ATTEMPTS = 2;
+
+    // MediaWiki accepts 50 titles per query, but TextExtracts only returns 20 intro extracts per request
+    private static final int WIKI_TITLES_PER_REQUEST = 20;
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final OkHttpClient httpClient;
+    private final Gson gson;
+    private final ClientThread clientThread;
+    private final HttpUrl hiscoreEndpoint;
+    private final HttpUrl wikiEndpoint;
+    private final ResilientEndpoint hiscoreApi;
+    private final ResilientEndpoint wikiApi;
+
+    // Shared by every bulk lookup so concurrent batches together stay under the hiscores rate limit
+    private final TokenBucket hiscoreRateLimiter = new TokenBucket(DEFAULT_BULK_REQUESTS_PER_SECOND, BULK_BURST);
+    private final BulkFetcher bulkFetcher;
+
+    private final HiscoresCache hiscoresCache = new HiscoresCache(
+            DEFAULT_HISCORES_CACHE_TTL_MINUTES, TimeUnit.MINUTES, DEFAULT_HISCORES_CACHE_SIZE);
+    private final ContentStore wikiContent;
+
+    // Concurrent lookups of the same player, search term or wiki title share one request
+    private final SingleFlight<HiscoreKey, HiscoreSnapshot> hiscoreFlights = new SingleFlight<>();
+    private final SingleFlight<String, WikiSearchResult> wikiSearchFlights = new SingleFlight<>();
+    private final SingleFlight<String, WikiEntityInfo> wikiEntityFlights = new SingleFlight<>();
+
+    @Inject
+    public OsrsApiManager(OkHttpClient okHttpClient, Gson gson, ClientThread clientThread,
+                          ScheduledExecutorService scheduler) {
+        this(okHttpClient, gson, clientThread, scheduler, ApiEndpoints.OSRS);
+    }
+
+    /**
+     * Create a manager talking to alternative endpoints, e.g. a local HTTP stand-in
+     */
+    OsrsApiManager(OkHttpClient okHttpClient, Gson gson, ClientThread clientThread,
+                   ScheduledExecutorService scheduler, ApiEndpoints endpoints) {
+        this(okHttpClient, gson, clientThread, scheduler, endpoints, new ContentStore(WIKI_CONTENT_DIR, "wiki"));
+    }
+
+    /**
+     * Create a manager keeping wiki content in the given store, e.g. one the snapshot bundler writes out
+     */
+    OsrsApiManager(OkHttpClient okHttpClient, Gson gson, ClientThread clientThread,
+                   ScheduledExecutorService scheduler, ApiEndpoints endpoints, ContentStore wikiContent) {
+        // newBuilder() keeps RuneLite's connection pool and dispatcher, so keep-alive connections are
+        // reused across lookups. OkHttp requests and decodes gzip transparently as long as we don't
+        // set Accept-Encoding ourselves.
+        this.httpClient = okHttpClient.newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .callTimeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build();
+        this.gson = gson;
+        this.clientThread = clientThread;
+        this.hiscoreEndpoint = endpoints.getHiscores();
+        this.wikiEndpoint = endpoints.getWiki();
+        this.wikiContent = wikiContent;
+        this.hiscoreApi = newEndpoint("Hiscores", scheduler);
+        this.wikiApi = newEndpoint("Wiki", scheduler);
+        this.bulkFetcher = new BulkFetcher(scheduler, hiscoreRateLimiter, new Backoff(500, 10_000),
+                DEFAULT_BULK_CONCURRENCY, BULK_MAX_ATTEMPTS);
+    }
 
     /**
-     * Get a player's hiscore data
+     * Fetch a player's hiscores snapshot without blocking.
+     * Fresh cached snapshots are returned immediately; stale ones are returned immediately too while a
+     * background request revalidates them.
      *
      * @param username the player's username
-     * @return a map of skills to their level and experience
+     * @param type the hiscore table to look the player up on
+     * @return a future completing with the player's snapshot
      */
-    public Map<Skill, PlayerSkillData> getPlayerHiscores(String username) {
-        Map<Skill, PlayerSkillData> skillData = new HashMap<>();
+    public CompletableFuture<HiscoreSnapshot> getHiscoreSnapshotAsync(String username, HiscoreType type) {
+        HiscoreKey key = HiscoreKey.of(username, type);
+        HiscoreSnapshot cached = hiscoresCache.get(key);
+        if (cached == null) {
+            return fetchHiscores(key);
+        }
 
-        try {
-            URL url = new URL(HISCORE_ENDPOINT + username.replace(" ", "%20"));
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", USER_AGENT);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                String line;
-                int lineNumber = 0;
-
-                // First line is overall
-                reader.readLine();
-                lineNumber++;
-
-                // Parse skill data - format for each line is: rank,level,xp
-                for (Skill skill : Skill.values()) {
-                    if (skill == Skill.OVERALL) {
-                        continue;
-                    }
-
-                    line = reader.readLine();
-                    if (line == null) {
-                        break;
-                    }
-
-                    lineNumber++;
-                    String[] parts = line.split(",");
-                    if (parts.length >= 3) {
-                        int rank = parseInt(parts[0], -1);
-                        int level = parseInt(parts[1], 1);
-                        long xp = parseLong(parts[2], 0);
-
-                        skillData.put(skill, new PlayerSkillData(rank, level, xp));
-                    }
-
-                    // OSRS Hiscores has a specific order, different from Skill enum
-                    // If we reach the end of skills, break
-                    if (lineNumber > 23) {
-                        break;
-                    }
+        if (hiscoresCache.isStale(cached)) {
+            // Repeated stale reads join the revalidation already in flight rather than starting another
+            fetchHiscores(key).whenComplete((snapshot, ex) -> {
+                if (ex != null) {
+                    log.debug("Unable to revalidate hiscores for {}, keeping stale snapshot", key, ex);
                 }
+            });
+        }
+        return CompletableFuture.completedFuture(cached);
+    }
 
-                reader.close();
+    /**
+     * Fetch hiscores for many players at once, e.g. a whole clan or group.
+     * Players with a fresh cached snapshot are reported straight away; the rest are fetched with bounded
+     * parallelism under the shared hiscores rate limit, retrying transient failures with jittered backoff.
+     * Listener callbacks run on the client thread as each player finishes.
+     *
+     * @param usernames the players to look up
+     * @param type the hiscore table to look them up on
+     * @param listener receives each player's snapshot, or the reason it couldn't be fetched
+     * @return a future completing with every snapshot that was found, keyed by the username as given
+     */
+    public CompletableFuture<Map<String, HiscoreSnapshot>> getHiscoreSnapshotsAsync(
+            Collection<String> usernames, HiscoreType type, BulkFetcher.Listener<String, HiscoreSnapshot> listener) {
+        Map<String, HiscoreSnapshot> cachedResults = new ConcurrentHashMap<>();
+        List<String> toFetch = new ArrayList<>();
+        for (String username : usernames) {
+            HiscoreSnapshot cached = hiscoresCache.get(HiscoreKey.of(username, type));
+            if (cached != null && !hiscoresCache.isStale(cached)) {
+                cachedResults.put(username, cached);
+                clientThread.invokeLater(() -> listener.onResult(username, cached));
             } else {
-                log.warn("Failed to fetch hiscore data for player: {}, response code: {}", username, responseCode);
+                toFetch.add(username);
+            }
+        }
+
+        BulkFetcher.Listener<String, HiscoreSnapshot> clientThreadListener = new BulkFetcher.Listener<String, HiscoreSnapshot>() {
+            @Override
+            public void onResult(String username, HiscoreSnapshot snapshot) {
+                clientThread.invokeLater(() -> listener.onResult(username, snapshot));
             }
 
-            connection.disconnect();
-        } catch (IOException e) {
-            log.error("Error fetching hiscore data", e);
+            @Override
+            public void onFailure(String username, Throwable error) {
+                clientThread.invokeLater(() -> listener.onFailure(username, error));
+            }
+        };
+
+        return bulkFetcher.fetchAll(toFetch, username -> fetchHiscores(HiscoreKey.of(username, type)), clientThreadListener)
+                .thenApply(fetched -> {
+                    cachedResults.putAll(fetched);
+                    return cachedResults;
+                });
+    }
+
+    /**
+     * Apply the configured parallelism and request rate to bulk hiscores lookups
+     */
+    public void configureBulkLookups(int maxConcurrency, int requestsPerSecond) {
+        bulkFetcher.setMaxConcurrency(maxConcurrency);
+        hiscoreRateLimiter.setRate(requestsPerSecond, Math.max(requestsPerSecond, BULK_BURST));
+    }
+
+    /**
+     * Fetch a player's hiscore data without blocking
+     *
+     * @param username the player's username
+     * @return a future completing with a map of skills to their level and experience
+     */
+    public CompletableFuture<Map<Skill, PlayerSkillData>> getPlayerHiscoresAsync(String username) {
+        return getHiscoreSnapshotAsync(username, HiscoreType.NORMAL).thenApply(HiscoreSnapshot::toSkillMap);
+    }
+
+    /**
+     * Fetch a player's hiscore data and hand it to the callback on the client thread.
+     * Failures are logged and delivered as an empty map.
+     */
+    public void getPlayerHiscores(String username, Consumer<Map<Skill, PlayerSkillData>> callback) {
+        deliver(getPlayerHiscoresAsync(username), Collections.emptyMap(),
+                "Error fetching hiscore data for " + username, callback);
+    }
+
+    /**
+     * Get a player's hiscore data, blocking until the lookup finishes.
+     * Never call this from the client thread.
+     *
+     * @param username the player's username
+     * @return a map of skills to their level and experience
+     */
+    @VisibleForTesting
+    public Map<Skill, PlayerSkillData> getPlayerHiscores(String username) {
+        return await(getPlayerHiscoresAsync(username), new HashMap<>(), "Error fetching hiscore data");
+    }
+
+    /**
+     * Search the OSRS Wiki without blocking.
+     * Stored results are returned immediately; once they are a week old a background request revalidates them.
+     *
+     * @param searchTerm the term to search for
+     * @return a future completing with the wiki search results
+     */
+    public CompletableFuture<WikiSearchResult> searchWikiAsync(String searchTerm) {
+        String key = searchTerm.trim().toLowerCase(Locale.ROOT);
+        ContentStore.Entry stored = wikiContent.get("search:" + key);
+        WikiSearchResult cached = stored != null ? readContent(stored, blob -> WikiContentCodec.readSearch(searchTerm, blob)) : null;
+        if (cached == null) {
+            return wikiSearchFlights.execute(key, () -> fetchWikiSearch(searchTerm, key, null, null));
+        }
+
+        if (isStale(stored)) {
+            wikiSearchFlights.execute(key, () -> fetchWikiSearch(searchTerm, key, stored, cached)).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.debug("Unable to revalidate wiki search for {}, keeping stored result", searchTerm, ex);
+                }
+            });
         }
+        return CompletableFuture.completedFuture(cached);
+    }
+
+    private CompletableFuture<WikiSearchResult> fetchWikiSearch(String searchTerm, String key,
+                                                                ContentStore.Entry stored, WikiSearchResult cached) {
+        HttpUrl url = wikiEndpoint.newBuilder()
+                .addQueryParameter("action", "opensearch")
+                .addQueryParameter("search", searchTerm)
+                .addQueryParameter("limit", "5")
+                .addQueryParameter("namespace", "0")
+                .addQueryParameter("format", "json")
+                .build();
+        String contentKey = "search:" + key;
+        CompletableFuture<Fetched<WikiSearchResult>> request =
+                fetchRevalidating(wikiApi, url, stored, body -> parseWikiSearch(searchTerm, body));
+        return cancelling(request.thenApply(fetched -> {
+            if (fetched.value == null) {
+                touchContent(contentKey);
+                return cached;
+            }
+            storeContent(contentKey, WikiContentCodec.writeSearch(fetched.value), fetched.etag, fetched.lastModified);
+            return fetched.value;
+        }), request);
+    }
 
-        return skillData;
+    /**
+     * Search the OSRS Wiki and hand the result to the callback on the client thread
+     */
+    public void searchWiki(String searchTerm, Consumer<WikiSearchResult> callback) {
+        deliver(searchWikiAsync(searchTerm), new WikiSearchResult(), "Error searching wiki", callback);
     }
 
     /**
-     * Search the OSRS Wiki for information
+     * Search the OSRS Wiki for information, blocking until the search finishes.
+     * Never call this from the client thread.
      *
      * @param searchTerm the term to search for
      * @return wiki search results
      */
+    @VisibleForTesting
     public WikiSearchResult searchWiki(String searchTerm) {
-        WikiSearchResult result = new WikiSearchResult();
+        return await(searchWikiAsync(searchTerm), new WikiSearchResult(), "Error searching wiki");
+    }
 
-        try {
-            String urlStr = WIKI_API_ENDPOINT + "?action=opensearch&search=" +
-                            searchTerm.replace(" ", "%20") +
-                            "&limit=5&namespace=0&format=json";
-
-            URL url = new URL(urlStr);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", USER_AGENT);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-
-                // Parse the response (opensearch format)
-                String[] searchResult = gson.fromJson(response.toString(), String[].class);
-                if (searchResult.length >= 4) {
-                    result.setSearchTerm(searchTerm);
-                    result.setUrl("https://oldschool.runescape.wiki/w/" + searchResult[1].replace(" ", "_"));
-                    result.setFound(searchResult[1].length() > 0);
+    /**
+     * Get detailed information about an item, monster, or other game entity without blocking
+     *
+     * @param entityName the name of the entity to look up
+     * @return a future completing with the wiki information
+     */
+    public CompletableFuture<WikiEntityInfo> getWikiEntityInfoAsync(String entityName) {
+        return getWikiEntityInfosAsync(Collections.singletonList(entityName)).get(entityName);
+    }
+
+    /**
+     * Look up many entities at once, e.g. to enrich a catalog of monsters, items and quests.
+     * Titles are packed into as few multi-title queries as the API allows, and titles already being looked up
+     * join the request in flight. MediaWiki's normalization and redirects are followed, so "abyssal_demon"
+     * resolves to the same page as "Abyssal demon". Stored extracts, including those from the bundled offline
+     * snapshot, are returned without touching the network until they are a week old.
+     *
+     * @param entityNames the names of the entities to look up
+     * @return a future per requested name, completing as soon as the request carrying it returns
+     */
+    public Map<String, CompletableFuture<WikiEntityInfo>> getWikiEntityInfosAsync(Collection<String> entityNames) {
+        Map<String, CompletableFuture<WikiEntityInfo>> results = new LinkedHashMap<>();
+        List<String> batch = new ArrayList<>();
+        CompletableFuture<Map<String, WikiEntityInfo>> batchResult = new CompletableFuture<>();
+
+        for (String entityName : entityNames) {
+            if (results.containsKey(entityName)) {
+                continue;
+            }
+
+            String title = normalizeWikiTitle(entityName);
+            ContentStore.Entry stored = wikiContent.get(extractKey(title));
+            WikiEntityInfo cached = stored != null ? readContent(stored, WikiContentCodec::readEntityInfo) : null;
+            if (cached != null) {
+                results.put(entityName, CompletableFuture.completedFuture(cached));
+                if (!isStale(stored)) {
+                    continue;
                 }
-            } else {
-                log.warn("Failed to search wiki, response code: {}", responseCode);
             }
 
-            connection.disconnect();
-        } catch (IOException e) {
-            log.error("Error searching wiki", e);
+            // Stale titles ride along with this batch to be revalidated; callers already have the stored copy
+            List<String> targetBatch = batch;
+            CompletableFuture<Map<String, WikiEntityInfo>> targetResult = batchResult;
+            CompletableFuture<WikiEntityInfo> lookup = wikiEntityFlights.execute(title, () -> {
+                // Only titles nobody else is already fetching are added to this request. The request is shared by
+                // the whole batch, so cancelling one title's lookup never cancels it.
+                targetBatch.add(title);
+                return targetResult.thenApply(infos -> infos.getOrDefault(title, notFound(title)));
+            });
+            if (cached == null) {
+                results.put(entityName, lookup);
+            }
+
+            if (batch.size() == WIKI_TITLES_PER_REQUEST) {
+                requestWikiEntityInfos(batch, batchResult);
+                batch = new ArrayList<>();
+                batchResult = new CompletableFuture<>();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            requestWikiEntityInfos(batch, batchResult);
         }
+        return results;
+    }
+
+    /**
+     * Fetch extracts for up to {@link #WIKI_TITLES_PER_REQUEST} titles in a single query and store them.
+     * A response's validators describe the whole batch, so they are only kept, and only sent back for
+     * revalidation, when the query is for a single title.
+     */
+    private void requestWikiEntityInfos(List<String> titles, CompletableFuture<Map<String, WikiEntityInfo>> target) {
+        HttpUrl url = wikiEndpoint.newBuilder()
+                .addQueryParameter("action", "query")
+                .addQueryParameter("prop", "extracts")
+                .addQueryParameter("exintro", "1")
+                .addQueryParameter("explaintext", "1")
+                .addQueryParameter("exlimit", "max")
+                .addQueryParameter("redirects", "1")
+                .addQueryParameter("titles", String.join("|", titles))
+                .addQueryParameter("format", "json")
+                .build();
+
+        boolean single = titles.size() == 1;
+        ContentStore.Entry stored = single ? wikiContent.get(extractKey(titles.get(0))) : null;
+        fetchRevalidating(wikiApi, url, stored, body -> parseWikiEntityInfos(titles, body)).whenComplete((fetched, ex) -> {
+            if (ex != null) {
+                target.completeExceptionally(ex);
+                return;
+            }
 
-        return result;
+            if (fetched.value == null) {
+                touchContent(stored.getKey());
+                WikiEntityInfo cached = readContent(stored, WikiContentCodec::readEntityInfo);
+                target.complete(cached != null ? Collections.singletonMap(titles.get(0), cached) : Collections.emptyMap());
+                return;
+            }
+
+            for (Map.Entry<String, WikiEntityInfo> info : fetched.value.entrySet()) {
+                storeContent(extractKey(info.getKey()), WikiContentCodec.writeEntityInfo(info.getValue()),
+                        single ? fetched.etag : null, single ? fetched.lastModified : null);
+            }
+            target.complete(fetched.value);
+        });
+    }
+
+    /**
+     * Look up wiki information for an entity and hand it to the callback on the client thread
+     */
+    public void getWikiEntityInfo(String entityName, Consumer<WikiEntityInfo> callback) {
+        deliver(getWikiEntityInfoAsync(entityName), notFound(entityName), "Error getting wiki entity info", callback);
     }
 
     /**
-     * Get detailed information about an item, monster, or other game entity
+     * Get detailed information about an item, monster, or other game entity, blocking until the lookup finishes.
+     * Never call this from the client thread.
      *
      * @param entityName the name of the entity to look up
      * @return detailed wiki information
      */
+    @VisibleForTesting
     public WikiEntityInfo getWikiEntityInfo(String entityName) {
-        WikiEntityInfo info = new WikiEntityInfo();
-        info.setName(entityName);
+        return await(getWikiEntityInfoAsync(entityName), notFound(entityName), "Error getting wiki entity info");
+    }
+
+    /**
+     * Get a wiki URL for a specific entity
+     *
+     * @param entityName the name of the entity
+     * @return the wiki URL
+     */
+    public String getWikiUrl(String entityName) {
+        return WIKI_PAGE_URL + entityName.replace(" ", "_");
+    }
+
+    /**
+     * Apply the configured TTL and size bound to the hiscores cache
+     */
+    public void configureHiscoresCache(int ttlMinutes, int maxEntries) {
+        hiscoresCache.configure(ttlMinutes, TimeUnit.MINUTES, maxEntries);
+    }
+
+    /**
+     * Hit, miss and eviction counters for the hiscores cache
+     */
+    public HiscoresCache.Stats getHiscoresCacheStats() {
+        return hiscoresCache.getStats();
+    }
 
+    /**
+     * Warm the hiscores cache and open the wiki content store, seeding it from the bundled offline snapshot.
+     * Does file I/O, so call it off the client thread.
+     */
+    public void loadCaches() {
         try {
-            String urlStr = WIKI_API_ENDPOINT + "?action=query&prop=extracts&exintro&explaintext&titles=" +
-                            entityName.replace(" ", "%20") +
-                            "&format=json";
-
-            URL url = new URL(urlStr);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", USER_AGENT);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-
-                // Parse the JSON response
-                JsonObject jsonObject = gson.fromJson(response.toString(), JsonObject.class);
-                JsonObject query = jsonObject.getAsJsonObject("query");
-                if (query != null) {
-                    JsonObject pages = query.getAsJsonObject("pages");
-                    if (pages != null && pages.entrySet().size() > 0) {
-                        // Get the first page (there should only be one)
-                        JsonObject page = pages.entrySet().iterator().next().getValue().getAsJsonObject();
-
-                        if (page != null) {
-                            // Extract the description and other info
-                            info.setDescription(page.has("extract") ? page.get("extract").getAsString() : "No description available");
-                            info.setWikiUrl("https://oldschool.runescape.wiki/w/" + entityName.replace(" ", "_"));
-                            info.setFound(true);
-                        }
-                    }
-                }
-            } else {
-                log.warn("Failed to get wiki entity info, response code: {}", responseCode);
+            hiscoresCache.load(HISCORES_CACHE_FILE);
+        } catch (IOException e) {
+            log.warn("Unable to load hiscores cache", e);
+        }
+
+        try {
+            InputStream snapshot = OsrsApiManager.class.getResourceAsStream(WIKI_SNAPSHOT_RESOURCE);
+            if (snapshot != null) {
+                wikiContent.loadBundle(snapshot);
             }
+            wikiContent.open();
+        } catch (IOException e) {
+            log.warn("Unable to open wiki content store", e);
+        }
+    }
 
-            connection.disconnect();
+    /**
+     * Persist the hiscores cache and close the wiki content store so the next start doesn't refetch everything
+     */
+    public void saveCaches() {
+        try {
+            hiscoresCache.save(HISCORES_CACHE_FILE);
         } catch (IOException e) {
-            log.error("Error getting wiki entity info", e);
+            log.warn("Unable to save hiscores cache", e);
         }
 
-        return info;
+        try {
+            wikiContent.close();
+        } catch (IOException e) {
+            log.warn("Unable to close wiki content store", e);
+        }
     }
 
     /**
-     * Get a wiki URL for a specific entity
-     *
-     * @param entityName the name of the entity
-     * @return the wiki URL
+     * Circuit state, request counters and latency percentiles for the hiscores and wiki endpoints
      */
-    public String getWikiUrl(String entityName) {
-        return "https://oldschool.runescape.wiki/w/" + entityName.replace(" ", "_");
+    public List<ResilientEndpoint.Stats> getEndpointStats() {
+        return Arrays.asList(hiscoreApi.getStats(), wikiApi.getStats());
+    }
+
+    /**
+     * Number of lookups that were served by joining an identical request already in flight
+     */
+    public long getCoalescedRequestCount() {
+        return hiscoreFlights.getCoalescedCount()
+                + wikiSearchFlights.getCoalescedCount()
+                + wikiEntityFlights.getCoalescedCount();
+    }
+
+    /**
+     * Normalize a wiki title the way MediaWiki does, so "abyssal_demon" and "Abyssal demon" share a lookup
+     */
+    static String normalizeWikiTitle(String title) {
+        String normalized = title.replace('_', ' ').trim();
+        if (normalized.isEmpty()) {
+            return normalized;
+        }
+        return Character.toUpperCase(normalized.charAt(0)) + normalized.substring(1);
+    }
+
+    /**
+     * Request a player's hiscores from the network and store the result in the cache.
+     * Concurrent requests for the same key share a single HTTP call.
+     */
+    private CompletableFuture<HiscoreSnapshot> fetchHiscores(HiscoreKey key) {
+        return hiscoreFlights.execute(key, () -> requestHiscores(key));
+    }
+
+    private CompletableFuture<HiscoreSnapshot> requestHiscores(HiscoreKey key) {
+        HttpUrl url = hiscoreEndpoint.newBuilder()
+                .addPathSegment("m=" + key.getType().getPath())
+                .addPathSegment("index_lite.ws")
+                .addQueryParameter("player", key.getUsername())
+                .build();
+        CompletableFuture<HiscoreSnapshot> request = fetch(hiscoreApi, url,
+                body -> HiscoresParser.parse(body.byteStream(), System.currentTimeMillis()));
+        return cancelling(request.thenApply(snapshot -> {
+            hiscoresCache.put(key, snapshot);
+            return snapshot;
+        }), request);
+    }
+
+    /**
+     * Stream an opensearch response, pulling out only the titles and URLs
+     */
+    private WikiSearchResult parseWikiSearch(String searchTerm, ResponseBody body) throws IOException {
+        try (JsonReader reader = gson.newJsonReader(body.charStream())) {
+            return WikiResponseParser.readSearch(reader, searchTerm);
+        }
+    }
+
+    /**
+     * Stream a prop=extracts query response and map each requested title to the page it resolved to
+     */
+    private Map<String, WikiEntityInfo> parseWikiEntityInfos(List<String> titles, ResponseBody body) throws IOException {
+        WikiResponseParser.QueryResult query;
+        try (JsonReader reader = gson.newJsonReader(body.charStream())) {
+            query = WikiResponseParser.readQuery(reader);
+        }
+
+        Map<String, WikiEntityInfo> infos = new HashMap<>();
+        for (String title : titles) {
+            WikiResponseParser.Page page = query.resolve(title);
+            if (page == null || page.missing) {
+                infos.put(title, notFound(title));
+                continue;
+            }
+
+            WikiEntityInfo info = new WikiEntityInfo();
+            info.setName(title);
+            info.setDescription(page.extract != null ? page.extract : WikiResponseParser.NO_DESCRIPTION);
+            info.setWikiUrl(getWikiUrl(page.title));
+            info.setFound(true);
+            infos.put(title, info);
+        }
+        return infos;
+    }
+
+    private static ResilientEndpoint newEndpoint(String name, ScheduledExecutorService scheduler) {
+        CircuitBreaker breaker = new CircuitBreaker(name, CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_SECONDS, TimeUnit.SECONDS);
+        return new ResilientEndpoint(name, scheduler, breaker, new Backoff(250, 2_000), ENDPOINT_MAX_ATTEMPTS, true);
+    }
+
+    static String extractKey(String title) {
+        return "extract:" + title;
+    }
+
+    private static boolean isStale(ContentStore.Entry entry) {
+        return System.currentTimeMillis() - entry.getFetchedAt() > WIKI_CONTENT_TTL_MILLIS;
     }
 
     /**
-     * Safely parse an integer
+     * Decode a stored blob, treating an unreadable one as a miss
      */
-    private int parseInt(String value, int defaultValue) {
+    private <T> T readContent(ContentStore.Entry entry, ContentDecoder<T> decoder) {
+        try {
+            return decoder.decode(wikiContent.read(entry));
+        } catch (IOException e) {
+            log.debug("Unable to read stored wiki content {}", entry.getKey(), e);
+            return null;
+        }
+    }
+
+    private void storeContent(String key, byte[] blob, String etag, String lastModified) {
+        try {
+            wikiContent.put(key, blob, etag, lastModified);
+        } catch (IOException e) {
+            log.warn("Unable to store wiki content {}", key, e);
+        }
+    }
+
+    private void touchContent(String key) {
         try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            return defaultValue;
+            wikiContent.touch(key);
+        } catch (IOException e) {
+            log.warn("Unable to store revalidated wiki content {}", key, e);
         }
     }
 
+    private static WikiEntityInfo notFound(String entityName) {
+        WikiEntityInfo info = new WikiEntityInfo();
+        info.setName(entityName);
+        return info;
+    }
+
     /**
-     * Safely parse a long
+     * Issue a GET on the shared client through the endpoint's circuit breaker, retries and hedging, and parse
+     * the body off the calling thread. Cancelling the returned future cancels the underlying HTTP calls.
      */
-    private long parseLong(String value, long defaultValue) {
+    private <T> CompletableFuture<T> fetch(ResilientEndpoint endpoint, HttpUrl url, ResponseParser<T> parser) {
+        Request request = newRequest(url).build();
+        return endpoint.execute(() -> fetch(request, response -> parser.parse(successfulBody(url, response))));
+    }
+
+    /**
+     * Issue a GET that revalidates a stored copy using its ETag and Last-Modified validators, if it has any
+     *
+     * @return a future completing with the parsed response, or with a null value if the stored copy is still current
+     */
+    private <T> CompletableFuture<Fetched<T>> fetchRevalidating(ResilientEndpoint endpoint, HttpUrl url,
+                                                               ContentStore.Entry stored, ResponseParser<T> parser) {
+        Request.Builder request = newRequest(url);
+        if (stored != null && stored.getEtag() != null) {
+            request.header("If-None-Match", stored.getEtag());
+        }
+        if (stored != null && stored.getLastModified() != null) {
+            request.header("If-Modified-Since", stored.getLastModified());
+        }
+
+        Request conditional = request.build();
+        return endpoint.execute(() -> fetch(conditional, response -> {
+            if (response.code() == HTTP_NOT_MODIFIED && stored != null) {
+                return new Fetched<>(null, stored.getEtag(), stored.getLastModified());
+            }
+            T value = parser.parse(successfulBody(url, response));
+            return new Fetched<>(value, response.header("ETag"), response.header("Last-Modified"));
+        }));
+    }
+
+    private static Request.Builder newRequest(HttpUrl url) {
+        return new Request.Builder()
+                .url(url)
+                .header("User-Agent", USER_AGENT);
+    }
+
+    private static ResponseBody successfulBody(HttpUrl url, Response response) throws HttpStatusException {
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            throw new HttpStatusException(url, response.code());
+        }
+        return body;
+    }
+
+    /**
+     * Enqueue a single attempt of a request and hand the response to the handler on OkHttp's dispatcher thread
+     */
+    private <T> CompletableFuture<T> fetch(Request request, ResponseHandler<T> handler) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response closing = response) {
+                    future.complete(handler.handle(closing));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+
+        future.whenComplete((result, ex) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancel the upstream future when the dependent one is cancelled, which thenApply alone doesn't do
+     */
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<T> dependent, CompletableFuture<?> upstream) {
+        dependent.whenComplete((result, ex) -> {
+            if (dependent.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    /**
+     * Hand the outcome of a lookup to a callback on the client thread, substituting the fallback on failure
+     */
+    private <T> void deliver(CompletableFuture<T> future, T fallback, String errorMessage, Consumer<T> callback) {
+        future.whenComplete((result, ex) -> {
+            T value = result;
+            if (ex != null) {
+                logFailure(errorMessage, ex);
+                value = fallback;
+            }
+
+            final T delivered = value;
+            clientThread.invokeLater(() -> callback.accept(delivered));
+        });
+    }
+
+    /**
+     * Block on a lookup, substituting the fallback on failure
+     */
+    private <T> T await(CompletableFuture<T> future, T fallback, String errorMessage) {
         try {
-            return Long.parseLong(value);
-        } catch (NumberFormatException e) {
-            return defaultValue;
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            logFailure(errorMessage, e);
+            return fallback;
+        }
+    }
+
+    private void logFailure(String message, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof CircuitOpenException) {
+            // Already reported once when the circuit opened
+            log.debug("{}: {}", message, cause.getMessage());
+        } else if (cause instanceof HttpStatusException) {
+            log.warn("{}: {}", message, cause.getMessage());
+        } else {
+            log.error(message, cause);
         }
     }
 
@@ -265,6 +795,8 @@ public class OsrsApiManager {
         private String searchTerm;
         private String url;
         private boolean found;
+        private List<String> titles = Collections.emptyList();
+        private List<String> urls = Collections.emptyList();
 
         public String getSearchTerm() {
             return searchTerm;
@@ -289,6 +821,22 @@ public class OsrsApiManager {
         public void setFound(boolean found) {
             this.found = found;
         }
+
+        public List<String> getTitles() {
+            return titles;
+        }
+
+        public void setTitles(List<String> titles) {
+            this.titles = titles;
+        }
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
     }
 
     /**
@@ -332,4 +880,40 @@ public class OsrsApiManager {
             this.found = found;
         }
     }
+
+    /**
+     * Reads a successful response body into a result
+     */
+    @FunctionalInterface
+    private interface ResponseParser<T> {
+        T parse(ResponseBody body) throws IOException;
+    }
+
+    /**
+     * Turns a response of any status into a result
+     */
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ContentDecoder<T> {
+        T decode(byte[] blob) throws IOException;
+    }
+
+    /**
+     * A conditional GET's result along with the validators to store with it
+     */
+    private static final class Fetched<T> {
+        private final T value;
+        private final String etag;
+        private final String lastModified;
+
+        private Fetched(T value, String etag, String lastModified) {
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
 }
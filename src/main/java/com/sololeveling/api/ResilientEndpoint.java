@@ -0,0 +1,198 @@
+package com.sololeveling.api;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls made to one upstream endpoint.
+ * Requests fail fast while the endpoint's circuit is open, transient failures are retried with jittered
+ * backoff, and requests still outstanding at the endpoint's p95 latency are hedged with a duplicate so one
+ * slow connection doesn't hold up the lookup. Every response feeds the endpoint's latency histogram.
+ */
+@Slf4j
+public class ResilientEndpoint {
+    // Don't hedge until there are enough samples for a meaningful p95, and never sooner than this
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+    // Hedges may add at most one request in ten on top of the normal load
+    private static final int HEDGE_RATIO = 10;
+
+    private final String name;
+    private final ScheduledExecutorService scheduler;
+    private final CircuitBreaker breaker;
+    private final Backoff backoff;
+    private final int maxAttempts;
+    private final boolean hedging;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    public ResilientEndpoint(String name, ScheduledExecutorService scheduler, CircuitBreaker breaker, Backoff backoff,
+                             int maxAttempts, boolean hedging) {
+        this.name = name;
+        this.scheduler = scheduler;
+        this.breaker = breaker;
+        this.backoff = backoff;
+        this.maxAttempts = maxAttempts;
+        this.hedging = hedging;
+    }
+
+    /**
+     * Run a request against this endpoint
+     *
+     * @param call issues one attempt of the request; cancelling its future must cancel the attempt
+     * @return a future completing with the first successful attempt, or the last failure.
+     * Fails with {@link CircuitOpenException} without calling the endpoint while its circuit is open.
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        result.whenComplete((value, ex) -> {
+            CompletableFuture<T> attempt = current.get();
+            if (result.isCancelled() && attempt != null) {
+                attempt.cancel(true);
+            }
+        });
+        attempt(call, 1, result, current);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, int attempt, CompletableFuture<T> result,
+                             AtomicReference<CompletableFuture<T>> current) {
+        if (result.isDone()) {
+            return;
+        }
+        long permit = breaker.tryAcquire();
+        if (permit < 0) {
+            result.completeExceptionally(new CircuitOpenException(name));
+            return;
+        }
+
+        requests.increment();
+        long start = System.nanoTime();
+        CompletableFuture<T> future = hedged(call);
+        current.set(future);
+        future.whenComplete((value, ex) -> {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof CancellationException) {
+                breaker.onIgnored(permit);
+                result.cancel(true);
+                return;
+            }
+
+            if (cause != null && BulkFetcher.isTransient(cause)) {
+                failures.increment();
+                breaker.onFailure(permit);
+            } else {
+                // Any answer from the endpoint, even a 404, means it is up
+                latency.record(System.nanoTime() - start);
+                breaker.onSuccess(permit);
+            }
+
+            if (cause == null) {
+                result.complete(value);
+            } else if (attempt < maxAttempts && BulkFetcher.isTransient(cause)) {
+                long delay = backoff.delayMillis(attempt);
+                log.debug("Retrying {} request in {}ms (attempt {}): {}", name, delay, attempt + 1, cause.getMessage());
+                scheduler.schedule(() -> attempt(call, attempt + 1, result, current), delay, TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Issue the call, racing a duplicate against it if it is still outstanding at the endpoint's p95 latency
+     */
+    private <T> CompletableFuture<T> hedged(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> primary = call.get();
+        long delay = hedgeDelayMillis();
+        if (delay < 0) {
+            return primary;
+        }
+
+        CompletableFuture<T> race = new CompletableFuture<>();
+        List<CompletableFuture<T>> calls = new CopyOnWriteArrayList<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        BiConsumer<T, Throwable> settle = (value, ex) -> {
+            if (ex == null) {
+                race.complete(value);
+            } else if (outstanding.decrementAndGet() == 0) {
+                race.completeExceptionally(ex);
+            }
+        };
+
+        calls.add(primary);
+        primary.whenComplete(settle);
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            if (race.isDone() || breaker.getState() != CircuitBreaker.State.CLOSED
+                    || hedges.sum() * HEDGE_RATIO >= requests.sum()) {
+                return;
+            }
+            // Only hedge while the primary is still outstanding, never after the race has been decided
+            if (outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                return;
+            }
+            hedges.increment();
+            CompletableFuture<T> hedge = call.get();
+            calls.add(hedge);
+            hedge.whenComplete(settle);
+        }, delay, TimeUnit.MILLISECONDS);
+
+        // The winner is complete already, so this only cancels the losers and a hedge that hasn't started
+        race.whenComplete((value, ex) -> {
+            timer.cancel(false);
+            for (CompletableFuture<T> pending : calls) {
+                pending.cancel(true);
+            }
+        });
+        return race;
+    }
+
+    /**
+     * @return how long to wait before hedging, or -1 if this request shouldn't be hedged
+     */
+    private long hedgeDelayMillis() {
+        if (!hedging || latency.getCount() < MIN_HEDGE_SAMPLES) {
+            return -1;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, latency.getPercentileMillis(0.95));
+    }
+
+    public Stats getStats() {
+        return new Stats(name, breaker.getState(), requests.sum(), failures.sum(), breaker.getRejectedCount(),
+                hedges.sum(), latency.getPercentileMillis(0.5), latency.getPercentileMillis(0.95),
+                latency.getPercentileMillis(0.99));
+    }
+
+    /**
+     * Request counters and latency percentiles for an endpoint. Percentiles are in milliseconds, -1 if unknown.
+     */
+    @Value
+    public static class Stats {
+        String name;
+        CircuitBreaker.State state;
+        long requests;
+        long failures;
+        long rejected;
+        long hedged;
+        long p50Millis;
+        long p95Millis;
+        long p99Millis;
+    }
+}
@@ -0,0 +1,136 @@
+package com.sololeveling.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent asynchronous loads of the same key.
+ * While a load is in flight, every caller asking for its key shares the result instead of starting another.
+ *
+ * @param <K> the key type
+ * @param <V> the loaded value type
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Start a load for the key, or join the one already running.
+     * Each caller gets its own dependent future, so cancelling one doesn't affect the others. Once every caller
+     * has cancelled, the load itself is cancelled.
+     *
+     * @param key the key being loaded
+     * @param loader starts the load; only invoked if no load for the key is in flight. Cancelling its future
+     *               should cancel the load.
+     * @return a future completing with the shared result
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        while (true) {
+            Flight flight = new Flight(key);
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                CompletableFuture<V> waiter = existing.join();
+                if (waiter != null) {
+                    coalesced.increment();
+                    return waiter;
+                }
+                // Every caller of that load gave up and it is being cancelled; start a fresh one
+                inFlight.remove(key, existing);
+                continue;
+            }
+
+            // Join before starting the load, so joiners cancelling early can't cancel it from under this caller
+            CompletableFuture<V> waiter = flight.join();
+            CompletableFuture<V> source;
+            try {
+                source = loader.get();
+            } catch (RuntimeException e) {
+                source = new CompletableFuture<>();
+                source.completeExceptionally(e);
+            }
+            flight.start(source);
+            return waiter;
+        }
+    }
+
+    /**
+     * Number of loads currently in flight
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * Number of calls that joined an in-flight load instead of starting their own
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * One load and the callers waiting on it
+     */
+    private final class Flight {
+        private final K key;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        // Guarded by this
+        private CompletableFuture<V> source;
+        private int waiters;
+        private boolean cancelled;
+
+        Flight(K key) {
+            this.key = key;
+        }
+
+        /**
+         * @return a future for one more caller, or null if the load has already been cancelled
+         */
+        CompletableFuture<V> join() {
+            synchronized (this) {
+                if (cancelled) {
+                    return null;
+                }
+                waiters++;
+            }
+            CompletableFuture<V> waiter = result.copy();
+            waiter.whenComplete((value, ex) -> {
+                if (waiter.isCancelled()) {
+                    leave();
+                }
+            });
+            return waiter;
+        }
+
+        void start(CompletableFuture<V> load) {
+            synchronized (this) {
+                source = load;
+            }
+            load.whenComplete((value, ex) -> {
+                // Unregister before completing so callers arriving after completion start a fresh load
+                inFlight.remove(key, this);
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        private void leave() {
+            CompletableFuture<V> load;
+            synchronized (this) {
+                if (--waiters > 0 || result.isDone()) {
+                    return;
+                }
+                cancelled = true;
+                load = source;
+            }
+            inFlight.remove(key, this);
+            if (load != null) {
+                load.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.sololeveling.api;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter.
+ * Permits refill continuously at a fixed rate up to a burst size. Callers reserve a permit up front and are
+ * told how long to wait before using it, so nothing ever blocks a thread waiting for tokens.
+ */
+public class TokenBucket {
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final LongSupplier nanoClock;
+    private double burst;
+    private double permitsPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.lastRefill = nanoClock.getAsLong();
+        setRate(permitsPerSecond, burst);
+        this.tokens = this.burst;
+    }
+
+    /**
+     * Change the refill rate and burst size, keeping the tokens already accumulated
+     */
+    public synchronized void setRate(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        refill();
+        this.burst = burst;
+        this.permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.tokens = Math.min(tokens, burst);
+    }
+
+    /**
+     * Take a permit if one is available right now
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reserve the next permit. The bucket may go into debt, which queues later callers behind this one.
+     *
+     * @return nanoseconds the caller must wait before using the permit, 0 if it can be used immediately
+     */
+    public synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens / permitsPerNano);
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,100 @@
+package com.sololeveling.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes wiki lookups as blobs for the {@link ContentStore}
+ */
+final class WikiContentCodec {
+    private WikiContentCodec() {
+    }
+
+    static byte[] writeEntityInfo(OsrsApiManager.WikiEntityInfo info) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(info.isFound());
+            writeString(out, info.getName());
+            if (info.isFound()) {
+                writeString(out, info.getDescription());
+                writeString(out, info.getWikiUrl());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static OsrsApiManager.WikiEntityInfo readEntityInfo(byte[] blob) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob));
+        OsrsApiManager.WikiEntityInfo info = new OsrsApiManager.WikiEntityInfo();
+        info.setFound(in.readBoolean());
+        info.setName(readString(in));
+        if (info.isFound()) {
+            info.setDescription(readString(in));
+            info.setWikiUrl(readString(in));
+        }
+        return info;
+    }
+
+    static byte[] writeSearch(OsrsApiManager.WikiSearchResult result) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int count = Math.min(result.getTitles().size(), result.getUrls().size());
+            out.writeByte(count);
+            for (int i = 0; i < count; i++) {
+                writeString(out, result.getTitles().get(i));
+                writeString(out, result.getUrls().get(i));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static OsrsApiManager.WikiSearchResult readSearch(String searchTerm, byte[] blob) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob));
+        int count = in.readUnsignedByte();
+        List<String> titles = new ArrayList<>(count);
+        List<String> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            titles.add(readString(in));
+            urls.add(readString(in));
+        }
+
+        OsrsApiManager.WikiSearchResult result = new OsrsApiManager.WikiSearchResult();
+        result.setSearchTerm(searchTerm);
+        result.setTitles(titles);
+        result.setUrls(urls);
+        result.setFound(!titles.isEmpty());
+        result.setUrl(urls.isEmpty() ? null : urls.get(0));
+        return result;
+    }
+
+    // writeUTF caps strings at 64 KiB, which a long intro extract can exceed
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,191 @@
+package com.sololeveling.api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token-streaming readers for MediaWiki API responses.
+ * Only the fields the plugin uses are materialized; everything else is skipped without building a tree.
+ */
+final class WikiResponseParser {
+    static final String NO_DESCRIPTION = "No description available";
+
+    private WikiResponseParser() {
+    }
+
+    /**
+     * Read an opensearch response: [term, [titles], [descriptions], [urls]]
+     */
+    static OsrsApiManager.WikiSearchResult readSearch(JsonReader reader, String searchTerm) throws IOException {
+        OsrsApiManager.WikiSearchResult result = new OsrsApiManager.WikiSearchResult();
+        result.setSearchTerm(searchTerm);
+
+        reader.beginArray();
+        List<String> titles = Collections.emptyList();
+        List<String> urls = Collections.emptyList();
+        for (int index = 0; reader.hasNext(); index++) {
+            if (index == 1) {
+                titles = readStrings(reader);
+            } else if (index == 3) {
+                urls = readStrings(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+
+        result.setTitles(titles);
+        result.setUrls(urls);
+        result.setFound(!titles.isEmpty());
+        if (!urls.isEmpty()) {
+            result.setUrl(urls.get(0));
+        }
+        return result;
+    }
+
+    /**
+     * Read a prop=extracts query response: {"query": {"normalized": [...], "redirects": [...], "pages": {...}}}
+     */
+    static QueryResult readQuery(JsonReader reader) throws IOException {
+        QueryResult result = new QueryResult();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("query")) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "normalized":
+                        readTitleMappings(reader, result.normalized);
+                        break;
+                    case "redirects":
+                        readTitleMappings(reader, result.redirects);
+                        break;
+                    case "pages":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            // Page ids are keys; missing pages get negative ids
+                            reader.nextName();
+                            Page page = readPage(reader);
+                            if (page.title != null) {
+                                result.pages.put(page.title, page);
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        return result;
+    }
+
+    /**
+     * Read a [{"from": ..., "to": ...}] list into the map
+     */
+    private static void readTitleMappings(JsonReader reader, Map<String, String> mappings) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String from = null;
+            String to = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("from")) {
+                    from = reader.nextString();
+                } else if (name.equals("to")) {
+                    to = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (from != null && to != null) {
+                mappings.put(from, to);
+            }
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Read a single page object, keeping its title, extract and whether it exists
+     */
+    static Page readPage(JsonReader reader) throws IOException {
+        Page page = new Page();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "title":
+                    page.title = reader.nextString();
+                    break;
+                case "extract":
+                    page.extract = reader.nextString();
+                    break;
+                case "missing":
+                case "invalid":
+                    page.missing = true;
+                    reader.skipValue();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return page;
+    }
+
+    private static List<String> readStrings(JsonReader reader) throws IOException {
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.STRING) {
+                values.add(reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+        return values;
+    }
+
+    /**
+     * Pages of a query response together with the title rewrites MediaWiki applied
+     */
+    static final class QueryResult {
+        final Map<String, String> normalized = new HashMap<>();
+        final Map<String, String> redirects = new HashMap<>();
+        final Map<String, Page> pages = new HashMap<>();
+
+        /**
+         * Find the page a requested title ended up at, following normalization and then redirects
+         */
+        Page resolve(String requestedTitle) {
+            String title = normalized.getOrDefault(requestedTitle, requestedTitle);
+            title = redirects.getOrDefault(title, title);
+            return pages.get(title);
+        }
+    }
+
+    /**
+     * The fields of a wiki page the plugin cares about
+     */
+    static final class Page {
+        String title;
+        String extract;
+        boolean missing;
+    }
+}
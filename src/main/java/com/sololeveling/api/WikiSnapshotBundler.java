@@ -0,0 +1,127 @@
+package com.sololeveling.api;
+
+import com.google.gson.Gson;
+import okhttp3.OkHttpClient;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Fetches wiki extracts for a list of common entities and writes them as the offline snapshot bundled
+ * with the plugin. Run by the generateWikiSnapshot Gradle task before resources are processed; takes the title
+ * list, the output file and optionally --refresh.
+ * <p>
+ * Titles already in the snapshot are kept as they are, so once it is up to date the build needs no network.
+ * Each title is fetched in a request of its own, so its ETag and Last-Modified are kept for revalidation.
+ */
+public class WikiSnapshotBundler {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals("--refresh"))) {
+            System.err.println("Usage: WikiSnapshotBundler <titles file> <output file> [--refresh]");
+            System.exit(1);
+        }
+
+        Set<String> titles = readTitles(new File(args[0]));
+        File output = new File(args[1]);
+        boolean refresh = args.length == 3;
+
+        File directory = Files.createTempDirectory("wiki-snapshot").toFile();
+        ContentStore store = new ContentStore(directory, "wiki");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        OkHttpClient okHttpClient = new OkHttpClient();
+        try {
+            store.open();
+            if (output.exists() && !refresh) {
+                store.loadBundle(new FileInputStream(output));
+            }
+
+            List<String> missing = new ArrayList<>();
+            for (String title : titles) {
+                if (store.get(OsrsApiManager.extractKey(title)) == null) {
+                    missing.add(title);
+                }
+            }
+            if (missing.isEmpty()) {
+                System.out.printf("%s is up to date with %d titles%n", output, titles.size());
+                return;
+            }
+
+            OsrsApiManager manager = new OsrsApiManager(okHttpClient, new Gson(), null, scheduler,
+                    ApiEndpoints.OSRS, store);
+            int fetched = 0;
+            for (String title : missing) {
+                try {
+                    OsrsApiManager.WikiEntityInfo info = manager.getWikiEntityInfosAsync(
+                            Collections.singletonList(title)).get(title).join();
+                    if (!info.isFound()) {
+                        System.err.println("Not found on the wiki: " + info.getName());
+                    }
+                    fetched++;
+                } catch (RuntimeException e) {
+                    System.err.println("Unable to fetch " + title + ": " + e);
+                }
+            }
+
+            if (fetched == 0) {
+                // Offline, most likely; keep whatever snapshot there is and try again on the next build
+                System.err.printf("Fetched none of %d missing titles, leaving %s as it was%n", missing.size(), output);
+                return;
+            }
+            write(store, output);
+            System.out.printf("Fetched %d of %d missing titles into %s%n", fetched, missing.size(), output);
+        } finally {
+            store.close();
+            scheduler.shutdownNow();
+            okHttpClient.dispatcher().executorService().shutdown();
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Titles normalized as the plugin looks them up, without duplicates
+     */
+    private static Set<String> readTitles(File file) throws IOException {
+        Set<String> titles = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String title = line.trim();
+            if (!title.isEmpty() && !title.startsWith("#")) {
+                titles.add(OsrsApiManager.normalizeWikiTitle(title));
+            }
+        }
+        return titles;
+    }
+
+    private static void write(ContentStore store, File output) throws IOException {
+        File directory = output.getAbsoluteFile().getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        File temp = File.createTempFile(output.getName(), ".tmp", directory);
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                store.writeBundle(out);
+            }
+            Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sololeveling.persistence;
+
+import com.sololeveling.task.Task;
+import com.sololeveling.task.TaskManager;
+import com.sololeveling.tracking.PlayerTracker;
+import com.sololeveling.tracking.SkillHistory;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything {@link ProgressExporter} writes out or reads back: tasks, tracker counters, activity totals and the
+ * skill history. Taken on the client thread; the tasks and skill history are copies, so they can be streamed out
+ * elsewhere while the originals keep changing.
+ */
+@Value
+public class ProgressExport {
+    long exportedAt;
+    long totalPlayTimeMillis;
+    int gameTicks;
+    Map<String, Integer> activityCounts;
+    List<Task> tasks;
+    SkillHistory skillHistory;
+
+    public static ProgressExport of(TaskManager taskManager, PlayerTracker tracker) {
+        tracker.updateSessionTime();
+        return new ProgressExport(System.currentTimeMillis(), tracker.getTotalPlayTimeMillis(), tracker.getGameTicks(),
+                tracker.getActivities().getTotals(), snapshot(taskManager.getAllTasks()),
+                tracker.getSkillHistory().copy());
+    }
+
+    /**
+     * Copy the tasks' current values, since the manager keeps changing them while the export is written
+     */
+    private static List<Task> snapshot(List<Task> tasks) {
+        List<Task> copies = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            copies.add(Task.builder()
+                    .id(task.getId())
+                    .name(task.getName())
+                    .description(task.getDescription())
+                    .difficulty(task.getDifficulty())
+                    .category(task.getCategory())
+                    .source(task.getSource())
+                    .completed(task.isCompleted())
+                    .visible(task.isVisible())
+                    .experienceReward(task.getExperienceReward())
+                    .pointsReward(task.getPointsReward())
+                    .relatedQuestId(task.getRelatedQuestId())
+                    .skill(task.getSkill())
+                    .targetLevel(task.getTargetLevel())
+                    .additionalData(task.getAdditionalData())
+                    .build());
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,636 @@
+package com.sololeveling.persistence;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sololeveling.task.Task;
+import com.sololeveling.task.TaskCategory;
+import com.sololeveling.task.TaskCodec;
+import com.sololeveling.task.TaskDifficulty;
+import com.sololeveling.task.TaskSource;
+import com.sololeveling.tracking.SkillHistory;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Skill;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Exports tasks, tracker counters, activity totals and the XP timeline for use in other tools, and imports them
+ * back. Either one JSON document, or a directory of CSV files with one table each. A task pack holds just the tasks,
+ * in {@link TaskCodec}'s compact form, for sharing with other players.
+ * <p>
+ * Both run on the executor and stream: an export writes through a buffered channel as it walks the data, and the
+ * XP timeline is decoded one history block at a time, so millions of XP changes never sit in memory as text or
+ * objects. An import streams the timeline straight back into a {@link SkillHistory}. Each file is written to a temp
+ * file that is then moved over the target, so a failed export leaves the previous one intact.
+ * <p>
+ * The timeline holds, for each resolution, every skill's XP at the first point and then each change after it.
+ */
+@Slf4j
+@Singleton
+public class ProgressExporter {
+    public static final File EXPORT_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "solo-leveling/exports");
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String TASKS_FILE = "tasks.csv";
+    private static final String EXPERIENCE_FILE = "experience.csv";
+    private static final String ACTIVITIES_FILE = "activities.csv";
+    private static final String COUNTERS_FILE = "counters.csv";
+
+    // Task fields, in CSV column order; JSON uses the same names, with booleans and numbers as JSON values
+    private static final String[] TASK_FIELDS = {"id", "name", "description", "difficulty", "category", "source",
+            "completed", "visible", "experienceReward", "pointsReward", "relatedQuestId", "skill", "targetLevel",
+            "additionalData"};
+
+    public enum Format {
+        CSV(""),
+        JSON(".json"),
+        // Only the tasks, without completed flags, in TaskCodec's pack format for sharing with other players
+        PACK(".tasks");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * The export's file name extension; CSV exports are directories, so have none
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+
+    @Inject
+    public ProgressExporter(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Write an export in the background
+     *
+     * @param target the file for JSON, or the directory to put the CSV files in
+     * @param callback called on the executor with the target, or with null if the export failed
+     */
+    public void export(ProgressExport progress, Format format, File target, Consumer<File> callback) {
+        executor.execute(() -> {
+            try {
+                if (format == Format.JSON) {
+                    writeJson(progress, target);
+                } else if (format == Format.PACK) {
+                    writePack(progress, target);
+                } else {
+                    writeCsv(progress, target);
+                }
+                callback.accept(target);
+            } catch (IOException e) {
+                log.warn("Unable to export progress to {}", target, e);
+                callback.accept(null);
+            }
+        });
+    }
+
+    /**
+     * Read an export in the background
+     *
+     * @param source a JSON export or task pack, or a directory of CSV files
+     * @param callback called on the executor with what was read, or with null if it couldn't be read
+     */
+    public void importFrom(File source, Consumer<ProgressExport> callback) {
+        executor.execute(() -> {
+            try {
+                if (source.isDirectory()) {
+                    callback.accept(readCsv(source));
+                } else if (source.getName().endsWith(Format.PACK.getExtension())) {
+                    callback.accept(readPack(source));
+                } else {
+                    callback.accept(readJson(source));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to import progress from {}", source, e);
+                callback.accept(null);
+            }
+        });
+    }
+
+    void writeJson(ProgressExport progress, File file) throws IOException {
+        replaceText(file, out -> {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("version").value(FORMAT_VERSION);
+            json.name("exportedAt").value(progress.getExportedAt());
+            json.name("totalPlayTimeMillis").value(progress.getTotalPlayTimeMillis());
+            json.name("gameTicks").value(progress.getGameTicks());
+
+            json.name("activities").beginObject();
+            for (Map.Entry<String, Integer> entry : progress.getActivityCounts().entrySet()) {
+                json.name(entry.getKey()).value(entry.getValue());
+            }
+            json.endObject();
+
+            json.name("tasks").beginArray();
+            for (Task task : progress.getTasks()) {
+                writeTask(json, task);
+            }
+            json.endArray();
+
+            json.name("experience").beginArray();
+            for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+                progress.getSkillHistory().forEachChange(resolution, (time, skill, experience) -> {
+                    json.beginObject();
+                    json.name("resolution").value(resolution.name());
+                    json.name("time").value(time);
+                    json.name("skill").value(skill.name());
+                    json.name("experience").value(experience);
+                    json.endObject();
+                });
+            }
+            json.endArray();
+            json.endObject();
+            json.flush();
+        });
+    }
+
+    private static void writeTask(JsonWriter json, Task task) throws IOException {
+        json.beginObject();
+        json.name("id").value(task.getId());
+        json.name("name").value(task.getName());
+        json.name("description").value(task.getDescription());
+        json.name("difficulty").value(name(task.getDifficulty()));
+        json.name("category").value(name(task.getCategory()));
+        json.name("source").value(name(task.getSource()));
+        json.name("completed").value(task.isCompleted());
+        json.name("visible").value(task.isVisible());
+        json.name("experienceReward").value(task.getExperienceReward());
+        json.name("pointsReward").value(task.getPointsReward());
+        json.name("relatedQuestId").value(task.getRelatedQuestId());
+        json.name("skill").value(name(task.getSkill()));
+        json.name("targetLevel").value(task.getTargetLevel());
+        json.name("additionalData").value(task.getAdditionalData());
+        json.endObject();
+    }
+
+    ProgressExport readJson(File file) throws IOException {
+        long exportedAt = 0;
+        long playTime = 0;
+        int gameTicks = 0;
+        Map<String, Integer> activities = new LinkedHashMap<>();
+        List<Task> tasks = new ArrayList<>();
+        TimelineBuilder timeline = new TimelineBuilder();
+
+        try (JsonReader json = new JsonReader(openReader(file))) {
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "version":
+                        checkVersion(json.nextInt());
+                        break;
+                    case "exportedAt":
+                        exportedAt = json.nextLong();
+                        break;
+                    case "totalPlayTimeMillis":
+                        playTime = json.nextLong();
+                        break;
+                    case "gameTicks":
+                        gameTicks = json.nextInt();
+                        break;
+                    case "activities":
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            activities.put(json.nextName(), json.nextInt());
+                        }
+                        json.endObject();
+                        break;
+                    case "tasks":
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            Map<String, String> fields = new HashMap<>();
+                            json.beginObject();
+                            while (json.hasNext()) {
+                                fields.put(json.nextName(), nextValue(json));
+                            }
+                            json.endObject();
+                            tasks.add(toTask(fields));
+                        }
+                        json.endArray();
+                        break;
+                    case "experience":
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            readExperience(json, timeline);
+                        }
+                        json.endArray();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        return new ProgressExport(exportedAt, playTime, gameTicks, activities, tasks, timeline.finish());
+    }
+
+    private static void readExperience(JsonReader json, TimelineBuilder timeline) throws IOException {
+        String resolution = null;
+        long time = 0;
+        String skill = null;
+        long experience = 0;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "resolution":
+                    resolution = json.nextString();
+                    break;
+                case "time":
+                    time = json.nextLong();
+                    break;
+                case "skill":
+                    skill = json.nextString();
+                    break;
+                case "experience":
+                    experience = json.nextLong();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        timeline.add(resolution, time, skill, experience);
+    }
+
+    /**
+     * A task field as text, the way CSV holds it; numbers read back as their digits, and older exports wrote every
+     * field as a string
+     */
+    private static String nextValue(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        if (json.peek() == JsonToken.BOOLEAN) {
+            return String.valueOf(json.nextBoolean());
+        }
+        return json.nextString();
+    }
+
+    void writePack(ProgressExport progress, File file) throws IOException {
+        byte[] pack = TaskCodec.encodePack(progress.getTasks(), false);
+        replace(file, temp -> Files.write(temp.toPath(), pack));
+    }
+
+    /**
+     * A task pack holds only tasks, so the rest of what it returns is empty
+     */
+    ProgressExport readPack(File file) throws IOException {
+        List<Task> tasks = TaskCodec.decodePack(Files.readAllBytes(file.toPath()));
+        return new ProgressExport(file.lastModified(), 0, 0, new LinkedHashMap<>(), tasks, new SkillHistory());
+    }
+
+    void writeCsv(ProgressExport progress, File directory) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        replaceText(new File(directory, COUNTERS_FILE), out -> {
+            writeRow(out, "counter", "value");
+            writeRow(out, "version", Integer.toString(FORMAT_VERSION));
+            writeRow(out, "exportedAt", Long.toString(progress.getExportedAt()));
+            writeRow(out, "totalPlayTimeMillis", Long.toString(progress.getTotalPlayTimeMillis()));
+            writeRow(out, "gameTicks", Integer.toString(progress.getGameTicks()));
+        });
+
+        replaceText(new File(directory, ACTIVITIES_FILE), out -> {
+            writeRow(out, "activity", "count");
+            for (Map.Entry<String, Integer> entry : progress.getActivityCounts().entrySet()) {
+                writeRow(out, entry.getKey(), Integer.toString(entry.getValue()));
+            }
+        });
+
+        replaceText(new File(directory, TASKS_FILE), out -> {
+            writeRow(out, TASK_FIELDS);
+            for (Task task : progress.getTasks()) {
+                writeRow(out, taskValues(task));
+            }
+        });
+
+        replaceText(new File(directory, EXPERIENCE_FILE), out -> {
+            writeRow(out, "resolution", "time", "skill", "experience");
+            for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+                // Nothing here needs quoting, so skip the per-row array and escaping
+                String prefix = resolution.name() + ',';
+                progress.getSkillHistory().forEachChange(resolution, (time, skill, experience) -> {
+                    out.write(prefix);
+                    out.write(Long.toString(time));
+                    out.write(',');
+                    out.write(skill.name());
+                    out.write(',');
+                    out.write(Long.toString(experience));
+                    out.write('\n');
+                });
+            }
+        });
+    }
+
+    ProgressExport readCsv(File directory) throws IOException {
+        Map<String, String> counters = new HashMap<>();
+        readTable(new File(directory, COUNTERS_FILE), row -> counters.put(row.get("counter"), row.get("value")));
+        if (counters.containsKey("version")) {
+            checkVersion(Integer.parseInt(counters.get("version")));
+        }
+
+        Map<String, Integer> activities = new LinkedHashMap<>();
+        readTable(new File(directory, ACTIVITIES_FILE),
+                row -> activities.put(row.get("activity"), Integer.parseInt(row.get("count"))));
+
+        List<Task> tasks = new ArrayList<>();
+        readTable(new File(directory, TASKS_FILE), row -> tasks.add(toTask(row)));
+
+        TimelineBuilder timeline = new TimelineBuilder();
+        readTable(new File(directory, EXPERIENCE_FILE), row -> timeline.add(row.get("resolution"),
+                Long.parseLong(row.get("time")), row.get("skill"), Long.parseLong(row.get("experience"))));
+
+        return new ProgressExport(parseLong(counters.get("exportedAt")), parseLong(counters.get("totalPlayTimeMillis")),
+                (int) parseLong(counters.get("gameTicks")), activities, tasks, timeline.finish());
+    }
+
+    /**
+     * Stream a CSV file's rows, keyed by the header row's column names. Missing files are treated as empty, and
+     * empty cells are read as empty strings.
+     */
+    private static void readTable(File file, Consumer<Map<String, String>> rows) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (CsvReader in = new CsvReader(openReader(file))) {
+            List<String> header = in.next();
+            if (header == null) {
+                return;
+            }
+            Map<String, String> row = new HashMap<>();
+            for (List<String> values = in.next(); values != null; values = in.next()) {
+                row.clear();
+                for (int i = 0; i < header.size() && i < values.size(); i++) {
+                    row.put(header.get(i), values.get(i));
+                }
+                rows.accept(row);
+            }
+        }
+    }
+
+    private static void writeRow(Writer out, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                out.write(value);
+            } else {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            }
+        }
+        out.write('\n');
+    }
+
+    private static String[] taskValues(Task task) {
+        return new String[]{
+                task.getId(),
+                task.getName(),
+                task.getDescription(),
+                name(task.getDifficulty()),
+                name(task.getCategory()),
+                name(task.getSource()),
+                Boolean.toString(task.isCompleted()),
+                Boolean.toString(task.isVisible()),
+                Integer.toString(task.getExperienceReward()),
+                Integer.toString(task.getPointsReward()),
+                task.getRelatedQuestId(),
+                name(task.getSkill()),
+                Integer.toString(task.getTargetLevel()),
+                task.getAdditionalData()
+        };
+    }
+
+    /**
+     * Build a task from its fields as text. CSV can't tell an empty cell from a missing one, so the fields a task
+     * may leave unset read empty as unset; the name and description keep whatever text they had.
+     */
+    private static Task toTask(Map<String, String> fields) {
+        String id = optional(fields.get("id"));
+        if (id == null) {
+            throw new IllegalArgumentException("Task without an id");
+        }
+        String difficulty = optional(fields.get("difficulty"));
+        String category = optional(fields.get("category"));
+        String source = optional(fields.get("source"));
+        String skill = optional(fields.get("skill"));
+        return Task.builder()
+                .id(id)
+                .name(fields.get("name"))
+                .description(fields.get("description"))
+                .difficulty(difficulty != null ? TaskDifficulty.valueOf(difficulty) : null)
+                .category(category != null ? TaskCategory.valueOf(category) : null)
+                .source(source != null ? TaskSource.valueOf(source) : null)
+                .completed(Boolean.parseBoolean(fields.get("completed")))
+                .visible(Boolean.parseBoolean(fields.get("visible")))
+                .experienceReward((int) parseLong(fields.get("experienceReward")))
+                .pointsReward((int) parseLong(fields.get("pointsReward")))
+                .relatedQuestId(optional(fields.get("relatedQuestId")))
+                .skill(skill != null ? Skill.valueOf(skill) : null)
+                .targetLevel((int) parseLong(fields.get("targetLevel")))
+                .additionalData(optional(fields.get("additionalData")))
+                .build();
+    }
+
+    private static String optional(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private static long parseLong(String value) {
+        return value != null && !value.isEmpty() ? Long.parseLong(value) : 0;
+    }
+
+    private static void checkVersion(int version) throws IOException {
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Export was written by a newer version of the plugin");
+        }
+    }
+
+    /**
+     * Write a file by writing a temp file next to it and moving that into place
+     */
+    private static void replace(File file, FileContents contents) throws IOException {
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            contents.writeTo(temp);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private static void replaceText(File file, TextContents contents) throws IOException {
+        replace(file, temp -> {
+            try (Writer out = openWriter(temp)) {
+                contents.writeTo(out);
+            }
+        });
+    }
+
+    private static Writer openWriter(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE),
+                BUFFER_SIZE);
+    }
+
+    private static Reader openReader(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        return new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE),
+                BUFFER_SIZE);
+    }
+
+    private interface FileContents {
+        void writeTo(File file) throws IOException;
+    }
+
+    private interface TextContents {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    /**
+     * Puts the timeline's changes back together into whole points, one resolution at a time
+     */
+    private static final class TimelineBuilder {
+        private final SkillHistory history = new SkillHistory();
+        private final long[][] experience = new long[SkillHistory.Resolution.values().length][Skill.values().length];
+        private final long[] pointTime = new long[SkillHistory.Resolution.values().length];
+        private final boolean[] pending = new boolean[SkillHistory.Resolution.values().length];
+
+        void add(String resolutionName, long time, String skillName, long value) {
+            SkillHistory.Resolution resolution = SkillHistory.Resolution.valueOf(resolutionName);
+            Skill skill;
+            try {
+                skill = Skill.valueOf(skillName);
+            } catch (IllegalArgumentException e) {
+                // A skill this client doesn't know about
+                return;
+            }
+
+            int r = resolution.ordinal();
+            if (pending[r] && pointTime[r] != time) {
+                history.appendPoint(resolution, pointTime[r], experience[r]);
+            }
+            pointTime[r] = time;
+            pending[r] = true;
+            experience[r][skill.ordinal()] = value;
+        }
+
+        SkillHistory finish() {
+            for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+                int r = resolution.ordinal();
+                if (pending[r]) {
+                    history.appendPoint(resolution, pointTime[r], experience[r]);
+                    pending[r] = false;
+                }
+            }
+            return history;
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields may hold commas, doubled quotes and line breaks
+     */
+    private static final class CsvReader implements AutoCloseable {
+        private final Reader in;
+        private final StringBuilder field = new StringBuilder();
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * The next row's fields, or null at the end of the file
+         */
+        List<String> next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = in.read()) >= 0) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            field.append('"');
+                        } else {
+                            in.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.sololeveling.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of key/value updates, so plugin state survives the client crashing at any point.
+ * <p>
+ * Updates can be made from any thread. They are visible to {@link #get} and {@link #entries} straight away and
+ * queued; the first update queued schedules a write on the executor a moment later, and everything queued by
+ * then goes out in that one write (group commit). Written records already survive the client crashing. The
+ * {@link SyncPolicy} decides how often they are also forced to disk, which is what survives the machine losing
+ * power.
+ * <p>
+ * Each record is the length of its body, a CRC32 of the body, then the body: a removal flag, the key and the
+ * value. Recovery replays records up to the first one that is cut short or fails its checksum and truncates the
+ * file there, since a crash mid-write can only damage the tail. Once the log has grown well past the state it
+ * holds, the next write compacts it instead: the live entries go to a temp file that is moved over the log.
+ */
+@Slf4j
+@Singleton
+public class WriteAheadLog {
+    private static final File LOG_FILE = new File(RuneLite.RUNELITE_DIR, "solo-leveling/state.wal");
+    private static final int FILE_MAGIC = 0x534C574C; // "SLWL"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 5;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final long GROUP_COMMIT_MILLIS = 50;
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+    private static final long COMPACT_MIN_BYTES = 256 * 1024;
+    private static final int COMPACT_RATIO = 4;
+
+    public enum SyncPolicy {
+        ALWAYS("Every write"),
+        PERIODIC("Every second"),
+        NEVER("Leave to the OS");
+
+        private final String name;
+
+        SyncPolicy(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+    private final File file;
+
+    // Guards the live entries and the queue; never held while doing I/O
+    private final Object lock = new Object();
+    private final TreeMap<String, byte[]> live = new TreeMap<>();
+    private long liveBytes;
+    private List<Record> pending = new ArrayList<>();
+    private boolean writeScheduled;
+    private volatile SyncPolicy syncPolicy = SyncPolicy.PERIODIC;
+
+    // Only used while holding this object's monitor, by recovery, writes and syncs
+    private FileChannel channel;
+    // Whether the last recovery opened the file, so writes after close() can reopen it
+    private boolean recovered;
+    private long fileBytes;
+    private boolean compactNeeded;
+    private long lastSyncAt;
+    private boolean syncScheduled;
+
+    @Inject
+    public WriteAheadLog(ScheduledExecutorService executor) {
+        this(executor, LOG_FILE);
+    }
+
+    WriteAheadLog(ScheduledExecutorService executor, File file) {
+        this.executor = executor;
+        this.file = file;
+    }
+
+    public void setSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    /**
+     * Open the log and replay it, truncating any torn tail. Does file I/O; call it before anything reads the
+     * entries, and again after {@link #close()} to reopen. Updates still queued are written out first.
+     */
+    public synchronized void recover() {
+        write();
+        recovered = false;
+        synchronized (lock) {
+            live.clear();
+            liveBytes = 0;
+            pending.clear();
+        }
+        closeChannel();
+
+        try {
+            File directory = file.getParentFile();
+            if (directory != null && !directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long valid = replay();
+            if (valid < 0) {
+                log.warn("Discarding write-ahead log with an unknown format");
+                channel.truncate(0);
+                writeFully(fileHeader());
+                valid = FILE_HEADER_SIZE;
+            } else if (valid < channel.size()) {
+                log.warn("Truncating {} bytes of torn records from the write-ahead log", channel.size() - valid);
+                channel.truncate(valid);
+            }
+            channel.position(valid);
+            fileBytes = valid;
+            recovered = true;
+            log.debug("Recovered {} entries from the write-ahead log", live.size());
+        } catch (IOException e) {
+            log.warn("Unable to open the write-ahead log; changes won't survive a crash", e);
+            closeChannel();
+        }
+    }
+
+    /**
+     * Read every intact record into the live entries
+     *
+     * @return the length of the intact prefix of the file, or -1 if it isn't a log
+     */
+    private long replay() throws IOException {
+        if (channel.size() == 0) {
+            writeFully(fileHeader());
+            return FILE_HEADER_SIZE;
+        }
+
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        try {
+            if (in.readInt() != FILE_MAGIC || in.readUnsignedByte() != FILE_VERSION) {
+                return -1;
+            }
+        } catch (EOFException e) {
+            return -1;
+        }
+
+        long valid = FILE_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] body;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 3 || length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                body = new byte[length];
+                in.readFully(body);
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+
+            boolean removal;
+            String key;
+            byte[] value;
+            try {
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                removal = record.readBoolean();
+                key = record.readUTF();
+                value = Arrays.copyOfRange(body, body.length - record.available(), body.length);
+            } catch (IOException e) {
+                // Passed the checksum but doesn't parse, so treat it like a torn record
+                break;
+            }
+            synchronized (lock) {
+                apply(key, removal ? null : value);
+            }
+            valid += RECORD_HEADER_SIZE + body.length;
+        }
+        return valid;
+    }
+
+    public byte[] get(String key) {
+        synchronized (lock) {
+            return live.get(key);
+        }
+    }
+
+    /**
+     * Live entries whose keys start with the given prefix, in key order
+     */
+    public Map<String, byte[]> entries(String prefix) {
+        synchronized (lock) {
+            return new LinkedHashMap<>(live.subMap(prefix, prefix + Character.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Set a key. The value must not be modified afterwards.
+     */
+    public void put(String key, byte[] value) {
+        enqueue(new Record(key, value));
+    }
+
+    public void remove(String key) {
+        synchronized (lock) {
+            if (!live.containsKey(key)) {
+                return;
+            }
+        }
+        enqueue(new Record(key, null));
+    }
+
+    private void enqueue(Record record) {
+        synchronized (lock) {
+            apply(record.key, record.value);
+            pending.add(record);
+            if (!writeScheduled) {
+                writeScheduled = true;
+                executor.schedule(this::write, GROUP_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void apply(String key, byte[] value) {
+        byte[] previous = value != null ? live.put(key, value) : live.remove(key);
+        if (previous != null) {
+            liveBytes -= recordSize(key, previous);
+        }
+        if (value != null) {
+            liveBytes += recordSize(key, value);
+        }
+    }
+
+    /**
+     * Write everything queued, then sync as the policy says
+     */
+    synchronized void write() {
+        List<Record> batch;
+        Map<String, byte[]> snapshot = null;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            writeScheduled = false;
+            if (compactNeeded || fileBytes > Math.max(COMPACT_MIN_BYTES, COMPACT_RATIO * liveBytes)) {
+                // The snapshot already has the effect of every queued record
+                snapshot = new LinkedHashMap<>(live);
+            }
+        }
+        if (batch.isEmpty() && snapshot == null) {
+            return;
+        }
+
+        // Updates can still arrive after close(), such as from tasks queued before it; the file on disk is
+        // intact then, so append them and close it again
+        boolean reopened = false;
+        if (channel == null) {
+            if (!recovered) {
+                log.warn("Dropping {} updates, the write-ahead log isn't open", batch.size());
+                return;
+            }
+            try {
+                openForAppend();
+                reopened = true;
+            } catch (IOException e) {
+                log.warn("Unable to reopen the write-ahead log", e);
+                compactNeeded = true;
+                return;
+            }
+        }
+
+        try {
+            if (snapshot != null) {
+                compact(snapshot);
+            } else {
+                // Only the last update to each key in the batch matters on replay
+                Map<String, Record> latest = new LinkedHashMap<>();
+                for (Record record : batch) {
+                    latest.put(record.key, record);
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                for (Record record : latest.values()) {
+                    record.writeTo(bytes);
+                }
+                writeFully(bytes.toByteArray());
+                fileBytes += bytes.size();
+            }
+            compactNeeded = false;
+        } catch (IOException e) {
+            // Part of the batch may be missing from the file, so the next write rewrites the whole state
+            log.warn("Unable to write to the write-ahead log", e);
+            compactNeeded = true;
+            return;
+        } finally {
+            if (reopened) {
+                sync(true);
+                closeChannel();
+            }
+        }
+        sync(false);
+    }
+
+    private void sync(boolean force) {
+        if (channel == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        SyncPolicy policy = syncPolicy;
+        if (!force && policy == SyncPolicy.NEVER) {
+            return;
+        }
+        if (!force && policy == SyncPolicy.PERIODIC && now - lastSyncAt < SYNC_INTERVAL_MILLIS) {
+            if (!syncScheduled) {
+                syncScheduled = true;
+                executor.schedule(this::scheduledSync, SYNC_INTERVAL_MILLIS - (now - lastSyncAt),
+                        TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
+        try {
+            channel.force(false);
+            lastSyncAt = now;
+        } catch (IOException e) {
+            log.warn("Unable to sync the write-ahead log", e);
+        }
+    }
+
+    private synchronized void scheduledSync() {
+        syncScheduled = false;
+        sync(true);
+    }
+
+    /**
+     * Write the live entries to a new file and move it over the log
+     */
+    private void compact(Map<String, byte[]> snapshot) throws IOException {
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                bytes.write(fileHeader());
+                for (Map.Entry<String, byte[]> entry : snapshot.entrySet()) {
+                    new Record(entry.getKey(), entry.getValue()).writeTo(bytes);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(false);
+            }
+            closeChannel();
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+            // Carry on appending to whichever file is now in place, compacted or not
+            if (channel == null) {
+                openForAppend();
+            }
+        }
+        log.debug("Compacted the write-ahead log to {} entries, {} bytes", snapshot.size(), fileBytes);
+    }
+
+    /**
+     * Write and sync everything queued, then close the file. Does file I/O.
+     */
+    public synchronized void close() {
+        write();
+        sync(true);
+        closeChannel();
+    }
+
+    private void openForAppend() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileBytes = channel.size();
+        channel.position(fileBytes);
+    }
+
+    private void writeFully(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Unable to close the write-ahead log", e);
+        }
+        channel = null;
+    }
+
+    private static byte[] fileHeader() {
+        return ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(FILE_MAGIC).put((byte) FILE_VERSION).array();
+    }
+
+    /**
+     * Rough size of an entry's record, for deciding when to compact
+     */
+    private static long recordSize(String key, byte[] value) {
+        return RECORD_HEADER_SIZE + 3 + key.length() + value.length;
+    }
+
+    private static final class Record {
+        private final String key;
+        // Null for a removal
+        private final byte[] value;
+
+        Record(String key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        void writeTo(ByteArrayOutputStream out) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(3 + key.length()
+                    + (value != null ? value.length : 0));
+            DataOutputStream data = new DataOutputStream(body);
+            data.writeBoolean(value == null);
+            data.writeUTF(key);
+            if (value != null) {
+                data.write(value);
+            }
+
+            CRC32 crc = new CRC32();
+            byte[] encoded = body.toByteArray();
+            crc.update(encoded, 0, encoded.length);
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(encoded.length);
+            header.writeInt((int) crc.getValue());
+            out.write(encoded);
+        }
+    }
+}
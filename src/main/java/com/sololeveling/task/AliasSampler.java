@@ -0,0 +1,97 @@
+package com.sololeveling.task;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+/**
+ * Picks values with fixed relative weights in constant time, using Vose's alias method.
+ * Building the tables costs O(n); each sample then costs one random column, one random coin flip and no
+ * allocation. Instances are immutable, so a sampler can be shared between threads and replaced wholesale
+ * when the weights change.
+ */
+public final class AliasSampler<T> {
+    private final T[] values;
+    private final double[] probability;
+    private final int[] alias;
+    private final double[] weights;
+
+    /**
+     * @param values  the values to pick from
+     * @param weights relative weight of each value; negative weights count as zero. If every weight is zero,
+     *                values are picked uniformly.
+     */
+    public AliasSampler(T[] values, double[] weights) {
+        if (values.length == 0 || values.length != weights.length) {
+            throw new IllegalArgumentException("Need one weight per value, and at least one value");
+        }
+
+        int n = values.length;
+        this.values = values.clone();
+        this.weights = new double[n];
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            this.weights[i] = Math.max(0, weights[i]);
+            total += this.weights[i];
+        }
+        if (total <= 0) {
+            Arrays.fill(this.weights, 1);
+            total = n;
+        }
+
+        // Scale so the average weight is 1, then pair each under-full column with an over-full one
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = this.weights[i] * n / total;
+            (scaled[i] < 1 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            (scaled[more] < 1 ? small : large).push(more);
+        }
+        // Whatever is left is full up to rounding error
+        while (!large.isEmpty()) {
+            probability[large.pop()] = 1;
+        }
+        while (!small.isEmpty()) {
+            probability[small.pop()] = 1;
+        }
+    }
+
+    public T sample(SplittableRandom random) {
+        return values[sampleIndex(random)];
+    }
+
+    /**
+     * Index of a value picked according to the weights
+     */
+    public int sampleIndex(SplittableRandom random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public T get(int index) {
+        return values[index];
+    }
+
+    /**
+     * The weight the sampler was built with for the value at the given index
+     */
+    public double getWeight(int index) {
+        return weights[index];
+    }
+}
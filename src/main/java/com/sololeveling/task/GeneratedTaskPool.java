@@ -0,0 +1,192 @@
+package com.sololeveling.task;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded home for generated tasks, so random and quest challenges don't pile up over a long session.
+ * Every task has an expiry time after which it is dropped. When the pool is full, adding a task evicts one
+ * first, preferring expired tasks, then completed ones, then tasks the player has never seen (oldest first),
+ * and only then the least recently seen task.
+ * <p>
+ * Victims are found with a scan of the pool, which the capacity keeps short. Not thread-safe; like the rest
+ * of {@link TaskManager} it is used from the client thread.
+ */
+public class GeneratedTaskPool {
+    // Iteration order is insertion order, so the oldest tasks come first
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private int capacity;
+    private long nextExpiryAt = Long.MAX_VALUE;
+
+    private long added;
+    private long expired;
+    private long evicted;
+    private long evictedUnviewed;
+
+    public GeneratedTaskPool(int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Change the capacity, evicting tasks straight away if the pool is now over it
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        while (entries.size() > capacity) {
+            evictOne(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Add a task, evicting another if the pool is full
+     *
+     * @param expiresAt when the task should be dropped, in epoch millis
+     */
+    public void add(Task task, long now, long expiresAt) {
+        Entry previous = entries.remove(task.getId());
+        if (previous == null) {
+            while (entries.size() >= capacity) {
+                evictOne(now);
+            }
+        }
+        entries.put(task.getId(), new Entry(task, expiresAt));
+        nextExpiryAt = Math.min(nextExpiryAt, expiresAt);
+        added++;
+    }
+
+    public Task get(String taskId) {
+        Entry entry = entries.get(taskId);
+        return entry != null ? entry.task : null;
+    }
+
+    public boolean remove(String taskId) {
+        return entries.remove(taskId) != null;
+    }
+
+    /**
+     * Record that the player has been shown a task, which protects it from eviction for longer
+     */
+    public void markViewed(String taskId, long now) {
+        Entry entry = entries.get(taskId);
+        if (entry != null) {
+            entry.lastViewedAt = now;
+        }
+    }
+
+    /**
+     * Drop every task that has expired
+     *
+     * @return the number of tasks dropped
+     */
+    public int expire(long now) {
+        if (now < nextExpiryAt) {
+            return 0;
+        }
+
+        int dropped = 0;
+        long next = Long.MAX_VALUE;
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.expiresAt <= now) {
+                it.remove();
+                dropped++;
+            } else {
+                next = Math.min(next, entry.expiresAt);
+            }
+        }
+        nextExpiryAt = next;
+        expired += dropped;
+        return dropped;
+    }
+
+    /**
+     * The pooled tasks, oldest first
+     */
+    public List<Task> getTasks() {
+        List<Task> tasks = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            tasks.add(entry.task);
+        }
+        return tasks;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats getStats() {
+        return new Stats(entries.size(), capacity, added, expired, evicted, evictedUnviewed);
+    }
+
+    private void evictOne(long now) {
+        Entry victim = null;
+        int victimRank = Integer.MAX_VALUE;
+        for (Entry entry : entries.values()) {
+            int rank = evictionRank(entry, now);
+            // Ties go to the older task for unseen ones, and to the least recently seen otherwise
+            if (rank < victimRank || (rank == victimRank && rank == 3 && entry.lastViewedAt < victim.lastViewedAt)) {
+                victim = entry;
+                victimRank = rank;
+            }
+            if (rank == 0) {
+                break;
+            }
+        }
+
+        entries.remove(victim.task.getId());
+        if (victim.lastViewedAt == 0) {
+            evictedUnviewed++;
+        }
+        if (victimRank == 0) {
+            expired++;
+        } else {
+            evicted++;
+        }
+    }
+
+    /**
+     * Lower ranks are evicted first
+     */
+    private static int evictionRank(Entry entry, long now) {
+        if (entry.expiresAt <= now) {
+            return 0;
+        }
+        if (entry.task.isCompleted()) {
+            return 1;
+        }
+        return entry.lastViewedAt == 0 ? 2 : 3;
+    }
+
+    private static final class Entry {
+        private final Task task;
+        private final long expiresAt;
+        // 0 until the player has seen the task
+        private long lastViewedAt;
+
+        private Entry(Task task, long expiresAt) {
+            this.task = task;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Pool occupancy and how tasks have left it
+     */
+    @Value
+    public static class Stats {
+        int size;
+        int capacity;
+        long added;
+        long expired;
+        long evicted;
+        long evictedUnviewed;
+    }
+}
@@ -0,0 +1,449 @@
+package com.sololeveling.task;
+
+import lombok.Value;
+import com.sololeveling.util.ExperienceTable;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Skill;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Orders incomplete tasks into a plan that earns as many points as possible within a time budget.
+ * Level goals are costed from the XP still needed at the player's XP rate in that skill, and goals on the same
+ * skill share progress: once the plan reaches level 50 Fishing, a later "reach 55 Fishing" only costs the XP
+ * from 50 to 55. Other tasks take a typical time for their difficulty.
+ * <p>
+ * Planning is greedy on points per hour with one step of lookahead: each candidate is scored together with the
+ * best task that would follow it, so a weak task that makes the next one cheap can still go first. The
+ * candidates at each step are the best task per skill and the best fixed-time task, so a step costs a pass over
+ * one skill's tasks per candidate rather than a pass over every task. Goals that are reached, or nearly, are
+ * planned up front without any of this, since they only take a minute to hand in.
+ * <p>
+ * Plans are made on the executor. If requests arrive while one is being planned, only the newest is planned
+ * next. A completed task is dropped from the current plan straight away, until the replan catches up.
+ */
+@Slf4j
+@Singleton
+public class GoalPlanner {
+    // Used for skills the player hasn't gained XP in this session
+    private static final double DEFAULT_XP_PER_HOUR = 30_000;
+    // Even a goal that is already reached takes a moment to hand in
+    private static final double MIN_TASK_HOURS = 1 / 60.0;
+    // Typical time for tasks that aren't level goals, by difficulty
+    private static final double[] DIFFICULTY_HOURS = {0.25, 0.75, 1.5, 3, 6};
+
+    private final ScheduledExecutorService executor;
+    private final AtomicReference<PlanRequest> pending = new AtomicReference<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Plan plan = Plan.EMPTY;
+
+    @Inject
+    public GoalPlanner(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * The latest plan, which is empty until the first request has been planned
+     */
+    public Plan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Plan in the background. The request should be a snapshot, as it is read on another thread.
+     */
+    public void requestPlan(PlanRequest request) {
+        pending.set(request);
+        schedule();
+    }
+
+    /**
+     * Drop a completed task from the current plan without waiting for a replan
+     */
+    public void taskCompleted(String taskId) {
+        plan = plan.without(taskId);
+    }
+
+    private void schedule() {
+        if (pending.get() != null && running.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            PlanRequest request;
+            while ((request = pending.getAndSet(null)) != null) {
+                long start = System.nanoTime();
+                plan = plan(request);
+                log.debug("Planned {} of {} tasks ({} points in {} hours) in {} ms", plan.getSteps().size(),
+                        request.getTasks().size(), plan.getTotalPoints(), String.format("%.1f", plan.getTotalHours()),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to plan tasks", e);
+        } finally {
+            running.set(false);
+        }
+        // A request may have come in after the last check but before the flag was cleared
+        schedule();
+    }
+
+    /**
+     * Plan on the calling thread
+     */
+    public static Plan plan(PlanRequest request) {
+        return new Search(request).run();
+    }
+
+    /**
+     * A task as the search sees it
+     */
+    private static final class Candidate {
+        private final Task task;
+        private final int points;
+        // Skill ordinal for level goals, or -1 for tasks with a fixed time
+        private final int skill;
+        private final long targetXp;
+        private final double fixedHours;
+        // Planned already, or can no longer fit in the budget
+        private boolean done;
+
+        private Candidate(Task task, int skill, long targetXp, double fixedHours) {
+            this.task = task;
+            this.points = task.getPointsReward();
+            this.skill = skill;
+            this.targetXp = targetXp;
+            this.fixedHours = fixedHours;
+        }
+    }
+
+    /**
+     * One planning run. A task that doesn't fit the remaining budget never fits later, since the budget only
+     * shrinks, and a level goal only gets cheaper by as much time as the plan spends on its skill. Such tasks are
+     * marked done as soon as they're found, so each scan gets shorter as the plan fills up.
+     */
+    private static final class Search {
+        private final long[] xp;
+        private final double[] rate;
+        // Level goals per skill, most points first, and the best of each for the current state (null if none fits)
+        private final Candidate[][] bySkill;
+        private final Candidate[] best;
+        // Fixed-time tasks, best points per hour first
+        private final Candidate[] fixed;
+        private int fixedNext;
+        private final double budget;
+        private double remaining;
+
+        private final List<Step> steps = new ArrayList<>();
+        private double elapsed;
+        private int points;
+
+        Search(PlanRequest request) {
+            Skill[] skills = Skill.values();
+            xp = new long[skills.length];
+            rate = new double[skills.length];
+            for (Skill skill : skills) {
+                xp[skill.ordinal()] = request.getExperience().getOrDefault(skill, 0L);
+                Double observed = request.getExperienceRates().get(skill);
+                rate[skill.ordinal()] = observed != null && observed > 0 ? observed : DEFAULT_XP_PER_HOUR;
+            }
+            budget = request.getBudgetHours();
+            remaining = budget;
+
+            List<List<Candidate>> goals = new ArrayList<>(skills.length);
+            for (int i = 0; i < skills.length; i++) {
+                goals.add(new ArrayList<>());
+            }
+            List<Candidate> timed = new ArrayList<>();
+            for (Task task : request.getTasks()) {
+                if (task.isCompleted() || task.getPointsReward() <= 0) {
+                    continue;
+                }
+                if (task.getSkill() != null && task.getTargetLevel() > 0) {
+                    int skill = task.getSkill().ordinal();
+                    long targetXp = ExperienceTable.getXpForLevel(task.getTargetLevel());
+                    goals.get(skill).add(new Candidate(task, skill, targetXp, 0));
+                } else {
+                    timed.add(new Candidate(task, -1, 0, fixedHours(task)));
+                }
+            }
+
+            bySkill = new Candidate[skills.length][];
+            best = new Candidate[skills.length];
+            for (int i = 0; i < skills.length; i++) {
+                bySkill[i] = goals.get(i).toArray(new Candidate[0]);
+                Arrays.sort(bySkill[i], Comparator.comparingInt((Candidate c) -> c.points).reversed());
+            }
+            fixed = timed.toArray(new Candidate[0]);
+            Arrays.sort(fixed, Comparator.comparingDouble((Candidate c) -> c.points / c.fixedHours).reversed());
+        }
+
+        Plan run() {
+            // Goals that are reached, or as good as, cost the minimum, so they go first, most points first
+            List<Candidate> reached = new ArrayList<>();
+            for (int s = 0; s < bySkill.length; s++) {
+                for (Candidate goal : bySkill[s]) {
+                    if (goalHours(goal, xp[s]) <= MIN_TASK_HOURS) {
+                        reached.add(goal);
+                    }
+                }
+            }
+            reached.sort(Comparator.comparingInt((Candidate c) -> c.points).reversed());
+            for (Candidate goal : reached) {
+                if (MIN_TASK_HOURS <= remaining) {
+                    add(goal, MIN_TASK_HOURS);
+                }
+            }
+            for (int s = 0; s < best.length; s++) {
+                best[s] = bestGoal(s, xp[s], remaining, null, true);
+            }
+
+            while (true) {
+                // The budget shrank, so a skill's best goal may no longer fit
+                for (int s = 0; s < best.length; s++) {
+                    if (best[s] != null && (best[s].done || hours(best[s]) > remaining)) {
+                        best[s] = bestGoal(s, xp[s], remaining, null, true);
+                    }
+                }
+
+                Candidate choice = null;
+                Candidate choiceNext = null;
+                double choiceScore = -1;
+
+                Candidate fixedBest = bestFixed(remaining, null, true);
+                if (fixedBest != null) {
+                    Candidate next = lookahead(fixedBest);
+                    double score = pairScore(fixedBest, next);
+                    if (score > choiceScore) {
+                        choice = fixedBest;
+                        choiceNext = next;
+                        choiceScore = score;
+                    }
+                }
+                for (Candidate goal : best) {
+                    if (goal == null) {
+                        continue;
+                    }
+                    Candidate next = lookahead(goal);
+                    double score = pairScore(goal, next);
+                    if (score > choiceScore) {
+                        choice = goal;
+                        choiceNext = next;
+                        choiceScore = score;
+                    }
+                }
+                if (choice == null) {
+                    break;
+                }
+
+                // When the best pair doesn't depend on its order, do the better half first
+                if (choiceNext != null && (choice.skill < 0 || choiceNext.skill != choice.skill)
+                        && ratio(choiceNext, hours(choiceNext)) > ratio(choice, hours(choice))) {
+                    choice = choiceNext;
+                }
+
+                add(choice, hours(choice));
+                if (choice.skill >= 0) {
+                    // Reaching this goal may have reached smaller ones on the way, and made the rest cheaper
+                    addReached(choice.skill);
+                    best[choice.skill] = bestGoal(choice.skill, xp[choice.skill], remaining, null, true);
+                }
+            }
+
+            return new Plan(Collections.unmodifiableList(steps), points, elapsed);
+        }
+
+        private void add(Candidate task, double hours) {
+            steps.add(new Step(task.task, elapsed, hours));
+            elapsed += hours;
+            points += task.points;
+            remaining = budget - elapsed;
+            task.done = true;
+            if (task.skill >= 0) {
+                xp[task.skill] = Math.max(xp[task.skill], task.targetXp);
+            }
+        }
+
+        /**
+         * Plan every goal in a skill that costs no more than the minimum, most points first
+         */
+        private void addReached(int skill) {
+            for (Candidate goal : bySkill[skill]) {
+                if (!goal.done && goalHours(goal, xp[skill]) <= MIN_TASK_HOURS && MIN_TASK_HOURS <= remaining) {
+                    add(goal, MIN_TASK_HOURS);
+                }
+            }
+        }
+
+        /**
+         * The task that would best follow the given one, or null if nothing would fit after it. Other skills'
+         * best goals are taken as they stand, so a skill whose best would no longer fit is passed over rather
+         * than searched again.
+         */
+        private Candidate lookahead(Candidate first) {
+            double after = remaining - hours(first);
+            Candidate next = bestFixed(after, first, false);
+            double nextRatio = next != null ? ratio(next, hours(next)) : -1;
+
+            for (int s = 0; s < best.length; s++) {
+                Candidate goal;
+                if (s == first.skill) {
+                    goal = bestGoal(s, Math.max(xp[s], first.targetXp), after, first, false);
+                } else {
+                    goal = best[s];
+                }
+                if (goal == null) {
+                    continue;
+                }
+                double hours = s == first.skill ? goalHours(goal, Math.max(xp[s], first.targetXp)) : hours(goal);
+                if (hours <= after) {
+                    double goalRatio = ratio(goal, hours);
+                    if (goalRatio > nextRatio) {
+                        next = goal;
+                        nextRatio = goalRatio;
+                    }
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Points per hour of doing both tasks, or of the first alone if nothing follows
+         */
+        private double pairScore(Candidate first, Candidate next) {
+            double hours = hours(first);
+            if (next == null) {
+                return ratio(first, hours);
+            }
+            long xpAfter = first.skill >= 0 ? Math.max(xp[first.skill], first.targetXp) : 0;
+            double nextHours = next.skill >= 0 && next.skill == first.skill ? goalHours(next, xpAfter) : hours(next);
+            return (first.points + next.points) / (hours + nextHours);
+        }
+
+        /**
+         * The level goal in a skill with the most points per hour that fits the budget
+         *
+         * @param skillXp XP the plan will have in the skill by then
+         * @param exclude a task to pass over, or null
+         * @param prune   whether tasks that don't fit may be marked done; only for the real plan state
+         */
+        private Candidate bestGoal(int skill, long skillXp, double budget, Candidate exclude, boolean prune) {
+            Candidate found = null;
+            double foundRatio = -1;
+            for (Candidate goal : bySkill[skill]) {
+                if (goal.done || goal == exclude) {
+                    continue;
+                }
+                double hours = goalHours(goal, skillXp);
+                if (hours > budget) {
+                    goal.done |= prune;
+                    continue;
+                }
+                double goalRatio = ratio(goal, hours);
+                if (goalRatio > foundRatio) {
+                    found = goal;
+                    foundRatio = goalRatio;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * The fixed-time task with the most points per hour that fits the budget
+         */
+        private Candidate bestFixed(double budget, Candidate exclude, boolean prune) {
+            while (prune && fixedNext < fixed.length && fixed[fixedNext].done) {
+                fixedNext++;
+            }
+            for (int i = fixedNext; i < fixed.length; i++) {
+                Candidate task = fixed[i];
+                if (task.done || task == exclude) {
+                    continue;
+                }
+                if (task.fixedHours <= budget) {
+                    return task;
+                }
+                task.done |= prune;
+            }
+            return null;
+        }
+
+        private double hours(Candidate task) {
+            return task.skill >= 0 ? goalHours(task, xp[task.skill]) : task.fixedHours;
+        }
+
+        private double goalHours(Candidate goal, long skillXp) {
+            return Math.max(MIN_TASK_HOURS, Math.max(0, goal.targetXp - skillXp) / rate[goal.skill]);
+        }
+
+        private static double ratio(Candidate task, double hours) {
+            return task.points / hours;
+        }
+    }
+
+    private static double fixedHours(Task task) {
+        TaskDifficulty difficulty = task.getDifficulty();
+        return difficulty != null ? DIFFICULTY_HOURS[difficulty.ordinal()] : DIFFICULTY_HOURS[0];
+    }
+
+    /**
+     * Everything a plan is made from
+     */
+    @Value
+    public static class PlanRequest {
+        List<Task> tasks;
+        Map<Skill, Long> experience;
+        // XP per hour in each skill; skills left out use a default rate
+        Map<Skill, Double> experienceRates;
+        double budgetHours;
+    }
+
+    /**
+     * Tasks to do, in order
+     */
+    @Value
+    public static class Plan {
+        static final Plan EMPTY = new Plan(Collections.emptyList(), 0, 0);
+
+        List<Step> steps;
+        int totalPoints;
+        double totalHours;
+
+        /**
+         * This plan without the given task, with the steps after it moved up
+         */
+        Plan without(String taskId) {
+            List<Step> kept = new ArrayList<>(steps.size());
+            double elapsed = 0;
+            int points = 0;
+            for (Step step : steps) {
+                if (!step.getTask().getId().equals(taskId)) {
+                    kept.add(new Step(step.getTask(), elapsed, step.getHours()));
+                    elapsed += step.getHours();
+                    points += step.getTask().getPointsReward();
+                }
+            }
+            return kept.size() == steps.size() ? this : new Plan(Collections.unmodifiableList(kept), points, elapsed);
+        }
+    }
+
+    @Value
+    public static class Step {
+        Task task;
+        // Hours into the plan when this task starts
+        double startHours;
+        double hours;
+    }
+}
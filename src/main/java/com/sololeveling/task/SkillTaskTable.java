@@ -0,0 +1,396 @@
+package com.sololeveling.task;
+
+import com.sololeveling.util.ExperienceTable;
+import net.runelite.api.Skill;
+
+/**
+ * Precomputed text and target levels for personalized skill tasks.
+ * The skill and level band lookups that used to run as switch and if chains on every task are resolved once
+ * per skill and level when the class loads. Task text for a given target level is built the first time it
+ * is needed and then shared by every task that uses it, so generating a task allocates no strings.
+ */
+final class SkillTaskTable {
+    static final int MAX_LEVEL = ExperienceTable.MAX_REAL_LEVEL;
+
+    // [skill ordinal][level] -> row, levels below 1 are clamped
+    private static final Row[][] ROWS;
+    // [difficulty ordinal][level][roll] -> target level
+    private static final byte[][][] TARGET_LEVELS;
+
+    static {
+        Skill[] skills = Skill.values();
+        ROWS = new Row[skills.length][];
+        for (Skill skill : skills) {
+            Row[] rows = new Row[MAX_LEVEL + 1];
+            for (int level = 1; level <= MAX_LEVEL; level++) {
+                Row row = buildRow(skill, level);
+                // Levels in the same band share a row, and with it the cached text
+                rows[level] = level > 1 && row.sameText(rows[level - 1]) ? rows[level - 1] : row;
+            }
+            rows[0] = rows[1];
+            ROWS[skill.ordinal()] = rows;
+        }
+
+        TaskDifficulty[] difficulties = TaskDifficulty.values();
+        TARGET_LEVELS = new byte[difficulties.length][MAX_LEVEL + 1][];
+        for (TaskDifficulty difficulty : difficulties) {
+            int min = minIncrease(difficulty);
+            int rolls = maxIncrease(difficulty) - min + 1;
+            for (int level = 1; level <= MAX_LEVEL; level++) {
+                byte[] targets = new byte[rolls];
+                for (int roll = 0; roll < rolls; roll++) {
+                    targets[roll] = (byte) Math.min(MAX_LEVEL, level + scaleIncrease(min + roll, level));
+                }
+                TARGET_LEVELS[difficulty.ordinal()][level] = targets;
+            }
+            TARGET_LEVELS[difficulty.ordinal()][0] = TARGET_LEVELS[difficulty.ordinal()][1];
+        }
+    }
+
+    private SkillTaskTable() {
+    }
+
+    static Row row(Skill skill, int level) {
+        return ROWS[skill.ordinal()][clamp(level)];
+    }
+
+    /**
+     * Number of equally likely target levels for a task of the given difficulty
+     */
+    static int rolls(TaskDifficulty difficulty) {
+        return TARGET_LEVELS[difficulty.ordinal()][1].length;
+    }
+
+    /**
+     * Target level for a task of the given difficulty
+     *
+     * @param roll a uniformly random number below {@link #rolls(TaskDifficulty)}
+     */
+    static int targetLevel(TaskDifficulty difficulty, int level, int roll) {
+        return TARGET_LEVELS[difficulty.ordinal()][clamp(level)][roll];
+    }
+
+    private static int clamp(int level) {
+        return Math.max(0, Math.min(MAX_LEVEL, level));
+    }
+
+    /**
+     * Task text for one skill and level band. Text is either fixed or a head and tail around the target level.
+     */
+    static final class Row {
+        private final TaskCategory category;
+        private final String idPrefix;
+        private final String fixedName;
+        private final String nameHead;
+        private final String nameTail;
+        private final String descriptionHead;
+        private final String descriptionTail;
+        private final String[] names = new String[MAX_LEVEL + 1];
+        private final String[] descriptions = new String[MAX_LEVEL + 1];
+
+        private Row(Skill skill, TaskCategory category, String fixedName, String nameHead, String nameTail,
+                    String descriptionHead, String descriptionTail) {
+            this.category = category;
+            this.idPrefix = "personalized_" + skill.name().toLowerCase() + "_";
+            this.fixedName = fixedName;
+            this.nameHead = nameHead;
+            this.nameTail = nameTail;
+            this.descriptionHead = descriptionHead;
+            this.descriptionTail = descriptionTail;
+        }
+
+        TaskCategory getCategory() {
+            return category;
+        }
+
+        String getIdPrefix() {
+            return idPrefix;
+        }
+
+        String name(int targetLevel) {
+            if (fixedName != null) {
+                return fixedName;
+            }
+            // Racy but benign: a lost update only builds an equal string again
+            String name = names[targetLevel];
+            if (name == null) {
+                name = (nameHead + targetLevel + nameTail).intern();
+                names[targetLevel] = name;
+            }
+            return name;
+        }
+
+        String description(int targetLevel) {
+            String description = descriptions[targetLevel];
+            if (description == null) {
+                description = (descriptionHead + targetLevel + descriptionTail).intern();
+                descriptions[targetLevel] = description;
+            }
+            return description;
+        }
+
+        private boolean sameText(Row other) {
+            return equal(fixedName, other.fixedName) && equal(nameHead, other.nameHead)
+                    && equal(descriptionHead, other.descriptionHead);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private static Row buildRow(Skill skill, int level) {
+        switch (skill) {
+            // Combat skills
+            case ATTACK:
+            case STRENGTH:
+            case DEFENCE:
+            case RANGED:
+            case MAGIC:
+            case PRAYER:
+            case HITPOINTS:
+                return new Row(skill, TaskCategory.COMBAT, null, "Reach level ", " " + skill.getName(),
+                        "Train your " + skill.getName() + " skill to level ", " to become stronger!");
+
+            // Gathering skills
+            case MINING:
+            case FISHING:
+            case WOODCUTTING:
+            case HUNTER:
+            case FARMING:
+                String gather = getSkillVerb(skill) + " " + getSkillResource(skill, level);
+                return untilLevel(skill, gather, gather);
+
+            // Production skills
+            case COOKING:
+            case FIREMAKING:
+            case SMITHING:
+            case CRAFTING:
+            case FLETCHING:
+            case HERBLORE:
+            case RUNECRAFT:
+            case CONSTRUCTION:
+                String product = getSkillProduct(skill, level);
+                return untilLevel(skill, "Make " + product, "Create " + product);
+
+            // Support skills
+            case AGILITY:
+                String laps = "Complete laps of the " + getAgilityCourseName(level);
+                return untilLevel(skill, laps, laps);
+
+            case THIEVING:
+                String pickpocket = "Pickpocket " + getThievingTarget(level);
+                return untilLevel(skill, pickpocket, pickpocket);
+
+            case SLAYER:
+                return new Row(skill, TaskCategory.SKILLING, "Complete Slayer tasks", null, null,
+                        "Complete Slayer tasks from an appropriate master until level ", "!");
+
+            default:
+                return new Row(skill, TaskCategory.SKILLING, null, "Train " + skill.getName() + " to level ", "",
+                        "Increase your " + skill.getName() + " skill to level ", " to grow stronger!");
+        }
+    }
+
+    private static Row untilLevel(Skill skill, String name, String action) {
+        return new Row(skill, TaskCategory.SKILLING, name, null, null, action + " until you reach level ", "!");
+    }
+
+    private static int minIncrease(TaskDifficulty difficulty) {
+        switch (difficulty) {
+            case EASY: return 1;
+            case MEDIUM: return 3;
+            case HARD: return 5;
+            case ELITE: return 10;
+            case MASTER: return 15;
+            default: return 1;
+        }
+    }
+
+    private static int maxIncrease(TaskDifficulty difficulty) {
+        switch (difficulty) {
+            case EASY: return 2;
+            case MEDIUM: return 5;
+            case HARD: return 9;
+            case ELITE: return 14;
+            case MASTER: return 24;
+            default: return 1;
+        }
+    }
+
+    /**
+     * Scale a target level increase down for higher levels
+     */
+    private static int scaleIncrease(int increase, int level) {
+        if (level >= 80) {
+            return Math.max(1, increase / 2);
+        } else if (level >= 70) {
+            return Math.max(1, increase * 2 / 3);
+        } else if (level >= 50) {
+            return Math.max(1, increase * 3 / 4);
+        }
+        return increase;
+    }
+
+    /**
+     * Get a verb associated with a gathering skill
+     */
+    private static String getSkillVerb(Skill skill) {
+        switch (skill) {
+            case MINING: return "Mine";
+            case FISHING: return "Catch";
+            case WOODCUTTING: return "Cut";
+            case HUNTER: return "Hunt";
+            case FARMING: return "Grow";
+            default: return "Gather";
+        }
+    }
+
+    /**
+     * Get an appropriate resource for the skill and level
+     */
+    private static String getSkillResource(Skill skill, int level) {
+        switch (skill) {
+            case MINING:
+                if (level < 15) return "copper and tin ore";
+                if (level < 30) return "iron ore";
+                if (level < 40) return "coal";
+                if (level < 55) return "mithril ore";
+                if (level < 70) return "adamantite ore";
+                if (level < 85) return "runite ore";
+                return "amethyst";
+
+            case FISHING:
+                if (level < 20) return "shrimp and anchovies";
+                if (level < 40) return "trout and salmon";
+                if (level < 60) return "lobsters";
+                if (level < 76) return "swordfish and tuna";
+                if (level < 85) return "sharks";
+                return "anglerfish or minnows";
+
+            case WOODCUTTING:
+                if (level < 15) return "regular logs";
+                if (level < 30) return "oak logs";
+                if (level < 45) return "willow logs";
+                if (level < 60) return "maple logs";
+                if (level < 75) return "yew logs";
+                return "magic logs";
+
+            case HUNTER:
+                if (level < 20) return "crimson swifts";
+                if (level < 40) return "tropical wagtails";
+                if (level < 60) return "chinchompas";
+                if (level < 80) return "red chinchompas";
+                return "black chinchompas";
+
+            case FARMING:
+                if (level < 20) return "low-level crops";
+                if (level < 40) return "mid-level crops";
+                if (level < 60) return "higher-level crops";
+                if (level < 80) return "fruit trees";
+                return "high-level herbs and trees";
+
+            default:
+                return "resources";
+        }
+    }
+
+    /**
+     * Get an appropriate product for the skill and level
+     */
+    private static String getSkillProduct(Skill skill, int level) {
+        switch (skill) {
+            case COOKING:
+                if (level < 20) return "shrimp and meat";
+                if (level < 40) return "trout and salmon";
+                if (level < 60) return "lobsters";
+                if (level < 80) return "sharks";
+                return "anglerfish or manta rays";
+
+            case FIREMAKING:
+                if (level < 15) return "regular logs";
+                if (level < 30) return "oak logs";
+                if (level < 45) return "willow logs";
+                if (level < 60) return "maple logs";
+                if (level < 75) return "yew logs";
+                return "magic logs or redwood logs";
+
+            case SMITHING:
+                if (level < 15) return "bronze items";
+                if (level < 30) return "iron items";
+                if (level < 50) return "steel items";
+                if (level < 70) return "mithril items";
+                if (level < 85) return "adamant items";
+                return "rune items";
+
+            case CRAFTING:
+                if (level < 20) return "leather items";
+                if (level < 40) return "jewelry";
+                if (level < 60) return "dragonhide items";
+                if (level < 80) return "battlestaves";
+                return "high-level jewelry";
+
+            case FLETCHING:
+                if (level < 30) return "arrow shafts and low-level bows";
+                if (level < 50) return "oak bows and arrows";
+                if (level < 70) return "yew bows and bolts";
+                if (level < 85) return "magic bows";
+                return "dragon bolts or redwood shields";
+
+            case HERBLORE:
+                if (level < 30) return "low-level potions";
+                if (level < 45) return "prayer potions";
+                if (level < 65) return "super potions";
+                if (level < 80) return "saradomin brews";
+                return "super combat potions or stamina potions";
+
+            case RUNECRAFT:
+                if (level < 20) return "air runes";
+                if (level < 35) return "cosmic runes";
+                if (level < 50) return "law runes";
+                if (level < 65) return "death runes";
+                if (level < 77) return "blood runes";
+                return "soul runes or combination runes";
+
+            case CONSTRUCTION:
+                if (level < 30) return "basic furniture";
+                if (level < 50) return "oak furniture";
+                if (level < 70) return "teak furniture";
+                if (level < 85) return "mahogany furniture";
+                return "high-level rooms or furniture";
+
+            default:
+                return "items";
+        }
+    }
+
+    /**
+     * Get an agility course appropriate for the level
+     */
+    private static String getAgilityCourseName(int level) {
+        if (level < 20) return "Gnome Stronghold Course";
+        if (level < 30) return "Draynor Village Rooftop Course";
+        if (level < 40) return "Varrock Rooftop Course";
+        if (level < 50) return "Canifis Rooftop Course";
+        if (level < 60) return "Falador Rooftop Course";
+        if (level < 70) return "Seers' Village Rooftop Course";
+        if (level < 80) return "Pollnivneach Rooftop Course";
+        if (level < 90) return "Rellekka Rooftop Course";
+        return "Ardougne Rooftop Course";
+    }
+
+    /**
+     * Get a thieving target appropriate for the level
+     */
+    private static String getThievingTarget(int level) {
+        if (level < 20) return "Men/Women";
+        if (level < 25) return "Farmers";
+        if (level < 35) return "Warriors";
+        if (level < 45) return "Rogues";
+        if (level < 55) return "Master Farmers";
+        if (level < 65) return "Guards";
+        if (level < 75) return "Paladins";
+        if (level < 85) return "Heroes";
+        return "Elves";
+    }
+}
@@ -1,16 +1,24 @@
 package com.sololeveling.task;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
+import net.runelite.api.Skill;
 
 /**
  * Represents a task in the Solo Leveling plugin.
  * Tasks can be from OSRS leagues, quests, or custom challenges.
+ * <p>
+ * {@link TaskTable} stores tasks compactly and hands out subclasses that read its columns instead of these fields.
  */
 @Data
 @Builder
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+@NoArgsConstructor(access = AccessLevel.PACKAGE, force = true)
 public class Task {
     /**
      * Unique identifier for the task
@@ -69,6 +77,16 @@ public class Task {
      */
     private String relatedQuestId;
 
+    /**
+     * The skill to train, if this task is a level goal
+     */
+    private Skill skill;
+
+    /**
+     * The level in {@link #skill} that completes the task, or 0 if it isn't a level goal
+     */
+    private int targetLevel;
+
     /**
      * Any additional data related to the task
      */
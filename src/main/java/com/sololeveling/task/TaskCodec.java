@@ -0,0 +1,302 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Skill;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of tasks, for the journal and for task packs shared between players.
+ * <p>
+ * Numbers are varints, and the enums and flags are packed into three bytes. Strings go through a table: the first
+ * use of a string writes it out and adds it to the table, later uses write only its index, so a pack of generated
+ * tasks holds their shared description once. The table starts out with {@link #DICTIONARY}, so a task encoded on
+ * its own skips the most common strings too. Decoded tasks share the table's strings rather than each holding
+ * a copy.
+ */
+public final class TaskCodec {
+    private static final int PACK_MAGIC = 0x534C5450; // "SLTP"
+    private static final int FORMAT_VERSION = 1;
+
+    // Strings the generators repeat. Encoded tasks refer to these by index, so only ever append to it.
+    private static final String[] DICTIONARY = {
+            "A randomly generated task to test your skills, Hunter!"
+    };
+
+    private static final TaskDifficulty[] DIFFICULTIES = TaskDifficulty.values();
+    private static final TaskCategory[] CATEGORIES = TaskCategory.values();
+    private static final TaskSource[] SOURCES = TaskSource.values();
+    private static final Skill[] SKILLS = Skill.values();
+
+    private static final int COMPLETED_FLAG = 1;
+    private static final int VISIBLE_FLAG = 2;
+
+    static {
+        // Difficulty and category share a byte, as do the source and flags; 0 stands for null
+        if (DIFFICULTIES.length >= 16 || CATEGORIES.length >= 16 || SOURCES.length >= 16 || SKILLS.length >= 256) {
+            throw new IllegalStateException("Task enums no longer fit the packed encoding");
+        }
+    }
+
+    private TaskCodec() {
+    }
+
+    /**
+     * Encode a single task, such as for the journal
+     */
+    public static byte[] encode(Task task) {
+        Output out = new Output(64);
+        out.writeByte(FORMAT_VERSION);
+        out.writeTask(task, true);
+        return out.toByteArray();
+    }
+
+    public static Task decode(byte[] data) throws IOException {
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Decode a task written by {@link #encode} from part of an array
+     */
+    public static Task decode(byte[] data, int offset, int length) throws IOException {
+        Input in = new Input(data, offset, length);
+        checkVersion(in.readByte());
+        return in.readTask();
+    }
+
+    /**
+     * Encode tasks as a pack, with one string table shared by all of them
+     *
+     * @param includeState whether to keep each task's completed and visible flags, or write every task as not
+     *                     completed and visible, for sharing with other players
+     */
+    public static byte[] encodePack(Collection<Task> tasks, boolean includeState) {
+        Output out = new Output(64 + tasks.size() * 32);
+        out.writeInt(PACK_MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeVarInt(tasks.size());
+        for (Task task : tasks) {
+            out.writeTask(task, includeState);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<Task> decodePack(byte[] data) throws IOException {
+        Input in = new Input(data, 0, data.length);
+        if (in.readInt() != PACK_MAGIC) {
+            throw new IOException("Not a task pack");
+        }
+        checkVersion(in.readByte());
+        int count = in.readVarInt();
+        if (count < 0) {
+            throw new IOException("Bad task count " + count);
+        }
+        // Every task takes at least a few bytes, so a corrupt count can't force a huge allocation
+        List<Task> tasks = new ArrayList<>(Math.min(count, data.length));
+        for (int i = 0; i < count; i++) {
+            tasks.add(in.readTask());
+        }
+        return tasks;
+    }
+
+    private static void checkVersion(int version) throws IOException {
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown task format " + version);
+        }
+    }
+
+    private static <E> E lookup(E[] values, int code, String what) throws IOException {
+        if (code == 0) {
+            return null;
+        }
+        if (code > values.length) {
+            throw new IOException("Unknown " + what + " " + (code - 1));
+        }
+        return values[code - 1];
+    }
+
+    private static int code(Enum<?> value) {
+        return value != null ? value.ordinal() + 1 : 0;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] data;
+        private int length;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Output(int capacity) {
+            data = new byte[capacity];
+            for (String value : DICTIONARY) {
+                strings.put(value, strings.size());
+            }
+        }
+
+        void writeTask(Task task, boolean includeState) {
+            int flags = includeState
+                    ? (task.isCompleted() ? COMPLETED_FLAG : 0) | (task.isVisible() ? VISIBLE_FLAG : 0)
+                    : VISIBLE_FLAG;
+            writeByte(code(task.getDifficulty()) << 4 | code(task.getCategory()));
+            writeByte(code(task.getSource()) << 4 | flags);
+            writeByte(code(task.getSkill()));
+            writeString(task.getId());
+            writeString(task.getName());
+            writeString(task.getDescription());
+            writeString(task.getRelatedQuestId());
+            writeString(task.getAdditionalData());
+            writeVarInt(zigzag(task.getExperienceReward()));
+            writeVarInt(zigzag(task.getPointsReward()));
+            writeVarInt(zigzag(task.getTargetLevel()));
+        }
+
+        /**
+         * 0 for null, otherwise the string's index in the table plus one. A string's first use is followed by its
+         * UTF-8 bytes, and takes the next index.
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return;
+            }
+            int next = strings.size();
+            strings.put(value, next);
+            writeVarInt(next + 1);
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, data, length, utf8.length);
+            length += utf8.length;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            data[length++] = (byte) (value >>> 24);
+            data[length++] = (byte) (value >>> 16);
+            data[length++] = (byte) (value >>> 8);
+            data[length++] = (byte) value;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            data[length++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (length + bytes > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + bytes));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+        private final List<String> strings = new ArrayList<>(Arrays.asList(DICTIONARY));
+
+        Input(byte[] data, int offset, int length) {
+            this.data = data;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        Task readTask() throws IOException {
+            int kinds = readByte();
+            int sourceAndFlags = readByte();
+            Skill skill = lookup(SKILLS, readByte(), "skill");
+            return Task.builder()
+                    .difficulty(lookup(DIFFICULTIES, kinds >>> 4, "difficulty"))
+                    .category(lookup(CATEGORIES, kinds & 0xF, "category"))
+                    .source(lookup(SOURCES, sourceAndFlags >>> 4, "source"))
+                    .completed((sourceAndFlags & COMPLETED_FLAG) != 0)
+                    .visible((sourceAndFlags & VISIBLE_FLAG) != 0)
+                    .skill(skill)
+                    .id(readString())
+                    .name(readString())
+                    .description(readString())
+                    .relatedQuestId(readString())
+                    .additionalData(readString())
+                    .experienceReward(unzigzag(readVarInt()))
+                    .pointsReward(unzigzag(readVarInt()))
+                    .targetLevel(unzigzag(readVarInt()))
+                    .build();
+        }
+
+        String readString() throws IOException {
+            int reference = readVarInt();
+            if (reference == 0) {
+                return null;
+            }
+            int index = reference - 1;
+            if (index < 0 || index > strings.size()) {
+                throw new IOException("Bad string reference " + index);
+            }
+            if (index < strings.size()) {
+                return strings.get(index);
+            }
+            int length = readVarInt();
+            if (length < 0 || length > limit - position) {
+                throw new EOFException();
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            strings.add(value);
+            return value;
+        }
+
+        int readInt() throws IOException {
+            return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+        }
+
+        int readByte() throws IOException {
+            if (position >= limit) {
+                throw new EOFException();
+            }
+            return data[position++] & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
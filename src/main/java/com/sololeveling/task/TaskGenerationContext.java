@@ -0,0 +1,202 @@
+package com.sololeveling.task;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids and randomness for task generation.
+ * Ids come from one atomic sequence, so tasks generated in the same millisecond, or on different threads,
+ * never collide. The sequence is persisted in blocks: loading reserves the next block on disk before any id
+ * from it is handed out, so ids stay unique across sessions, even after a crash, without a write per id.
+ * Once half a block has been handed out, the next one is reserved on the executor, so handing out ids doesn't
+ * wait on the disk unless ids run out faster than a block can be written.
+ * <p>
+ * Each thread draws from its own {@link SplittableRandom} split from one root generator, so generation never
+ * contends on a shared Random. With a fixed seed, a single thread generates the same tasks every run.
+ */
+@Slf4j
+public class TaskGenerationContext {
+    private static final int FILE_MAGIC = 0x534C5451; // "SLTQ"
+    private static final int FILE_VERSION = 1;
+    // Ids reserved on disk at a time; a crash skips at most this many ids
+    private static final long ID_BLOCK = 1024;
+
+    private final File sequenceFile;
+    private final AtomicLong sequence = new AtomicLong();
+    // Highest id reserved on disk; ids above it wait for the next block to be written
+    private volatile long reservedUntil = Long.MAX_VALUE;
+    // Where the next block is reserved ahead of time; null until loaded
+    private volatile Executor executor;
+
+    private SplittableRandom root;
+    private volatile int epoch;
+    private final ThreadLocal<ThreadRandom> threadRandom = new ThreadLocal<>();
+
+    /**
+     * A context whose sequence starts at 1 every time and isn't persisted, for simulations and benchmarks
+     */
+    public TaskGenerationContext(long seed) {
+        this(null, seed);
+    }
+
+    /**
+     * @param sequenceFile where to persist the id sequence, or null not to persist it
+     * @param seed         seed for the random streams, or 0 to seed them differently every session
+     */
+    public TaskGenerationContext(File sequenceFile, long seed) {
+        this.sequenceFile = sequenceFile;
+        setSeed(seed);
+    }
+
+    /**
+     * Restart every thread's random stream from the given seed
+     *
+     * @param seed the seed, or 0 to pick one at random
+     */
+    public synchronized void setSeed(long seed) {
+        root = seed != 0 ? new SplittableRandom(seed) : new SplittableRandom();
+        epoch++;
+    }
+
+    /**
+     * The calling thread's random stream. Not to be shared with other threads.
+     */
+    public SplittableRandom random() {
+        ThreadRandom current = threadRandom.get();
+        if (current == null || current.epoch != epoch) {
+            synchronized (this) {
+                current = new ThreadRandom(epoch, root.split());
+            }
+            threadRandom.set(current);
+        }
+        return current.random;
+    }
+
+    /**
+     * A new, unique task id
+     *
+     * @param prefix the id prefix, which task filters use to tell kinds of tasks apart
+     */
+    public String nextId(String prefix) {
+        long id = sequence.incrementAndGet();
+        long until = reservedUntil;
+        if (id > until) {
+            reserve(id);
+        } else if (until - id == ID_BLOCK / 2) {
+            // Exactly one id is half a block from the end, so exactly one caller queues the next block
+            Executor ahead = executor;
+            if (ahead != null) {
+                ahead.execute(this::reserveAhead);
+            }
+        }
+        return prefix + id;
+    }
+
+    /**
+     * Continue the id sequence from where the last session left off and reserve the next block of ids.
+     * Call this before generating any tasks. Does file I/O, so call it off the client thread.
+     *
+     * @param executor where later blocks are reserved, ahead of the ids in them being needed
+     */
+    public synchronized void load(Executor executor) {
+        if (sequenceFile == null) {
+            return;
+        }
+        this.executor = executor;
+
+        long last = 0;
+        if (sequenceFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(sequenceFile))) {
+                if (in.readInt() == FILE_MAGIC && in.readUnsignedByte() == FILE_VERSION) {
+                    last = in.readLong();
+                } else {
+                    log.debug("Ignoring task id sequence with an unknown format");
+                }
+            } catch (IOException e) {
+                log.warn("Unable to load task id sequence", e);
+            }
+        }
+
+        sequence.accumulateAndGet(last, Math::max);
+        reservedUntil = sequence.get();
+        reserve(sequence.get() + 1);
+    }
+
+    /**
+     * Persist the exact position of the sequence, so the rest of the reserved block isn't skipped next session
+     */
+    public synchronized void save() {
+        if (sequenceFile != null && reservedUntil != Long.MAX_VALUE) {
+            reservedUntil = sequence.get();
+            write(reservedUntil);
+        }
+    }
+
+    /**
+     * Reserve a block of ids starting at the given one. Other threads that ran past the reserved ids wait here
+     * until the block is on disk.
+     */
+    private synchronized void reserve(long id) {
+        if (id <= reservedUntil) {
+            return;
+        }
+        // If the write fails, ids are still handed out; they just aren't protected against reuse after a crash
+        long until = id + ID_BLOCK - 1;
+        write(until);
+        reservedUntil = until;
+    }
+
+    /**
+     * Reserve the block after the current one, unless ids ran out first and it was reserved already
+     */
+    private synchronized void reserveAhead() {
+        long until = reservedUntil;
+        if (until == Long.MAX_VALUE || until - sequence.get() > ID_BLOCK / 2) {
+            return;
+        }
+        write(until + ID_BLOCK);
+        reservedUntil = until + ID_BLOCK;
+    }
+
+    /**
+     * @param last the highest id that may have been handed out
+     */
+    private void write(long last) {
+        File temp = new File(sequenceFile.getPath() + ".tmp");
+        try {
+            File directory = sequenceFile.getParentFile();
+            if (directory != null && !directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeByte(FILE_VERSION);
+                out.writeLong(last);
+            }
+            Files.move(temp.toPath(), sequenceFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to save task id sequence", e);
+        }
+    }
+
+    private static final class ThreadRandom {
+        private final int epoch;
+        private final SplittableRandom random;
+
+        private ThreadRandom(int epoch, SplittableRandom random) {
+            this.epoch = epoch;
+            this.random = random;
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.sololeveling.task;
 
+import com.sololeveling.persistence.WriteAheadLog;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Skill;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Random;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -17,12 +28,53 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 public class TaskManager {
-    private final List<Task> allTasks = new ArrayList<>();
-    private final List<Task> completedTasks = new ArrayList<>();
-    private final List<Task> visibleTasks = new ArrayList<>();
-    private final Random random = new Random();
+    private static final int DEFAULT_GENERATED_TASK_LIMIT = 50;
+
+    // Journal keys: a task's completed and visible flags, and the whole of a generated or imported task
+    private static final String STATE_KEY = "task/state/";
+    private static final String GENERATED_KEY = "task/generated/";
+    private static final String IMPORTED_KEY = "task/imported/";
+    private static final int COMPLETED_FLAG = 1;
+    private static final int VISIBLE_FLAG = 2;
+
+    // Catalog and added tasks are kept for the whole session, column by column; generated ones live in a bounded pool
+    private final TaskTable tasks = new TaskTable();
+    private final GeneratedTaskPool generatedTasks = new GeneratedTaskPool(DEFAULT_GENERATED_TASK_LIMIT);
+    // The lists below hold the table's first tableRows rows then generatedSnapshot, as of the last update
+    private int tableRows;
+    private final List<Task> generatedSnapshot = new ArrayList<>();
+    private final List<Task> combinedTasks = new CombinedTasks();
+    private final TaskSelection completedTasks = new TaskSelection();
+    private final TaskSelection visibleTasks = new TaskSelection();
+    private final TaskGenerationContext generation;
+    private final TaskSamplers samplers = new TaskSamplers();
     private boolean isInitialized = false;
 
+    // Where changes are persisted, if anywhere
+    private WriteAheadLog journal;
+    // Journaled flags of tasks not added yet; catalog tasks load in the background, so this is applied as they arrive
+    private final Map<String, Integer> restoredStates = new ConcurrentHashMap<>();
+    private final Set<String> journaledGenerated = new HashSet<>();
+
+    /**
+     * A task manager whose ids start at 1 and whose random streams are seeded differently every time
+     */
+    public TaskManager() {
+        this(new TaskGenerationContext(0));
+    }
+
+    public TaskManager(TaskGenerationContext generation) {
+        this.generation = generation;
+    }
+
+    public TaskGenerationContext getGenerationContext() {
+        return generation;
+    }
+
+    public TaskSamplers getSamplers() {
+        return samplers;
+    }
+
     /**
      * Initialize the task manager with default tasks
      */
@@ -33,7 +85,7 @@ public class TaskManager {
             loadDefaultTasks();
             updateTaskLists();
             isInitialized = true;
-            log.info("Task Manager initialized with {} tasks", allTasks.size());
+            log.info("Task Manager initialized with {} tasks", tasks.size());
         });
     }
 
@@ -69,7 +121,7 @@ public class TaskManager {
      */
     private void loadLeagueTasks() {
         // Raging Echoes League - Combat tasks
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("rel_combat_1")
                 .name("Defeat the King Black Dragon")
                 .description("Defeat the King Black Dragon in the Wilderness.")
@@ -82,7 +134,7 @@ public class TaskManager {
                 .visible(true)
                 .build());
 
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("rel_combat_2")
                 .name("Defeat Zulrah")
                 .description("Defeat the toxic serpent, Zulrah.")
@@ -96,7 +148,7 @@ public class TaskManager {
                 .build());
 
         // Trailblazer League - Skilling tasks
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("tbl_skilling_1")
                 .name("Reach 99 in any skill")
                 .description("Reach level 99 in any skill.")
@@ -114,7 +166,7 @@ public class TaskManager {
      * Load quest-related tasks
      */
     private void loadQuestTasks() {
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("quest_1")
                 .name("Complete Dragon Slayer")
                 .description("Complete the Dragon Slayer quest.")
@@ -127,7 +179,7 @@ public class TaskManager {
                 .visible(true)
                 .build());
 
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("quest_2")
                 .name("Complete Monkey Madness")
                 .description("Complete the Monkey Madness quest.")
@@ -140,7 +192,7 @@ public class TaskManager {
                 .visible(true)
                 .build());
 
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("quest_3")
                 .name("Complete Recipe for Disaster")
                 .description("Complete the Recipe for Disaster quest.")
@@ -159,7 +211,7 @@ public class TaskManager {
      */
     private void loadAchievementDiaryTasks() {
         // Karamja Diary
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("diary_karamja_easy_1")
                 .name("Mine some gold from the rocks on the north west peninsula of Karamja")
                 .description("Mine some gold from the rocks on the north west peninsula of Karamja")
@@ -172,7 +224,7 @@ public class TaskManager {
                 .visible(true)
                 .build());
 
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("diary_karamja_easy_2")
                 .name("Use the Fishing spots north of the banana plantation")
                 .description("Use the Fishing spots north of the banana plantation")
@@ -186,7 +238,7 @@ public class TaskManager {
                 .build());
 
         // Lumbridge & Draynor Diary
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("diary_lumbridge_medium_1")
                 .name("Complete a lap of the Draynor Village Agility Course")
                 .description("Complete a lap of the Draynor Village Agility Course")
@@ -205,7 +257,7 @@ public class TaskManager {
      */
     private void loadCombatAchievementTasks() {
         // Easy Combat Achievements
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("combat_easy_1")
                 .name("Defeat the Giant Mole")
                 .description("Defeat the Giant Mole located under Falador Park")
@@ -218,7 +270,7 @@ public class TaskManager {
                 .visible(true)
                 .build());
 
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("combat_easy_2")
                 .name("Defeat the King Black Dragon")
                 .description("Defeat the King Black Dragon in the Wilderness")
@@ -232,7 +284,7 @@ public class TaskManager {
                 .build());
 
         // Medium Combat Achievements
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("combat_medium_1")
                 .name("Defeat Zulrah")
                 .description("Defeat the toxic serpent, Zulrah")
@@ -246,7 +298,7 @@ public class TaskManager {
                 .build());
 
         // Hard Combat Achievements
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("combat_hard_1")
                 .name("Defeat the Corporeal Beast")
                 .description("Defeat the Corporeal Beast")
@@ -265,7 +317,7 @@ public class TaskManager {
      */
     private void loadCollectionLogTasks() {
         // Bosses collection
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("collection_bosses_1")
                 .name("Obtain a unique drop from any boss")
                 .description("Obtain a unique item that appears in the boss section of the Collection Log")
@@ -279,7 +331,7 @@ public class TaskManager {
                 .build());
 
         // Treasure Trails
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("collection_clues_1")
                 .name("Complete an Easy Clue Scroll")
                 .description("Complete an Easy Clue Scroll and collect a unique item")
@@ -292,7 +344,7 @@ public class TaskManager {
                 .visible(true)
                 .build());
 
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("collection_clues_2")
                 .name("Complete a Medium Clue Scroll")
                 .description("Complete a Medium Clue Scroll and collect a unique item")
@@ -305,7 +357,7 @@ public class TaskManager {
                 .visible(true)
                 .build());
 
-        allTasks.add(Task.builder()
+        tasks.add(Task.builder()
                 .id("collection_clues_3")
                 .name("Complete a Hard Clue Scroll")
                 .description("Complete a Hard Clue Scroll and collect a unique item")
@@ -319,19 +371,92 @@ public class TaskManager {
                 .build());
     }
 
+    /**
+     * Persist every change to tasks through the journal from now on, first restoring what it holds: imported tasks,
+     * the generated tasks that haven't expired, and the completed and visible flags of every task, applied as tasks
+     * are added.
+     */
+    public void attach(WriteAheadLog journal) {
+        this.journal = journal;
+        for (Map.Entry<String, byte[]> entry : journal.entries(STATE_KEY).entrySet()) {
+            restoredStates.put(entry.getKey().substring(STATE_KEY.length()), (int) entry.getValue()[0]);
+        }
+
+        int imported = 0;
+        for (Map.Entry<String, byte[]> entry : journal.entries(IMPORTED_KEY).entrySet()) {
+            String id = entry.getKey().substring(IMPORTED_KEY.length());
+            if (tasks.find(id) >= 0) {
+                // Still in the table from before a plugin restart
+                continue;
+            }
+            try {
+                tasks.add(TaskCodec.decode(entry.getValue()));
+                imported++;
+            } catch (IOException e) {
+                log.debug("Dropping unreadable imported task {} from the journal", id, e);
+                journal.remove(entry.getKey());
+                journal.remove(STATE_KEY + id);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, byte[]> entry : journal.entries(GENERATED_KEY).entrySet()) {
+            String id = entry.getKey().substring(GENERATED_KEY.length());
+            byte[] value = entry.getValue();
+            try {
+                long expiresAt = ByteBuffer.wrap(value).getLong();
+                if (expiresAt > now) {
+                    generatedTasks.add(TaskCodec.decode(value, Long.BYTES, value.length - Long.BYTES), now, expiresAt);
+                    journaledGenerated.add(id);
+                    continue;
+                }
+            } catch (IOException | BufferUnderflowException e) {
+                log.debug("Dropping unreadable generated task {} from the journal", id, e);
+            }
+            journal.remove(entry.getKey());
+            journal.remove(STATE_KEY + id);
+        }
+        updateTaskLists();
+        log.debug("Restored {} imported tasks, {} generated tasks and {} task states", imported,
+                journaledGenerated.size(), restoredStates.size());
+    }
+
     /**
      * Update the lists of completed and visible tasks
      */
     private void updateTaskLists() {
+        tableRows = tasks.size();
+        generatedSnapshot.clear();
+        generatedSnapshot.addAll(generatedTasks.getTasks());
         completedTasks.clear();
         visibleTasks.clear();
 
-        for (Task task : allTasks) {
-            if (task.isCompleted()) {
-                completedTasks.add(task);
+        for (int index = 0; index < combinedTasks.size(); index++) {
+            if (!restoredStates.isEmpty()) {
+                Task task = combinedTasks.get(index);
+                Integer flags = restoredStates.remove(task.getId());
+                if (flags != null) {
+                    task.setCompleted((flags & COMPLETED_FLAG) != 0);
+                    task.setVisible((flags & VISIBLE_FLAG) != 0);
+                }
             }
-            if (task.isVisible()) {
-                visibleTasks.add(task);
+
+            // Table rows are checked in place, without a view
+            boolean completed;
+            boolean visible;
+            if (index < tableRows) {
+                completed = tasks.isCompleted(index);
+                visible = tasks.isVisible(index);
+            } else {
+                Task task = generatedSnapshot.get(index - tableRows);
+                completed = task.isCompleted();
+                visible = task.isVisible();
+            }
+            if (completed) {
+                completedTasks.add(index);
+            }
+            if (visible) {
+                visibleTasks.add(index);
             }
         }
     }
@@ -340,7 +465,7 @@ public class TaskManager {
      * Get all tasks
      */
     public List<Task> getAllTasks() {
-        return Collections.unmodifiableList(allTasks);
+        return Collections.unmodifiableList(combinedTasks);
     }
 
     /**
@@ -361,7 +486,7 @@ public class TaskManager {
      * Get all incomplete tasks
      */
     public List<Task> getIncompleteTasks() {
-        return allTasks.stream()
+        return combinedTasks.stream()
                 .filter(task -> !task.isCompleted())
                 .collect(Collectors.toList());
     }
@@ -370,7 +495,7 @@ public class TaskManager {
      * Get incomplete tasks by source
      */
     public List<Task> getIncompleteTasksBySource(TaskSource source) {
-        return allTasks.stream()
+        return combinedTasks.stream()
                 .filter(task -> !task.isCompleted())
                 .filter(task -> task.getSource() == source)
                 .collect(Collectors.toList());
@@ -380,7 +505,7 @@ public class TaskManager {
      * Get tasks by category
      */
     public List<Task> getTasksByCategory(TaskCategory category) {
-        return allTasks.stream()
+        return combinedTasks.stream()
                 .filter(task -> task.getCategory() == category)
                 .collect(Collectors.toList());
     }
@@ -389,7 +514,7 @@ public class TaskManager {
      * Get tasks by difficulty
      */
     public List<Task> getTasksByDifficulty(TaskDifficulty difficulty) {
-        return allTasks.stream()
+        return combinedTasks.stream()
                 .filter(task -> task.getDifficulty() == difficulty)
                 .collect(Collectors.toList());
     }
@@ -398,7 +523,7 @@ public class TaskManager {
      * Get tasks by source
      */
     public List<Task> getTasksBySource(TaskSource source) {
-        return allTasks.stream()
+        return combinedTasks.stream()
                 .filter(task -> task.getSource() == source)
                 .collect(Collectors.toList());
     }
@@ -407,10 +532,12 @@ public class TaskManager {
      * Get a task by ID
      */
     public Task getTaskById(String taskId) {
-        Optional<Task> task = allTasks.stream()
-                .filter(t -> t.getId().equals(taskId))
-                .findFirst();
-        return task.orElse(null);
+        Task generated = generatedTasks.get(taskId);
+        if (generated != null) {
+            return generated;
+        }
+        int row = tasks.find(taskId);
+        return row >= 0 ? tasks.get(row) : null;
     }
 
     /**
@@ -420,6 +547,8 @@ public class TaskManager {
         Task task = getTaskById(taskId);
         if (task != null && !task.isCompleted()) {
             task.setCompleted(true);
+            samplers.recordCompletion(task);
+            journalState(task);
             updateTaskLists();
             log.debug("Task completed: {}", task.getName());
             return true;
@@ -434,6 +563,7 @@ public class TaskManager {
         Task task = getTaskById(taskId);
         if (task != null && task.isCompleted()) {
             task.setCompleted(false);
+            journalState(task);
             updateTaskLists();
             log.debug("Task reset: {}", task.getName());
             return true;
@@ -448,6 +578,7 @@ public class TaskManager {
         Task task = getTaskById(taskId);
         if (task != null) {
             task.setVisible(visible);
+            journalState(task);
             updateTaskLists();
             return true;
         }
@@ -456,14 +587,72 @@ public class TaskManager {
 
     /**
      * Add a new task to the task manager
+     *
+     * @return the task as stored, which later changes should go through
      */
     public Task addTask(Task task) {
-        allTasks.add(task);
+        Task added = tasks.get(tasks.add(task));
         updateTaskLists();
         log.debug("Added new task: {} ({})", task.getName(), task.getId());
+        return added;
+    }
+
+    /**
+     * Add a generated task to the bounded pool, evicting an older generated task if it is full
+     *
+     * @param expiresAt when the task should be dropped, in epoch millis
+     */
+    public Task addGeneratedTask(Task task, long expiresAt) {
+        long now = System.currentTimeMillis();
+        generatedTasks.expire(now);
+        generatedTasks.add(task, now, expiresAt);
+        journalGenerated(task, expiresAt);
+        updateTaskLists();
+        log.debug("Added generated task: {} ({}), pool size {}", task.getName(), task.getId(), generatedTasks.size());
         return task;
     }
 
+    /**
+     * Drop generated tasks that have expired
+     *
+     * @return the number of tasks dropped
+     */
+    public int expireGeneratedTasks() {
+        int expired = generatedTasks.expire(System.currentTimeMillis());
+        if (expired > 0) {
+            journalRemovedGenerated();
+            updateTaskLists();
+            log.debug("Expired {} generated tasks", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Record that the player has been shown these tasks, so they are kept over unseen generated tasks
+     */
+    public void markTasksViewed(List<Task> tasks) {
+        long now = System.currentTimeMillis();
+        for (Task task : tasks) {
+            generatedTasks.markViewed(task.getId(), now);
+        }
+    }
+
+    /**
+     * Set how many generated tasks are kept
+     */
+    public void setGeneratedTaskLimit(int limit) {
+        int before = generatedTasks.size();
+        generatedTasks.setCapacity(limit);
+        if (generatedTasks.size() != before) {
+            journalRemovedGenerated();
+            updateTaskLists();
+        }
+    }
+
+    public GeneratedTaskPool.Stats getGeneratedTaskStats() {
+        return generatedTasks.getStats();
+    }
+
     /**
      * Add multiple tasks at once
      */
@@ -471,41 +660,165 @@ public class TaskManager {
         if (tasks == null || tasks.isEmpty()) {
             return;
         }
-        allTasks.addAll(tasks);
+        for (Task task : tasks) {
+            this.tasks.add(task);
+        }
         updateTaskLists();
         log.debug("Added {} new tasks", tasks.size());
     }
 
+    /**
+     * Bring in tasks from an export: tasks not known yet are added, and with {@code includeState} tasks already
+     * known take the exported completed and visible flags. New tasks are journaled whole and known ones' flags are
+     * journaled, so either survives a restart.
+     *
+     * @return the number of tasks that were added
+     */
+    public int importTasks(List<Task> tasks, boolean includeState) {
+        Map<String, Task> known = new HashMap<>();
+        for (Task task : combinedTasks) {
+            known.put(task.getId(), task);
+        }
+
+        int added = 0;
+        for (Task task : tasks) {
+            Task existing = known.get(task.getId());
+            if (existing != null) {
+                if (!includeState) {
+                    continue;
+                }
+                existing.setCompleted(task.isCompleted());
+                existing.setVisible(task.isVisible());
+                journalState(existing);
+            } else {
+                this.tasks.add(task);
+                known.put(task.getId(), task);
+                journalImported(task);
+                added++;
+            }
+        }
+        updateTaskLists();
+        log.debug("Imported {} tasks, {} of them new", tasks.size(), added);
+        return added;
+    }
+
     /**
      * Remove a task from the task manager
      */
     public boolean removeTask(String taskId) {
         Task taskToRemove = getTaskById(taskId);
         if (taskToRemove != null) {
-            allTasks.remove(taskToRemove);
+            // A table row's view can't be read once the row is gone
+            String name = taskToRemove.getName();
+            if (!generatedTasks.remove(taskId)) {
+                tasks.remove(tasks.find(taskId));
+                journalRemovedImported(taskId);
+            }
+            journalRemovedGenerated();
             updateTaskLists();
-            log.debug("Removed task: {} ({})", taskToRemove.getName(), taskToRemove.getId());
+            log.debug("Removed task: {} ({})", name, taskId);
             return true;
         }
         return false;
     }
 
+    private void journalState(Task task) {
+        if (journal != null) {
+            int flags = (task.isCompleted() ? COMPLETED_FLAG : 0) | (task.isVisible() ? VISIBLE_FLAG : 0);
+            journal.put(STATE_KEY + task.getId(), new byte[]{(byte) flags});
+        }
+    }
+
+    private void journalImported(Task task) {
+        if (journal != null) {
+            journal.put(IMPORTED_KEY + task.getId(), TaskCodec.encode(task));
+            journalState(task);
+        }
+    }
+
+    private void journalRemovedImported(String taskId) {
+        if (journal != null && journal.get(IMPORTED_KEY + taskId) != null) {
+            journal.remove(IMPORTED_KEY + taskId);
+            journal.remove(STATE_KEY + taskId);
+        }
+    }
+
+    private void journalGenerated(Task task, long expiresAt) {
+        if (journal == null) {
+            return;
+        }
+        byte[] encoded = TaskCodec.encode(task);
+        journal.put(GENERATED_KEY + task.getId(),
+                ByteBuffer.allocate(Long.BYTES + encoded.length).putLong(expiresAt).put(encoded).array());
+        journaledGenerated.add(task.getId());
+        // Adding may have evicted or expired others
+        journalRemovedGenerated();
+    }
+
+    /**
+     * Drop journaled generated tasks that have left the pool
+     */
+    private void journalRemovedGenerated() {
+        if (journal == null) {
+            return;
+        }
+        for (Iterator<String> it = journaledGenerated.iterator(); it.hasNext(); ) {
+            String id = it.next();
+            if (generatedTasks.get(id) == null) {
+                it.remove();
+                journal.remove(GENERATED_KEY + id);
+                journal.remove(STATE_KEY + id);
+            }
+        }
+    }
+
     /**
      * Create a random task with specified difficulty and category
      */
     public Task createRandomTask(TaskDifficulty difficulty, TaskCategory category) {
-        String id = "random_" + System.currentTimeMillis();
-        String[] names = {
-                "Defeat " + getRandomMonster(),
-                "Collect " + (random.nextInt(50) + 10) + " " + getRandomItem(),
-                "Train " + getRandomSkill() + " for 30 minutes",
-                "Complete a " + difficulty.toString().toLowerCase() + " clue scroll",
-                "Reach level " + (random.nextInt(10) + 5) + " in " + getRandomSkill()
-        };
+        SplittableRandom random = generation.random();
+        String id = generation.nextId("random_");
+
+        // Pick the kind of task first, so only the content it needs is sampled. The content is kept with the
+        // task so completing it can feed back into the content weights.
+        String name;
+        String content = null;
+        Skill goalSkill = null;
+        int goalLevel = 0;
+        switch (random.nextInt(5)) {
+            case 0:
+                String monster = samplers.sampleMonster(random);
+                name = "Defeat " + monster;
+                content = TaskSamplers.MONSTER_PREFIX + monster;
+                break;
+            case 1:
+                String item = samplers.sampleItem(random);
+                name = "Collect " + (random.nextInt(50) + 10) + " " + item;
+                content = TaskSamplers.ITEM_PREFIX + item;
+                break;
+            case 2:
+                String skill = samplers.sampleSkill(random);
+                name = "Train " + skill + " for 30 minutes";
+                content = TaskSamplers.SKILL_PREFIX + skill;
+                break;
+            case 3:
+                name = "Complete a " + difficulty.toString().toLowerCase() + " clue scroll";
+                break;
+            default:
+                String levelSkill = samplers.sampleSkill(random);
+                goalLevel = random.nextInt(10) + 5;
+                goalSkill = Skill.valueOf(levelSkill.toUpperCase());
+                name = "Reach level " + goalLevel + " in " + levelSkill;
+                content = TaskSamplers.SKILL_PREFIX + levelSkill;
+                break;
+        }
 
         return Task.builder()
                 .id(id)
-                .name(names[random.nextInt(names.length)])
+                .name(name)
+                .additionalData(content)
+                .skill(goalSkill)
+                .targetLevel(goalLevel)
                 .description("A randomly generated task to test your skills, Hunter!")
                 .difficulty(difficulty)
                 .category(category)
@@ -521,7 +834,7 @@ public class TaskManager {
      * Create a quest-related task
      */
     public Task createQuestTask() {
-        String id = "quest_random_" + System.currentTimeMillis();
+        String id = generation.nextId("quest_random_");
         String[] quests = {
                 "Cook's Assistant",
                 "Demon Slayer",
@@ -541,7 +854,7 @@ public class TaskManager {
                 "Witch's Potion"
         };
 
-        String quest = quests[random.nextInt(quests.length)];
+        String quest = quests[generation.random().nextInt(quests.length)];
 
         return Task.builder()
                 .id(id)
@@ -562,37 +875,76 @@ public class TaskManager {
      */
     public Task createPersonalizedTask(String playerName, Map<Skill, Integer> currentStats,
                                        Map<TaskDifficulty, Integer> completedTaskDifficulties) {
-        // Determine appropriate difficulty level based on progression
-        TaskDifficulty appropriateDifficulty = getAppropriateDifficulty(completedTaskDifficulties);
-
-        // Get the player's highest skills to focus tasks on
-        List<Skill> highestSkills = getHighestSkills(currentStats, 3);
-
-        // Get the player's lowest skills that could use improvement
-        List<Skill> lowestSkills = getLowestSkills(currentStats, 3);
-
-        // Determine if we should focus on strengths or weaknesses (70% chance to focus on lowest skills)
-        boolean focusOnWeaknesses = random.nextDouble() < 0.7;
-        List<Skill> targetSkills = focusOnWeaknesses ? lowestSkills : highestSkills;
-
-        if (targetSkills.isEmpty()) {
-            // Fallback to a random skill if no target skills found
-            Skill[] allSkills = Skill.values();
-            List<Skill> skillList = new ArrayList<>();
-            for (Skill skill : allSkills) {
-                if (skill != Skill.OVERALL) {
-                    skillList.add(skill);
-                }
-            }
-            targetSkills = skillList;
+        return new PersonalizedTaskSource(currentStats, completedTaskDifficulties).next();
+    }
+
+    /**
+     * Generate many personalized tasks at once, e.g. to simulate or preview task generation.
+     * Skill selection is worked out once for the whole batch rather than once per task.
+     *
+     * @param count number of tasks to generate
+     * @return the generated tasks, which are not added to the task manager
+     */
+    public List<Task> generate(int count, Map<Skill, Integer> currentStats,
+                               Map<TaskDifficulty, Integer> completedTaskDifficulties) {
+        PersonalizedTaskSource source = new PersonalizedTaskSource(currentStats, completedTaskDifficulties);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(source.next());
         }
+        return tasks;
+    }
 
-        // Select a random skill from our target list
-        Skill targetSkill = targetSkills.get(random.nextInt(targetSkills.size()));
+    /**
+     * Picks skills and difficulty for personalized tasks from one snapshot of the player's stats
+     */
+    private final class PersonalizedTaskSource {
+        private final Map<Skill, Integer> currentStats;
+        private final TaskDifficulty difficulty;
+        // The player's highest skills, and the lowest skills that could use improvement
+        private final List<Skill> highestSkills;
+        private final List<Skill> lowestSkills;
+        private List<Skill> allSkills;
+
+        PersonalizedTaskSource(Map<Skill, Integer> currentStats, Map<TaskDifficulty, Integer> completedTaskDifficulties) {
+            this.currentStats = currentStats;
+            // Determine appropriate difficulty level based on progression
+            this.difficulty = getAppropriateDifficulty(completedTaskDifficulties);
+            this.highestSkills = getHighestSkills(currentStats, 3);
+            this.lowestSkills = getLowestSkills(currentStats, 3);
+        }
 
-        // Create a task appropriate for the player's level in that skill
-        int currentLevel = currentStats.getOrDefault(targetSkill, 1);
-        return createSkillBasedTask(targetSkill, currentLevel, appropriateDifficulty);
+        Task next() {
+            SplittableRandom random = generation.random();
+
+            // Determine if we should focus on strengths or weaknesses (70% chance to focus on lowest skills)
+            boolean focusOnWeaknesses = random.nextDouble() < 0.7;
+            List<Skill> targetSkills = focusOnWeaknesses ? lowestSkills : highestSkills;
+
+            if (targetSkills.isEmpty()) {
+                // Fallback to a random skill if no target skills found
+                targetSkills = getAllSkills();
+            }
+
+            // Select a random skill from our target list
+            Skill targetSkill = targetSkills.get(random.nextInt(targetSkills.size()));
+
+            // Create a task appropriate for the player's level in that skill
+            int currentLevel = currentStats.getOrDefault(targetSkill, 1);
+            return createSkillBasedTask(targetSkill, currentLevel, difficulty);
+        }
+
+        private List<Skill> getAllSkills() {
+            if (allSkills == null) {
+                allSkills = new ArrayList<>();
+                for (Skill skill : Skill.values()) {
+                    if (skill != Skill.OVERALL) {
+                        allSkills.add(skill);
+                    }
+                }
+            }
+            return allSkills;
+        }
     }
 
     /**
@@ -653,86 +1005,20 @@ public class TaskManager {
      * Create a task based on skill level and appropriate difficulty
      */
     private Task createSkillBasedTask(Skill skill, int level, TaskDifficulty difficulty) {
-        String id = "personalized_" + skill.name().toLowerCase() + "_" + System.currentTimeMillis();
-
-        // Calculate an appropriate target level based on current level and difficulty
-        int targetLevel = Math.min(99, level + getTargetLevelIncrease(level, difficulty));
-
-        // Generate task name and description based on skill
-        String taskName;
-        String taskDescription;
-        TaskCategory category = TaskCategory.SKILLING;
-
-        // Different task types based on skill
-        switch (skill) {
-            // Combat skills
-            case ATTACK:
-            case STRENGTH:
-            case DEFENCE:
-            case RANGED:
-            case MAGIC:
-            case PRAYER:
-            case HITPOINTS:
-                taskName = "Reach level " + targetLevel + " " + skill.getName();
-                taskDescription = "Train your " + skill.getName() + " skill to level " + targetLevel + " to become stronger!";
-                category = TaskCategory.COMBAT;
-                break;
-
-            // Gathering skills
-            case MINING:
-            case FISHING:
-            case WOODCUTTING:
-            case HUNTER:
-            case FARMING:
-                String resource = getSkillResource(skill, level);
-                taskName = getSkillVerb(skill) + " " + resource;
-                taskDescription = getSkillVerb(skill) + " " + resource + " until you reach level " + targetLevel + "!";
-                break;
+        SkillTaskTable.Row row = SkillTaskTable.row(skill, level);
+        SplittableRandom random = generation.random();
 
-            // Production skills
-            case COOKING:
-            case FIREMAKING:
-            case SMITHING:
-            case CRAFTING:
-            case FLETCHING:
-            case HERBLORE:
-            case RUNECRAFT:
-            case CONSTRUCTION:
-                String product = getSkillProduct(skill, level);
-                taskName = "Make " + product;
-                taskDescription = "Create " + product + " until you reach level " + targetLevel + "!";
-                break;
-
-            // Support skills
-            case AGILITY:
-                String course = getAgilityCourseName(level);
-                taskName = "Complete laps of the " + course;
-                taskDescription = "Complete laps of the " + course + " until you reach level " + targetLevel + "!";
-                break;
-
-            case THIEVING:
-                String target = getThievingTarget(level);
-                taskName = "Pickpocket " + target;
-                taskDescription = "Pickpocket " + target + " until you reach level " + targetLevel + "!";
-                break;
-
-            case SLAYER:
-                taskName = "Complete Slayer tasks";
-                taskDescription = "Complete Slayer tasks from an appropriate master until level " + targetLevel + "!";
-                break;
+        // Pick an appropriate target level based on current level and difficulty
+        int targetLevel = SkillTaskTable.targetLevel(difficulty, level, random.nextInt(SkillTaskTable.rolls(difficulty)));
 
-            default:
-                taskName = "Train " + skill.getName() + " to level " + targetLevel;
-                taskDescription = "Increase your " + skill.getName() + " skill to level " + targetLevel + " to grow stronger!";
-        }
-
-        // Build the task
         return Task.builder()
-                .id(id)
-                .name(taskName)
-                .description(taskDescription)
+                .id(generation.nextId(row.getIdPrefix()))
+                .name(row.name(targetLevel))
+                .description(row.description(targetLevel))
+                .skill(skill)
+                .targetLevel(targetLevel)
                 .difficulty(difficulty)
-                .category(category)
+                .category(row.getCategory())
                 .source(TaskSource.CUSTOM)
                 .experienceReward(calculateReward(difficulty))
                 .pointsReward(calculatePoints(difficulty))
@@ -741,247 +1027,11 @@ public class TaskManager {
                 .build();
     }
 
-    /**
-     * Calculate a target level increase based on current level and difficulty
-     */
-    private int getTargetLevelIncrease(int currentLevel, TaskDifficulty difficulty) {
-        // Base increase
-        int baseIncrease;
-
-        switch (difficulty) {
-            case EASY:
-                baseIncrease = 1 + random.nextInt(2); // 1-2 levels
-                break;
-            case MEDIUM:
-                baseIncrease = 3 + random.nextInt(3); // 3-5 levels
-                break;
-            case HARD:
-                baseIncrease = 5 + random.nextInt(5); // 5-9 levels
-                break;
-            case ELITE:
-                baseIncrease = 10 + random.nextInt(5); // 10-14 levels
-                break;
-            case MASTER:
-                baseIncrease = 15 + random.nextInt(10); // 15-24 levels
-                break;
-            default:
-                baseIncrease = 1;
-        }
-
-        // Scale down for higher levels
-        if (currentLevel >= 80) {
-            return Math.max(1, baseIncrease / 2);
-        } else if (currentLevel >= 70) {
-            return Math.max(1, baseIncrease * 2 / 3);
-        } else if (currentLevel >= 50) {
-            return Math.max(1, baseIncrease * 3 / 4);
-        }
-
-        return baseIncrease;
-    }
-
-    /**
-     * Get a verb associated with a gathering skill
-     */
-    private String getSkillVerb(Skill skill) {
-        switch (skill) {
-            case MINING: return "Mine";
-            case FISHING: return "Catch";
-            case WOODCUTTING: return "Cut";
-            case HUNTER: return "Hunt";
-            case FARMING: return "Grow";
-            default: return "Gather";
-        }
-    }
-
-    /**
-     * Get an appropriate resource for the skill and level
-     */
-    private String getSkillResource(Skill skill, int level) {
-        switch (skill) {
-            case MINING:
-                if (level < 15) return "copper and tin ore";
-                if (level < 30) return "iron ore";
-                if (level < 40) return "coal";
-                if (level < 55) return "mithril ore";
-                if (level < 70) return "adamantite ore";
-                if (level < 85) return "runite ore";
-                return "amethyst";
-
-            case FISHING:
-                if (level < 20) return "shrimp and anchovies";
-                if (level < 40) return "trout and salmon";
-                if (level < 60) return "lobsters";
-                if (level < 76) return "swordfish and tuna";
-                if (level < 85) return "sharks";
-                return "anglerfish or minnows";
-
-            case WOODCUTTING:
-                if (level < 15) return "regular logs";
-                if (level < 30) return "oak logs";
-                if (level < 45) return "willow logs";
-                if (level < 60) return "maple logs";
-                if (level < 75) return "yew logs";
-                return "magic logs";
-
-            case HUNTER:
-                if (level < 20) return "crimson swifts";
-                if (level < 40) return "tropical wagtails";
-                if (level < 60) return "chinchompas";
-                if (level < 80) return "red chinchompas";
-                return "black chinchompas";
-
-            case FARMING:
-                if (level < 20) return "low-level crops";
-                if (level < 40) return "mid-level crops";
-                if (level < 60) return "higher-level crops";
-                if (level < 80) return "fruit trees";
-                return "high-level herbs and trees";
-
-            default:
-                return "resources";
-        }
-    }
-
-    /**
-     * Get an appropriate product for the skill and level
-     */
-    private String getSkillProduct(Skill skill, int level) {
-        switch (skill) {
-            case COOKING:
-                if (level < 20) return "shrimp and meat";
-                if (level < 40) return "trout and salmon";
-                if (level < 60) return "lobsters";
-                if (level < 80) return "sharks";
-                return "anglerfish or manta rays";
-
-            case FIREMAKING:
-                if (level < 15) return "regular logs";
-                if (level < 30) return "oak logs";
-                if (level < 45) return "willow logs";
-                if (level < 60) return "maple logs";
-                if (level < 75) return "yew logs";
-                return "magic logs or redwood logs";
-
-            case SMITHING:
-                if (level < 15) return "bronze items";
-                if (level < 30) return "iron items";
-                if (level < 50) return "steel items";
-                if (level < 70) return "mithril items";
-                if (level < 85) return "adamant items";
-                return "rune items";
-
-            case CRAFTING:
-                if (level < 20) return "leather items";
-                if (level < 40) return "jewelry";
-                if (level < 60) return "dragonhide items";
-                if (level < 80) return "battlestaves";
-                return "high-level jewelry";
-
-            case FLETCHING:
-                if (level < 30) return "arrow shafts and low-level bows";
-                if (level < 50) return "oak bows and arrows";
-                if (level < 70) return "yew bows and bolts";
-                if (level < 85) return "magic bows";
-                return "dragon bolts or redwood shields";
-
-            case HERBLORE:
-                if (level < 30) return "low-level potions";
-                if (level < 45) return "prayer potions";
-                if (level < 65) return "super potions";
-                if (level < 80) return "saradomin brews";
-                return "super combat potions or stamina potions";
-
-            case RUNECRAFT:
-                if (level < 20) return "air runes";
-                if (level < 35) return "cosmic runes";
-                if (level < 50) return "law runes";
-                if (level < 65) return "death runes";
-                if (level < 77) return "blood runes";
-                return "soul runes or combination runes";
-
-            case CONSTRUCTION:
-                if (level < 30) return "basic furniture";
-                if (level < 50) return "oak furniture";
-                if (level < 70) return "teak furniture";
-                if (level < 85) return "mahogany furniture";
-                return "high-level rooms or furniture";
-
-            default:
-                return "items";
-        }
-    }
-
-    /**
-     * Get an agility course appropriate for the level
-     */
-    private String getAgilityCourseName(int level) {
-        if (level < 20) return "Gnome Stronghold Course";
-        if (level < 30) return "Draynor Village Rooftop Course";
-        if (level < 40) return "Varrock Rooftop Course";
-        if (level < 50) return "Canifis Rooftop Course";
-        if (level < 60) return "Falador Rooftop Course";
-        if (level < 70) return "Seers' Village Rooftop Course";
-        if (level < 80) return "Pollnivneach Rooftop Course";
-        if (level < 90) return "Rellekka Rooftop Course";
-        return "Ardougne Rooftop Course";
-    }
-
-    /**
-     * Get a thieving target appropriate for the level
-     */
-    private String getThievingTarget(int level) {
-        if (level < 20) return "Men/Women";
-        if (level < 25) return "Farmers";
-        if (level < 35) return "Warriors";
-        if (level < 45) return "Rogues";
-        if (level < 55) return "Master Farmers";
-        if (level < 65) return "Guards";
-        if (level < 75) return "Paladins";
-        if (level < 85) return "Heroes";
-        return "Elves";
-    }
-
-    /**
-     * Get random monster for tasks
-     */
-    private String getRandomMonster() {
-        String[] monsters = {
-                "Goblins", "Cows", "Giant Rats", "Skeletons", "Zombies",
-                "Hill Giants", "Moss Giants", "Fire Giants", "Ice Giants",
-                "Dragons", "Demons", "TzHaar", "Barrows Brothers", "Kalphites"
-        };
-        return monsters[random.nextInt(monsters.length)];
-    }
-
-    /**
-     * Get random item for tasks
-     */
-    private String getRandomItem() {
-        String[] items = {
-                "logs", "ores", "fish", "bones", "hides", "herbs", "seeds",
-                "gems", "arrows", "runes", "potions", "food", "tools", "armor"
-        };
-        return items[random.nextInt(items.length)];
-    }
-
-    /**
-     * Get random skill name
-     */
-    private String getRandomSkill() {
-        String[] skills = {
-                "Attack", "Strength", "Defence", "Ranged", "Prayer", "Magic",
-                "Woodcutting", "Firemaking", "Cooking", "Fishing", "Mining",
-                "Smithing", "Crafting", "Fletching", "Runecraft", "Construction",
-                "Agility", "Herblore", "Thieving", "Slayer", "Farming", "Hunter"
-        };
-        return skills[random.nextInt(skills.length)];
-    }
-
     /**
      * Calculate experience reward based on difficulty
      */
     private int calculateReward(TaskDifficulty difficulty) {
+        SplittableRandom random = generation.random();
         switch (difficulty) {
             case EASY: return 1000 + random.nextInt(1000);
             case MEDIUM: return 2500 + random.nextInt(2500);
@@ -996,6 +1046,7 @@ public class TaskManager {
      * Calculate points reward based on difficulty
      */
     private int calculatePoints(TaskDifficulty difficulty) {
+        SplittableRandom random = generation.random();
         switch (difficulty) {
             case EASY: return 25 + random.nextInt(25);
             case MEDIUM: return 50 + random.nextInt(50);
@@ -1005,5 +1056,52 @@ public class TaskManager {
             default: return 10;
         }
     }
-}
 
+    /**
+     * The table's rows, then the generated tasks, as of the last update
+     */
+    private final class CombinedTasks extends AbstractList<Task> implements RandomAccess {
+        @Override
+        public Task get(int index) {
+            return index < tableRows ? tasks.get(index) : generatedSnapshot.get(index - tableRows);
+        }
+
+        @Override
+        public int size() {
+            return tableRows + generatedSnapshot.size();
+        }
+    }
+
+    /**
+     * Some of {@link #combinedTasks}, held as indexes so table rows aren't turned into views until read
+     */
+    private final class TaskSelection extends AbstractList<Task> implements RandomAccess {
+        private int[] indexes = new int[16];
+        private int size;
+
+        void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size++] = index;
+        }
+
+        @Override
+        public void clear() {
+            size = 0;
+        }
+
+        @Override
+        public Task get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+            }
+            return combinedTasks.get(indexes[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
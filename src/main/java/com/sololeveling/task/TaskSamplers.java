@@ -0,0 +1,224 @@
+package com.sololeveling.task;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Weighted pickers for everything random task generation chooses: difficulty, category, and the monster,
+ * item and skill a task is about. Difficulty and category weights come from the config.
+ * <p>
+ * When adaptive weighting is on, completing a task nudges up the weights of its difficulty, category and
+ * content, so the kinds of tasks the player actually finishes come up more often. Recent completions count
+ * for more than old ones, and no weight more than doubles. Each change rebuilds one small alias table, so
+ * sampling itself stays O(1) and allocation free.
+ */
+@Slf4j
+public class TaskSamplers {
+    static final String MONSTER_PREFIX = "monster:";
+    static final String ITEM_PREFIX = "item:";
+    static final String SKILL_PREFIX = "skill:";
+
+    private static final double[] DEFAULT_DIFFICULTY_WEIGHTS = {40, 30, 20, 5, 5};
+    // Each completion scales earlier ones down by this much
+    private static final double DECAY = 0.9;
+    // A value that accounts for every recent completion gets its weight raised by this fraction
+    private static final double MAX_BOOST = 1.0;
+
+    private static final String[] MONSTERS = {
+            "Goblins", "Cows", "Giant Rats", "Skeletons", "Zombies",
+            "Hill Giants", "Moss Giants", "Fire Giants", "Ice Giants",
+            "Dragons", "Demons", "TzHaar", "Barrows Brothers", "Kalphites"
+    };
+
+    private static final String[] ITEMS = {
+            "logs", "ores", "fish", "bones", "hides", "herbs", "seeds",
+            "gems", "arrows", "runes", "potions", "food", "tools", "armor"
+    };
+
+    private static final String[] SKILLS = {
+            "Attack", "Strength", "Defence", "Ranged", "Prayer", "Magic",
+            "Woodcutting", "Firemaking", "Cooking", "Fishing", "Mining",
+            "Smithing", "Crafting", "Fletching", "Runecraft", "Construction",
+            "Agility", "Herblore", "Thieving", "Slayer", "Farming", "Hunter"
+    };
+
+    private final Pool<TaskDifficulty> difficulties = new Pool<>(TaskDifficulty.values(), DEFAULT_DIFFICULTY_WEIGHTS);
+    private final Pool<TaskCategory> categories = new Pool<>(TaskCategory.values(), null);
+    private final Pool<String> monsters = new Pool<>(MONSTERS, null);
+    private final Pool<String> items = new Pool<>(ITEMS, null);
+    private final Pool<String> skills = new Pool<>(SKILLS, null);
+    private volatile boolean adaptive = true;
+
+    public TaskDifficulty sampleDifficulty(SplittableRandom random) {
+        return difficulties.sampler.sample(random);
+    }
+
+    public TaskCategory sampleCategory(SplittableRandom random) {
+        return categories.sampler.sample(random);
+    }
+
+    public String sampleMonster(SplittableRandom random) {
+        return monsters.sampler.sample(random);
+    }
+
+    public String sampleItem(SplittableRandom random) {
+        return items.sampler.sample(random);
+    }
+
+    public String sampleSkill(SplittableRandom random) {
+        return skills.sampler.sample(random);
+    }
+
+    /**
+     * @param weights one weight per {@link TaskDifficulty}, or null for the defaults
+     */
+    public void setDifficultyWeights(double[] weights) {
+        difficulties.setBaseWeights(weights != null ? weights : DEFAULT_DIFFICULTY_WEIGHTS);
+    }
+
+    /**
+     * @param weights one weight per {@link TaskCategory}, or null to pick categories uniformly
+     */
+    public void setCategoryWeights(double[] weights) {
+        categories.setBaseWeights(weights);
+    }
+
+    /**
+     * Turn adaptive weighting on or off. Turning it off forgets recent completions.
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        if (!adaptive) {
+            difficulties.reset();
+            categories.reset();
+            monsters.reset();
+            items.reset();
+            skills.reset();
+        }
+    }
+
+    /**
+     * Shift the weights towards the kind of task that was just completed
+     */
+    public void recordCompletion(Task task) {
+        if (!adaptive) {
+            return;
+        }
+
+        if (task.getDifficulty() != null) {
+            difficulties.recordCompletionAt(task.getDifficulty().ordinal());
+        }
+        if (task.getCategory() != null) {
+            categories.recordCompletionAt(task.getCategory().ordinal());
+        }
+
+        String content = task.getAdditionalData();
+        if (content == null) {
+            return;
+        }
+        if (content.startsWith(MONSTER_PREFIX)) {
+            monsters.recordCompletion(content.substring(MONSTER_PREFIX.length()));
+        } else if (content.startsWith(ITEM_PREFIX)) {
+            items.recordCompletion(content.substring(ITEM_PREFIX.length()));
+        } else if (content.startsWith(SKILL_PREFIX)) {
+            skills.recordCompletion(content.substring(SKILL_PREFIX.length()));
+        }
+    }
+
+    /**
+     * Parse comma-separated weights from the config
+     *
+     * @return the weights, or null if the text is empty or doesn't hold exactly {@code count} non-negative numbers
+     */
+    public static double[] parseWeights(String text, int count) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+
+        String[] parts = text.split(",");
+        if (parts.length != count) {
+            log.debug("Expected {} weights but got {}: {}", count, parts.length, text);
+            return null;
+        }
+        double[] weights = new double[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                weights[i] = Double.parseDouble(parts[i].trim());
+                if (weights[i] < 0 || Double.isNaN(weights[i]) || Double.isInfinite(weights[i])) {
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Invalid weights: {}", text);
+            return null;
+        }
+        return weights;
+    }
+
+    /**
+     * Values to pick from, their configured weights and their recent completions
+     */
+    private static final class Pool<T> {
+        private final T[] values;
+        private final Map<T, Integer> indexes = new HashMap<>();
+        private double[] baseWeights;
+        private final double[] recent;
+        private double recentTotal;
+        private volatile AliasSampler<T> sampler;
+
+        Pool(T[] values, double[] baseWeights) {
+            this.values = values;
+            this.recent = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                indexes.put(values[i], i);
+            }
+            setBaseWeights(baseWeights);
+        }
+
+        synchronized void setBaseWeights(double[] weights) {
+            if (weights == null) {
+                weights = new double[values.length];
+                Arrays.fill(weights, 1);
+            }
+            baseWeights = weights.clone();
+            rebuild();
+        }
+
+        synchronized void recordCompletion(T value) {
+            Integer index = indexes.get(value);
+            if (index != null) {
+                recordCompletionAt(index);
+            }
+        }
+
+        synchronized void recordCompletionAt(int index) {
+            recentTotal = 0;
+            for (int i = 0; i < recent.length; i++) {
+                recent[i] *= DECAY;
+                recentTotal += recent[i];
+            }
+            recent[index] += 1;
+            recentTotal += 1;
+            rebuild();
+        }
+
+        synchronized void reset() {
+            Arrays.fill(recent, 0);
+            recentTotal = 0;
+            rebuild();
+        }
+
+        private void rebuild() {
+            double[] weights = new double[values.length];
+            for (int i = 0; i < weights.length; i++) {
+                double share = recentTotal > 0 ? recent[i] / recentTotal : 0;
+                weights[i] = baseWeights[i] * (1 + MAX_BOOST * share);
+            }
+            sampler = new AliasSampler<>(values, weights);
+        }
+    }
+}
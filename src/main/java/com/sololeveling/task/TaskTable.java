@@ -0,0 +1,562 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Skill;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact store for a large number of tasks, kept column by column rather than as one object per task.
+ * <p>
+ * Enums and flags are packed into bytes as {@link TaskCodec} packs them, rewards and levels sit in primitive arrays,
+ * and every string is stored once, as UTF-8 in a shared pool, however many tasks use it. Strings are only turned
+ * back into {@link String}s when read, and the pool keeps just the most recently read ones, so a pass over every
+ * task doesn't leave a String per task behind.
+ * <p>
+ * Tasks are read through views: {@link Task}s that hold just the table and their row's key, created on demand, and
+ * whose setters write back to the table. Every row gets a key one higher than the last, so keys stay in row order
+ * as rows are removed, and a view whose row has moved finds it again by binary search. A view of a removed row
+ * throws {@link IllegalStateException}.
+ * <p>
+ * Reads and changes are made under the table's lock: the catalog is loaded on a background thread while the overlay
+ * reads views on the client thread, and adding a row can replace every column.
+ */
+public final class TaskTable {
+    private static final int COMPLETED_FLAG = 1;
+    private static final int VISIBLE_FLAG = 2;
+
+    private static final TaskDifficulty[] DIFFICULTIES = TaskDifficulty.values();
+    private static final TaskCategory[] CATEGORIES = TaskCategory.values();
+    private static final TaskSource[] SOURCES = TaskSource.values();
+    private static final Skill[] SKILLS = Skill.values();
+
+    private int size;
+    private int nextKey;
+    // Each row's key, ascending
+    private int[] keys;
+    // Difficulty code << 4 | category code, and source code << 4 | flags; a code is the ordinal + 1, or 0 for null
+    private byte[] kinds;
+    private byte[] sources;
+    private byte[] skills;
+    private short[] targetLevels;
+    private int[] experienceRewards;
+    private int[] pointsRewards;
+    // References into the string pool: the string's index + 1, or 0 for null
+    private int[] ids;
+    private int[] names;
+    private int[] descriptions;
+    private int[] relatedQuestIds;
+    private int[] additionalData;
+
+    private final StringPool strings = new StringPool();
+    // Open addressing from an id's string reference to its first row + 1
+    private int[] idIndex = new int[16];
+
+    private final List<Task> list = new Rows();
+
+    public TaskTable() {
+        this(16);
+    }
+
+    public TaskTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        keys = new int[capacity];
+        kinds = new byte[capacity];
+        sources = new byte[capacity];
+        skills = new byte[capacity];
+        targetLevels = new short[capacity];
+        experienceRewards = new int[capacity];
+        pointsRewards = new int[capacity];
+        ids = new int[capacity];
+        names = new int[capacity];
+        descriptions = new int[capacity];
+        relatedQuestIds = new int[capacity];
+        additionalData = new int[capacity];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Copy a task into a new row
+     *
+     * @return the row
+     */
+    public synchronized int add(Task task) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size;
+        keys[row] = nextKey++;
+        kinds[row] = (byte) (code(task.getDifficulty()) << 4 | code(task.getCategory()));
+        sources[row] = (byte) (code(task.getSource()) << 4
+                | (task.isCompleted() ? COMPLETED_FLAG : 0) | (task.isVisible() ? VISIBLE_FLAG : 0));
+        skills[row] = (byte) code(task.getSkill());
+        targetLevels[row] = (short) task.getTargetLevel();
+        experienceRewards[row] = task.getExperienceReward();
+        pointsRewards[row] = task.getPointsReward();
+        ids[row] = strings.intern(task.getId());
+        names[row] = strings.intern(task.getName());
+        descriptions[row] = strings.intern(task.getDescription());
+        relatedQuestIds[row] = strings.intern(task.getRelatedQuestId());
+        additionalData[row] = strings.intern(task.getAdditionalData());
+        size++;
+
+        if (size * 2 > idIndex.length) {
+            rebuildIndex(idIndex.length * 2);
+        } else {
+            index(row);
+        }
+        return row;
+    }
+
+    /**
+     * Drop a row, moving the rows after it up one
+     */
+    public synchronized void remove(int row) {
+        checkRow(row);
+        int after = size - row - 1;
+        System.arraycopy(keys, row + 1, keys, row, after);
+        System.arraycopy(kinds, row + 1, kinds, row, after);
+        System.arraycopy(sources, row + 1, sources, row, after);
+        System.arraycopy(skills, row + 1, skills, row, after);
+        System.arraycopy(targetLevels, row + 1, targetLevels, row, after);
+        System.arraycopy(experienceRewards, row + 1, experienceRewards, row, after);
+        System.arraycopy(pointsRewards, row + 1, pointsRewards, row, after);
+        System.arraycopy(ids, row + 1, ids, row, after);
+        System.arraycopy(names, row + 1, names, row, after);
+        System.arraycopy(descriptions, row + 1, descriptions, row, after);
+        System.arraycopy(relatedQuestIds, row + 1, relatedQuestIds, row, after);
+        System.arraycopy(additionalData, row + 1, additionalData, row, after);
+        size--;
+        // Removing is rare, so just index every row again
+        rebuildIndex(idIndex.length);
+    }
+
+    /**
+     * The first row with this id, or -1
+     */
+    public synchronized int find(String id) {
+        int reference = strings.find(id);
+        if (reference == 0) {
+            return -1;
+        }
+        int mask = idIndex.length - 1;
+        for (int slot = mix(reference) & mask; idIndex[slot] != 0; slot = (slot + 1) & mask) {
+            int row = idIndex[slot] - 1;
+            if (ids[row] == reference) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A view of a row
+     */
+    public synchronized Task get(int row) {
+        checkRow(row);
+        return new View(this, keys[row], row);
+    }
+
+    /**
+     * Every row as views, in order. Views are created as the list is read, so it costs nothing to hold.
+     */
+    public List<Task> asList() {
+        return list;
+    }
+
+    public synchronized boolean isCompleted(int row) {
+        return (sources[row] & COMPLETED_FLAG) != 0;
+    }
+
+    public synchronized boolean isVisible(int row) {
+        return (sources[row] & VISIBLE_FLAG) != 0;
+    }
+
+    public synchronized void setCompleted(int row, boolean completed) {
+        setFlag(row, COMPLETED_FLAG, completed);
+    }
+
+    public synchronized void setVisible(int row, boolean visible) {
+        setFlag(row, VISIBLE_FLAG, visible);
+    }
+
+    private void setFlag(int row, int flag, boolean set) {
+        sources[row] = (byte) (set ? sources[row] | flag : sources[row] & ~flag);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+        skills = Arrays.copyOf(skills, capacity);
+        targetLevels = Arrays.copyOf(targetLevels, capacity);
+        experienceRewards = Arrays.copyOf(experienceRewards, capacity);
+        pointsRewards = Arrays.copyOf(pointsRewards, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        relatedQuestIds = Arrays.copyOf(relatedQuestIds, capacity);
+        additionalData = Arrays.copyOf(additionalData, capacity);
+    }
+
+    private void rebuildIndex(int capacity) {
+        idIndex = new int[capacity];
+        for (int row = 0; row < size; row++) {
+            index(row);
+        }
+    }
+
+    /**
+     * Index a row's id, unless an earlier row has the same id
+     */
+    private void index(int row) {
+        int reference = ids[row];
+        if (reference == 0) {
+            return;
+        }
+        int mask = idIndex.length - 1;
+        int slot = mix(reference) & mask;
+        while (idIndex[slot] != 0) {
+            if (ids[idIndex[slot] - 1] == reference) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        idIndex[slot] = row + 1;
+    }
+
+    /**
+     * The row holding a key, if it hasn't been removed
+     */
+    private int rowOf(int key) {
+        int row = Arrays.binarySearch(keys, 0, size, key);
+        if (row < 0) {
+            throw new IllegalStateException("Task was removed from the table");
+        }
+        return row;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    private static int code(Enum<?> value) {
+        return value != null ? value.ordinal() + 1 : 0;
+    }
+
+    private static <E> E lookup(E[] values, int code) {
+        return code != 0 ? values[code - 1] : null;
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private final class Rows extends AbstractList<Task> implements RandomAccess {
+        @Override
+        public Task get(int index) {
+            return TaskTable.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return TaskTable.this.size();
+        }
+    }
+
+    /**
+     * A row as a {@link Task}. Its own fields are left empty; every getter and setter goes to the table.
+     */
+    private static final class View extends Task {
+        private final TaskTable table;
+        private final int key;
+        // Where the row was last seen; checked against the key before each use
+        private int row;
+
+        View(TaskTable table, int key, int row) {
+            this.table = table;
+            this.key = key;
+            this.row = row;
+        }
+
+        private int row() {
+            int row = this.row;
+            if (row >= table.size || table.keys[row] != key) {
+                row = table.rowOf(key);
+                this.row = row;
+            }
+            return row;
+        }
+
+        @Override
+        public String getId() {
+            synchronized (table) {
+                return table.strings.get(table.ids[row()]);
+            }
+        }
+
+        @Override
+        public String getName() {
+            synchronized (table) {
+                return table.strings.get(table.names[row()]);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            synchronized (table) {
+                return table.strings.get(table.descriptions[row()]);
+            }
+        }
+
+        @Override
+        public TaskDifficulty getDifficulty() {
+            synchronized (table) {
+                return lookup(DIFFICULTIES, (table.kinds[row()] & 0xFF) >>> 4);
+            }
+        }
+
+        @Override
+        public TaskCategory getCategory() {
+            synchronized (table) {
+                return lookup(CATEGORIES, table.kinds[row()] & 0xF);
+            }
+        }
+
+        @Override
+        public TaskSource getSource() {
+            synchronized (table) {
+                return lookup(SOURCES, (table.sources[row()] & 0xFF) >>> 4);
+            }
+        }
+
+        @Override
+        public boolean isCompleted() {
+            synchronized (table) {
+                return table.isCompleted(row());
+            }
+        }
+
+        @Override
+        public void setCompleted(boolean completed) {
+            synchronized (table) {
+                table.setCompleted(row(), completed);
+            }
+        }
+
+        @Override
+        public boolean isVisible() {
+            synchronized (table) {
+                return table.isVisible(row());
+            }
+        }
+
+        @Override
+        public void setVisible(boolean visible) {
+            synchronized (table) {
+                table.setVisible(row(), visible);
+            }
+        }
+
+        @Override
+        public int getExperienceReward() {
+            synchronized (table) {
+                return table.experienceRewards[row()];
+            }
+        }
+
+        @Override
+        public void setExperienceReward(int experienceReward) {
+            synchronized (table) {
+                table.experienceRewards[row()] = experienceReward;
+            }
+        }
+
+        @Override
+        public int getPointsReward() {
+            synchronized (table) {
+                return table.pointsRewards[row()];
+            }
+        }
+
+        @Override
+        public void setPointsReward(int pointsReward) {
+            synchronized (table) {
+                table.pointsRewards[row()] = pointsReward;
+            }
+        }
+
+        @Override
+        public String getRelatedQuestId() {
+            synchronized (table) {
+                return table.strings.get(table.relatedQuestIds[row()]);
+            }
+        }
+
+        @Override
+        public void setRelatedQuestId(String relatedQuestId) {
+            synchronized (table) {
+                table.relatedQuestIds[row()] = table.strings.intern(relatedQuestId);
+            }
+        }
+
+        @Override
+        public Skill getSkill() {
+            synchronized (table) {
+                return lookup(SKILLS, table.skills[row()] & 0xFF);
+            }
+        }
+
+        @Override
+        public void setSkill(Skill skill) {
+            synchronized (table) {
+                table.skills[row()] = (byte) code(skill);
+            }
+        }
+
+        @Override
+        public int getTargetLevel() {
+            synchronized (table) {
+                return table.targetLevels[row()];
+            }
+        }
+
+        @Override
+        public void setTargetLevel(int targetLevel) {
+            synchronized (table) {
+                table.targetLevels[row()] = (short) targetLevel;
+            }
+        }
+
+        @Override
+        public String getAdditionalData() {
+            synchronized (table) {
+                return table.strings.get(table.additionalData[row()]);
+            }
+        }
+
+        @Override
+        public void setAdditionalData(String additionalData) {
+            synchronized (table) {
+                table.additionalData[row()] = table.strings.intern(additionalData);
+            }
+        }
+    }
+
+    /**
+     * Distinct strings as UTF-8, back to back in one array. A string's reference is its index + 1, so 0 can stand
+     * for null.
+     */
+    private static final class StringPool {
+        // Enough for every string the overlay shows each frame, while bounded however many tasks are read
+        private static final int CACHE_SLOTS = 256;
+
+        private byte[] data = new byte[1024];
+        private int length;
+        // Where each string starts; the next one's start is where it ends
+        private int[] starts = new int[64];
+        private int[] hashes = new int[64];
+        private int count;
+        // The last strings turned back into Strings, each in the slot its reference maps to
+        private final int[] cachedReferences = new int[CACHE_SLOTS];
+        private final String[] cachedStrings = new String[CACHE_SLOTS];
+        // Open addressing from a string's hash to its reference
+        private int[] slots = new int[128];
+
+        int intern(String value) {
+            if (value == null) {
+                return 0;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            int hash = value.hashCode();
+            int slot = probe(utf8, hash);
+            if (slots[slot] != 0) {
+                return slots[slot];
+            }
+
+            if (count + 1 == starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            }
+            if (length + utf8.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + utf8.length));
+            }
+            System.arraycopy(utf8, 0, data, length, utf8.length);
+            starts[count] = length;
+            hashes[count] = hash;
+            length += utf8.length;
+            count++;
+            starts[count] = length;
+            slots[slot] = count;
+
+            if (count * 2 > slots.length) {
+                rehash();
+            }
+            return count;
+        }
+
+        /**
+         * The string's reference, or 0 if it isn't in the pool
+         */
+        int find(String value) {
+            if (value == null) {
+                return 0;
+            }
+            return slots[probe(value.getBytes(StandardCharsets.UTF_8), value.hashCode())];
+        }
+
+        String get(int reference) {
+            if (reference == 0) {
+                return null;
+            }
+            int slot = mix(reference) & (CACHE_SLOTS - 1);
+            if (cachedReferences[slot] == reference) {
+                return cachedStrings[slot];
+            }
+            int start = starts[reference - 1];
+            String value = new String(data, start, starts[reference] - start, StandardCharsets.UTF_8);
+            cachedReferences[slot] = reference;
+            cachedStrings[slot] = value;
+            return value;
+        }
+
+        /**
+         * The slot holding the string, or the empty slot where it would go
+         */
+        private int probe(byte[] utf8, int hash) {
+            int mask = slots.length - 1;
+            int slot = mix(hash) & mask;
+            while (slots[slot] != 0) {
+                int index = slots[slot] - 1;
+                if (hashes[index] == hash && Arrays.equals(data, starts[index], starts[index + 1],
+                        utf8, 0, utf8.length)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int index = 0; index < count; index++) {
+                int slot = mix(hashes[index]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = index + 1;
+            }
+        }
+    }
+}
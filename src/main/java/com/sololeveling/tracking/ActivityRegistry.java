@@ -0,0 +1,221 @@
+package com.sololeveling.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Counts how often the player does things, such as kills or level-ups, in total and over time.
+ * Activity names are interned to small int ids once, so recording is an array update with no hashing or boxing.
+ * Each activity also keeps ring buffers of per-minute, per-hour and per-day counts with a running sum, so "in
+ * the last hour", "in the last day" and "today" are answered in constant time.
+ * <p>
+ * Buckets that fall out of a ring are cleared lazily when the activity is next recorded or queried. Not
+ * thread-safe; like the rest of {@link PlayerTracker} it is used from the client thread.
+ */
+public class ActivityRegistry {
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    private static final int DAYS_KEPT = 31;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private long[] totals = new long[16];
+    private Series[] series = new Series[16];
+    // Fetched once, as TimeZone.getDefault() copies the zone on every call
+    private final TimeZone zone;
+
+    public ActivityRegistry() {
+        this(TimeZone.getDefault());
+    }
+
+    ActivityRegistry(TimeZone zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * The id for an activity, assigning one the first time the name is seen
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        int next = names.size();
+        if (next == totals.length) {
+            totals = Arrays.copyOf(totals, next * 2);
+            series = Arrays.copyOf(series, next * 2);
+        }
+        names.add(name);
+        series[next] = new Series();
+        ids.put(name, next);
+        return next;
+    }
+
+    /**
+     * Number of activities interned, which are ids 0 up to it
+     */
+    public int size() {
+        return names.size();
+    }
+
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    public void record(int id, long count, long now) {
+        totals[id] += count;
+        Series activity = series[id];
+        activity.minutes.add(now / MINUTE_MILLIS, count);
+        activity.hours.add(now / HOUR_MILLIS, count);
+        activity.days.add(localDay(now), count);
+    }
+
+    public void record(int id, long count) {
+        record(id, count, System.currentTimeMillis());
+    }
+
+    public long getTotal(int id) {
+        return totals[id];
+    }
+
+    /**
+     * Count over the last 60 minutes, to the minute
+     */
+    public long getLastHour(int id, long now) {
+        return series[id].minutes.sum(now / MINUTE_MILLIS);
+    }
+
+    /**
+     * Count over the last 24 hours, to the hour
+     */
+    public long getLastDay(int id, long now) {
+        return series[id].hours.sum(now / HOUR_MILLIS);
+    }
+
+    /**
+     * Count since local midnight
+     */
+    public long getToday(int id, long now) {
+        return series[id].days.current(localDay(now));
+    }
+
+    /**
+     * Count over the last {@code days} local days, today included; at most a month is kept
+     */
+    public long getLastDays(int id, int days, long now) {
+        return series[id].days.sumLatest(localDay(now), Math.min(days, DAYS_KEPT));
+    }
+
+    /**
+     * Lifetime totals by name, for saving
+     */
+    public Map<String, Integer> getTotals() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int id = 0; id < names.size(); id++) {
+            if (totals[id] > 0) {
+                result.put(names.get(id), (int) Math.min(Integer.MAX_VALUE, totals[id]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add to a lifetime total without counting towards any time window, such as when restoring saved totals
+     */
+    public void addTotal(String name, long count) {
+        totals[intern(name)] += count;
+    }
+
+    /**
+     * Zero every count. Ids stay assigned, so interned ids held elsewhere remain valid.
+     */
+    public void clear() {
+        Arrays.fill(totals, 0);
+        for (int id = 0; id < names.size(); id++) {
+            series[id] = new Series();
+        }
+    }
+
+    private long localDay(long now) {
+        return Math.floorDiv(now + zone.getOffset(now), DAY_MILLIS);
+    }
+
+    private static final class Series {
+        private final Ring minutes = new Ring(60);
+        private final Ring hours = new Ring(24);
+        private final Ring days = new Ring(DAYS_KEPT);
+    }
+
+    /**
+     * Counts for the latest {@code slots} periods, plus their sum
+     */
+    private static final class Ring {
+        private final long[] counts;
+        // Period the newest slot belongs to
+        private long head = Long.MIN_VALUE;
+        private long sum;
+
+        Ring(int slots) {
+            counts = new long[slots];
+        }
+
+        void add(long period, long count) {
+            advance(period);
+            // Counts for periods already out of the window are only kept in the totals
+            if (head - period < counts.length) {
+                counts[slot(period)] += count;
+                sum += count;
+            }
+        }
+
+        long sum(long period) {
+            advance(period);
+            return sum;
+        }
+
+        long current(long period) {
+            advance(period);
+            return head - period < counts.length ? counts[slot(period)] : 0;
+        }
+
+        long sumLatest(long period, int periods) {
+            advance(period);
+            long total = 0;
+            for (int i = 0; i < periods; i++) {
+                total += counts[slot(period - i)];
+            }
+            return total;
+        }
+
+        /**
+         * Move the window forward to end at the given period, clearing the slots it passes
+         */
+        private void advance(long period) {
+            if (period <= head) {
+                return;
+            }
+            if (head == Long.MIN_VALUE || period - head >= counts.length) {
+                Arrays.fill(counts, 0);
+                sum = 0;
+            } else {
+                for (long p = head + 1; p <= period; p++) {
+                    int slot = slot(p);
+                    sum -= counts[slot];
+                    counts[slot] = 0;
+                }
+            }
+            head = period;
+        }
+
+        private int slot(long period) {
+            return (int) Math.floorMod(period, (long) counts.length);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.sololeveling.tracking;
+
+import lombok.Value;
+import net.runelite.api.Skill;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable copy of what {@link PlayerTracker} keeps about one account across sessions: play time, game ticks,
+ * activity counts, quests and the last known skills. Taken on the client thread, then written out elsewhere.
+ * <p>
+ * Skills are stored by name rather than ordinal, so profiles survive skills being added to the client.
+ */
+@Value
+public class PlayerProfile {
+    long accountHash;
+    long savedAt;
+    long totalPlayTimeMillis;
+    int gameTicks;
+    int questPoints;
+    Map<String, Boolean> completedQuests;
+    Map<Skill, Integer> skillLevels;
+    Map<Skill, Long> skillExperience;
+    Map<String, Integer> activityCounts;
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(accountHash);
+        out.writeLong(savedAt);
+        out.writeLong(totalPlayTimeMillis);
+        out.writeInt(gameTicks);
+        out.writeShort(questPoints);
+
+        out.writeShort(completedQuests.size());
+        for (Map.Entry<String, Boolean> entry : completedQuests.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeBoolean(entry.getValue());
+        }
+
+        out.writeByte(skillLevels.size());
+        for (Map.Entry<Skill, Integer> entry : skillLevels.entrySet()) {
+            out.writeUTF(entry.getKey().name());
+            out.writeByte(entry.getValue());
+            out.writeInt((int) (long) skillExperience.getOrDefault(entry.getKey(), 0L));
+        }
+
+        out.writeInt(activityCounts.size());
+        for (Map.Entry<String, Integer> entry : activityCounts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    static PlayerProfile readFrom(DataInput in) throws IOException {
+        long accountHash = in.readLong();
+        long savedAt = in.readLong();
+        long totalPlayTimeMillis = in.readLong();
+        int gameTicks = in.readInt();
+        int questPoints = in.readUnsignedShort();
+
+        int quests = in.readUnsignedShort();
+        Map<String, Boolean> completedQuests = new LinkedHashMap<>();
+        for (int i = 0; i < quests; i++) {
+            completedQuests.put(in.readUTF(), in.readBoolean());
+        }
+
+        int skills = in.readUnsignedByte();
+        Map<Skill, Integer> skillLevels = new EnumMap<>(Skill.class);
+        Map<Skill, Long> skillExperience = new EnumMap<>(Skill.class);
+        for (int i = 0; i < skills; i++) {
+            String name = in.readUTF();
+            int level = in.readUnsignedByte();
+            long experience = in.readInt();
+            Skill skill = skill(name);
+            if (skill != null) {
+                skillLevels.put(skill, level);
+                skillExperience.put(skill, experience);
+            }
+        }
+
+        int activities = in.readInt();
+        Map<String, Integer> activityCounts = new LinkedHashMap<>();
+        for (int i = 0; i < activities; i++) {
+            activityCounts.put(in.readUTF(), in.readInt());
+        }
+
+        return new PlayerProfile(accountHash, savedAt, totalPlayTimeMillis, gameTicks, questPoints,
+                Collections.unmodifiableMap(completedQuests), Collections.unmodifiableMap(skillLevels),
+                Collections.unmodifiableMap(skillExperience), Collections.unmodifiableMap(activityCounts));
+    }
+
+    private static Skill skill(String name) {
+        try {
+            return Skill.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            // A skill this client doesn't know about
+            return null;
+        }
+    }
+}
@@ -1,19 +1,40 @@
 package com.sololeveling.tracking;
 
+import com.sololeveling.api.OsrsApiManager;
+import com.sololeveling.persistence.ProgressExport;
+import com.sololeveling.persistence.WriteAheadLog;
+import com.sololeveling.util.ExperienceTable;
 import lombok.Data;
 import net.runelite.api.Client;
+import net.runelite.api.Experience;
 import net.runelite.api.Quest;
 import net.runelite.api.Skill;
 import net.runelite.api.Varbits;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Tracks the player's progress in various aspects of the game.
  */
 @Data
 public class PlayerTracker {
+    public static final String ACTIVITY_KILLS = "kills";
+    public static final String ACTIVITY_LEVEL_UPS = "level_ups";
+    public static final String ACTIVITY_TASKS_COMPLETED = "tasks_completed";
+
+    private static final String JOURNAL_PLAY_TIME = "playTime";
+    private static final String JOURNAL_GAME_TICKS = "gameTicks";
+    private static final String JOURNAL_ACTIVITY = "activity/";
+
+    // XP rates aren't reported until the session is this long
+    private static final double MIN_RATE_HOURS = 5 / 60.0;
+
     // Quest tracking
     private final Map<String, Boolean> completedQuests = new HashMap<>();
     private int questPoints = 0;
@@ -22,13 +43,29 @@ public class PlayerTracker {
     private final Map<Skill, Integer> skillLevels = new HashMap<>();
     private final Map<Skill, Long> skillExperience = new HashMap<>();
 
+    // Skills whose values came from the logged-in client; anything else was seeded from the hiscores
+    private final Set<Skill> liveSkills = EnumSet.noneOf(Skill.class);
+    private boolean seededFromHiscores = false;
+
+    // Experience at the first live update this session, for XP rates
+    private final Map<Skill, Long> sessionStartExperience = new EnumMap<>(Skill.class);
+    private long experienceRateStartTime;
+
     // Game time tracking
     private long sessionStartTime;
     private long totalPlayTimeMillis = 0;
     private int gameTicks = 0;
 
     // Activity tracking
-    private final Map<String, Integer> activityCounts = new HashMap<>();
+    private final ActivityRegistry activities = new ActivityRegistry();
+
+    // XP over weeks and months, for progress graphs
+    private final SkillHistory skillHistory = new SkillHistory();
+
+    // Counters as last written to the journal, so each flush only writes what changed
+    private long journaledPlayTime;
+    private int journaledGameTicks;
+    private long[] journaledActivities = new long[0];
 
     /**
      * Initialize the player tracker with current game state
@@ -40,15 +77,11 @@ public class PlayerTracker {
         }
 
         // Start tracking session time
-        sessionStartTime = System.currentTimeMillis();
+        startSession();
 
-        // Track skill levels and experience
-        for (Skill skill : Skill.values()) {
-            if (skill != Skill.OVERALL) {
-                skillLevels.put(skill, client.getRealSkillLevel(skill));
-                skillExperience.put(skill, (long) client.getSkillExperience(skill));
-            }
-        }
+        // Track skill levels and experience, replacing any values seeded from the hiscores
+        updateSkills(client);
+        seededFromHiscores = false;
 
         // Initialize quest status
         updateQuestStatus(client);
@@ -114,10 +147,117 @@ public class PlayerTracker {
     public void updateSkills(Client client) {
         for (Skill skill : Skill.values()) {
             if (skill != Skill.OVERALL) {
-                skillLevels.put(skill, client.getRealSkillLevel(skill));
-                skillExperience.put(skill, (long) client.getSkillExperience(skill));
+                updateSkill(skill, client.getRealSkillLevel(skill), client.getSkillExperience(skill));
+            }
+        }
+    }
+
+    /**
+     * Update a single skill from a live client value
+     */
+    public void updateSkill(Skill skill, int level, long experience) {
+        skillLevels.put(skill, level);
+        skillExperience.put(skill, experience);
+        liveSkills.add(skill);
+        if (sessionStartExperience.isEmpty()) {
+            experienceRateStartTime = System.currentTimeMillis();
+        }
+        sessionStartExperience.putIfAbsent(skill, experience);
+        skillHistory.record(skill, experience, System.currentTimeMillis());
+    }
+
+    /**
+     * Experience per hour gained in each skill this session. Skills without gains are left out, as is
+     * everything during the first few minutes, when the rates would mostly be noise.
+     */
+    public Map<Skill, Double> getExperienceRates() {
+        Map<Skill, Double> rates = new EnumMap<>(Skill.class);
+        double hours = (System.currentTimeMillis() - experienceRateStartTime) / 3_600_000.0;
+        if (sessionStartExperience.isEmpty() || hours < MIN_RATE_HOURS) {
+            return rates;
+        }
+        for (Map.Entry<Skill, Long> entry : sessionStartExperience.entrySet()) {
+            long gained = skillExperience.getOrDefault(entry.getKey(), entry.getValue()) - entry.getValue();
+            if (gained > 0) {
+                rates.put(entry.getKey(), gained / hours);
             }
         }
+        return rates;
+    }
+
+    /**
+     * Seed skill levels and experience from a hiscores lookup, so there is something to show before the
+     * client has logged in. Skills the client has already reported are left alone, and later live updates
+     * overwrite the seeded values.
+     *
+     * @return the number of skills seeded
+     */
+    public int seedFromHiscores(Map<Skill, OsrsApiManager.PlayerSkillData> hiscores) {
+        int seeded = 0;
+        for (Map.Entry<Skill, OsrsApiManager.PlayerSkillData> entry : hiscores.entrySet()) {
+            Skill skill = entry.getKey();
+            if (skill == Skill.OVERALL || liveSkills.contains(skill)) {
+                continue;
+            }
+
+            // Unranked skills come back as level 1, but Hitpoints starts at 10
+            int level = entry.getValue().getLevel();
+            long experience = entry.getValue().getExperience();
+            if (skill == Skill.HITPOINTS && level < 10) {
+                level = 10;
+                experience = Math.max(experience, ExperienceTable.getXpForLevel(10));
+            }
+            skillLevels.put(skill, level);
+            skillExperience.put(skill, experience);
+            seeded++;
+        }
+        if (seeded > 0) {
+            seededFromHiscores = true;
+        }
+        return seeded;
+    }
+
+    /**
+     * Whether any skill data is known, either live or seeded from the hiscores
+     */
+    public boolean hasSkillData() {
+        return !skillLevels.isEmpty();
+    }
+
+    /**
+     * Sum of the known skill levels
+     */
+    public int getTotalLevel() {
+        int total = 0;
+        for (int level : skillLevels.values()) {
+            total += level;
+        }
+        return total;
+    }
+
+    /**
+     * Sum of the known skill experience
+     */
+    public long getTotalExperience() {
+        long total = 0;
+        for (long experience : skillExperience.values()) {
+            total += experience;
+        }
+        return total;
+    }
+
+    /**
+     * Combat level derived from the known skill levels
+     */
+    public int getCombatLevel() {
+        return Experience.getCombatLevel(
+                skillLevels.getOrDefault(Skill.ATTACK, 1),
+                skillLevels.getOrDefault(Skill.STRENGTH, 1),
+                skillLevels.getOrDefault(Skill.DEFENCE, 1),
+                skillLevels.getOrDefault(Skill.HITPOINTS, 10),
+                skillLevels.getOrDefault(Skill.MAGIC, 1),
+                skillLevels.getOrDefault(Skill.RANGED, 1),
+                skillLevels.getOrDefault(Skill.PRAYER, 1));
     }
 
     /**
@@ -131,12 +271,179 @@ public class PlayerTracker {
      * Update session time tracking
      */
     public void updateSessionTime() {
+        if (sessionStartTime == 0) {
+            // No session running
+            return;
+        }
         long currentTime = System.currentTimeMillis();
         long sessionTime = currentTime - sessionStartTime;
         totalPlayTimeMillis += sessionTime;
         sessionStartTime = currentTime; // Reset for next session
     }
 
+    /**
+     * Start counting play time, unless a session is already running
+     */
+    public void startSession() {
+        if (sessionStartTime == 0) {
+            sessionStartTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Stop counting play time, adding the session so far to the total
+     */
+    public void endSession() {
+        updateSessionTime();
+        sessionStartTime = 0;
+    }
+
+    /**
+     * Copy everything kept across sessions, for saving
+     */
+    public PlayerProfile toProfile(long accountHash) {
+        updateSessionTime();
+        return new PlayerProfile(accountHash, System.currentTimeMillis(), totalPlayTimeMillis, gameTicks, questPoints,
+                new HashMap<>(completedQuests), copy(skillLevels), copy(skillExperience),
+                activities.getTotals());
+    }
+
+    private static <V> Map<Skill, V> copy(Map<Skill, V> values) {
+        Map<Skill, V> copy = new EnumMap<>(Skill.class);
+        copy.putAll(values);
+        return copy;
+    }
+
+    /**
+     * Add a saved profile to what has been tracked since login. Counters are added together, quests and skills
+     * the client has already reported are kept as they are.
+     */
+    public void restoreProfile(PlayerProfile profile) {
+        totalPlayTimeMillis += profile.getTotalPlayTimeMillis();
+        gameTicks += profile.getGameTicks();
+        questPoints = Math.max(questPoints, profile.getQuestPoints());
+        for (Map.Entry<String, Boolean> entry : profile.getCompletedQuests().entrySet()) {
+            completedQuests.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Skill, Integer> entry : profile.getSkillLevels().entrySet()) {
+            Skill skill = entry.getKey();
+            if (!liveSkills.contains(skill)) {
+                skillLevels.put(skill, entry.getValue());
+                skillExperience.put(skill, profile.getSkillExperience().getOrDefault(skill, 0L));
+            }
+        }
+        for (Map.Entry<String, Integer> entry : profile.getActivityCounts().entrySet()) {
+            activities.addTotal(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Write the counters that changed since the last call to the journal, so a crash loses at most what changed
+     * since. Each is written as the account's total stamped with the time, so call this only once the saved
+     * profile has been restored.
+     */
+    public void journal(WriteAheadLog journal, long accountHash) {
+        updateSessionTime();
+        long now = System.currentTimeMillis();
+        String prefix = journalKey(accountHash);
+        if (totalPlayTimeMillis != journaledPlayTime) {
+            journal.put(prefix + JOURNAL_PLAY_TIME, stamped(now, totalPlayTimeMillis));
+            journaledPlayTime = totalPlayTimeMillis;
+        }
+        if (gameTicks != journaledGameTicks) {
+            journal.put(prefix + JOURNAL_GAME_TICKS, stamped(now, gameTicks));
+            journaledGameTicks = gameTicks;
+        }
+        if (journaledActivities.length < activities.size()) {
+            journaledActivities = Arrays.copyOf(journaledActivities, activities.size());
+        }
+        for (int id = 0; id < activities.size(); id++) {
+            long total = activities.getTotal(id);
+            if (total != journaledActivities[id]) {
+                journal.put(prefix + JOURNAL_ACTIVITY + activities.getName(id), stamped(now, total));
+                journaledActivities[id] = total;
+            }
+        }
+    }
+
+    /**
+     * Add counters journaled after the account's profile was saved, such as when the client crashed before it
+     * saved again. Journal entries the profile already covers are dropped.
+     *
+     * @param profile the profile just restored, or null if the account had none
+     */
+    public void restoreJournal(WriteAheadLog journal, long accountHash, PlayerProfile profile) {
+        long savedAt = profile != null ? profile.getSavedAt() : 0;
+        String prefix = journalKey(accountHash);
+        for (Map.Entry<String, byte[]> entry : journal.entries(prefix).entrySet()) {
+            ByteBuffer value = ByteBuffer.wrap(entry.getValue());
+            long writtenAt = value.getLong();
+            long total = value.getLong();
+            if (writtenAt <= savedAt) {
+                journal.remove(entry.getKey());
+                continue;
+            }
+
+            // The tracker holds the profile's totals plus this session's, so add what the profile is missing
+            String name = entry.getKey().substring(prefix.length());
+            if (name.equals(JOURNAL_PLAY_TIME)) {
+                totalPlayTimeMillis += total - (profile != null ? profile.getTotalPlayTimeMillis() : 0);
+            } else if (name.equals(JOURNAL_GAME_TICKS)) {
+                gameTicks += (int) total - (profile != null ? profile.getGameTicks() : 0);
+            } else if (name.startsWith(JOURNAL_ACTIVITY)) {
+                String activity = name.substring(JOURNAL_ACTIVITY.length());
+                int saved = profile != null ? profile.getActivityCounts().getOrDefault(activity, 0) : 0;
+                activities.addTotal(activity, total - saved);
+            }
+        }
+    }
+
+    /**
+     * Bring in counters, activity totals and skill history from an export. Each counter keeps the larger of its
+     * current and exported value, so importing an export of this same account again doesn't count anything twice.
+     */
+    public void importProgress(ProgressExport export) {
+        updateSessionTime();
+        totalPlayTimeMillis = Math.max(totalPlayTimeMillis, export.getTotalPlayTimeMillis());
+        gameTicks = Math.max(gameTicks, export.getGameTicks());
+        for (Map.Entry<String, Integer> entry : export.getActivityCounts().entrySet()) {
+            long current = activities.getTotal(activities.intern(entry.getKey()));
+            if (entry.getValue() > current) {
+                activities.addTotal(entry.getKey(), entry.getValue() - current);
+            }
+        }
+        skillHistory.merge(export.getSkillHistory());
+    }
+
+    private static String journalKey(long accountHash) {
+        return "tracker/" + Long.toHexString(accountHash) + "/";
+    }
+
+    private static byte[] stamped(long time, long value) {
+        return ByteBuffer.allocate(16).putLong(time).putLong(value).array();
+    }
+
+    /**
+     * Forget everything about the current account, such as when logging out, so the next account starts clean
+     */
+    public void resetProfile() {
+        endSession();
+        totalPlayTimeMillis = 0;
+        gameTicks = 0;
+        questPoints = 0;
+        completedQuests.clear();
+        skillLevels.clear();
+        skillExperience.clear();
+        liveSkills.clear();
+        seededFromHiscores = false;
+        sessionStartExperience.clear();
+        activities.clear();
+        skillHistory.clear();
+        journaledPlayTime = 0;
+        journaledGameTicks = 0;
+        journaledActivities = new long[0];
+    }
+
     /**
      * Get the total number of game ticks recorded
      */
@@ -148,16 +455,21 @@ public class PlayerTracker {
      * Record an activity occurrence
      */
     public void recordActivity(String activity) {
-        int count = activityCounts.getOrDefault(activity, 0);
-        activityCounts.put(activity, count + 1);
+        recordActivity(activity, 1);
     }
 
     /**
      * Record an activity with a specific count
      */
     public void recordActivity(String activity, int count) {
-        int currentCount = activityCounts.getOrDefault(activity, 0);
-        activityCounts.put(activity, currentCount + count);
+        activities.record(activities.intern(activity), count);
+    }
+
+    /**
+     * Record an activity by its id from {@link ActivityRegistry#intern}, for callers that record it often
+     */
+    public void recordActivity(int activityId, int count) {
+        activities.record(activityId, count);
     }
 
     /**
@@ -189,6 +501,6 @@ public class PlayerTracker {
      * Get the count for a specific activity
      */
     public int getActivityCount(String activity) {
-        return activityCounts.getOrDefault(activity, 0);
+        return (int) activities.getTotal(activities.intern(activity));
     }
 }
@@ -0,0 +1,132 @@
+package com.sololeveling.tracking;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Keeps one {@link PlayerProfile} file per account, read and written on the executor so the client thread
+ * never waits on the disk.
+ * <p>
+ * Files are named after the account hash, so RuneLite instances logged into different accounts never touch
+ * each other's profile. Each write goes to its own uniquely named temp file and is then moved into place
+ * atomically, so even two instances saving the same account at once leave one whole profile behind, never a
+ * mix or a half-written file.
+ */
+@Slf4j
+@Singleton
+public class ProfileStore {
+    private static final File PROFILE_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "solo-leveling/profiles");
+    private static final int FILE_MAGIC = 0x534C5046; // "SLPF"
+    private static final int FILE_VERSION = 1;
+
+    private final ScheduledExecutorService executor;
+    private final File directory;
+    // When the newest profile written for each account was taken, so a save queued behind a newer one is dropped
+    private final Map<Long, Long> lastSavedAt = new HashMap<>();
+
+    @Inject
+    public ProfileStore(ScheduledExecutorService executor) {
+        this(executor, PROFILE_DIRECTORY);
+    }
+
+    ProfileStore(ScheduledExecutorService executor, File directory) {
+        this.executor = executor;
+        this.directory = directory;
+    }
+
+    /**
+     * Read an account's profile in the background
+     *
+     * @param callback called on the executor with the profile, or with null if the account has no readable profile
+     */
+    public void load(long accountHash, Consumer<PlayerProfile> callback) {
+        executor.execute(() -> callback.accept(read(accountHash)));
+    }
+
+    /**
+     * Write a profile in the background
+     */
+    public void save(PlayerProfile profile) {
+        executor.execute(() -> write(profile));
+    }
+
+    PlayerProfile read(long accountHash) {
+        File file = file(accountHash);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readUnsignedByte() != FILE_VERSION) {
+                log.debug("Ignoring player profile with an unknown format");
+                return null;
+            }
+            PlayerProfile profile = PlayerProfile.readFrom(in);
+            if (profile.getAccountHash() != accountHash) {
+                log.debug("Ignoring player profile saved for another account");
+                return null;
+            }
+            return profile;
+        } catch (IOException e) {
+            log.warn("Unable to load player profile", e);
+            return null;
+        }
+    }
+
+    synchronized void write(PlayerProfile profile) {
+        Long last = lastSavedAt.get(profile.getAccountHash());
+        if (last != null && last > profile.getSavedAt()) {
+            return;
+        }
+
+        byte[] encoded;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(FILE_MAGIC);
+            out.writeByte(FILE_VERSION);
+            profile.writeTo(out);
+            encoded = bytes.toByteArray();
+        } catch (IOException e) {
+            log.warn("Unable to encode player profile", e);
+            return;
+        }
+
+        File temp = null;
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            File file = file(profile.getAccountHash());
+            temp = File.createTempFile(file.getName(), ".tmp", directory);
+            Files.write(temp.toPath(), encoded);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSavedAt.put(profile.getAccountHash(), profile.getSavedAt());
+        } catch (IOException e) {
+            log.warn("Unable to save player profile", e);
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private File file(long accountHash) {
+        return new File(directory, Long.toHexString(accountHash) + ".dat");
+    }
+}
@@ -0,0 +1,233 @@
+package com.sololeveling.tracking;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Delta-encoded XP history for one player.
+ * Each sample stores the seconds since the previous sample, a bitmask of the skills whose XP changed and a
+ * zigzag varint delta for each of them, so a poll in which the player only trained one skill costs a handful
+ * of bytes. The first sample is encoded against an all-zero state, which makes it an absolute keyframe.
+ * Samples identical to the previous one are not stored at all.
+ */
+public class RivalHistory {
+    private final int skillCount;
+    private byte[] data = new byte[64];
+    private int length;
+    private int samples;
+
+    // Decoded state after the last sample, so appends don't have to replay the history
+    private final long[] latest;
+    private long latestTime;
+
+    public RivalHistory(int skillCount) {
+        if (skillCount > 32) {
+            throw new IllegalArgumentException("At most 32 skills fit in the change mask");
+        }
+        this.skillCount = skillCount;
+        this.latest = new long[skillCount];
+    }
+
+    /**
+     * Record a sample
+     *
+     * @param timeMillis when the sample was taken; samples must be appended in time order
+     * @param experience XP per skill, indexed like the hiscores skill rows
+     * @return false if nothing changed since the previous sample, in which case nothing was stored
+     */
+    public boolean append(long timeMillis, long[] experience) {
+        int mask = 0;
+        for (int i = 0; i < skillCount; i++) {
+            if (experience[i] != latest[i]) {
+                mask |= 1 << i;
+            }
+        }
+        if (mask == 0 && samples > 0) {
+            return false;
+        }
+
+        long seconds = timeMillis / 1000;
+        writeVarLong(Math.max(0, seconds - latestTime / 1000));
+        writeVarLong(mask & 0xFFFFFFFFL);
+        for (int i = 0; i < skillCount; i++) {
+            if ((mask & (1 << i)) != 0) {
+                writeVarLong(zigzag(experience[i] - latest[i]));
+                latest[i] = experience[i];
+            }
+        }
+        latestTime = seconds * 1000;
+        samples++;
+        return true;
+    }
+
+    public int getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * Bytes used by the encoded samples
+     */
+    public int getEncodedSize() {
+        return length;
+    }
+
+    /**
+     * Time of the most recent sample in epoch millis, or 0 if there are none
+     */
+    public long getLatestTime() {
+        return samples > 0 ? latestTime : 0;
+    }
+
+    /**
+     * XP per skill as of the most recent sample
+     */
+    public long[] getLatest() {
+        return latest.clone();
+    }
+
+    /**
+     * XP per skill as of the last sample taken at or before the given time. If every sample is newer,
+     * the oldest sample is used, so gains are measured from when tracking started.
+     *
+     * @return null if there are no samples
+     */
+    public long[] getAt(long timeMillis) {
+        if (samples == 0) {
+            return null;
+        }
+
+        Cursor cursor = new Cursor();
+        cursor.next();
+        long[] state = cursor.state.clone();
+        while (cursor.hasNext()) {
+            cursor.next();
+            if (cursor.time > timeMillis) {
+                break;
+            }
+            System.arraycopy(cursor.state, 0, state, 0, skillCount);
+        }
+        return state;
+    }
+
+    /**
+     * Drop samples older than the given time, keeping the last one before it as the new baseline
+     */
+    public void pruneBefore(long timeMillis) {
+        Cursor cursor = new Cursor();
+        int dropped = 0;
+        int baseline = -1;
+        while (cursor.hasNext()) {
+            int start = cursor.position;
+            cursor.next();
+            if (cursor.time >= timeMillis) {
+                break;
+            }
+            baseline = start;
+            dropped++;
+        }
+        if (dropped <= 1 || baseline < 0) {
+            return;
+        }
+
+        // Re-encode from the baseline sample as a fresh keyframe
+        Cursor replay = new Cursor();
+        while (replay.position < baseline) {
+            replay.next();
+        }
+        replay.next();
+        long baselineTime = replay.time;
+        long[] baselineState = replay.state.clone();
+
+        RivalHistory rebuilt = new RivalHistory(skillCount);
+        rebuilt.append(baselineTime, baselineState);
+        while (replay.hasNext()) {
+            replay.next();
+            rebuilt.append(replay.time, replay.state);
+        }
+
+        data = rebuilt.data;
+        length = rebuilt.length;
+        samples = rebuilt.samples;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(skillCount);
+        out.writeInt(samples);
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    public static RivalHistory readFrom(DataInput in) throws IOException {
+        RivalHistory history = new RivalHistory(in.readUnsignedByte());
+        int samples = in.readInt();
+        int length = in.readInt();
+        history.data = new byte[Math.max(64, length)];
+        in.readFully(history.data, 0, length);
+        history.length = length;
+        history.samples = samples;
+
+        Cursor cursor = history.new Cursor();
+        while (cursor.hasNext()) {
+            cursor.next();
+        }
+        System.arraycopy(cursor.state, 0, history.latest, 0, history.skillCount);
+        history.latestTime = cursor.time;
+        return history;
+    }
+
+    private void writeVarLong(long value) {
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Replays the encoded samples in order
+     */
+    private final class Cursor {
+        private final long[] state = new long[skillCount];
+        private int position;
+        private long time;
+
+        boolean hasNext() {
+            return position < length;
+        }
+
+        void next() {
+            time += readVarLong() * 1000;
+            long mask = readVarLong();
+            for (int i = 0; i < skillCount; i++) {
+                if ((mask & (1L << i)) != 0) {
+                    state[i] += unzigzag(readVarLong());
+                }
+            }
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
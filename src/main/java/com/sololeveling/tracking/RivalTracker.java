@@ -0,0 +1,391 @@
+package com.sololeveling.tracking;
+
+import com.sololeveling.api.BulkFetcher;
+import com.sololeveling.api.HiscoreLayout;
+import com.sololeveling.api.HiscoreSnapshot;
+import com.sololeveling.api.HiscoreType;
+import com.sololeveling.api.HttpStatusException;
+import com.sololeveling.api.OsrsApiManager;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Skill;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Polls the hiscores of named rivals on a schedule and keeps a month of their XP history.
+ * Each rival is polled on its own jittered interval, which doubles while they aren't gaining XP and resets as
+ * soon as they are. Polls go through the bulk hiscores lookup, so they share its global rate limit with every
+ * other hiscores request.
+ */
+@Slf4j
+@Singleton
+public class RivalTracker {
+    private static final File HISTORY_FILE = new File(RuneLite.RUNELITE_DIR, "solo-leveling/rivals.dat");
+    private static final int FILE_MAGIC = 0x534C5256; // "SLRV"
+    private static final int FILE_VERSION = 1;
+
+    private static final long TICK_SECONDS = 60;
+    private static final int MAX_INTERVAL_MULTIPLIER = 8;
+    private static final double JITTER = 0.1;
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(31);
+
+    private final OsrsApiManager apiManager;
+    private final ScheduledExecutorService scheduler;
+    private final File historyFile;
+    private final LongSupplier clock;
+    private final Map<String, Rival> rivals = new LinkedHashMap<>();
+
+    private ScheduledFuture<?> ticker;
+    private long baseIntervalMillis = TimeUnit.MINUTES.toMillis(30);
+    private boolean dirty;
+
+    // The overlay asks every frame, so today's gains are kept until a sample arrives or the day changes
+    private List<RivalGain> gainsToday;
+    private long gainsTodaySince;
+
+    @Inject
+    public RivalTracker(OsrsApiManager apiManager, ScheduledExecutorService scheduler) {
+        this(apiManager, scheduler, HISTORY_FILE, System::currentTimeMillis);
+    }
+
+    RivalTracker(OsrsApiManager apiManager, ScheduledExecutorService scheduler, File historyFile, LongSupplier clock) {
+        this.apiManager = apiManager;
+        this.scheduler = scheduler;
+        this.historyFile = historyFile;
+        this.clock = clock;
+    }
+
+    /**
+     * Load saved history and start polling. Does file I/O, so call it off the client thread.
+     */
+    public void start() {
+        load();
+        synchronized (this) {
+            if (ticker == null) {
+                ticker = scheduler.scheduleWithFixedDelay(this::poll, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stop polling and save history. Does file I/O, so call it off the client thread.
+     */
+    public void stop() {
+        synchronized (this) {
+            if (ticker != null) {
+                ticker.cancel(false);
+                ticker = null;
+            }
+        }
+        save();
+    }
+
+    /**
+     * Track exactly these rivals. Rivals no longer listed are forgotten along with their history.
+     */
+    public synchronized void setRivals(Collection<String> names) {
+        Map<String, Rival> updated = new LinkedHashMap<>();
+        for (String name : names) {
+            String key = key(name);
+            if (key.isEmpty() || updated.containsKey(key)) {
+                continue;
+            }
+            Rival rival = rivals.get(key);
+            updated.put(key, rival != null ? rival : new Rival(name.trim(), new RivalHistory(HiscoreLayout.skillRowCount())));
+        }
+        if (!updated.keySet().equals(rivals.keySet())) {
+            dirty = true;
+        }
+        rivals.clear();
+        rivals.putAll(updated);
+        gainsToday = null;
+    }
+
+    /**
+     * Poll each rival at least this often while they're active
+     */
+    public synchronized void setPollInterval(int minutes) {
+        baseIntervalMillis = TimeUnit.MINUTES.toMillis(minutes);
+        for (Rival rival : rivals.values()) {
+            rival.intervalMillis = Math.min(rival.intervalMillis, baseIntervalMillis * MAX_INTERVAL_MULTIPLIER);
+        }
+    }
+
+    /**
+     * XP each rival has gained per skill since local midnight, largest gain first within each rival
+     */
+    public synchronized List<RivalGain> getGainsToday() {
+        long midnight = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (gainsToday == null || gainsTodaySince != midnight) {
+            List<RivalGain> gains = new ArrayList<>();
+            for (Rival rival : rivals.values()) {
+                gains.addAll(getGainsSince(rival, midnight));
+            }
+            gainsToday = Collections.unmodifiableList(gains);
+            gainsTodaySince = midnight;
+        }
+        return gainsToday;
+    }
+
+    /**
+     * XP a rival has gained per skill since the given time
+     *
+     * @return the gains, largest first; empty if the rival isn't tracked or has no history yet
+     */
+    public synchronized List<RivalGain> getGainsSince(String name, long timeMillis) {
+        Rival rival = rivals.get(key(name));
+        return rival != null ? getGainsSince(rival, timeMillis) : new ArrayList<>();
+    }
+
+    private List<RivalGain> getGainsSince(Rival rival, long timeMillis) {
+        List<RivalGain> gains = new ArrayList<>();
+        long[] baseline = rival.history.getAt(timeMillis);
+        if (baseline == null) {
+            return gains;
+        }
+
+        long[] latest = rival.history.getLatest();
+        for (int row = 0; row < latest.length; row++) {
+            Skill skill = HiscoreLayout.getSkill(row);
+            long gained = latest[row] - baseline[row];
+            if (skill != null && skill != Skill.OVERALL && gained > 0) {
+                gains.add(new RivalGain(rival.name, skill, gained));
+            }
+        }
+        gains.sort((a, b) -> Long.compare(b.getExperience(), a.getExperience()));
+        return gains;
+    }
+
+    /**
+     * How long until a rival is next polled, before jitter
+     *
+     * @return the interval in millis, or 0 if the rival isn't tracked
+     */
+    synchronized long getPollInterval(String name) {
+        Rival rival = rivals.get(key(name));
+        return rival != null ? rival.intervalMillis : 0;
+    }
+
+    /**
+     * Look up every rival whose next poll is due
+     *
+     * @return completes once every due rival has been recorded
+     */
+    CompletableFuture<?> poll() {
+        List<String> due = new ArrayList<>();
+        long now = clock.getAsLong();
+        synchronized (this) {
+            for (Rival rival : rivals.values()) {
+                if (!rival.polling && rival.nextPollAt <= now) {
+                    rival.polling = true;
+                    due.add(rival.name);
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return apiManager.getHiscoreSnapshotsAsync(due, HiscoreType.NORMAL, new BulkFetcher.Listener<String, HiscoreSnapshot>() {
+            @Override
+            public void onResult(String name, HiscoreSnapshot snapshot) {
+                record(name, snapshot);
+            }
+
+            @Override
+            public void onFailure(String name, Throwable error) {
+                recordFailure(name, error);
+            }
+        });
+    }
+
+    private synchronized void record(String name, HiscoreSnapshot snapshot) {
+        Rival rival = rivals.get(key(name));
+        if (rival == null) {
+            return;
+        }
+        rival.polling = false;
+
+        // A snapshot we've already seen came from the cache, so it says nothing about whether they're active
+        if (snapshot.getFetchedAt() > rival.lastFetchedAt) {
+            rival.lastFetchedAt = snapshot.getFetchedAt();
+            long[] experience = new long[HiscoreLayout.skillRowCount()];
+            for (Map.Entry<Skill, OsrsApiManager.PlayerSkillData> skill : snapshot.toSkillMap().entrySet()) {
+                experience[HiscoreLayout.getSkillRow(skill.getKey())] = skill.getValue().getExperience();
+            }
+            experience[HiscoreLayout.getSkillRow(Skill.OVERALL)] = snapshot.getExperience(Skill.OVERALL);
+
+            if (rival.history.append(snapshot.getFetchedAt(), experience)) {
+                rival.history.pruneBefore(snapshot.getFetchedAt() - RETENTION_MILLIS);
+                rival.intervalMillis = baseIntervalMillis;
+                dirty = true;
+                gainsToday = null;
+                // Listener callbacks run on the client thread, so write the file from the executor
+                scheduler.execute(this::saveIfChanged);
+            } else {
+                rival.intervalMillis = Math.min(rival.intervalMillis * 2, baseIntervalMillis * MAX_INTERVAL_MULTIPLIER);
+            }
+        }
+        scheduleNext(rival);
+    }
+
+    private synchronized void recordFailure(String name, Throwable error) {
+        Rival rival = rivals.get(key(name));
+        if (rival == null) {
+            return;
+        }
+        rival.polling = false;
+
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpStatusException && ((HttpStatusException) cause).getStatusCode() == 404) {
+            // Not on the hiscores (yet); check back rarely in case they get ranked
+            log.debug("Rival {} isn't on the hiscores", name);
+            rival.intervalMillis = baseIntervalMillis * MAX_INTERVAL_MULTIPLIER;
+        } else {
+            log.debug("Unable to poll rival {}: {}", name, cause.getMessage());
+        }
+        scheduleNext(rival);
+    }
+
+    private void scheduleNext(Rival rival) {
+        double jitter = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        rival.nextPollAt = clock.getAsLong() + (long) (rival.intervalMillis * jitter);
+    }
+
+    private void load() {
+        if (!historyFile.exists()) {
+            return;
+        }
+
+        Map<String, RivalHistory> loaded = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(historyFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readUnsignedByte() != FILE_VERSION) {
+                log.debug("Ignoring rival history with an unknown format");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                loaded.put(name, RivalHistory.readFrom(in));
+            }
+        } catch (IOException e) {
+            log.warn("Unable to load rival history", e);
+            return;
+        }
+
+        synchronized (this) {
+            for (Map.Entry<String, RivalHistory> entry : loaded.entrySet()) {
+                Rival rival = rivals.get(key(entry.getKey()));
+                if (rival != null && rival.history.getSampleCount() == 0
+                        && entry.getValue().getLatest().length == HiscoreLayout.skillRowCount()) {
+                    rival.history = entry.getValue();
+                    rival.lastFetchedAt = entry.getValue().getLatestTime();
+                }
+            }
+            gainsToday = null;
+        }
+    }
+
+    private void saveIfChanged() {
+        boolean changed;
+        synchronized (this) {
+            changed = dirty;
+        }
+        if (changed) {
+            save();
+        }
+    }
+
+    private void save() {
+        byte[] encoded;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            synchronized (this) {
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(FILE_MAGIC);
+                out.writeByte(FILE_VERSION);
+                out.writeInt(rivals.size());
+                for (Rival rival : rivals.values()) {
+                    out.writeUTF(rival.name);
+                    rival.history.writeTo(out);
+                }
+                dirty = false;
+            }
+            encoded = bytes.toByteArray();
+        } catch (IOException e) {
+            log.warn("Unable to encode rival history", e);
+            return;
+        }
+
+        File temp = new File(historyFile.getPath() + ".tmp");
+        try {
+            File directory = historyFile.getParentFile();
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+                out.write(encoded);
+            }
+            Files.move(temp.toPath(), historyFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to save rival history", e);
+        }
+    }
+
+    private static String key(String name) {
+        return name.trim().replace('_', ' ').toLowerCase(Locale.ROOT);
+    }
+
+    private final class Rival {
+        private final String name;
+        private RivalHistory history;
+        private long intervalMillis = baseIntervalMillis;
+        private long nextPollAt;
+        private long lastFetchedAt;
+        private boolean polling;
+
+        private Rival(String name, RivalHistory history) {
+            this.name = name;
+            this.history = history;
+        }
+    }
+
+    /**
+     * XP a rival gained in one skill over some period
+     */
+    @Value
+    public static class RivalGain {
+        String rival;
+        Skill skill;
+        long experience;
+    }
+}
@@ -0,0 +1,753 @@
+package com.sololeveling.tracking;
+
+import lombok.Value;
+import net.runelite.api.Skill;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Long-term XP history of every skill, for progress graphs.
+ * Points are kept at three resolutions: the last XP seen in each minute for two weeks, in each hour for a year and
+ * in each day for good. Each resolution is a list of blocks of up to 128 points, and a full block is encoded column
+ * by column: the periods and each skill's XP are stored as zigzag varints of the delta-of-delta, so a skill that
+ * isn't being trained costs a byte per point and one trained at a steady rate not much more. Points identical to
+ * the previous one are not stored at all.
+ * <p>
+ * Blocks keep their first and last period and each column's offset, so a range query binary searches to the first
+ * block it needs and decodes only the period column and the one skill asked for.
+ * <p>
+ * Not thread-safe; like the rest of {@link PlayerTracker} it is used from the client thread. Encoded blocks are
+ * never modified, so {@link #copy()} is cheap and the copy can be written out on another thread.
+ */
+public class SkillHistory {
+    private static final int BLOCK_POINTS = 128;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    // Skills with a column, in column order, and each skill's column by ordinal (-1 for none)
+    private static final Skill[] SKILLS = Arrays.stream(Skill.values())
+            .filter(skill -> skill != Skill.OVERALL)
+            .toArray(Skill[]::new);
+    private static final int[] COLUMNS = new int[Skill.values().length];
+
+    static {
+        Arrays.fill(COLUMNS, -1);
+        for (int i = 0; i < SKILLS.length; i++) {
+            COLUMNS[SKILLS[i].ordinal()] = i;
+        }
+    }
+
+    public enum Resolution {
+        MINUTE(60_000L, 14 * DAY_MILLIS),
+        HOUR(3_600_000L, 366 * DAY_MILLIS),
+        DAY(DAY_MILLIS, Long.MAX_VALUE);
+
+        private final long periodMillis;
+        private final long retentionMillis;
+
+        Resolution(long periodMillis, long retentionMillis) {
+            this.periodMillis = periodMillis;
+            this.retentionMillis = retentionMillis;
+        }
+
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+
+        /**
+         * How far back points at this resolution are kept
+         */
+        public long getRetentionMillis() {
+            return retentionMillis;
+        }
+    }
+
+    /**
+     * XP of one skill over time, oldest first
+     */
+    @Value
+    public static class Range {
+        Resolution resolution;
+        // Start of each point's period, in epoch millis
+        long[] times;
+        long[] experience;
+
+        public int size() {
+            return times.length;
+        }
+    }
+
+    /**
+     * Receives stored XP changes, oldest first
+     */
+    public interface ChangeVisitor {
+        void visit(long timeMillis, Skill skill, long experience) throws IOException;
+    }
+
+    private final Series[] series = new Series[Resolution.values().length];
+
+    // XP per column as last recorded, and whether every column has been recorded yet
+    private final long[] latest = new long[SKILLS.length];
+    private final boolean[] known = new boolean[SKILLS.length];
+    private int knownCount;
+
+    public SkillHistory() {
+        for (Resolution resolution : Resolution.values()) {
+            series[resolution.ordinal()] = new Series(resolution);
+        }
+    }
+
+    /**
+     * Record a skill's XP. Nothing is stored until every skill has been recorded once, so no point ever has
+     * a skill missing.
+     */
+    public void record(Skill skill, long experience, long now) {
+        int column = COLUMNS[skill.ordinal()];
+        if (column < 0) {
+            return;
+        }
+        if (!known[column]) {
+            known[column] = true;
+            knownCount++;
+        }
+        latest[column] = experience;
+        if (knownCount < SKILLS.length) {
+            return;
+        }
+
+        for (Series resolution : series) {
+            resolution.append(Math.floorDiv(now, resolution.resolution.periodMillis), latest);
+        }
+    }
+
+    /**
+     * A skill's XP at one resolution for the periods overlapping the given times
+     */
+    public Range getRange(Skill skill, Resolution resolution, long fromMillis, long toMillis) {
+        int column = COLUMNS[skill.ordinal()];
+        if (column < 0) {
+            return new Range(resolution, new long[0], new long[0]);
+        }
+        return series[resolution.ordinal()].query(column, Math.floorDiv(fromMillis, resolution.periodMillis),
+                Math.floorDiv(toMillis, resolution.periodMillis));
+    }
+
+    /**
+     * A skill's XP between the given times at the finest resolution that still covers them in at most
+     * {@code maxPoints} points, falling back to days
+     */
+    public Range getRange(Skill skill, long fromMillis, long toMillis, int maxPoints) {
+        long now = System.currentTimeMillis();
+        for (Resolution resolution : Resolution.values()) {
+            if (now - fromMillis <= resolution.retentionMillis
+                    && (toMillis - fromMillis) / resolution.periodMillis < maxPoints) {
+                return getRange(skill, resolution, fromMillis, toMillis);
+            }
+        }
+        return getRange(skill, Resolution.DAY, fromMillis, toMillis);
+    }
+
+    /**
+     * Visit every change stored at a resolution, decoding one block at a time: every skill's XP at the first
+     * point, then at each later point the skills whose XP differs from the point before
+     */
+    public void forEachChange(Resolution resolution, ChangeVisitor visitor) throws IOException {
+        series[resolution.ordinal()].forEachChange(visitor);
+    }
+
+    /**
+     * Add a point at one resolution directly, such as when importing. Points must be added in time order, and
+     * the last one added becomes the latest XP.
+     *
+     * @param experience XP indexed by skill ordinal
+     */
+    public void appendPoint(Resolution resolution, long timeMillis, long[] experience) {
+        for (int column = 0; column < SKILLS.length; column++) {
+            latest[column] = experience[SKILLS[column].ordinal()];
+        }
+        Arrays.fill(known, true);
+        knownCount = SKILLS.length;
+        series[resolution.ordinal()].append(Math.floorDiv(timeMillis, resolution.periodMillis), latest);
+    }
+
+    /**
+     * Points stored at a resolution
+     */
+    public int getPointCount(Resolution resolution) {
+        Series points = series[resolution.ordinal()];
+        int count = points.count;
+        for (Block block : points.blocks) {
+            count += block.count;
+        }
+        return count;
+    }
+
+    /**
+     * Bytes of encoded blocks, not counting the points still being filled in
+     */
+    public int getEncodedSize() {
+        int size = 0;
+        for (Series points : series) {
+            for (Block block : points.blocks) {
+                size += block.data.length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Copy to hand to another thread. Encoded blocks are shared, only the points still being filled in are copied.
+     */
+    public SkillHistory copy() {
+        SkillHistory copy = new SkillHistory();
+        for (int r = 0; r < series.length; r++) {
+            series[r].copyInto(copy.series[r]);
+        }
+        System.arraycopy(latest, 0, copy.latest, 0, latest.length);
+        System.arraycopy(known, 0, copy.known, 0, known.length);
+        copy.knownCount = knownCount;
+        return copy;
+    }
+
+    /**
+     * Put a saved history in front of what has been recorded since. Points recorded here replace saved points
+     * for the same period, and skills not recorded yet continue from their saved XP.
+     */
+    public void restore(SkillHistory saved) {
+        for (int r = 0; r < series.length; r++) {
+            saved.series[r].appendAll(series[r]);
+            series[r] = saved.series[r];
+        }
+        for (int column = 0; column < SKILLS.length; column++) {
+            if (!known[column] && saved.known[column]) {
+                known[column] = true;
+                knownCount++;
+                latest[column] = saved.latest[column];
+            }
+        }
+    }
+
+    /**
+     * Interleave another history's points with this one's, such as an imported history that overlaps what is
+     * recorded here. Where both have a point for the same period, this history's point is kept.
+     */
+    public void merge(SkillHistory other) {
+        long[] experience = new long[SKILLS.length];
+        for (int r = 0; r < series.length; r++) {
+            Series merged = new Series(series[r].resolution);
+            PointCursor mine = new PointCursor(series[r]);
+            PointCursor theirs = new PointCursor(other.series[r]);
+            while (mine.hasPoint() || theirs.hasPoint()) {
+                PointCursor next;
+                if (!theirs.hasPoint() || (mine.hasPoint() && mine.period() <= theirs.period())) {
+                    if (theirs.hasPoint() && theirs.period() == mine.period()) {
+                        theirs.advance();
+                    }
+                    next = mine;
+                } else {
+                    next = theirs;
+                }
+                merged.append(next.period(), next.values(experience));
+                next.advance();
+            }
+            series[r] = merged;
+        }
+        for (int column = 0; column < SKILLS.length; column++) {
+            if (!known[column] && other.known[column]) {
+                known[column] = true;
+                knownCount++;
+                latest[column] = other.latest[column];
+            }
+        }
+    }
+
+    public void clear() {
+        for (Resolution resolution : Resolution.values()) {
+            series[resolution.ordinal()] = new Series(resolution);
+        }
+        Arrays.fill(latest, 0);
+        Arrays.fill(known, false);
+        knownCount = 0;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(SKILLS.length);
+        for (Skill skill : SKILLS) {
+            out.writeUTF(skill.name());
+        }
+
+        out.writeByte(series.length);
+        for (Series points : series) {
+            List<Block> blocks = new ArrayList<>(points.blocks);
+            if (points.count > 0) {
+                blocks.add(Block.encode(points.periods, points.values, points.count));
+            }
+            out.writeInt(blocks.size());
+            for (Block block : blocks) {
+                block.writeTo(out);
+            }
+        }
+    }
+
+    public static SkillHistory readFrom(DataInput in) throws IOException {
+        // Map the saved columns onto this client's skills, which may have gained or lost one since
+        int savedColumns = in.readUnsignedByte();
+        int[] mapping = new int[savedColumns];
+        boolean identity = savedColumns == SKILLS.length;
+        for (int i = 0; i < savedColumns; i++) {
+            mapping[i] = column(in.readUTF());
+            identity &= mapping[i] == i;
+        }
+
+        SkillHistory history = new SkillHistory();
+        int savedSeries = in.readUnsignedByte();
+        for (int r = 0; r < savedSeries; r++) {
+            int blocks = in.readInt();
+            Series points = r < history.series.length ? history.series[r] : null;
+            for (int i = 0; i < blocks; i++) {
+                Block block = Block.readFrom(in, savedColumns);
+                if (points != null) {
+                    points.blocks.add(identity ? block : block.remap(mapping, SKILLS.length));
+                }
+            }
+            if (points != null) {
+                points.reopenLastBlock();
+            }
+        }
+
+        // Every resolution ends with the same, most recent point
+        Series days = history.series[Resolution.DAY.ordinal()];
+        if (days.count > 0) {
+            for (int column = 0; column < SKILLS.length; column++) {
+                history.latest[column] = days.values[column][days.count - 1];
+            }
+            for (int i = 0; i < savedColumns; i++) {
+                if (mapping[i] >= 0) {
+                    history.known[mapping[i]] = true;
+                    history.knownCount++;
+                }
+            }
+        }
+        return history;
+    }
+
+    private static int column(String name) {
+        try {
+            return COLUMNS[Skill.valueOf(name).ordinal()];
+        } catch (IllegalArgumentException e) {
+            // A skill this client doesn't know about
+            return -1;
+        }
+    }
+
+    /**
+     * Points at one resolution: encoded blocks, then the block being filled in, kept column by column
+     */
+    private static final class Series {
+        private final Resolution resolution;
+        private final List<Block> blocks = new ArrayList<>();
+        private final long[] periods = new long[BLOCK_POINTS];
+        private final long[][] values = new long[SKILLS.length][BLOCK_POINTS];
+        private int count;
+
+        Series(Resolution resolution) {
+            this.resolution = resolution;
+        }
+
+        void append(long period, long[] experience) {
+            if (count > 0) {
+                long last = periods[count - 1];
+                if (period < last) {
+                    // The clock went backwards; keep the history in order
+                    return;
+                }
+                if (period == last) {
+                    // A later value for the same period replaces the earlier one
+                    for (int column = 0; column < experience.length; column++) {
+                        values[column][count - 1] = experience[column];
+                    }
+                    return;
+                }
+                if (sameAsLast(experience)) {
+                    return;
+                }
+            }
+
+            if (count == BLOCK_POINTS) {
+                seal(period);
+            }
+            periods[count] = period;
+            for (int column = 0; column < experience.length; column++) {
+                values[column][count] = experience[column];
+            }
+            count++;
+        }
+
+        private boolean sameAsLast(long[] experience) {
+            for (int column = 0; column < experience.length; column++) {
+                if (values[column][count - 1] != experience[column]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Encode the full open block and drop blocks that have aged out as of the given period
+         */
+        private void seal(long period) {
+            blocks.add(Block.encode(periods, values, count));
+            count = 0;
+
+            if (resolution.retentionMillis != Long.MAX_VALUE) {
+                long oldest = period - resolution.retentionMillis / resolution.periodMillis;
+                int expired = 0;
+                while (expired < blocks.size() && blocks.get(expired).lastPeriod < oldest) {
+                    expired++;
+                }
+                blocks.subList(0, expired).clear();
+            }
+        }
+
+        /**
+         * Decode the last block back into the open one, so the points after a reload continue filling it
+         */
+        void reopenLastBlock() {
+            if (blocks.isEmpty()) {
+                return;
+            }
+            Block last = blocks.remove(blocks.size() - 1);
+            last.decode(periods, values);
+            count = last.count;
+        }
+
+        Range query(int column, long fromPeriod, long toPeriod) {
+            long[] times = new long[16];
+            long[] experience = new long[16];
+            int size = 0;
+
+            // Blocks are in period order, so find the first one that ends inside the range
+            int low = 0;
+            int high = blocks.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (blocks.get(mid).lastPeriod < fromPeriod) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            long[] blockPeriods = new long[BLOCK_POINTS];
+            long[] blockValues = new long[BLOCK_POINTS];
+            for (int b = low; b <= blocks.size(); b++) {
+                int points;
+                long[] pointPeriods;
+                long[] pointValues;
+                if (b < blocks.size()) {
+                    Block block = blocks.get(b);
+                    if (block.firstPeriod > toPeriod) {
+                        break;
+                    }
+                    block.decodeColumn(0, blockPeriods);
+                    block.decodeColumn(column + 1, blockValues);
+                    points = block.count;
+                    pointPeriods = blockPeriods;
+                    pointValues = blockValues;
+                } else {
+                    points = count;
+                    pointPeriods = periods;
+                    pointValues = values[column];
+                }
+
+                for (int i = 0; i < points; i++) {
+                    long period = pointPeriods[i];
+                    if (period < fromPeriod || period > toPeriod) {
+                        continue;
+                    }
+                    if (size == times.length) {
+                        times = Arrays.copyOf(times, size * 2);
+                        experience = Arrays.copyOf(experience, size * 2);
+                    }
+                    times[size] = period * resolution.periodMillis;
+                    experience[size] = pointValues[i];
+                    size++;
+                }
+            }
+            return new Range(resolution, Arrays.copyOf(times, size), Arrays.copyOf(experience, size));
+        }
+
+        void copyInto(Series copy) {
+            copy.blocks.addAll(blocks);
+            System.arraycopy(periods, 0, copy.periods, 0, count);
+            for (int column = 0; column < values.length; column++) {
+                System.arraycopy(values[column], 0, copy.values[column], 0, count);
+            }
+            copy.count = count;
+        }
+
+        /**
+         * Append every point of another series, oldest first
+         */
+        void appendAll(Series other) {
+            long[] blockPeriods = new long[BLOCK_POINTS];
+            long[][] blockValues = new long[SKILLS.length][BLOCK_POINTS];
+            for (Block block : other.blocks) {
+                block.decode(blockPeriods, blockValues);
+                appendPoints(blockPeriods, blockValues, block.count);
+            }
+            appendPoints(other.periods, other.values, other.count);
+        }
+
+        void forEachChange(ChangeVisitor visitor) throws IOException {
+            long[] blockPeriods = new long[BLOCK_POINTS];
+            long[][] blockValues = new long[SKILLS.length][BLOCK_POINTS];
+            long[] previous = new long[SKILLS.length];
+            boolean first = true;
+            for (Block block : blocks) {
+                block.decode(blockPeriods, blockValues);
+                visitChanges(blockPeriods, blockValues, block.count, previous, first, visitor);
+                first = false;
+            }
+            visitChanges(periods, values, count, previous, first, visitor);
+        }
+
+        private void visitChanges(long[] pointPeriods, long[][] pointValues, int points, long[] previous,
+                boolean first, ChangeVisitor visitor) throws IOException {
+            for (int i = 0; i < points; i++) {
+                long time = pointPeriods[i] * resolution.periodMillis;
+                for (int column = 0; column < SKILLS.length; column++) {
+                    long experience = pointValues[column][i];
+                    if ((first && i == 0) || experience != previous[column]) {
+                        visitor.visit(time, SKILLS[column], experience);
+                        previous[column] = experience;
+                    }
+                }
+            }
+        }
+
+        private void appendPoints(long[] pointPeriods, long[][] pointValues, int points) {
+            long[] experience = new long[SKILLS.length];
+            for (int i = 0; i < points; i++) {
+                for (int column = 0; column < experience.length; column++) {
+                    experience[column] = pointValues[column][i];
+                }
+                append(pointPeriods[i], experience);
+            }
+        }
+    }
+
+    /**
+     * Walks a series' points oldest first, decoding one block at a time
+     */
+    private static final class PointCursor {
+        private final Series points;
+        private final long[] blockPeriods = new long[BLOCK_POINTS];
+        private final long[][] blockValues = new long[SKILLS.length][BLOCK_POINTS];
+        // Index of the block being walked; the open block comes after the encoded ones
+        private int block = -1;
+        private long[] pointPeriods;
+        private long[][] pointValues;
+        private int size;
+        private int index;
+
+        PointCursor(Series points) {
+            this.points = points;
+            nextBlock();
+        }
+
+        boolean hasPoint() {
+            return index < size;
+        }
+
+        long period() {
+            return pointPeriods[index];
+        }
+
+        long[] values(long[] experience) {
+            for (int column = 0; column < experience.length; column++) {
+                experience[column] = pointValues[column][index];
+            }
+            return experience;
+        }
+
+        void advance() {
+            index++;
+            if (index == size) {
+                nextBlock();
+            }
+        }
+
+        private void nextBlock() {
+            while (block < points.blocks.size()) {
+                block++;
+                index = 0;
+                if (block < points.blocks.size()) {
+                    Block next = points.blocks.get(block);
+                    next.decode(blockPeriods, blockValues);
+                    pointPeriods = blockPeriods;
+                    pointValues = blockValues;
+                    size = next.count;
+                } else {
+                    pointPeriods = points.periods;
+                    pointValues = points.values;
+                    size = points.count;
+                }
+                if (size > 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Up to {@link #BLOCK_POINTS} points, encoded column by column. Column 0 holds the periods, column
+     * {@code c + 1} the XP of skill column {@code c}.
+     */
+    private static final class Block {
+        private final int count;
+        private final long firstPeriod;
+        private final long lastPeriod;
+        private final byte[] data;
+        // Start of each column in data, plus the end of the last
+        private final int[] offsets;
+
+        private Block(int count, long firstPeriod, long lastPeriod, byte[] data, int[] offsets) {
+            this.count = count;
+            this.firstPeriod = firstPeriod;
+            this.lastPeriod = lastPeriod;
+            this.data = data;
+            this.offsets = offsets;
+        }
+
+        static Block encode(long[] periods, long[][] values, int count) {
+            Encoder encoder = new Encoder();
+            int[] offsets = new int[values.length + 2];
+            encoder.writeColumn(periods, count);
+            for (int column = 0; column < values.length; column++) {
+                offsets[column + 1] = encoder.length;
+                encoder.writeColumn(values[column], count);
+            }
+            offsets[values.length + 1] = encoder.length;
+            return new Block(count, periods[0], periods[count - 1], Arrays.copyOf(encoder.data, encoder.length),
+                    offsets);
+        }
+
+        void decodeColumn(int column, long[] into) {
+            int position = offsets[column];
+            long previous = 0;
+            long previousDelta = 0;
+            for (int i = 0; i < count; i++) {
+                long value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    value |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                if (i == 0) {
+                    previous = unzigzag(value);
+                } else {
+                    previousDelta += unzigzag(value);
+                    previous += previousDelta;
+                }
+                into[i] = previous;
+            }
+        }
+
+        void decode(long[] periods, long[][] values) {
+            decodeColumn(0, periods);
+            for (int column = 0; column < values.length; column++) {
+                decodeColumn(column + 1, values[column]);
+            }
+        }
+
+        /**
+         * Re-encode with the saved columns moved to the given columns; columns with no saved data are 0
+         */
+        Block remap(int[] mapping, int columns) {
+            long[] periods = new long[count];
+            long[][] saved = new long[mapping.length][count];
+            long[][] values = new long[columns][count];
+            decodeColumn(0, periods);
+            for (int i = 0; i < mapping.length; i++) {
+                decodeColumn(i + 1, saved[i]);
+                if (mapping[i] >= 0) {
+                    values[mapping[i]] = saved[i];
+                }
+            }
+            return encode(periods, values, count);
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeShort(count);
+            out.writeLong(firstPeriod);
+            out.writeLong(lastPeriod);
+            for (int column = 1; column < offsets.length; column++) {
+                out.writeShort(offsets[column] - offsets[column - 1]);
+            }
+            out.write(data);
+        }
+
+        static Block readFrom(DataInput in, int columns) throws IOException {
+            int count = in.readUnsignedShort();
+            long firstPeriod = in.readLong();
+            long lastPeriod = in.readLong();
+            int[] offsets = new int[columns + 2];
+            for (int column = 1; column < offsets.length; column++) {
+                offsets[column] = offsets[column - 1] + in.readUnsignedShort();
+            }
+            byte[] data = new byte[offsets[columns + 1]];
+            in.readFully(data);
+            return new Block(count, firstPeriod, lastPeriod, data, offsets);
+        }
+    }
+
+    private static final class Encoder {
+        private byte[] data = new byte[256];
+        private int length;
+
+        /**
+         * The first value as is, then the second's delta, then each delta's change from the one before
+         */
+        void writeColumn(long[] column, int count) {
+            long previous = 0;
+            long previousDelta = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == 0) {
+                    writeVarLong(zigzag(column[0]));
+                } else {
+                    long delta = column[i] - previous;
+                    writeVarLong(zigzag(delta - previousDelta));
+                    previousDelta = delta;
+                }
+                previous = column[i];
+            }
+        }
+
+        private void writeVarLong(long value) {
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,130 @@
+package com.sololeveling.tracking;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Keeps one {@link SkillHistory} file per account, read and written on the executor. Files are replaced the same
+ * way as {@link ProfileStore}'s: written to a unique temp file, then moved into place atomically.
+ */
+@Slf4j
+@Singleton
+public class SkillHistoryStore {
+    private static final File HISTORY_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "solo-leveling/history");
+    private static final int FILE_MAGIC = 0x534C5348; // "SLSH"
+    private static final int FILE_VERSION = 1;
+
+    private final ScheduledExecutorService executor;
+    private final File directory;
+    // When the newest history written for each account was taken, so a save queued behind a newer one is dropped
+    private final Map<Long, Long> lastSavedAt = new HashMap<>();
+
+    @Inject
+    public SkillHistoryStore(ScheduledExecutorService executor) {
+        this(executor, HISTORY_DIRECTORY);
+    }
+
+    SkillHistoryStore(ScheduledExecutorService executor, File directory) {
+        this.executor = executor;
+        this.directory = directory;
+    }
+
+    /**
+     * Read an account's history in the background
+     *
+     * @param callback called on the executor with the history, or with null if the account has no readable history
+     */
+    public void load(long accountHash, Consumer<SkillHistory> callback) {
+        executor.execute(() -> callback.accept(read(accountHash)));
+    }
+
+    /**
+     * Write a history in the background
+     *
+     * @param history a {@link SkillHistory#copy()} the caller won't touch again
+     */
+    public void save(long accountHash, SkillHistory history) {
+        long savedAt = System.currentTimeMillis();
+        executor.execute(() -> write(accountHash, savedAt, history));
+    }
+
+    SkillHistory read(long accountHash) {
+        File file = file(accountHash);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readUnsignedByte() != FILE_VERSION) {
+                log.debug("Ignoring skill history with an unknown format");
+                return null;
+            }
+            if (in.readLong() != accountHash) {
+                log.debug("Ignoring skill history saved for another account");
+                return null;
+            }
+            return SkillHistory.readFrom(in);
+        } catch (IOException e) {
+            log.warn("Unable to load skill history", e);
+            return null;
+        }
+    }
+
+    synchronized void write(long accountHash, long savedAt, SkillHistory history) {
+        Long last = lastSavedAt.get(accountHash);
+        if (last != null && last > savedAt) {
+            return;
+        }
+
+        byte[] encoded;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(FILE_MAGIC);
+            out.writeByte(FILE_VERSION);
+            out.writeLong(accountHash);
+            history.writeTo(out);
+            encoded = bytes.toByteArray();
+        } catch (IOException e) {
+            log.warn("Unable to encode skill history", e);
+            return;
+        }
+
+        File temp = null;
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            File file = file(accountHash);
+            temp = File.createTempFile(file.getName(), ".tmp", directory);
+            Files.write(temp.toPath(), encoded);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSavedAt.put(accountHash, savedAt);
+        } catch (IOException e) {
+            log.warn("Unable to save skill history", e);
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private File file(long accountHash) {
+        return new File(directory, Long.toHexString(accountHash) + ".dat");
+    }
+}
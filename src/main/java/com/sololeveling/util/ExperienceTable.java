@@ -0,0 +1,78 @@
+package com.sololeveling.util;
+
+/**
+ * The OSRS experience curve, precomputed once for levels 1 to 126 (99 real levels plus virtual ones).
+ * Converting XP to a level is a fixed seven-step binary search over the table. Each step is arithmetic rather
+ * than a branch, so the cost doesn't depend on the XP and there are no mispredictions to pay for.
+ */
+public final class ExperienceTable {
+    public static final int MAX_REAL_LEVEL = 99;
+    public static final int MAX_VIRTUAL_LEVEL = 126;
+    public static final int MAX_EXPERIENCE = 200_000_000;
+
+    // XP for level i + 1, padded to a power of two with values no XP reaches so the search never runs off the end
+    private static final int SEARCH_SIZE = 128;
+    private static final int[] XP_FOR_LEVEL = new int[SEARCH_SIZE];
+
+    static {
+        int points = 0;
+        for (int level = 1; level < MAX_VIRTUAL_LEVEL; level++) {
+            points += (int) Math.floor(level + 300 * Math.pow(2, level / 7.0));
+            XP_FOR_LEVEL[level] = points / 4;
+        }
+        for (int i = MAX_VIRTUAL_LEVEL; i < SEARCH_SIZE; i++) {
+            XP_FOR_LEVEL[i] = Integer.MAX_VALUE;
+        }
+    }
+
+    private ExperienceTable() {
+    }
+
+    /**
+     * XP needed to reach a level; levels outside 1 to 126 are clamped
+     */
+    public static int getXpForLevel(int level) {
+        return XP_FOR_LEVEL[Math.max(1, Math.min(MAX_VIRTUAL_LEVEL, level)) - 1];
+    }
+
+    /**
+     * Level for an amount of XP, including virtual levels above 99
+     */
+    public static int getLevelForXp(long xp) {
+        int level = 0;
+        for (int step = SEARCH_SIZE / 2; step > 0; step >>>= 1) {
+            // All ones when the table entry is at most xp, so the step is taken; zero otherwise
+            long taken = (XP_FOR_LEVEL[level + step - 1] - xp - 1) >> 63;
+            level += step & (int) taken;
+        }
+        // Only XP far beyond the 200m cap gets past the padding
+        return Math.max(1, Math.min(MAX_VIRTUAL_LEVEL, level));
+    }
+
+    /**
+     * Level for an amount of XP, capped at 99 as the client and hiscores report it
+     */
+    public static int getRealLevelForXp(long xp) {
+        return Math.min(MAX_REAL_LEVEL, getLevelForXp(xp));
+    }
+
+    /**
+     * XP still needed for the next level, or 0 at level 126
+     */
+    public static int getXpToNextLevel(long xp) {
+        int level = getLevelForXp(xp);
+        return level >= MAX_VIRTUAL_LEVEL ? 0 : (int) (XP_FOR_LEVEL[level] - Math.max(0, xp));
+    }
+
+    /**
+     * How far through the current level the XP is, from 0 inclusive to 1 exclusive; 1 at level 126
+     */
+    public static double getLevelProgress(long xp) {
+        int level = getLevelForXp(xp);
+        if (level >= MAX_VIRTUAL_LEVEL) {
+            return 1;
+        }
+        int start = XP_FOR_LEVEL[level - 1];
+        return (Math.max(0, xp) - start) / (double) (XP_FOR_LEVEL[level] - start);
+    }
+}
@@ -0,0 +1,166 @@
+package com.sololeveling.api;
+
+import com.google.gson.Gson;
+import okhttp3.OkHttpClient;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load benchmark for the API layer against {@link StubOsrsServer}.
+ * Each client thread repeatedly runs a hiscores lookup, a wiki entity lookup or a wiki search for a name
+ * nobody has looked up before, so every operation goes through the resilience layer to the stub. Reports
+ * throughput and latency percentiles per operation.
+ * <p>
+ * Run the main method directly; arguments are clients (default 16), duration in seconds (default 10),
+ * server latency in ms (default 20), error rate (default 0.01) and extract size in bytes (default 500).
+ * OkHttp allows five concurrent requests per host by default, which bounds throughput the same way it does
+ * in the client.
+ */
+public class ApiLoadBenchmark {
+    private static final String[] OPERATIONS = {"hiscores", "wiki entity", "wiki search"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int durationSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int latencyMillis = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        double errorRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.01;
+        int extractBytes = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        OkHttpClient okHttpClient = new OkHttpClient();
+
+        try (StubOsrsServer server = StubOsrsServer.start()) {
+            server.setLatency(latencyMillis, latencyMillis / 2);
+            server.setErrorRate(errorRate);
+            server.setExtractBytes(extractBytes);
+            OsrsApiManager manager = new OsrsApiManager(okHttpClient, new Gson(), null, scheduler, server.getEndpoints());
+
+            // Warm up connections, the JIT and the latency histograms used for hedging
+            runLoad(manager, clients, TimeUnit.SECONDS.toNanos(2), "warmup");
+            server.resetCounts();
+
+            long start = System.nanoTime();
+            Recorder[] recorders = runLoad(manager, clients, TimeUnit.SECONDS.toNanos(durationSeconds), "run");
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d clients, %ds, %dms latency, %.1f%% errors, %d byte extracts%n",
+                    clients, durationSeconds, latencyMillis, errorRate * 100, extractBytes);
+            System.out.printf("%-12s %9s %9s %9s %9s %9s %8s%n", "operation", "ops", "ops/s", "p50 ms", "p99 ms", "max ms", "failed");
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                long[] latencies = Recorder.sortedLatencies(recorders, op);
+                System.out.printf("%-12s %9d %9.1f %9.1f %9.1f %9.1f %8d%n", OPERATIONS[op], latencies.length,
+                        latencies.length / seconds, percentile(latencies, 0.5), percentile(latencies, 0.99),
+                        latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0, Recorder.failures(recorders, op));
+            }
+            System.out.printf("server: %d requests, %d injected errors%n", server.getRequestCount(), server.getErrorCount());
+            for (ResilientEndpoint.Stats stats : manager.getEndpointStats()) {
+                System.out.println(stats);
+            }
+        } finally {
+            scheduler.shutdownNow();
+            okHttpClient.dispatcher().executorService().shutdown();
+        }
+    }
+
+    private static Recorder[] runLoad(OsrsApiManager manager, int clients, long durationNanos, String phase)
+            throws InterruptedException {
+        Recorder[] recorders = new Recorder[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        long deadline = System.nanoTime() + durationNanos;
+
+        for (int c = 0; c < clients; c++) {
+            Recorder recorder = new Recorder();
+            recorders[c] = recorder;
+            String prefix = phase + c + "_";
+            Thread client = new Thread(() -> {
+                try {
+                    for (int i = 0; System.nanoTime() < deadline; i++) {
+                        int op = ThreadLocalRandom.current().nextInt(OPERATIONS.length);
+                        String name = prefix + i;
+                        long begin = System.nanoTime();
+                        try {
+                            run(manager, op, name);
+                            recorder.record(op, System.nanoTime() - begin);
+                        } catch (CompletionException e) {
+                            recorder.failures[op]++;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            client.start();
+        }
+
+        done.await();
+        return recorders;
+    }
+
+    private static void run(OsrsApiManager manager, int op, String name) {
+        switch (op) {
+            case 0:
+                manager.getHiscoreSnapshotAsync(name, HiscoreType.NORMAL).join();
+                break;
+            case 1:
+                manager.getWikiEntityInfoAsync(name).join();
+                break;
+            default:
+                manager.searchWikiAsync(name).join();
+                break;
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Per-client latencies, one growable array per operation so recording never contends
+     */
+    private static final class Recorder {
+        private final long[][] latencies = new long[OPERATIONS.length][1024];
+        private final int[] counts = new int[OPERATIONS.length];
+        private final int[] failures = new int[OPERATIONS.length];
+
+        void record(int op, long nanos) {
+            if (counts[op] == latencies[op].length) {
+                latencies[op] = Arrays.copyOf(latencies[op], counts[op] * 2);
+            }
+            latencies[op][counts[op]++] = nanos;
+        }
+
+        static long[] sortedLatencies(Recorder[] recorders, int op) {
+            int total = 0;
+            for (Recorder recorder : recorders) {
+                total += recorder.counts[op];
+            }
+
+            long[] merged = new long[total];
+            int position = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies[op], 0, merged, position, recorder.counts[op]);
+                position += recorder.counts[op];
+            }
+            Arrays.sort(merged);
+            return merged;
+        }
+
+        static int failures(Recorder[] recorders, int op) {
+            int total = 0;
+            for (Recorder recorder : recorders) {
+                total += recorder.failures[op];
+            }
+            return total;
+        }
+    }
+}
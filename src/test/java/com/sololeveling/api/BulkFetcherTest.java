@@ -0,0 +1,181 @@
+package com.sololeveling.api;
+
+import okhttp3.HttpUrl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bulk hiscores lookups against {@link StubOsrsServer}: the rate cap, the concurrency bound, and which failures
+ * are retried
+ */
+public class BulkFetcherTest {
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<Long> launches = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+    private final BulkFetcher.Listener<String, HiscoreSnapshot> listener = new BulkFetcher.Listener<String, HiscoreSnapshot>() {
+        @Override
+        public void onResult(String key, HiscoreSnapshot value) {
+        }
+
+        @Override
+        public void onFailure(String key, Throwable error) {
+            failures.put(key, error);
+        }
+    };
+
+    private ScheduledExecutorService scheduler;
+    private StubOsrsServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        scheduler = Executors.newScheduledThreadPool(2);
+        server = StubOsrsServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void requestsStayUnderTheRateLimit() {
+        int rate = 20;
+        int burst = 2;
+        BulkFetcher fetcher = new BulkFetcher(scheduler, new TokenBucket(rate, burst), new Backoff(10, 50), 8, 1);
+
+        long start = System.nanoTime();
+        Map<String, HiscoreSnapshot> results = fetcher.fetchAll(players(12), this::fetch, listener).join();
+
+        assertEquals(12, results.size());
+        assertEquals(12, server.getRequestCount());
+        List<Long> sorted = new ArrayList<>(launches);
+        Collections.sort(sorted);
+        for (int i = burst; i < sorted.size(); i++) {
+            // After the burst, the i-th request can't start before the bucket has refilled for it
+            long earliest = TimeUnit.SECONDS.toNanos(i - burst + 1) / rate;
+            assertTrue("request " + i + " started too early", sorted.get(i) - start >= earliest);
+        }
+    }
+
+    @Test
+    public void concurrencyIsBounded() {
+        server.setLatency(30, 10);
+        BulkFetcher fetcher = new BulkFetcher(scheduler, new TokenBucket(1000, 100), new Backoff(10, 50), 3, 1);
+
+        Map<String, HiscoreSnapshot> results = fetcher.fetchAll(players(12), this::fetch, listener).join();
+
+        assertEquals(12, results.size());
+        assertTrue("at most 3 lookups at once, saw " + maxInFlight.get(), maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void transientFailuresAreRetried() {
+        server.failNext(2);
+        BulkFetcher fetcher = new BulkFetcher(scheduler, new TokenBucket(1000, 100), new Backoff(10, 50), 1, 3);
+
+        Map<String, HiscoreSnapshot> results = fetcher.fetchAll(players(3), this::fetch, listener).join();
+
+        assertEquals(3, results.size());
+        assertTrue(failures.isEmpty());
+        assertEquals(2, server.getErrorCount());
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    public void retriesWaitOutTheBackoff() {
+        server.failNext(1);
+        BulkFetcher fetcher = new BulkFetcher(scheduler, new TokenBucket(1000, 100), new Backoff(200, 200), 1, 2);
+
+        fetcher.fetchAll(players(1), this::fetch, listener).join();
+
+        // The backoff draws between half and all of its cap
+        assertEquals(2, launches.size());
+        long waited = launches.get(1) - launches.get(0);
+        assertTrue("retried after " + waited + "ns", waited >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void givesUpAfterTheLastAttempt() {
+        server.failNext(10);
+        BulkFetcher fetcher = new BulkFetcher(scheduler, new TokenBucket(1000, 100), new Backoff(10, 50), 1, 3);
+
+        Map<String, HiscoreSnapshot> results = fetcher.fetchAll(players(1), this::fetch, listener).join();
+
+        assertTrue(results.isEmpty());
+        assertEquals(3, server.getRequestCount());
+        assertEquals(503, ((HttpStatusException) failures.get("player0")).getStatusCode());
+    }
+
+    @Test
+    public void unrankedPlayersAreNotRetried() {
+        BulkFetcher fetcher = new BulkFetcher(scheduler, new TokenBucket(1000, 100), new Backoff(10, 50), 2, 3);
+
+        Map<String, HiscoreSnapshot> results = fetcher.fetchAll(List.of("missing1", "player1"), this::fetch, listener)
+                .join();
+
+        assertEquals(Collections.singleton("player1"), results.keySet());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(404, ((HttpStatusException) failures.get("missing1")).getStatusCode());
+    }
+
+    private static List<String> players(int count) {
+        List<String> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            players.add("player" + i);
+        }
+        return players;
+    }
+
+    /**
+     * Look a player up on the stub, failing with the same exceptions the plugin's own requests do
+     */
+    private CompletableFuture<HiscoreSnapshot> fetch(String player) {
+        launches.add(System.nanoTime());
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+        URI uri = server.getHiscoresUri(player);
+        CompletableFuture<HiscoreSnapshot> future = new CompletableFuture<>();
+        httpClient.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofInputStream())
+                .whenComplete((response, ex) -> {
+                    inFlight.decrementAndGet();
+                    if (ex != null) {
+                        future.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                        return;
+                    }
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() != 200) {
+                            throw new HttpStatusException(HttpUrl.get(uri.toString()), response.statusCode());
+                        }
+                        future.complete(HiscoresParser.parse(body, System.currentTimeMillis()));
+                    } catch (IOException e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+        return future;
+    }
+}
@@ -0,0 +1,125 @@
+package com.sololeveling.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private long now;
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, 30, TimeUnit.SECONDS, () -> now);
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        fail(2);
+        breaker.onSuccess(acquire());
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void rejectsWhileOpen() {
+        fail(3);
+        now += TimeUnit.SECONDS.toNanos(29);
+        assertEquals(-1, breaker.tryAcquire());
+        assertEquals(-1, breaker.tryAcquire());
+        assertEquals(2, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void letsOneProbeThroughAfterTheCoolDown() {
+        fail(3);
+        now += TimeUnit.SECONDS.toNanos(30);
+
+        acquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals("only one probe at a time", -1, breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void successfulProbeClosesTheCircuit() {
+        fail(3);
+        now += TimeUnit.SECONDS.toNanos(30);
+        breaker.onSuccess(acquire());
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        acquire();
+        acquire();
+    }
+
+    @Test
+    public void failedProbeReopensForAnotherCoolDown() {
+        fail(3);
+        now += TimeUnit.SECONDS.toNanos(30);
+        breaker.onFailure(acquire());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        now += TimeUnit.SECONDS.toNanos(29);
+        assertEquals(-1, breaker.tryAcquire());
+        now += TimeUnit.SECONDS.toNanos(1);
+        acquire();
+    }
+
+    @Test
+    public void ignoredProbeLetsTheNextOneThrough() {
+        fail(3);
+        now += TimeUnit.SECONDS.toNanos(30);
+        breaker.onIgnored(acquire());
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        acquire();
+    }
+
+    @Test
+    public void answersFromBeforeTheCircuitOpenedAreIgnored() {
+        long slow = acquire();
+        fail(3);
+        breaker.onSuccess(slow);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now += TimeUnit.SECONDS.toNanos(30);
+        long probe = acquire();
+        breaker.onFailure(slow);
+        breaker.onIgnored(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals("still waiting on the probe", -1, breaker.tryAcquire());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void lateFailureDoesNotCountAgainstTheClosedCircuit() {
+        long slow = acquire();
+        fail(3);
+        now += TimeUnit.SECONDS.toNanos(30);
+        breaker.onSuccess(acquire());
+
+        breaker.onFailure(slow);
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private long acquire() {
+        long permit = breaker.tryAcquire();
+        assertTrue("request rejected", permit >= 0);
+        return permit;
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure(acquire());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.sololeveling.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stores, reopens, revalidates and bundles {@link ContentStore} entries in a temporary directory, with a fake clock
+ */
+public class ContentStoreTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(START);
+
+    @Test
+    public void storedBlobsReadBack() throws IOException {
+        ContentStore store = open();
+        store.put("extract:Zulrah", bytes("A snake boss"), "\"v1\"", "Tue, 14 Nov 2023 22:13:20 GMT");
+        store.put("search:zulrah", bytes("results"), null, null);
+
+        ContentStore.Entry entry = store.get("extract:Zulrah");
+        assertArrayEquals(bytes("A snake boss"), store.read(entry));
+        assertEquals("\"v1\"", entry.getEtag());
+        assertEquals("Tue, 14 Nov 2023 22:13:20 GMT", entry.getLastModified());
+        assertEquals(START, entry.getFetchedAt());
+        assertFalse(entry.isBundled());
+        assertNull(store.get("search:vorkath"));
+        assertEquals(2, store.size());
+        store.close();
+    }
+
+    @Test
+    public void replacedBlobsReadTheLatestValue() throws IOException {
+        ContentStore store = open();
+        store.put("extract:Vorkath", bytes("first"), "\"v1\"", null);
+        store.put("extract:Vorkath", bytes("second, longer"), "\"v2\"", null);
+
+        ContentStore.Entry entry = store.get("extract:Vorkath");
+        assertArrayEquals(bytes("second, longer"), store.read(entry));
+        assertEquals("\"v2\"", entry.getEtag());
+        assertEquals(1, store.size());
+        store.close();
+    }
+
+    @Test
+    public void reopenedStoreKeepsEntriesAndValidators() throws IOException {
+        ContentStore store = open();
+        store.put("extract:Zulrah", bytes("A snake boss"), "\"v1\"", "Tue, 14 Nov 2023 22:13:20 GMT");
+        store.close();
+
+        now.addAndGet(60_000);
+        ContentStore reopened = open();
+        ContentStore.Entry entry = reopened.get("extract:Zulrah");
+        assertArrayEquals(bytes("A snake boss"), reopened.read(entry));
+        assertEquals("\"v1\"", entry.getEtag());
+        assertEquals("Tue, 14 Nov 2023 22:13:20 GMT", entry.getLastModified());
+        assertEquals(START, entry.getFetchedAt());
+
+        // Written after reopening, past the blobs already in the data file
+        reopened.put("extract:Vorkath", bytes("A dragon"), null, null);
+        assertArrayEquals(bytes("A dragon"), reopened.read(reopened.get("extract:Vorkath")));
+        assertArrayEquals(bytes("A snake boss"), reopened.read(reopened.get("extract:Zulrah")));
+        reopened.close();
+    }
+
+    @Test
+    public void notModifiedRevalidationRefreshesTheEntry() throws IOException {
+        ContentStore store = open();
+        store.put("extract:Zulrah", bytes("A snake boss"), "\"v1\"", null);
+
+        // A 304 a week later: the same blob and validators, fetched as of now
+        now.addAndGet(7 * 86_400_000L);
+        store.touch("extract:Zulrah");
+        ContentStore.Entry entry = store.get("extract:Zulrah");
+        assertEquals(now.get(), entry.getFetchedAt());
+        assertEquals("\"v1\"", entry.getEtag());
+        assertArrayEquals(bytes("A snake boss"), store.read(entry));
+        store.close();
+
+        ContentStore reopened = open();
+        assertEquals(now.get(), reopened.get("extract:Zulrah").getFetchedAt());
+        reopened.close();
+    }
+
+    @Test
+    public void bundledEntriesKeepTheirStampsAndMoveToDiskWhenRevalidated() throws IOException {
+        ContentStore source = open("source");
+        source.put("extract:Zulrah", bytes("A snake boss"), "\"v1\"", "Tue, 14 Nov 2023 22:13:20 GMT");
+        ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+        source.writeBundle(bundle);
+        source.close();
+
+        now.addAndGet(30 * 86_400_000L);
+        ContentStore store = open();
+        store.loadBundle(new ByteArrayInputStream(bundle.toByteArray()));
+        ContentStore.Entry bundled = store.get("extract:Zulrah");
+        assertTrue(bundled.isBundled());
+        assertEquals(START, bundled.getFetchedAt());
+        assertEquals("\"v1\"", bundled.getEtag());
+        assertEquals("Tue, 14 Nov 2023 22:13:20 GMT", bundled.getLastModified());
+        assertArrayEquals(bytes("A snake boss"), store.read(bundled));
+        assertEquals(0, store.size());
+
+        store.touch("extract:Zulrah");
+        ContentStore.Entry revalidated = store.get("extract:Zulrah");
+        assertFalse(revalidated.isBundled());
+        assertEquals(now.get(), revalidated.getFetchedAt());
+        assertEquals("\"v1\"", revalidated.getEtag());
+        store.close();
+
+        // Still fresh after a restart, without the bundle
+        ContentStore reopened = open();
+        assertEquals(now.get(), reopened.get("extract:Zulrah").getFetchedAt());
+        assertArrayEquals(bytes("A snake boss"), reopened.read(reopened.get("extract:Zulrah")));
+        reopened.close();
+    }
+
+    @Test
+    public void writtenBundleCarriesBundledEntriesForward() throws IOException {
+        ContentStore first = open("first");
+        first.put("extract:Zulrah", bytes("A snake boss"), "\"v1\"", null);
+        ByteArrayOutputStream old = new ByteArrayOutputStream();
+        first.writeBundle(old);
+        first.close();
+
+        now.addAndGet(1_000);
+        ContentStore second = open("second");
+        second.loadBundle(new ByteArrayInputStream(old.toByteArray()));
+        second.put("extract:Vorkath", bytes("A dragon"), "\"v7\"", null);
+        ByteArrayOutputStream updated = new ByteArrayOutputStream();
+        second.writeBundle(updated);
+        second.close();
+
+        ContentStore store = open();
+        store.loadBundle(new ByteArrayInputStream(updated.toByteArray()));
+        assertEquals(START, store.get("extract:Zulrah").getFetchedAt());
+        assertEquals(START + 1_000, store.get("extract:Vorkath").getFetchedAt());
+        assertEquals("\"v7\"", store.get("extract:Vorkath").getEtag());
+        store.close();
+    }
+
+    @Test
+    public void bundleInAnotherFormatIsIgnored() throws IOException {
+        ContentStore store = open();
+        store.loadBundle(new ByteArrayInputStream(new byte[]{'S', 'L', 'C', 'B', 1, 0, 0, 0, 0}));
+        assertNull(store.get("extract:Zulrah"));
+        store.close();
+    }
+
+    @Test
+    public void missingIndexStartsEmpty() throws IOException {
+        ContentStore store = open();
+        store.put("extract:Zulrah", bytes("A snake boss"), null, null);
+        store.close();
+        assertTrue(new File(folder.getRoot(), "wiki.idx").delete());
+
+        ContentStore reopened = open();
+        assertNull(reopened.get("extract:Zulrah"));
+        assertEquals(0, reopened.size());
+        reopened.close();
+    }
+
+    private ContentStore open() throws IOException {
+        return open("wiki");
+    }
+
+    private ContentStore open(String name) throws IOException {
+        ContentStore store = new ContentStore(folder.getRoot(), name, now::get);
+        store.open();
+        return store;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,147 @@
+package com.sololeveling.api;
+
+import net.runelite.api.Skill;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives {@link HiscoresCache} with a fake clock through expiry, eviction and a save and reload
+ */
+public class HiscoresCacheTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(START);
+
+    @Test
+    public void entriesPastTheTtlAreServedButStale() {
+        HiscoresCache cache = cache(3);
+        HiscoreSnapshot snapshot = snapshot(80, now.get());
+        cache.put(key("zezima"), snapshot);
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(5));
+        assertSame(snapshot, cache.get(key("zezima")));
+        assertFalse(cache.isStale(snapshot));
+
+        // Still served once stale, so the caller can show it while fetching a new one
+        now.addAndGet(1);
+        assertSame(snapshot, cache.get(key("zezima")));
+        assertTrue(cache.isStale(snapshot));
+
+        HiscoreSnapshot revalidated = snapshot(81, now.get());
+        cache.put(key("zezima"), revalidated);
+        assertSame(revalidated, cache.get(key("zezima")));
+        assertFalse(cache.isStale(revalidated));
+
+        assertNull(cache.get(key("lynx titan")));
+        HiscoresCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getStaleHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedAndCounted() {
+        HiscoresCache cache = cache(3);
+        cache.put(key("a"), snapshot(1, START));
+        cache.put(key("b"), snapshot(2, START));
+        cache.put(key("c"), snapshot(3, START));
+
+        // Reading "a" makes "b" the least recently used
+        cache.get(key("a"));
+        cache.put(key("d"), snapshot(4, START));
+        assertEquals(3, cache.size());
+        assertNull(cache.get(key("b")));
+        assertNotNull(cache.get(key("a")));
+        assertEquals(1, cache.getStats().getEvictions());
+
+        // Shrinking the bound evicts straight away, oldest first
+        cache.configure(5, TimeUnit.MINUTES, 1);
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(key("a")));
+        assertEquals(3, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void savedCacheWarmsANewOneInAccessOrder() throws IOException {
+        File file = new File(folder.getRoot(), "hiscores.bin");
+        HiscoresCache cache = cache(3);
+        cache.put(key("a"), snapshot(10, START));
+        cache.put(key("b"), snapshot(20, START + 1_000));
+        cache.put(key("c"), snapshot(30, START + 2_000));
+        cache.get(key("a"));
+        cache.save(file);
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(5) + 1_500);
+        HiscoresCache warmed = cache(3);
+        warmed.load(file);
+        assertEquals(3, warmed.size());
+
+        // "b" was the least recently used when saved, so it goes first
+        warmed.put(key("d"), snapshot(40, now.get()));
+        assertNull(warmed.get(key("b")));
+        HiscoreSnapshot a = warmed.get(key("a"));
+        assertEquals(10, a.getLevel(Skill.ATTACK));
+        assertEquals(START, a.getFetchedAt());
+        assertTrue(warmed.isStale(a));
+        assertFalse(warmed.isStale(warmed.get(key("c"))));
+    }
+
+    @Test
+    public void entriesFetchedWhileLoadingAreKept() throws IOException {
+        File file = new File(folder.getRoot(), "hiscores.bin");
+        HiscoresCache cache = cache(3);
+        cache.put(key("a"), snapshot(10, START));
+        cache.save(file);
+
+        now.addAndGet(1_000);
+        HiscoresCache warmed = cache(3);
+        HiscoreSnapshot fetched = snapshot(11, now.get());
+        warmed.put(key("a"), fetched);
+        warmed.load(file);
+        assertSame(fetched, warmed.get(key("a")));
+    }
+
+    @Test
+    public void fileInAnotherFormatIsIgnored() throws IOException {
+        File file = new File(folder.getRoot(), "hiscores.bin");
+        Files.write(file.toPath(), new byte[]{'S', 'L', 'H', 'C', 1, 0, 0, 0, 0});
+
+        HiscoresCache cache = cache(3);
+        cache.load(file);
+        assertEquals(0, cache.size());
+        cache.load(new File(folder.getRoot(), "missing.bin"));
+        assertEquals(0, cache.size());
+    }
+
+    private HiscoresCache cache(int maxEntries) {
+        return new HiscoresCache(5, TimeUnit.MINUTES, maxEntries, now::get);
+    }
+
+    private static HiscoreKey key(String username) {
+        return new HiscoreKey(username, HiscoreType.NORMAL);
+    }
+
+    private static HiscoreSnapshot snapshot(int attack, long fetchedAt) {
+        return HiscoreSnapshot.fromSkillMap(Collections.singletonMap(Skill.ATTACK,
+                new OsrsApiManager.PlayerSkillData(1_000, attack, 5_000_000)), fetchedAt);
+    }
+}
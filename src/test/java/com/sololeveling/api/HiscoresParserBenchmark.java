@@ -0,0 +1,147 @@
+package com.sololeveling.api;
+
+import net.runelite.api.Skill;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Throughput benchmark for {@link HiscoresParser} against the previous readLine/split parser.
+ * Run the main method directly; pass the number of payloads as the first argument (default 5000).
+ */
+public class HiscoresParserBenchmark {
+    private static final int SKILL_ROWS = 25;
+    private static final int ACTIVITY_ROWS = 90;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int payloadCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        byte[][] payloads = generatePayloads(payloadCount, new Random(42));
+
+        long totalBytes = 0;
+        for (byte[] payload : payloads) {
+            totalBytes += payload.length;
+        }
+
+        verify(payloads[0]);
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            runStreaming(payloads);
+            runLegacy(payloads);
+        }
+
+        long streamingNanos = 0;
+        long legacyNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            streamingNanos += runStreaming(payloads);
+            legacyNanos += runLegacy(payloads);
+        }
+
+        report("streaming", streamingNanos / ROUNDS, payloadCount, totalBytes);
+        report("readLine/split", legacyNanos / ROUNDS, payloadCount, totalBytes);
+    }
+
+    private static long runStreaming(byte[][] payloads) throws IOException {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (byte[] payload : payloads) {
+            HiscoreSnapshot snapshot = HiscoresParser.parse(new ByteArrayInputStream(payload), 0);
+            sink += snapshot.getActivityCount();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed;
+    }
+
+    /**
+     * The parser OsrsApiManager used before: one String per line and per field, skills in enum order
+     */
+    private static long runLegacy(byte[][] payloads) throws IOException {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (byte[] payload : payloads) {
+            Map<Skill, OsrsApiManager.PlayerSkillData> skillData = new HashMap<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+            reader.readLine();
+            for (Skill skill : Skill.values()) {
+                if (skill == Skill.OVERALL) {
+                    continue;
+                }
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                String[] parts = line.split(",");
+                if (parts.length >= 3) {
+                    skillData.put(skill, new OsrsApiManager.PlayerSkillData(
+                            Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2])));
+                }
+            }
+            sink += skillData.size();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed;
+    }
+
+    private static void verify(byte[] payload) throws IOException {
+        HiscoreSnapshot snapshot = HiscoresParser.parse(new ByteArrayInputStream(payload), 0);
+        String[] lines = new String(payload, StandardCharsets.UTF_8).split("\n");
+
+        String[] attack = lines[HiscoreLayout.getSkillRow(Skill.ATTACK)].split(",");
+        check(snapshot.getLevel(Skill.ATTACK) == Integer.parseInt(attack[1]), "attack level");
+        check(snapshot.getExperience(Skill.ATTACK) == Long.parseLong(attack[2]), "attack xp");
+
+        String[] zulrah = lines[SKILL_ROWS + HiscoreLayout.getActivityRow("Zulrah")].split(",");
+        check(snapshot.getActivityScore("Zulrah") == Integer.parseInt(zulrah[1]), "zulrah kc");
+        check(snapshot.getActivityCount() == ACTIVITY_ROWS, "activity rows");
+    }
+
+    private static byte[][] generatePayloads(int count, Random random) {
+        byte[][] payloads = new byte[count][];
+        StringBuilder sb = new StringBuilder(4096);
+        for (int p = 0; p < count; p++) {
+            sb.setLength(0);
+            for (int row = 0; row < SKILL_ROWS; row++) {
+                int level = 1 + random.nextInt(99);
+                sb.append(1 + random.nextInt(2_000_000)).append(',')
+                        .append(level).append(',')
+                        .append(random.nextInt(13_034_431)).append('\n');
+            }
+            for (int row = 0; row < ACTIVITY_ROWS; row++) {
+                if (random.nextInt(3) == 0) {
+                    sb.append("-1,-1\n");
+                } else {
+                    sb.append(1 + random.nextInt(500_000)).append(',').append(random.nextInt(5000)).append('\n');
+                }
+            }
+            payloads[p] = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        return payloads;
+    }
+
+    private static void report(String name, long nanos, int payloads, long bytes) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-16s %8.2f ms/round  %10.0f payloads/s  %8.1f MB/s%n",
+                name, nanos / 1e6, payloads / seconds, bytes / seconds / (1024 * 1024));
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Parser mismatch: " + what);
+        }
+    }
+
+    private static volatile long blackhole;
+
+    private static void consume(long value) {
+        blackhole += value;
+    }
+}
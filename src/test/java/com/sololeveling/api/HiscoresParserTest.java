@@ -0,0 +1,225 @@
+package com.sololeveling.api;
+
+import net.runelite.api.Skill;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Parses the index_lite response in fixtures/hiscores.csv, which has the current 25 skill rows, SAILING included,
+ * and 86 activity rows, plus hand-written payloads for the edge cases
+ */
+public class HiscoresParserTest {
+    private static final long FETCHED_AT = 1_700_000_000_000L;
+
+    @Test
+    public void parsesSkillRows() throws IOException {
+        HiscoreSnapshot snapshot = parseFixture();
+
+        assertEquals(FETCHED_AT, snapshot.getFetchedAt());
+        assertEquals(399475, snapshot.getRank(Skill.OVERALL));
+        assertEquals(1787, snapshot.getLevel(Skill.OVERALL));
+        assertEquals(52563818, snapshot.getExperience(Skill.OVERALL));
+        assertEquals(689949, snapshot.getRank(Skill.ATTACK));
+        assertEquals(78, snapshot.getLevel(Skill.ATTACK));
+        assertEquals(1777430, snapshot.getExperience(Skill.ATTACK));
+        assertEquals(99, snapshot.getLevel(Skill.MAGIC));
+        assertEquals(14698229, snapshot.getExperience(Skill.MAGIC));
+        assertEquals(280494, snapshot.getRank(Skill.CONSTRUCTION));
+    }
+
+    @Test
+    public void parsesTheSailingRow() throws IOException {
+        HiscoreSnapshot snapshot = parseFixture();
+
+        assertEquals(24, HiscoreLayout.getSkillRow(Skill.SAILING));
+        assertEquals(852967, snapshot.getRank(Skill.SAILING));
+        assertEquals(60, snapshot.getLevel(Skill.SAILING));
+        assertEquals(292799, snapshot.getExperience(Skill.SAILING));
+        assertEquals(292799, snapshot.toSkillMap().get(Skill.SAILING).getExperience());
+    }
+
+    @Test
+    public void parsesActivityRows() throws IOException {
+        HiscoreSnapshot snapshot = parseFixture();
+
+        assertEquals(HiscoreLayout.activityRowCount(), snapshot.getActivityCount());
+        assertEquals(43915, snapshot.getActivityRank(HiscoreLayout.getActivityRow("Deadman Points")));
+        assertEquals(2357, snapshot.getActivityScore("Deadman Points"));
+        assertEquals(240182, snapshot.getActivityRank(HiscoreLayout.getActivityRow("Clue Scrolls (master)")));
+        assertEquals(286, snapshot.getActivityScore("Clue Scrolls (master)"));
+        assertEquals(2295, snapshot.getActivityScore("Doom of Mokhaiotl"));
+    }
+
+    @Test
+    public void unrankedRowsHoldMinusOne() throws IOException {
+        HiscoreSnapshot snapshot = parseFixture();
+
+        assertEquals(-1, snapshot.getActivityRank(HiscoreLayout.getActivityRow("League Points")));
+        assertEquals(-1, snapshot.getActivityScore("League Points"));
+        assertEquals(-1, snapshot.getActivityScore("Zulrah"));
+        assertEquals(-1, snapshot.getActivityScore("Not an activity"));
+        assertEquals(-1, snapshot.getActivityScore(snapshot.getActivityCount()));
+    }
+
+    @Test
+    public void unrankedSkillsFallBackToLevelOne() {
+        HiscoreSnapshot snapshot = parse("10,100,50000000\n-1,1,-1\n-1,-1,-1\n");
+
+        assertEquals(-1, snapshot.getRank(Skill.ATTACK));
+        assertEquals(1, snapshot.getLevel(Skill.ATTACK));
+        assertEquals(0, snapshot.getExperience(Skill.ATTACK));
+        assertEquals(1, snapshot.getLevel(Skill.DEFENCE));
+        assertEquals(0, snapshot.getExperience(Skill.DEFENCE));
+        // Rows the payload doesn't have at all are unranked too
+        assertEquals(-1, snapshot.getRank(Skill.SAILING));
+        assertEquals(1, snapshot.getLevel(Skill.SAILING));
+    }
+
+    @Test
+    public void missingLevelIsDerivedFromExperience() {
+        HiscoreSnapshot snapshot = parse("10,-1,50000000\n5,-1,1210421\n6,,13034431\n");
+
+        assertEquals(75, snapshot.getLevel(Skill.ATTACK));
+        assertEquals(99, snapshot.getLevel(Skill.DEFENCE));
+        // Overall XP doesn't map to a level, so it is left unranked
+        assertEquals(1, snapshot.getLevel(Skill.OVERALL));
+        assertEquals(50000000, snapshot.getExperience(Skill.OVERALL));
+    }
+
+    @Test
+    public void rowsAreToldApartByFieldCount() {
+        HiscoreSnapshot snapshot = parse("1,2,3\n4,5\n6,7,8\n9,10\n");
+
+        assertEquals(2, snapshot.getLevel(Skill.OVERALL));
+        assertEquals(7, snapshot.getLevel(Skill.ATTACK));
+        assertEquals(2, snapshot.getActivityCount());
+        assertEquals(4, snapshot.getActivityRank(0));
+        assertEquals(10, snapshot.getActivityScore(1));
+    }
+
+    @Test
+    public void rowsAddedAfterTheLayoutAreKept() throws IOException {
+        byte[] fixture = fixture();
+        byte[] extra = "123,456\n-1,-1\n".getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        payload.write(fixture);
+        payload.write(extra);
+
+        HiscoreSnapshot snapshot = parse(payload.toByteArray());
+
+        int first = HiscoreLayout.activityRowCount();
+        assertEquals(first + 2, snapshot.getActivityCount());
+        assertNull(HiscoreLayout.getActivityName(first));
+        assertEquals(123, snapshot.getActivityRank(first));
+        assertEquals(456, snapshot.getActivityScore(first));
+        assertEquals(-1, snapshot.getActivityScore(first + 1));
+    }
+
+    @Test
+    public void toleratesCarriageReturnsBlankLinesAndNoTrailingNewline() {
+        HiscoreSnapshot snapshot = parse("10,100,5000\r\n\r\n20,50,101333\r\n30,40");
+
+        assertEquals(50, snapshot.getLevel(Skill.ATTACK));
+        assertEquals(101333, snapshot.getExperience(Skill.ATTACK));
+        assertEquals(1, snapshot.getActivityCount());
+        assertEquals(40, snapshot.getActivityScore(0));
+    }
+
+    @Test
+    public void malformedFieldsAreUnranked() {
+        HiscoreSnapshot snapshot = parse("10,100,5000\nabc,50,101333\n");
+
+        assertEquals(-1, snapshot.getRank(Skill.ATTACK));
+        assertEquals(50, snapshot.getLevel(Skill.ATTACK));
+    }
+
+    @Test
+    public void streamReadsSplitAnywhereGiveTheSameSnapshot() throws IOException {
+        byte[] fixture = fixture();
+        HiscoreSnapshot whole = parse(fixture);
+        HiscoreSnapshot trickled = HiscoresParser.parse(new OneByteAtATime(fixture), FETCHED_AT);
+
+        Map<Skill, OsrsApiManager.PlayerSkillData> expected = whole.toSkillMap();
+        assertEquals(expected.size(), trickled.toSkillMap().size());
+        for (Skill skill : expected.keySet()) {
+            assertEquals(whole.getRank(skill), trickled.getRank(skill));
+            assertEquals(whole.getLevel(skill), trickled.getLevel(skill));
+            assertEquals(whole.getExperience(skill), trickled.getExperience(skill));
+        }
+        assertEquals(whole.getActivityCount(), trickled.getActivityCount());
+        for (int row = 0; row < whole.getActivityCount(); row++) {
+            assertEquals(whole.getActivityRank(row), trickled.getActivityRank(row));
+            assertEquals(whole.getActivityScore(row), trickled.getActivityScore(row));
+        }
+    }
+
+    @Test
+    public void parsesPartOfAnArray() {
+        byte[] payload = "xx10,100,5000\n20,50,101333\nyy".getBytes(StandardCharsets.US_ASCII);
+        HiscoreSnapshot snapshot = HiscoresParser.parse(payload, 2, payload.length - 4, FETCHED_AT);
+
+        assertEquals(100, snapshot.getLevel(Skill.OVERALL));
+        assertEquals(50, snapshot.getLevel(Skill.ATTACK));
+        assertEquals(0, snapshot.getActivityCount());
+    }
+
+    @Test
+    public void toSkillMapLeavesOutOverall() throws IOException {
+        Map<Skill, OsrsApiManager.PlayerSkillData> skills = parseFixture().toSkillMap();
+
+        assertFalse(skills.containsKey(Skill.OVERALL));
+        assertTrue(skills.containsKey(Skill.HUNTER));
+        assertEquals(HiscoreLayout.skillRowCount() - 1, skills.size());
+    }
+
+    private static HiscoreSnapshot parseFixture() throws IOException {
+        try (InputStream in = HiscoresParserTest.class.getResourceAsStream("fixtures/hiscores.csv")) {
+            return HiscoresParser.parse(in, FETCHED_AT);
+        }
+    }
+
+    private static byte[] fixture() throws IOException {
+        try (InputStream in = HiscoresParserTest.class.getResourceAsStream("fixtures/hiscores.csv")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static HiscoreSnapshot parse(String payload) {
+        return parse(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static HiscoreSnapshot parse(byte[] payload) {
+        return HiscoresParser.parse(payload, 0, payload.length, FETCHED_AT);
+    }
+
+    /**
+     * Hands out one byte per read, so every row and number is split across reads
+     */
+    private static final class OneByteAtATime extends FilterInputStream {
+        OneByteAtATime(byte[] data) {
+            super(new ByteArrayInputStream(data));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.sololeveling.api;
+
+import okhttp3.HttpUrl;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Retries, circuit breaking and hedging, with calls the test completes by hand
+ */
+public class ResilientEndpointTest {
+    private static final HttpUrl URL = HttpUrl.get("http://127.0.0.1/index_lite.ws");
+    // ResilientEndpoint waits for this many samples before it hedges
+    private static final int WARM_UP = 20;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, 30, TimeUnit.SECONDS);
+    private final List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void transientFailuresAreRetried() throws Exception {
+        ResilientEndpoint endpoint = endpoint(3, false);
+        CompletableFuture<String> result = endpoint.execute(this::call);
+
+        calls.get(0).completeExceptionally(new IOException("reset"));
+        awaitCalls(2);
+        calls.get(1).completeExceptionally(new HttpStatusException(URL, 503));
+        awaitCalls(3);
+        calls.get(2).complete("value");
+
+        assertEquals("value", result.get(1, TimeUnit.SECONDS));
+        assertEquals(2, endpoint.getStats().getFailures());
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() throws Exception {
+        ResilientEndpoint endpoint = endpoint(3, false);
+        CompletableFuture<String> result = endpoint.execute(this::call);
+
+        calls.get(0).completeExceptionally(new HttpStatusException(URL, 404));
+
+        assertEquals(404, ((HttpStatusException) failure(result)).getStatusCode());
+        assertEquals(1, calls.size());
+        // A 404 is still an answer, so it doesn't count against the circuit
+        assertEquals(0, endpoint.getStats().getFailures());
+    }
+
+    @Test
+    public void failuresOpenTheCircuitAndFailFast() throws Exception {
+        ResilientEndpoint endpoint = endpoint(1, false);
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<String> result = endpoint.execute(this::call);
+            calls.get(i).completeExceptionally(new IOException("down"));
+            failure(result);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, endpoint.getStats().getState());
+
+        CompletableFuture<String> rejected = endpoint.execute(this::call);
+        assertTrue(failure(rejected) instanceof CircuitOpenException);
+        assertEquals("rejected without calling the endpoint", 3, calls.size());
+        assertEquals(1, endpoint.getStats().getRejected());
+    }
+
+    @Test
+    public void retriesStopOnceTheCircuitOpens() throws Exception {
+        ResilientEndpoint endpoint = endpoint(10, false);
+        CompletableFuture<String> result = endpoint.execute(this::call);
+        for (int i = 0; i < 3; i++) {
+            awaitCalls(i + 1);
+            calls.get(i).completeExceptionally(new IOException("down"));
+        }
+
+        assertTrue(failure(result) instanceof CircuitOpenException);
+        assertEquals(3, calls.size());
+    }
+
+    @Test
+    public void cancellingTheResultCancelsTheCall() {
+        ResilientEndpoint endpoint = endpoint(3, false);
+        CompletableFuture<String> result = endpoint.execute(this::call);
+
+        result.cancel(true);
+        assertTrue(calls.get(0).isCancelled());
+    }
+
+    @Test
+    public void slowRequestsAreNotHedgedBeforeThereAreEnoughSamples() throws Exception {
+        ResilientEndpoint endpoint = endpoint(1, true);
+        warmUp(endpoint, WARM_UP - 1);
+
+        CompletableFuture<String> result = endpoint.execute(this::call);
+        Thread.sleep(200);
+        assertEquals(WARM_UP, calls.size());
+        calls.get(WARM_UP - 1).complete("slow");
+        assertEquals("slow", result.get(1, TimeUnit.SECONDS));
+        assertEquals(0, endpoint.getStats().getHedged());
+    }
+
+    @Test
+    public void slowRequestsAreHedgedAtTheP95() throws Exception {
+        ResilientEndpoint endpoint = endpoint(1, true);
+        warmUp(endpoint, WARM_UP);
+
+        CompletableFuture<String> result = endpoint.execute(this::call);
+        CompletableFuture<String> primary = calls.get(WARM_UP);
+        awaitCalls(WARM_UP + 2);
+        calls.get(WARM_UP + 1).complete("hedge");
+
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+        assertTrue("the losing request is cancelled", primary.isCancelled());
+        assertEquals(1, endpoint.getStats().getHedged());
+        // The hedge rides on the original request rather than counting as another
+        assertEquals(WARM_UP + 1, endpoint.getStats().getRequests());
+    }
+
+    @Test
+    public void fastRequestsAreNotHedged() throws Exception {
+        ResilientEndpoint endpoint = endpoint(1, true);
+        warmUp(endpoint, WARM_UP);
+
+        CompletableFuture<String> result = endpoint.execute(this::call);
+        calls.get(WARM_UP).complete("fast");
+        Thread.sleep(200);
+
+        assertEquals("fast", result.get());
+        assertEquals(WARM_UP + 1, calls.size());
+        assertEquals(0, endpoint.getStats().getHedged());
+    }
+
+    @Test
+    public void hedgesAreCappedAtOneInTen() throws Exception {
+        ResilientEndpoint endpoint = endpoint(1, true);
+        warmUp(endpoint, WARM_UP);
+
+        for (int i = 0; i < 5; i++) {
+            int before = calls.size();
+            CompletableFuture<String> result = endpoint.execute(this::call);
+            // Answer as soon as the hedge goes out, so hedged latencies don't push the p95 past the wait
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            while (calls.size() < before + 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            for (int call = before; call < calls.size(); call++) {
+                calls.get(call).complete("done");
+            }
+            result.get(1, TimeUnit.SECONDS);
+        }
+
+        // Requests 21 to 23 may each be hedged, after that hedges would exceed a tenth of the requests
+        assertEquals(3, endpoint.getStats().getHedged());
+        assertEquals(WARM_UP + 5, endpoint.getStats().getRequests());
+    }
+
+    private ResilientEndpoint endpoint(int maxAttempts, boolean hedging) {
+        return new ResilientEndpoint("test", scheduler, breaker, new Backoff(10, 20), maxAttempts, hedging);
+    }
+
+    private CompletableFuture<String> call() {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        calls.add(call);
+        return call;
+    }
+
+    /**
+     * Fill the latency histogram with requests answered straight away, so the hedge delay is its 50ms minimum
+     */
+    private void warmUp(ResilientEndpoint endpoint, int requests) {
+        for (int i = 0; i < requests; i++) {
+            CompletableFuture<String> result = endpoint.execute(this::call);
+            calls.get(calls.size() - 1).complete("warm");
+            assertFalse(result.isCompletedExceptionally());
+        }
+    }
+
+    private void awaitCalls(int count) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (calls.size() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException("expected " + count + " calls, saw " + calls.size());
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<?> result) throws Exception {
+        try {
+            result.get(1, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("expected a failure");
+    }
+}
@@ -0,0 +1,76 @@
+package com.sololeveling.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightTest {
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private CompletableFuture<String> load(CompletableFuture<String> source) {
+        return flights.execute("key", () -> {
+            loads.incrementAndGet();
+            return source;
+        });
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = load(source);
+        CompletableFuture<String> second = load(new CompletableFuture<>());
+
+        assertEquals(1, loads.get());
+        assertEquals(1, flights.getCoalescedCount());
+        source.complete("value");
+        assertEquals("value", first.join());
+        assertEquals("value", second.join());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    public void cancellingOneCallerKeepsTheLoadRunning() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = load(source);
+        CompletableFuture<String> second = load(source);
+
+        first.cancel(true);
+        assertFalse(source.isCancelled());
+        source.complete("value");
+        assertEquals("value", second.join());
+    }
+
+    @Test
+    public void cancellingEveryCallerCancelsTheLoad() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = load(source);
+        CompletableFuture<String> second = load(source);
+
+        first.cancel(true);
+        second.cancel(true);
+        assertTrue(source.isCancelled());
+        assertEquals(0, flights.size());
+
+        // The next caller starts a fresh load rather than joining the cancelled one
+        CompletableFuture<String> fresh = new CompletableFuture<>();
+        CompletableFuture<String> third = load(fresh);
+        assertEquals(2, loads.get());
+        fresh.complete("again");
+        assertEquals("again", third.join());
+    }
+
+    @Test
+    public void loaderThrowingFailsTheCaller() {
+        CompletableFuture<String> result = flights.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, flights.size());
+    }
+}
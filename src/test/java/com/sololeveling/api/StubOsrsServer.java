@@ -0,0 +1,309 @@
+package com.sololeveling.api;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.runelite.client.callback.ClientThread;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-JVM stand-in for the hiscores site and the wiki's api.php, serving the fixtures under
+ * src/test/resources/com/sololeveling/api/fixtures. Latency, error rate and extract size can be changed
+ * while it runs, so benchmarks can exercise the API layer offline.
+ * <p>
+ * Hiscores lookups for players whose name starts with "missing" answer 404, like the real site does for
+ * unranked players. Wiki titles starting with "Missing" come back as missing pages.
+ */
+public class StubOsrsServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] hiscores;
+    private final String opensearch;
+    private final String extract;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger failuresToInject = new AtomicInteger();
+    private final AtomicLong experienceGained = new AtomicLong();
+    private volatile int latencyMillis;
+    private volatile int latencyJitterMillis;
+    private volatile double errorRate;
+    private volatile int extractBytes;
+
+    private StubOsrsServer() throws IOException {
+        hiscores = fixture("hiscores.csv");
+        opensearch = new String(fixture("wiki-opensearch.json"), StandardCharsets.UTF_8).trim();
+        extract = new String(fixture("wiki-extract.txt"), StandardCharsets.UTF_8).trim();
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-osrs-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/api.php", this::handleWiki);
+        server.createContext("/", this::handleHiscores);
+        server.start();
+    }
+
+    public static StubOsrsServer start() throws IOException {
+        return new StubOsrsServer();
+    }
+
+    /**
+     * Endpoints to hand to {@link OsrsApiManager} so it talks to this server
+     */
+    public ApiEndpoints getEndpoints() {
+        String root = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        return new ApiEndpoints(HttpUrl.parse(root), HttpUrl.parse(root + "api.php"));
+    }
+
+    /**
+     * A manager talking to this server, for tests outside the api package
+     */
+    public OsrsApiManager newApiManager(OkHttpClient okHttpClient, ClientThread clientThread,
+                                        ScheduledExecutorService scheduler) {
+        return new OsrsApiManager(okHttpClient, new Gson(), clientThread, scheduler, getEndpoints());
+    }
+
+    /**
+     * Address of a player's index_lite.ws lookup, for clients that don't go through {@link OsrsApiManager}
+     */
+    public URI getHiscoresUri(String player) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/m=hiscore_oldschool/index_lite.ws?player="
+                + player.replace(" ", "%20"));
+    }
+
+    /**
+     * Delay every response by the given latency plus up to the given jitter
+     */
+    public void setLatency(int millis, int jitterMillis) {
+        this.latencyMillis = millis;
+        this.latencyJitterMillis = jitterMillis;
+    }
+
+    /**
+     * Fraction of requests, between 0 and 1, answered with a 503
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Answer the next requests with a 503, whatever the error rate
+     */
+    public void failNext(int requests) {
+        failuresToInject.set(requests);
+    }
+
+    /**
+     * Pad each wiki extract to at least this many bytes
+     */
+    public void setExtractBytes(int extractBytes) {
+        this.extractBytes = extractBytes;
+    }
+
+    /**
+     * Add experience to every player's Attack, and to their overall total, in later hiscores lookups
+     */
+    public void gainExperience(long experience) {
+        experienceGained.addAndGet(experience);
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getErrorCount() {
+        return errors.get();
+    }
+
+    public void resetCounts() {
+        requests.set(0);
+        errors.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleHiscores(HttpExchange exchange) throws IOException {
+        if (!beginRequest(exchange)) {
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        if (!path.endsWith("/index_lite.ws")) {
+            respond(exchange, 404, "text/plain", new byte[0]);
+        } else if (queryParameter(exchange, "player").startsWith("missing")) {
+            respond(exchange, 404, "text/html", new byte[0]);
+        } else {
+            long gained = experienceGained.get();
+            respond(exchange, 200, "text/plain", gained == 0 ? hiscores : withExperienceGained(gained));
+        }
+    }
+
+    private void handleWiki(HttpExchange exchange) throws IOException {
+        if (!beginRequest(exchange)) {
+            return;
+        }
+
+        String action = queryParameter(exchange, "action");
+        if (action.equals("opensearch")) {
+            String term = queryParameter(exchange, "search").replace("\"", "");
+            respond(exchange, 200, "application/json", opensearch.replace("{{term}}", term).getBytes(StandardCharsets.UTF_8));
+        } else if (action.equals("query")) {
+            respond(exchange, 200, "application/json", extractsResponse(queryParameter(exchange, "titles")));
+        } else {
+            respond(exchange, 400, "text/plain", new byte[0]);
+        }
+    }
+
+    /**
+     * Count the request, apply the configured latency and maybe fail it
+     *
+     * @return false if an error response was sent instead
+     */
+    private boolean beginRequest(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int delay = latencyMillis + (latencyJitterMillis > 0 ? random.nextInt(latencyJitterMillis + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        boolean injected = failuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+        if (injected || errorRate > 0 && random.nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            respond(exchange, 503, "text/plain", new byte[0]);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Build a prop=extracts response the way MediaWiki does: titles are normalized and reported in
+     * "normalized", and titles starting with "Missing" are missing pages
+     */
+    private byte[] extractsResponse(String titles) {
+        StringBuilder normalized = new StringBuilder();
+        StringBuilder pages = new StringBuilder();
+        int missingId = -1;
+        int id = 1;
+        for (String title : titles.split("\\|")) {
+            if (title.isEmpty()) {
+                continue;
+            }
+            String canonical = OsrsApiManager.normalizeWikiTitle(title);
+            if (!canonical.equals(title)) {
+                appendSeparator(normalized).append("{\"from\":\"").append(escape(title))
+                        .append("\",\"to\":\"").append(escape(canonical)).append("\"}");
+            }
+
+            if (canonical.startsWith("Missing")) {
+                appendSeparator(pages).append('"').append(missingId).append("\":{\"ns\":0,\"title\":\"")
+                        .append(escape(canonical)).append("\",\"missing\":\"\"}");
+                missingId--;
+                continue;
+            }
+            appendSeparator(pages).append('"').append(id).append("\":{\"pageid\":").append(id++)
+                    .append(",\"ns\":0,\"title\":\"").append(escape(canonical))
+                    .append("\",\"extract\":\"").append(escape(padExtract(extract.replace("{{title}}", canonical))))
+                    .append("\"}");
+        }
+        String body = "{\"batchcomplete\":\"\",\"query\":{\"normalized\":[" + normalized + "],\"pages\":{" + pages + "}}}";
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String padExtract(String text) {
+        if (text.length() >= extractBytes) {
+            return text;
+        }
+        StringBuilder padded = new StringBuilder(extractBytes).append(text);
+        while (padded.length() < extractBytes) {
+            padded.append(' ').append(text);
+        }
+        padded.setLength(extractBytes);
+        return padded.toString();
+    }
+
+    /**
+     * The hiscores fixture with experience added to the overall and Attack rows, the first two
+     */
+    private byte[] withExperienceGained(long gained) {
+        String[] rows = new String(hiscores, StandardCharsets.UTF_8).split("\n", -1);
+        for (int row = 0; row < 2; row++) {
+            String[] fields = rows[row].split(",");
+            fields[2] = Long.toString(Long.parseLong(fields[2].trim()) + gained);
+            rows[row] = String.join(",", fields);
+        }
+        return String.join("\n", rows).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static StringBuilder appendSeparator(StringBuilder sb) {
+        return sb.length() > 0 ? sb.append(',') : sb;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return "";
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = StubOsrsServer.class.getResourceAsStream("fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing fixture " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sololeveling.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+    private long now;
+    private final TokenBucket bucket = new TokenBucket(10, 3, () -> now);
+
+    @Test
+    public void burstIsAvailableStraightAway() {
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void permitsRefillAtTheRate() {
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire();
+        }
+        now += TimeUnit.MILLISECONDS.toNanos(99);
+        assertFalse(bucket.tryAcquire());
+        now += TimeUnit.MILLISECONDS.toNanos(1);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    public void refillStopsAtTheBurst() {
+        now += TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void reservationsQueueBehindEachOther() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve());
+
+        // Debt has to be paid off before tryAcquire succeeds again
+        now += TimeUnit.MILLISECONDS.toNanos(250);
+        assertFalse(bucket.tryAcquire());
+        now += TimeUnit.MILLISECONDS.toNanos(50);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    public void setRateKeepsAccumulatedTokens() {
+        bucket.tryAcquire();
+        bucket.setRate(1, 5);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveRate() {
+        bucket.setRate(0, 1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.sololeveling.api;
+
+import com.google.gson.Gson;
+import okhttp3.OkHttpClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Throughput benchmark for batched wiki entity lookups against {@link StubOsrsServer}.
+ * Compares one multi-title query per 20 titles with one query per title. Run the main method directly;
+ * pass the number of titles (default 1000) and the simulated server latency in ms (default 25).
+ */
+public class WikiBatchBenchmark {
+    public static void main(String[] args) throws Exception {
+        int titleCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int latencyMillis = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        OkHttpClient okHttpClient = new OkHttpClient();
+
+        try (StubOsrsServer server = StubOsrsServer.start()) {
+            server.setLatency(latencyMillis, 0);
+            ApiEndpoints endpoints = server.getEndpoints();
+
+            List<String> titles = new ArrayList<>();
+            for (int i = 0; i < titleCount; i++) {
+                titles.add("monster_" + i);
+            }
+
+            // Fresh managers per run so nothing is coalesced across runs
+            run("batched", server, () -> {
+                OsrsApiManager manager = new OsrsApiManager(okHttpClient, new Gson(), null, scheduler, endpoints);
+                Map<String, CompletableFuture<OsrsApiManager.WikiEntityInfo>> futures = manager.getWikiEntityInfosAsync(titles);
+                CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+                check(futures.get("monster_7").join().isFound(), "batched lookup resolved");
+            });
+
+            run("one per title", server, () -> {
+                OsrsApiManager manager = new OsrsApiManager(okHttpClient, new Gson(), null, scheduler, endpoints);
+                List<CompletableFuture<OsrsApiManager.WikiEntityInfo>> futures = new ArrayList<>();
+                for (String title : titles) {
+                    futures.add(manager.getWikiEntityInfoAsync(title));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            });
+        } finally {
+            scheduler.shutdownNow();
+            okHttpClient.dispatcher().executorService().shutdown();
+        }
+    }
+
+    private static void run(String name, StubOsrsServer server, Runnable benchmark) {
+        server.resetCounts();
+        long start = System.nanoTime();
+        benchmark.run();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-14s %8.1f ms  %6d requests%n", name, elapsed / 1e6, server.getRequestCount());
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Benchmark check failed: " + what);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.sololeveling.persistence;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sololeveling.task.Task;
+import com.sololeveling.task.TaskCategory;
+import com.sololeveling.task.TaskDifficulty;
+import com.sololeveling.task.TaskSource;
+import com.sololeveling.tracking.SkillHistory;
+import net.runelite.api.Skill;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips a {@link ProgressExport} through each of {@link ProgressExporter}'s formats
+ */
+public class ProgressExporterTest {
+    private static final long START = 1_700_000_040_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ProgressExporter exporter = new ProgressExporter(null);
+
+    @Test
+    public void jsonRoundTrips() throws IOException {
+        File file = new File(folder.getRoot(), "progress.json");
+        ProgressExport progress = progress();
+        exporter.writeJson(progress, file);
+
+        assertSameProgress(progress, exporter.readJson(file));
+    }
+
+    @Test
+    public void jsonHoldsBooleansAndNumbersAsJsonValues() throws IOException {
+        File file = new File(folder.getRoot(), "progress.json");
+        exporter.writeJson(progress(), file);
+
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        JsonObject task = new JsonParser().parse(text).getAsJsonObject().getAsJsonArray("tasks").get(0)
+                .getAsJsonObject();
+        assertTrue(task.get("completed").getAsJsonPrimitive().isBoolean());
+        assertTrue(task.get("visible").getAsJsonPrimitive().isBoolean());
+        assertTrue(task.get("experienceReward").getAsJsonPrimitive().isNumber());
+        assertTrue(task.get("pointsReward").getAsJsonPrimitive().isNumber());
+        assertTrue(task.get("targetLevel").getAsJsonPrimitive().isNumber());
+        assertEquals(42, task.get("targetLevel").getAsInt());
+        assertTrue(task.get("relatedQuestId").isJsonNull());
+    }
+
+    @Test
+    public void jsonWithFieldsAsStringsStillReads() throws IOException {
+        File file = new File(folder.getRoot(), "older.json");
+        Files.write(file.toPath(), ("{\"version\":1,\"tasks\":[{\"id\":\"old\",\"name\":\"Old\",\"completed\":\"true\","
+                + "\"visible\":\"false\",\"experienceReward\":\"250\",\"targetLevel\":\"7\"}]}")
+                .getBytes(StandardCharsets.UTF_8));
+
+        Task task = exporter.readJson(file).getTasks().get(0);
+        assertTrue(task.isCompleted());
+        assertEquals(false, task.isVisible());
+        assertEquals(250, task.getExperienceReward());
+        assertEquals(7, task.getTargetLevel());
+    }
+
+    @Test
+    public void csvRoundTripsEmptyTextAndUnsetFields() throws IOException {
+        File directory = new File(folder.getRoot(), "progress");
+        ProgressExport progress = progress();
+        exporter.writeCsv(progress, directory);
+
+        ProgressExport read = exporter.readCsv(directory);
+        assertSameProgress(progress, read);
+        assertEquals("", read.getTasks().get(1).getDescription());
+    }
+
+    @Test
+    public void packRoundTripsTasksWithoutTheirState() throws IOException {
+        File file = new File(folder.getRoot(), "shared.tasks");
+        ProgressExport progress = progress();
+        exporter.writePack(progress, file);
+
+        List<Task> tasks = exporter.readPack(file).getTasks();
+        assertEquals(progress.getTasks().size(), tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(progress.getTasks().get(i).getId(), tasks.get(i).getId());
+            assertEquals(progress.getTasks().get(i).getDescription(), tasks.get(i).getDescription());
+            assertEquals(false, tasks.get(i).isCompleted());
+        }
+    }
+
+    @Test
+    public void failedExportLeavesThePreviousOneInPlace() throws IOException {
+        File file = new File(folder.getRoot(), "progress.json");
+        exporter.writeJson(progress(), file);
+        byte[] previous = Files.readAllBytes(file.toPath());
+
+        // Fails after the counters and activities have been written
+        ProgressExport broken = new ProgressExport(START, 0, 0, new LinkedHashMap<>(), Arrays.asList(task(), null),
+                new SkillHistory());
+        try {
+            exporter.writeJson(broken, file);
+            fail("Expected the export to fail");
+        } catch (NullPointerException expected) {
+            // The broken task
+        }
+
+        assertArrayEquals(previous, Files.readAllBytes(file.toPath()));
+        assertEquals(1, folder.getRoot().listFiles().length);
+    }
+
+    private static void assertSameProgress(ProgressExport expected, ProgressExport actual) throws IOException {
+        assertEquals(expected.getExportedAt(), actual.getExportedAt());
+        assertEquals(expected.getTotalPlayTimeMillis(), actual.getTotalPlayTimeMillis());
+        assertEquals(expected.getGameTicks(), actual.getGameTicks());
+        assertEquals(expected.getActivityCounts(), actual.getActivityCounts());
+        assertEquals(expected.getTasks(), actual.getTasks());
+
+        for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+            assertEquals(expected.getSkillHistory().getPointCount(resolution),
+                    actual.getSkillHistory().getPointCount(resolution));
+            SkillHistory.Range written = expected.getSkillHistory().getRange(Skill.MINING, resolution, 0,
+                    Long.MAX_VALUE);
+            SkillHistory.Range read = actual.getSkillHistory().getRange(Skill.MINING, resolution, 0, Long.MAX_VALUE);
+            assertArrayEquals(written.getTimes(), read.getTimes());
+            assertArrayEquals(written.getExperience(), read.getExperience());
+        }
+    }
+
+    private static ProgressExport progress() {
+        Map<String, Integer> activities = new LinkedHashMap<>();
+        activities.put("Zulrah", 12);
+        activities.put("Barrows, chests", 3);
+
+        SkillHistory history = new SkillHistory();
+        for (int minute = 0; minute < 300; minute++) {
+            for (Skill skill : Skill.values()) {
+                long experience = skill == Skill.MINING ? 1_000 + minute * 35L : 500;
+                history.record(skill, experience, START + minute * 60_000L);
+            }
+        }
+
+        List<Task> tasks = Arrays.asList(task(), Task.builder()
+                .id("custom_2")
+                .name("Say \"hi\", twice")
+                .description("")
+                .completed(false)
+                .visible(false)
+                .build());
+        return new ProgressExport(START, 3_600_000, 6_000, activities, tasks, history);
+    }
+
+    private static Task task() {
+        return Task.builder()
+                .id("skill_1")
+                .name("Reach 42 Mining")
+                .description("Mine your way\nto level 42")
+                .difficulty(TaskDifficulty.MEDIUM)
+                .category(TaskCategory.SKILLING)
+                .source(TaskSource.CUSTOM)
+                .completed(true)
+                .visible(true)
+                .experienceReward(1_250)
+                .pointsReward(30)
+                .skill(Skill.MINING)
+                .targetLevel(42)
+                .additionalData("rock:iron")
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.sololeveling.persistence;
+
+import com.sololeveling.task.Task;
+import com.sololeveling.task.TaskCategory;
+import com.sololeveling.task.TaskDifficulty;
+import com.sololeveling.task.TaskManager;
+import com.sololeveling.task.TaskSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Imports tasks into a {@link TaskManager} attached to a {@link WriteAheadLog}, then restarts both and checks the
+ * tasks come back from the journal
+ */
+public class TaskManagerJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ScheduledExecutorService executor;
+    private File file;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        file = new File(folder.getRoot(), "state.wal");
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void importedTasksSurviveARestart() {
+        WriteAheadLog log = open();
+        TaskManager manager = new TaskManager();
+        manager.attach(log);
+        assertEquals(3, manager.importTasks(Arrays.asList(task("imported_1", true), task("imported_2", false),
+                task("imported_3", false)), true));
+        manager.completeTask("imported_2");
+        manager.removeTask("imported_3");
+        log.close();
+
+        WriteAheadLog recovered = open();
+        TaskManager restarted = new TaskManager();
+        restarted.attach(recovered);
+
+        assertEquals(2, restarted.getAllTasks().size());
+        Task first = restarted.getTaskById("imported_1");
+        assertNotNull(first);
+        assertEquals("Task imported_1", first.getName());
+        assertEquals(TaskCategory.SKILLING, first.getCategory());
+        assertEquals(250, first.getPointsReward());
+        assertTrue(first.isCompleted());
+        assertTrue(restarted.getTaskById("imported_2").isCompleted());
+        assertNull(restarted.getTaskById("imported_3"));
+        // Nothing is left behind for the removed task
+        assertEquals(2, recovered.entries("task/imported/").size());
+        assertEquals(2, recovered.entries("task/state/").size());
+        recovered.close();
+    }
+
+    @Test
+    public void reattachingDoesNotAddImportedTasksTwice() {
+        WriteAheadLog log = open();
+        TaskManager manager = new TaskManager();
+        manager.attach(log);
+        manager.importTasks(Collections.singletonList(task("imported_1", false)), false);
+        log.close();
+
+        // A plugin restart keeps the manager, but recovers and attaches the log again
+        log.recover();
+        manager.attach(log);
+        assertEquals(1, manager.getAllTasks().size());
+        assertFalse(manager.getTaskById("imported_1").isCompleted());
+        log.close();
+    }
+
+    private WriteAheadLog open() {
+        WriteAheadLog log = new WriteAheadLog(executor, file);
+        log.setSyncPolicy(WriteAheadLog.SyncPolicy.NEVER);
+        log.recover();
+        return log;
+    }
+
+    private static Task task(String id, boolean completed) {
+        return Task.builder()
+                .id(id)
+                .name("Task " + id)
+                .description("Brought in from an export")
+                .difficulty(TaskDifficulty.EASY)
+                .category(TaskCategory.SKILLING)
+                .source(TaskSource.CUSTOM)
+                .completed(completed)
+                .visible(true)
+                .pointsReward(250)
+                .build();
+    }
+}
@@ -0,0 +1,205 @@
+package com.sololeveling.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays, torn tails, compaction and reopening of a {@link WriteAheadLog} in a temporary directory
+ */
+public class WriteAheadLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ScheduledExecutorService executor;
+    private File file;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        file = new File(folder.getRoot(), "state.wal");
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void closedLogReplaysTheLatestValues() {
+        WriteAheadLog log = open();
+        log.put("task/a", bytes("one"));
+        log.put("task/b", bytes("two"));
+        log.put("task/a", bytes("three"));
+        log.put("other", bytes("four"));
+        log.remove("task/b");
+        log.close();
+
+        WriteAheadLog replayed = open();
+        assertArrayEquals(bytes("three"), replayed.get("task/a"));
+        assertNull(replayed.get("task/b"));
+        assertArrayEquals(bytes("four"), replayed.get("other"));
+
+        Map<String, byte[]> tasks = replayed.entries("task/");
+        assertEquals(1, tasks.size());
+        assertTrue(tasks.containsKey("task/a"));
+        replayed.close();
+    }
+
+    @Test
+    public void tornTailIsTruncated() throws IOException {
+        WriteAheadLog log = open();
+        log.put("kept", bytes("value"));
+        log.close();
+        long intact = file.length();
+
+        // A record header promising more bytes than made it to disk
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(intact);
+            raw.writeInt(100);
+            raw.writeInt(0);
+            raw.write(bytes("cut short"));
+        }
+
+        WriteAheadLog recovered = open();
+        assertArrayEquals(bytes("value"), recovered.get("kept"));
+        assertEquals(intact, file.length());
+
+        // Later records go where the torn one was, so they replay too
+        recovered.put("after", bytes("tear"));
+        recovered.close();
+        WriteAheadLog replayed = open();
+        assertArrayEquals(bytes("value"), replayed.get("kept"));
+        assertArrayEquals(bytes("tear"), replayed.get("after"));
+        replayed.close();
+    }
+
+    @Test
+    public void recordFailingItsChecksumEndsTheReplay() throws IOException {
+        WriteAheadLog log = open();
+        log.put("first", bytes("value"));
+        log.write();
+        long first = file.length();
+        log.put("second", bytes("value"));
+        log.close();
+
+        // Flip the last byte of the second record's value
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(raw.length() - 1);
+            int last = raw.read();
+            raw.seek(raw.length() - 1);
+            raw.write(last ^ 0xFF);
+        }
+
+        WriteAheadLog recovered = open();
+        assertArrayEquals(bytes("value"), recovered.get("first"));
+        assertNull(recovered.get("second"));
+        assertEquals(first, file.length());
+        recovered.close();
+    }
+
+    @Test
+    public void fileThatIsNotALogIsDiscarded() throws IOException {
+        Files.write(file.toPath(), bytes("not a log at all"));
+
+        WriteAheadLog log = open();
+        assertTrue(log.entries("").isEmpty());
+        log.put("key", bytes("value"));
+        log.close();
+
+        WriteAheadLog replayed = open();
+        assertArrayEquals(bytes("value"), replayed.get("key"));
+        replayed.close();
+    }
+
+    @Test
+    public void logGrownPastItsStateIsCompacted() {
+        WriteAheadLog log = open();
+        log.put("small", bytes("kept through compaction"));
+        byte[] value = new byte[10_000];
+        long largest = 0;
+        long compacted = 0;
+        int writes = 0;
+        // Each write appends another copy of the large value until the file is rewritten with just the live ones
+        while (compacted == 0 && writes < 100) {
+            value[0] = (byte) writes++;
+            log.put("large", value.clone());
+            log.write();
+            if (file.length() < largest) {
+                compacted = file.length();
+            }
+            largest = Math.max(largest, file.length());
+        }
+
+        assertTrue("grew to " + largest, largest > 256 * 1024);
+        assertTrue("compacted to " + compacted, compacted > 0 && compacted < 2 * value.length);
+        log.close();
+
+        WriteAheadLog replayed = open();
+        assertArrayEquals(bytes("kept through compaction"), replayed.get("small"));
+        assertEquals(writes - 1, replayed.get("large")[0]);
+        replayed.close();
+    }
+
+    @Test
+    public void updatesAfterCloseReopenTheFile() {
+        WriteAheadLog log = open();
+        log.put("before", bytes("close"));
+        log.close();
+
+        // Such as a task queued on the executor before shutting down that runs after it
+        log.put("after", bytes("close"));
+        log.write();
+
+        WriteAheadLog replayed = open();
+        assertArrayEquals(bytes("close"), replayed.get("before"));
+        assertArrayEquals(bytes("close"), replayed.get("after"));
+        replayed.close();
+    }
+
+    @Test
+    public void recoveringAgainKeepsUpdatesNotWrittenYet() {
+        WriteAheadLog log = open();
+        log.put("written", bytes("value"));
+        log.write();
+        log.put("queued", bytes("value"));
+
+        // Restarting with the same instance before the queued write has run
+        log.recover();
+        assertArrayEquals(bytes("value"), log.get("written"));
+        assertArrayEquals(bytes("value"), log.get("queued"));
+
+        log.put("restarted", bytes("value"));
+        log.close();
+        WriteAheadLog replayed = open();
+        assertEquals(3, replayed.entries("").size());
+        replayed.close();
+    }
+
+    private WriteAheadLog open() {
+        WriteAheadLog log = new WriteAheadLog(executor, file);
+        log.setSyncPolicy(WriteAheadLog.SyncPolicy.NEVER);
+        log.recover();
+        return log;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
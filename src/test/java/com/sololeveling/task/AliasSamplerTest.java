@@ -0,0 +1,113 @@
+package com.sololeveling.task;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks sampled frequencies against the weights with a chi-square test. The random is seeded, so the results
+ * are the same on every run; the critical values are for p = 0.001.
+ */
+public class AliasSamplerTest {
+    private static final int SAMPLES = 200_000;
+    private static final String[] VALUES = {"a", "b", "c", "d", "e", "f"};
+
+    @Test
+    public void samplesInProportionToTheWeights() {
+        double[] weights = {1, 2, 3, 4, 5, 25};
+        long[] counts = sample(new AliasSampler<>(VALUES, weights), 42);
+
+        // 5 degrees of freedom
+        assertChiSquareBelow(counts, weights, 20.52);
+    }
+
+    @Test
+    public void zeroWeightsAreNeverPicked() {
+        double[] weights = {3, 0, 1, 0, 6, 0};
+        long[] counts = sample(new AliasSampler<>(VALUES, weights), 7);
+
+        assertEquals(0, counts[1]);
+        assertEquals(0, counts[3]);
+        assertEquals(0, counts[5]);
+        // 2 degrees of freedom among the values that can be picked
+        assertChiSquareBelow(counts, weights, 13.82);
+    }
+
+    @Test
+    public void negativeWeightsCountAsZero() {
+        AliasSampler<String> sampler = new AliasSampler<>(new String[]{"a", "b"}, new double[]{-5, 1});
+
+        assertEquals(0, sampler.getWeight(0), 0);
+        assertEquals(0, sample(sampler, 3)[0]);
+    }
+
+    @Test
+    public void allZeroWeightsPickUniformly() {
+        double[] weights = new double[VALUES.length];
+        long[] counts = sample(new AliasSampler<>(VALUES, weights), 11);
+
+        double[] uniform = {1, 1, 1, 1, 1, 1};
+        assertChiSquareBelow(counts, uniform, 20.52);
+    }
+
+    @Test
+    public void singleValueIsAlwaysPicked() {
+        AliasSampler<String> sampler = new AliasSampler<>(new String[]{"only"}, new double[]{0.25});
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("only", sampler.sample(random));
+        }
+    }
+
+    @Test
+    public void sameSeedGivesTheSameSequence() {
+        AliasSampler<String> sampler = new AliasSampler<>(VALUES, new double[]{1, 2, 3, 4, 5, 6});
+        SplittableRandom first = new SplittableRandom(99);
+        SplittableRandom second = new SplittableRandom(99);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(sampler.sampleIndex(first), sampler.sampleIndex(second));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoValues() {
+        new AliasSampler<>(new String[0], new double[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedWeights() {
+        new AliasSampler<>(VALUES, new double[]{1, 2});
+    }
+
+    private static long[] sample(AliasSampler<String> sampler, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] counts = new long[sampler.size()];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[sampler.sampleIndex(random)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Pearson's chi-square over the values with a non-zero weight
+     */
+    static void assertChiSquareBelow(long[] counts, double[] weights, double critical) {
+        double total = 0;
+        long samples = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            samples += counts[i];
+        }
+        double chiSquare = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0) {
+                double expected = samples * weights[i] / total;
+                chiSquare += (counts[i] - expected) * (counts[i] - expected) / expected;
+            }
+        }
+        assertTrue("chi-square " + chiSquare + " over " + critical, chiSquare < critical);
+    }
+}
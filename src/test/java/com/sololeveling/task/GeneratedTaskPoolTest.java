@@ -0,0 +1,155 @@
+package com.sololeveling.task;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fills a {@link GeneratedTaskPool} past its capacity and checks which task each rank gives up, and that expired
+ * tasks are dropped on time
+ */
+public class GeneratedTaskPoolTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void expiredTasksAreEvictedFirst() {
+        GeneratedTaskPool pool = new GeneratedTaskPool(4);
+        pool.add(task("completed", true), NOW, NOW + HOUR);
+        pool.add(task("unseen", false), NOW, NOW + HOUR);
+        pool.add(task("seen", false), NOW, NOW + HOUR);
+        pool.add(task("expiring", false), NOW, NOW + 10);
+        pool.markViewed("seen", NOW + 1);
+        pool.markViewed("expiring", NOW + 1);
+
+        pool.add(task("new", false), NOW + 10, NOW + HOUR);
+        assertIds(pool, "completed", "unseen", "seen", "new");
+        assertEquals(1, pool.getStats().getExpired());
+        assertEquals(0, pool.getStats().getEvicted());
+    }
+
+    @Test
+    public void completedTasksGoBeforeOpenOnes() {
+        GeneratedTaskPool pool = new GeneratedTaskPool(4);
+        pool.add(task("unseen", false), NOW, NOW + HOUR);
+        pool.add(task("seen", false), NOW, NOW + HOUR);
+        pool.add(task("completed", true), NOW, NOW + HOUR);
+        pool.add(task("completed_later", true), NOW, NOW + HOUR);
+        pool.markViewed("seen", NOW + 1);
+        pool.markViewed("completed", NOW + 1);
+
+        pool.add(task("new", false), NOW + 2, NOW + HOUR);
+        assertIds(pool, "unseen", "seen", "completed_later", "new");
+        assertEquals(1, pool.getStats().getEvicted());
+        assertEquals(0, pool.getStats().getEvictedUnviewed());
+    }
+
+    @Test
+    public void oldestUnseenTaskGoesBeforeSeenOnes() {
+        GeneratedTaskPool pool = new GeneratedTaskPool(4);
+        pool.add(task("seen", false), NOW, NOW + HOUR);
+        pool.add(task("unseen_old", false), NOW + 1, NOW + HOUR);
+        pool.add(task("unseen_new", false), NOW + 2, NOW + HOUR);
+        pool.add(task("seen_too", false), NOW + 3, NOW + HOUR);
+        pool.markViewed("seen", NOW + 4);
+        pool.markViewed("seen_too", NOW + 4);
+
+        pool.add(task("new", false), NOW + 5, NOW + HOUR);
+        assertIds(pool, "seen", "unseen_new", "seen_too", "new");
+        assertEquals(1, pool.getStats().getEvictedUnviewed());
+    }
+
+    @Test
+    public void leastRecentlySeenTaskGoesLast() {
+        GeneratedTaskPool pool = new GeneratedTaskPool(3);
+        pool.add(task("a", false), NOW, NOW + HOUR);
+        pool.add(task("b", false), NOW, NOW + HOUR);
+        pool.add(task("c", false), NOW, NOW + HOUR);
+        pool.markViewed("a", NOW + 3);
+        pool.markViewed("b", NOW + 1);
+        pool.markViewed("c", NOW + 2);
+
+        pool.add(task("d", false), NOW + 4, NOW + HOUR);
+        assertIds(pool, "a", "c", "d");
+
+        // "d" is new and unseen, so it goes before any seen task
+        pool.add(task("e", false), NOW + 5, NOW + HOUR);
+        assertIds(pool, "a", "c", "e");
+        pool.markViewed("e", NOW + 6);
+        pool.markViewed("a", NOW + 7);
+        pool.add(task("f", false), NOW + 8, NOW + HOUR);
+        assertIds(pool, "a", "e", "f");
+        assertEquals(3, pool.getStats().getEvicted());
+    }
+
+    @Test
+    public void readdingATaskReplacesItWithoutEvicting() {
+        GeneratedTaskPool pool = new GeneratedTaskPool(2);
+        pool.add(task("a", false), NOW, NOW + HOUR);
+        pool.add(task("b", false), NOW, NOW + HOUR);
+        pool.add(task("a", true), NOW + 1, NOW + HOUR);
+
+        assertIds(pool, "b", "a");
+        assertTrue(pool.get("a").isCompleted());
+        assertEquals(0, pool.getStats().getEvicted());
+    }
+
+    @Test
+    public void expireDropsTasksOnceTheirTimeComes() {
+        GeneratedTaskPool pool = new GeneratedTaskPool(10);
+        pool.add(task("short", false), NOW, NOW + 100);
+        pool.add(task("long", false), NOW, NOW + HOUR);
+        pool.add(task("medium", false), NOW, NOW + 200);
+
+        assertEquals(0, pool.expire(NOW + 99));
+        assertEquals(1, pool.expire(NOW + 100));
+        assertNull(pool.get("short"));
+        assertEquals(0, pool.expire(NOW + 150));
+        assertEquals(1, pool.expire(NOW + 250));
+        assertIds(pool, "long");
+        assertEquals(1, pool.expire(NOW + HOUR));
+        assertEquals(0, pool.size());
+        assertEquals(3, pool.getStats().getExpired());
+    }
+
+    @Test
+    public void shrinkingTheCapacityEvictsStraightAway() {
+        GeneratedTaskPool pool = new GeneratedTaskPool(3);
+        pool.add(task("open", false), NOW, Long.MAX_VALUE);
+        pool.add(task("completed", true), NOW, Long.MAX_VALUE);
+        pool.add(task("other", false), NOW, Long.MAX_VALUE);
+
+        pool.setCapacity(1);
+        assertIds(pool, "other");
+        assertEquals(2, pool.getStats().getEvicted());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        new GeneratedTaskPool(0);
+    }
+
+    private static void assertIds(GeneratedTaskPool pool, String... ids) {
+        List<Task> tasks = pool.getTasks();
+        String[] actual = new String[tasks.size()];
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] = tasks.get(i).getId();
+        }
+        assertEquals(Arrays.asList(ids), Arrays.asList(actual));
+    }
+
+    private static Task task(String id, boolean completed) {
+        return Task.builder()
+                .id(id)
+                .name("Generated " + id)
+                .source(TaskSource.CUSTOM)
+                .completed(completed)
+                .visible(true)
+                .build();
+    }
+}
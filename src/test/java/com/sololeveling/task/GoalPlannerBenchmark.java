@@ -0,0 +1,105 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Experience;
+import net.runelite.api.Skill;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Latency benchmark for {@link GoalPlanner#plan}, which has to finish within 50 ms for 2,000 candidate tasks.
+ * The tasks are a mix of personalized level goals and random tasks, planned over several budgets up to one large
+ * enough to take every task. Each plan is checked for duplicates and for overrunning its budget.
+ * Run the main method directly; pass the number of tasks as the first argument (default 2000).
+ */
+public class GoalPlannerBenchmark {
+    private static final int ROUNDS = 50;
+    private static final double[] BUDGETS = {2, 8, 24, 100_000};
+    private static final long LIMIT_NANOS = 50_000_000;
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Random random = new Random(42);
+        Map<Skill, Integer> levels = randomLevels(random);
+        Map<Skill, Long> experience = new EnumMap<>(Skill.class);
+        Map<Skill, Double> rates = new EnumMap<>(Skill.class);
+        for (Map.Entry<Skill, Integer> entry : levels.entrySet()) {
+            experience.put(entry.getKey(), (long) Experience.getXpForLevel(entry.getValue()));
+            // Leave some skills on the default rate
+            if (random.nextBoolean()) {
+                rates.put(entry.getKey(), 10_000.0 + random.nextInt(140_000));
+            }
+        }
+        List<Task> tasks = randomTasks(taskCount, levels);
+
+        for (double budget : BUDGETS) {
+            GoalPlanner.PlanRequest request = new GoalPlanner.PlanRequest(tasks, experience, rates, budget);
+
+            // Warm up before measuring
+            for (int i = 0; i < 10; i++) {
+                verify(GoalPlanner.plan(request), budget);
+            }
+
+            long total = 0;
+            long worst = 0;
+            GoalPlanner.Plan plan = null;
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                plan = GoalPlanner.plan(request);
+                long elapsed = System.nanoTime() - start;
+                total += elapsed;
+                worst = Math.max(worst, elapsed);
+            }
+            verify(plan, budget);
+
+            System.out.printf("budget %8.0f h  %5d steps  %7d points  %8.2f ms avg  %8.2f ms worst%n",
+                    budget, plan.getSteps().size(), plan.getTotalPoints(), total / ROUNDS / 1e6, worst / 1e6);
+            check(worst < LIMIT_NANOS, "planning " + taskCount + " tasks took " + worst / 1e6 + " ms");
+        }
+    }
+
+    private static List<Task> randomTasks(int count, Map<Skill, Integer> levels) {
+        TaskManager taskManager = new TaskManager(new TaskGenerationContext(42));
+        List<Task> tasks = new ArrayList<>(taskManager.generate(count / 2, levels, null));
+        TaskDifficulty[] difficulties = TaskDifficulty.values();
+        TaskCategory[] categories = TaskCategory.values();
+        Random random = new Random(7);
+        while (tasks.size() < count) {
+            tasks.add(taskManager.createRandomTask(difficulties[random.nextInt(difficulties.length)],
+                    categories[random.nextInt(categories.length)]));
+        }
+        return tasks;
+    }
+
+    private static Map<Skill, Integer> randomLevels(Random random) {
+        Map<Skill, Integer> levels = new EnumMap<>(Skill.class);
+        for (Skill skill : Skill.values()) {
+            if (skill != Skill.OVERALL) {
+                levels.put(skill, 1 + random.nextInt(99));
+            }
+        }
+        return levels;
+    }
+
+    private static void verify(GoalPlanner.Plan plan, double budget) {
+        Set<String> seen = new HashSet<>();
+        double elapsed = 0;
+        for (GoalPlanner.Step step : plan.getSteps()) {
+            check(seen.add(step.getTask().getId()), "task planned twice: " + step.getTask().getId());
+            check(Math.abs(step.getStartHours() - elapsed) < 1e-9, "step starts out of order");
+            elapsed += step.getHours();
+        }
+        check(elapsed <= budget + 1e-9, "plan takes " + elapsed + " of " + budget + " hours");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Goal planner check failed: " + what);
+        }
+    }
+}
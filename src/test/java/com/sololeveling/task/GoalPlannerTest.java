@@ -0,0 +1,196 @@
+package com.sololeveling.task;
+
+import com.sololeveling.util.ExperienceTable;
+import net.runelite.api.Skill;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GoalPlannerTest {
+    private static final double MINUTE = 1 / 60.0;
+    private static final double RATE = 30_000;
+
+    @Test
+    public void goalsOnTheSameSkillShareProgress() {
+        Task to50 = goal("fish50", Skill.FISHING, 50, 10);
+        Task to55 = goal("fish55", Skill.FISHING, 55, 10);
+        GoalPlanner.Plan plan = plan(Arrays.asList(to55, to50), Collections.singletonMap(Skill.FISHING, 40), 100);
+
+        assertEquals(Arrays.asList(to50, to55), tasks(plan));
+        double first = (ExperienceTable.getXpForLevel(50) - ExperienceTable.getXpForLevel(40)) / RATE;
+        double second = (ExperienceTable.getXpForLevel(55) - ExperienceTable.getXpForLevel(50)) / RATE;
+        assertEquals(first, plan.getSteps().get(0).getHours(), 1e-9);
+        assertEquals(second, plan.getSteps().get(1).getHours(), 1e-9);
+        assertEquals(first, plan.getSteps().get(1).getStartHours(), 1e-9);
+        assertEquals(20, plan.getTotalPoints());
+    }
+
+    @Test
+    public void reachedGoalsGoFirstAndTakeAMinute() {
+        Task slow = fixed("slow", TaskDifficulty.EASY, 100);
+        Task reached = goal("reached", Skill.MINING, 30, 1);
+        GoalPlanner.Plan plan = plan(Arrays.asList(slow, reached), Collections.singletonMap(Skill.MINING, 35), 100);
+
+        assertEquals(Arrays.asList(reached, slow), tasks(plan));
+        assertEquals(MINUTE, plan.getSteps().get(0).getHours(), 1e-9);
+    }
+
+    @Test
+    public void tasksThatDoNotFitTheBudgetAreLeftOut() {
+        Task quick = fixed("quick", TaskDifficulty.EASY, 10);
+        Task big = fixed("big", TaskDifficulty.MEDIUM, 100);
+        GoalPlanner.Plan plan = plan(Arrays.asList(big, quick), Collections.emptyMap(), 0.5);
+
+        assertEquals(Collections.singletonList(quick), tasks(plan));
+        assertEquals(0.25, plan.getTotalHours(), 1e-9);
+    }
+
+    @Test
+    public void mostPointsPerHourComeFirst() {
+        Task slow = fixed("slow", TaskDifficulty.HARD, 30);
+        Task fast = fixed("fast", TaskDifficulty.EASY, 20);
+        GoalPlanner.Plan plan = plan(Arrays.asList(slow, fast), Collections.emptyMap(), 100);
+
+        assertEquals(Arrays.asList(fast, slow), tasks(plan));
+    }
+
+    @Test
+    public void completedAndPointlessTasksAreSkipped() {
+        Task done = fixed("done", TaskDifficulty.EASY, 10);
+        done.setCompleted(true);
+        Task pointless = fixed("pointless", TaskDifficulty.EASY, 0);
+        Task open = fixed("open", TaskDifficulty.EASY, 10);
+        GoalPlanner.Plan plan = plan(Arrays.asList(done, pointless, open), Collections.emptyMap(), 100);
+
+        assertEquals(Collections.singletonList(open), tasks(plan));
+    }
+
+    @Test
+    public void completedTaskIsDroppedFromThePlanStraightAway() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            GoalPlanner planner = new GoalPlanner(executor);
+            Task first = fixed("first", TaskDifficulty.EASY, 20);
+            Task second = fixed("second", TaskDifficulty.EASY, 10);
+            planner.requestPlan(request(Arrays.asList(first, second), Collections.emptyMap(), 100));
+            // The executor runs one thing at a time, so once this has run the plan has been made
+            executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+            assertEquals(Arrays.asList(first, second), tasks(planner.getPlan()));
+            planner.taskCompleted("first");
+            GoalPlanner.Plan plan = planner.getPlan();
+            assertEquals(Collections.singletonList(second), tasks(plan));
+            assertEquals(0, plan.getSteps().get(0).getStartHours(), 1e-9);
+            assertEquals(10, plan.getTotalPoints());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void plansTwoThousandTasksWithinEachBudget() {
+        Random random = new Random(42);
+        Map<Skill, Integer> levels = new EnumMap<>(Skill.class);
+        Map<Skill, Long> experience = new EnumMap<>(Skill.class);
+        Map<Skill, Double> rates = new EnumMap<>(Skill.class);
+        for (Skill skill : Skill.values()) {
+            if (skill == Skill.OVERALL) {
+                continue;
+            }
+            int level = 1 + random.nextInt(99);
+            levels.put(skill, level);
+            experience.put(skill, (long) ExperienceTable.getXpForLevel(level));
+            // Leave some skills on the default rate
+            if (random.nextBoolean()) {
+                rates.put(skill, 10_000.0 + random.nextInt(140_000));
+            }
+        }
+        List<Task> tasks = randomTasks(2000, levels);
+
+        for (double budget : new double[]{2, 8, 24, 100_000}) {
+            // Timing is left to GoalPlannerBenchmark, a wall-clock limit here would flake on a busy machine
+            GoalPlanner.Plan plan = GoalPlanner.plan(new GoalPlanner.PlanRequest(tasks, experience, rates, budget));
+            assertValid(plan, budget);
+            assertTrue("nothing planned with a " + budget + " hour budget", !plan.getSteps().isEmpty());
+        }
+
+        // With time for everything, every task worth points is planned
+        GoalPlanner.Plan all = GoalPlanner.plan(new GoalPlanner.PlanRequest(tasks, experience, rates, 100_000));
+        long worthPoints = tasks.stream().filter(task -> task.getPointsReward() > 0 && !task.isCompleted()).count();
+        assertEquals(worthPoints, all.getSteps().size());
+    }
+
+    private static void assertValid(GoalPlanner.Plan plan, double budget) {
+        Set<String> seen = new HashSet<>();
+        double elapsed = 0;
+        int points = 0;
+        for (GoalPlanner.Step step : plan.getSteps()) {
+            assertTrue("task planned twice: " + step.getTask().getId(), seen.add(step.getTask().getId()));
+            assertEquals(elapsed, step.getStartHours(), 1e-9);
+            elapsed += step.getHours();
+            points += step.getTask().getPointsReward();
+        }
+        assertTrue("plan takes " + elapsed + " of " + budget + " hours", elapsed <= budget + 1e-9);
+        assertEquals(elapsed, plan.getTotalHours(), 1e-6);
+        assertEquals(points, plan.getTotalPoints());
+    }
+
+    private static List<Task> randomTasks(int count, Map<Skill, Integer> levels) {
+        TaskManager taskManager = new TaskManager(new TaskGenerationContext(42));
+        List<Task> tasks = new ArrayList<>(taskManager.generate(count / 2, levels, null));
+        TaskDifficulty[] difficulties = TaskDifficulty.values();
+        TaskCategory[] categories = TaskCategory.values();
+        Random random = new Random(7);
+        while (tasks.size() < count) {
+            tasks.add(taskManager.createRandomTask(difficulties[random.nextInt(difficulties.length)],
+                    categories[random.nextInt(categories.length)]));
+        }
+        return tasks;
+    }
+
+    private static GoalPlanner.Plan plan(List<Task> tasks, Map<Skill, Integer> levels, double budgetHours) {
+        return GoalPlanner.plan(request(tasks, levels, budgetHours));
+    }
+
+    private static GoalPlanner.PlanRequest request(List<Task> tasks, Map<Skill, Integer> levels, double budgetHours) {
+        Map<Skill, Long> experience = new EnumMap<>(Skill.class);
+        Map<Skill, Double> rates = new EnumMap<>(Skill.class);
+        for (Map.Entry<Skill, Integer> level : levels.entrySet()) {
+            experience.put(level.getKey(), (long) ExperienceTable.getXpForLevel(level.getValue()));
+            rates.put(level.getKey(), RATE);
+        }
+        return new GoalPlanner.PlanRequest(tasks, experience, rates, budgetHours);
+    }
+
+    private static List<Task> tasks(GoalPlanner.Plan plan) {
+        List<Task> tasks = new ArrayList<>();
+        for (GoalPlanner.Step step : plan.getSteps()) {
+            tasks.add(step.getTask());
+        }
+        return tasks;
+    }
+
+    private static Task goal(String id, Skill skill, int level, int points) {
+        return Task.builder().id(id).name(id).difficulty(TaskDifficulty.MEDIUM).category(TaskCategory.SKILLING)
+                .skill(skill).targetLevel(level).pointsReward(points).build();
+    }
+
+    private static Task fixed(String id, TaskDifficulty difficulty, int points) {
+        return Task.builder().id(id).name(id).difficulty(difficulty).category(TaskCategory.COMBAT)
+                .pointsReward(points).build();
+    }
+}
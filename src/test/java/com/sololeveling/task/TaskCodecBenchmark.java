@@ -0,0 +1,260 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Skill;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Encode and decode throughput of {@link TaskCodec} for a pack of generated tasks and for tasks one at a time,
+ * with the encoded size against the writeUTF form the journal used before, and the heap taken by the tasks as
+ * generated, as decoded from a pack and as the pack itself.
+ * Run the main method directly; pass the number of tasks as the first argument (default 50000).
+ */
+public class TaskCodecBenchmark {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        List<Task> tasks = generateTasks(taskCount);
+
+        verify(tasks);
+
+        // Warm up before measuring
+        for (int i = 0; i < 3; i++) {
+            encodePack(tasks);
+            decodePack(TaskCodec.encodePack(tasks, true));
+            encodeEach(tasks);
+        }
+
+        byte[] pack = TaskCodec.encodePack(tasks, true);
+        long packEncode = 0;
+        long packDecode = 0;
+        long singleEncode = 0;
+        long singleDecode = 0;
+        List<byte[]> singles = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            singles.add(TaskCodec.encode(task));
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            packEncode += encodePack(tasks);
+            packDecode += decodePack(pack);
+            singleEncode += encodeEach(tasks);
+            singleDecode += decodeEach(singles);
+        }
+
+        long singleBytes = 0;
+        for (byte[] single : singles) {
+            singleBytes += single.length;
+        }
+        long legacyBytes = legacySize(tasks);
+        System.out.printf("%,d tasks%n", tasks.size());
+        System.out.printf("%-20s %,12d bytes  %6.1f bytes/task%n", "writeUTF form", legacyBytes,
+                (double) legacyBytes / tasks.size());
+        System.out.printf("%-20s %,12d bytes  %6.1f bytes/task%n", "encoded one by one", singleBytes,
+                (double) singleBytes / tasks.size());
+        System.out.printf("%-20s %,12d bytes  %6.1f bytes/task%n", "encoded as a pack", pack.length,
+                (double) pack.length / tasks.size());
+
+        report("pack encode", packEncode / ROUNDS, tasks.size(), pack.length);
+        report("pack decode", packDecode / ROUNDS, tasks.size(), pack.length);
+        report("single encode", singleEncode / ROUNDS, tasks.size(), singleBytes);
+        report("single decode", singleDecode / ROUNDS, tasks.size(), singleBytes);
+
+        compareMemory(taskCount, pack);
+    }
+
+    /**
+     * Every kind of task the manager generates, with a few completed or hidden
+     */
+    private static List<Task> generateTasks(int count) {
+        TaskManager taskManager = new TaskManager(new TaskGenerationContext(42));
+        Random random = new Random(42);
+        Map<Skill, Integer> stats = new EnumMap<>(Skill.class);
+        for (Skill skill : Skill.values()) {
+            if (skill != Skill.OVERALL) {
+                stats.put(skill, 1 + random.nextInt(99));
+            }
+        }
+        Map<TaskDifficulty, Integer> completed = new EnumMap<>(TaskDifficulty.class);
+        completed.put(TaskDifficulty.EASY, 7);
+
+        TaskDifficulty[] difficulties = TaskDifficulty.values();
+        TaskCategory[] categories = TaskCategory.values();
+        List<Task> tasks = new ArrayList<>(count);
+        while (tasks.size() < count) {
+            Task task;
+            switch (random.nextInt(4)) {
+                case 0:
+                    task = taskManager.createQuestTask();
+                    break;
+                case 1:
+                    task = taskManager.createPersonalizedTask("Hunter", stats, completed);
+                    break;
+                default:
+                    task = taskManager.createRandomTask(difficulties[random.nextInt(difficulties.length)],
+                            categories[random.nextInt(categories.length)]);
+                    break;
+            }
+            task.setCompleted(random.nextInt(5) == 0);
+            task.setVisible(random.nextInt(10) != 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Every task must come back equal, whether encoded alone, in a pack, or in a pack for sharing
+     */
+    private static void verify(List<Task> tasks) throws IOException {
+        for (Task task : tasks) {
+            check(TaskCodec.decode(TaskCodec.encode(task)).equals(task), "single " + task.getId());
+        }
+
+        List<Task> decoded = TaskCodec.decodePack(TaskCodec.encodePack(tasks, true));
+        check(decoded.equals(tasks), "pack");
+
+        List<Task> shared = TaskCodec.decodePack(TaskCodec.encodePack(tasks, false));
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = shared.get(i);
+            check(!task.isCompleted() && task.isVisible(), "shared pack state " + task.getId());
+            check(task.getId().equals(tasks.get(i).getId()) && task.getName().equals(tasks.get(i).getName()),
+                    "shared pack " + task.getId());
+        }
+
+        byte[] pack = TaskCodec.encodePack(tasks, true);
+        try {
+            TaskCodec.decodePack(Arrays.copyOf(pack, pack.length / 2));
+            check(false, "truncated pack was decoded");
+        } catch (IOException expected) {
+            // Truncation must be reported, not decoded into garbage
+        }
+    }
+
+    private static long encodePack(List<Task> tasks) {
+        long start = System.nanoTime();
+        byte[] pack = TaskCodec.encodePack(tasks, true);
+        long elapsed = System.nanoTime() - start;
+        consume(pack.length);
+        return elapsed;
+    }
+
+    private static long decodePack(byte[] pack) throws IOException {
+        long start = System.nanoTime();
+        List<Task> tasks = TaskCodec.decodePack(pack);
+        long elapsed = System.nanoTime() - start;
+        consume(tasks.size());
+        return elapsed;
+    }
+
+    private static long encodeEach(List<Task> tasks) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (Task task : tasks) {
+            bytes += TaskCodec.encode(task).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(bytes);
+        return elapsed;
+    }
+
+    private static long decodeEach(List<byte[]> singles) throws IOException {
+        long start = System.nanoTime();
+        long points = 0;
+        for (byte[] single : singles) {
+            points += TaskCodec.decode(single).getPointsReward();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(points);
+        return elapsed;
+    }
+
+    /**
+     * Heap retained by the tasks as generated, where every string is its own copy, against the same tasks decoded
+     * from a pack, which share the pack's strings, and against the pack itself
+     */
+    private static void compareMemory(int count, byte[] pack) throws IOException {
+        long before = usedMemory();
+        List<Task> generated = generateTasks(count);
+        long generatedBytes = usedMemory() - before;
+        consume(generated.size());
+        generated = null;
+
+        before = usedMemory();
+        List<Task> decoded = TaskCodec.decodePack(pack);
+        long decodedBytes = usedMemory() - before;
+        consume(decoded.size());
+
+        System.out.printf("%-20s %,12d bytes  %6.1f bytes/task%n", "heap as generated", generatedBytes,
+                (double) generatedBytes / count);
+        System.out.printf("%-20s %,12d bytes  %6.1f bytes/task%n", "heap as decoded", decodedBytes,
+                (double) decodedBytes / count);
+        System.out.printf("%-20s %,12d bytes  %6.1f bytes/task%n", "pack", pack.length,
+                (double) pack.length / count);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Size of the tasks in the writeUTF form TaskManager journaled before the codec
+     */
+    private static long legacySize(List<Task> tasks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Task task : tasks) {
+            out.writeUTF(task.getId());
+            out.writeUTF(task.getName());
+            writeOptional(out, task.getDescription());
+            out.writeUTF(task.getDifficulty().name());
+            out.writeUTF(task.getCategory().name());
+            out.writeUTF(task.getSource().name());
+            out.writeBoolean(task.isCompleted());
+            out.writeBoolean(task.isVisible());
+            out.writeInt(task.getExperienceReward());
+            out.writeInt(task.getPointsReward());
+            writeOptional(out, task.getRelatedQuestId());
+            writeOptional(out, task.getSkill() != null ? task.getSkill().name() : null);
+            out.writeShort(task.getTargetLevel());
+            writeOptional(out, task.getAdditionalData());
+        }
+        return bytes.size();
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void report(String name, long nanos, int tasks, long bytes) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-20s %8.2f ms/round  %12.0f tasks/s  %8.1f MB/s%n",
+                name, nanos / 1e6, tasks / seconds, bytes / 1e6 / seconds);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Task codec mismatch: " + what);
+        }
+    }
+
+    private static volatile long blackhole;
+
+    private static void consume(long value) {
+        blackhole += value;
+    }
+}
@@ -0,0 +1,217 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Skill;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips tasks and packs through {@link TaskCodec}, and checks corrupt input is rejected with an
+ * {@link IOException} rather than anything unchecked
+ */
+public class TaskCodecTest {
+    private static final String GENERATED_DESCRIPTION = "A randomly generated task to test your skills, Hunter!";
+
+    @Test
+    public void taskRoundTrips() throws IOException {
+        Task task = task("skill_1", "Reach 99 Slayer \u2694", GENERATED_DESCRIPTION);
+        assertEquals(task, TaskCodec.decode(TaskCodec.encode(task)));
+    }
+
+    @Test
+    public void negativeAndLargeNumbersRoundTrip() throws IOException {
+        Task task = Task.builder()
+                .id("numbers")
+                .experienceReward(Integer.MIN_VALUE)
+                .pointsReward(-1)
+                .targetLevel(Integer.MAX_VALUE)
+                .build();
+        assertEquals(task, TaskCodec.decode(TaskCodec.encode(task)));
+    }
+
+    @Test
+    public void nullFieldsRoundTrip() throws IOException {
+        Task task = Task.builder().id("bare").build();
+        Task decoded = TaskCodec.decode(TaskCodec.encode(task));
+
+        assertEquals(task, decoded);
+        assertNull(decoded.getName());
+        assertNull(decoded.getDifficulty());
+        assertNull(decoded.getCategory());
+        assertNull(decoded.getSource());
+        assertNull(decoded.getSkill());
+        assertNull(decoded.getRelatedQuestId());
+    }
+
+    @Test
+    public void taskDecodesFromPartOfAnArray() throws IOException {
+        Task task = task("journal_7", "Defeat 10 goblins", "Anywhere will do");
+        byte[] encoded = TaskCodec.encode(task);
+        byte[] padded = new byte[encoded.length + 10];
+        System.arraycopy(encoded, 0, padded, 4, encoded.length);
+
+        assertEquals(task, TaskCodec.decode(padded, 4, encoded.length));
+    }
+
+    @Test
+    public void dictionaryStringsAreWrittenAsReferences() {
+        byte[] encoded = TaskCodec.encode(task("generated_1", "Chop 50 logs", GENERATED_DESCRIPTION));
+        String other = GENERATED_DESCRIPTION.replace('H', 'h');
+        byte[] written = TaskCodec.encode(task("generated_1", "Chop 50 logs", other));
+        byte[] description = GENERATED_DESCRIPTION.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(-1, indexOf(encoded, description));
+        assertTrue(encoded.length <= written.length - description.length);
+    }
+
+    @Test
+    public void packRoundTripsAndSharesRepeatedStrings() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        String description = "Defeat the listed monsters anywhere in Gielinor to prove your strength.";
+        for (int i = 0; i < 100; i++) {
+            tasks.add(task("pack_" + i, "Defeat " + (i % 5 + 1) + " goblins", description));
+        }
+        byte[] pack = TaskCodec.encodePack(tasks, true);
+
+        // The description and the five names are each written once
+        byte[] utf8 = description.getBytes(StandardCharsets.UTF_8);
+        int first = indexOf(pack, utf8);
+        assertTrue(first >= 0);
+        assertEquals(-1, indexOf(Arrays.copyOfRange(pack, first + 1, pack.length), utf8));
+        int separately = 0;
+        for (Task task : tasks) {
+            separately += TaskCodec.encode(task).length;
+        }
+        assertTrue("pack of " + pack.length + " bytes", pack.length < separately - 99 * utf8.length);
+
+        List<Task> decoded = TaskCodec.decodePack(pack);
+        assertEquals(tasks, decoded);
+        assertSame(decoded.get(0).getDescription(), decoded.get(99).getDescription());
+        assertSame(decoded.get(0).getName(), decoded.get(5).getName());
+    }
+
+    @Test
+    public void packWithoutStateHasEveryTaskOpenAndVisible() throws IOException {
+        Task done = task("done", "Done", null);
+        done.setCompleted(true);
+        done.setVisible(false);
+
+        Task decoded = TaskCodec.decodePack(TaskCodec.encodePack(Collections.singletonList(done), false)).get(0);
+        assertFalse(decoded.isCompleted());
+        assertTrue(decoded.isVisible());
+        assertEquals(done.getName(), decoded.getName());
+    }
+
+    @Test
+    public void emptyPackRoundTrips() throws IOException {
+        assertTrue(TaskCodec.decodePack(TaskCodec.encodePack(Collections.emptyList(), true)).isEmpty());
+    }
+
+    @Test
+    public void truncatedInputIsRejected() {
+        byte[] encoded = TaskCodec.encode(task("skill_1", "Reach 99 Slayer", "Kill what the masters assign"));
+        for (int length = 0; length < encoded.length; length++) {
+            assertRejected(Arrays.copyOf(encoded, length), false);
+        }
+
+        byte[] pack = TaskCodec.encodePack(Arrays.asList(task("a", "First", "Shared"), task("b", "Second", "Shared")),
+                true);
+        for (int length = 0; length < pack.length; length++) {
+            assertRejected(Arrays.copyOf(pack, length), true);
+        }
+    }
+
+    @Test
+    public void unknownVersionsAndMagicAreRejected() {
+        byte[] encoded = TaskCodec.encode(task("skill_1", "Reach 99 Slayer", null));
+        encoded[0] = 2;
+        assertRejected(encoded, false);
+
+        byte[] pack = TaskCodec.encodePack(Collections.singletonList(task("a", "First", null)), true);
+        byte[] badVersion = pack.clone();
+        badVersion[4] = 2;
+        assertRejected(badVersion, true);
+        byte[] badMagic = pack.clone();
+        badMagic[0] = 'X';
+        assertRejected(badMagic, true);
+        assertRejected(encoded, true);
+    }
+
+    @Test
+    public void corruptFieldsAreRejected() {
+        // Version, the packed enum bytes, then the id's string reference
+        assertRejected(bytes(1, 0, 0, 0, 5), false);
+        assertRejected(bytes(1, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F), false);
+        assertRejected(bytes(1, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01), false);
+        // A new string claiming more bytes than are left, or a negative length
+        assertRejected(bytes(1, 0, 0, 0, 2, 50, 'i', 'd'), false);
+        assertRejected(bytes(1, 0, 0, 0, 2, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F), false);
+        // Difficulty, source and skill codes past the end of their enums
+        assertRejected(bytes(1, 0xF0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0), false);
+        assertRejected(bytes(1, 0, 0xF0, 0, 0, 0, 0, 0, 0, 0, 0, 0), false);
+        assertRejected(bytes(1, 0, 0, 0xFF, 0, 0, 0, 0, 0, 0, 0, 0), false);
+        // A pack with a negative task count
+        assertRejected(bytes('S', 'L', 'T', 'P', 1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F), true);
+    }
+
+    private static void assertRejected(byte[] data, boolean pack) {
+        try {
+            if (pack) {
+                TaskCodec.decodePack(data);
+            } else {
+                TaskCodec.decode(data);
+            }
+            fail("Decoded " + Arrays.toString(data));
+        } catch (IOException expected) {
+            // Rejected
+        }
+    }
+
+    private static Task task(String id, String name, String description) {
+        return Task.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .difficulty(TaskDifficulty.HARD)
+                .category(TaskCategory.COMBAT)
+                .source(TaskSource.CUSTOM)
+                .completed(true)
+                .visible(true)
+                .experienceReward(5_000)
+                .pointsReward(75)
+                .relatedQuestId("dragon_slayer")
+                .skill(Skill.SLAYER)
+                .targetLevel(99)
+                .additionalData("monster:abyssal demon")
+                .build();
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static int indexOf(byte[] data, byte[] target) {
+        for (int i = 0; i + target.length <= data.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(data, i, i + target.length), target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
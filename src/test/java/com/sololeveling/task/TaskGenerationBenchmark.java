@@ -0,0 +1,380 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Skill;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput benchmark for {@link TaskManager#generate} against the previous per-call path, which sorted the
+ * player's stats for every task and built its text with switch and if chains.
+ * Run the main method directly; pass the number of tasks per round as the first argument (default 100000).
+ */
+public class TaskGenerationBenchmark {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Map<Skill, Integer> stats = randomStats(new Random(42));
+        Map<TaskDifficulty, Integer> completed = new EnumMap<>(TaskDifficulty.class);
+        completed.put(TaskDifficulty.EASY, 7);
+        completed.put(TaskDifficulty.MEDIUM, 2);
+
+        verify();
+
+        TaskManager taskManager = new TaskManager(new TaskGenerationContext(42));
+        LegacyGenerator legacy = new LegacyGenerator();
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            runTable(taskManager, taskCount, stats, completed);
+            runLegacy(legacy, taskCount, stats, completed);
+        }
+
+        long tableNanos = 0;
+        long legacyNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            tableNanos += runTable(taskManager, taskCount, stats, completed);
+            legacyNanos += runLegacy(legacy, taskCount, stats, completed);
+        }
+
+        report("table generate", tableNanos / ROUNDS, taskCount);
+        report("legacy per-call", legacyNanos / ROUNDS, taskCount);
+    }
+
+    private static long runTable(TaskManager taskManager, int count, Map<Skill, Integer> stats,
+                                 Map<TaskDifficulty, Integer> completed) {
+        long start = System.nanoTime();
+        List<Task> tasks = taskManager.generate(count, stats, completed);
+        long elapsed = System.nanoTime() - start;
+        consume(tasks.get(tasks.size() - 1).getName().length() + tasks.size());
+        return elapsed;
+    }
+
+    private static long runLegacy(LegacyGenerator legacy, int count, Map<Skill, Integer> stats,
+                                  Map<TaskDifficulty, Integer> completed) {
+        long start = System.nanoTime();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(legacy.createPersonalizedTask(stats, completed));
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(tasks.get(tasks.size() - 1).getName().length() + tasks.size());
+        return elapsed;
+    }
+
+    /**
+     * Check the table produces the same text as the switch chains for every skill, level and target level
+     */
+    private static void verify() {
+        for (Skill skill : Skill.values()) {
+            for (int level = 1; level <= SkillTaskTable.MAX_LEVEL; level++) {
+                SkillTaskTable.Row row = SkillTaskTable.row(skill, level);
+                for (int target = level; target <= SkillTaskTable.MAX_LEVEL; target++) {
+                    String[] text = LegacyGenerator.text(skill, level, target);
+                    check(text[0].equals(row.name(target)), skill + " " + level + " name");
+                    check(text[1].equals(row.description(target)), skill + " " + level + " description");
+                }
+            }
+            for (TaskDifficulty difficulty : TaskDifficulty.values()) {
+                for (int level = 1; level <= SkillTaskTable.MAX_LEVEL; level++) {
+                    for (int roll = 0; roll < SkillTaskTable.rolls(difficulty); roll++) {
+                        int expected = Math.min(99, level + LegacyGenerator.scale(LegacyGenerator.baseIncrease(difficulty) + roll, level));
+                        check(SkillTaskTable.targetLevel(difficulty, level, roll) == expected, difficulty + " " + level + " target");
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<Skill, Integer> randomStats(Random random) {
+        Map<Skill, Integer> stats = new EnumMap<>(Skill.class);
+        for (Skill skill : Skill.values()) {
+            if (skill != Skill.OVERALL) {
+                stats.put(skill, 1 + random.nextInt(99));
+            }
+        }
+        return stats;
+    }
+
+    private static void report(String name, long nanos, int tasks) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-16s %8.2f ms/round  %12.0f tasks/s  %6.0f ns/task%n",
+                name, nanos / 1e6, tasks / seconds, (double) nanos / tasks);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Task table mismatch: " + what);
+        }
+    }
+
+    private static volatile long blackhole;
+
+    private static void consume(long value) {
+        blackhole += value;
+    }
+
+    /**
+     * The personalized task path TaskManager used before the lookup tables
+     */
+    private static final class LegacyGenerator {
+        private final Random random = new Random();
+
+        Task createPersonalizedTask(Map<Skill, Integer> currentStats, Map<TaskDifficulty, Integer> completed) {
+            TaskDifficulty difficulty = completed.getOrDefault(TaskDifficulty.EASY, 0) < 5 ? TaskDifficulty.EASY
+                    : completed.getOrDefault(TaskDifficulty.MEDIUM, 0) < 5 ? TaskDifficulty.MEDIUM : TaskDifficulty.HARD;
+            List<Skill> highest = currentStats.entrySet().stream()
+                    .filter(entry -> entry.getKey() != Skill.OVERALL)
+                    .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
+                    .limit(3)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            List<Skill> lowest = currentStats.entrySet().stream()
+                    .filter(entry -> entry.getKey() != Skill.OVERALL)
+                    .filter(entry -> entry.getValue() > 1)
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(3)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            List<Skill> targets = random.nextDouble() < 0.7 ? lowest : highest;
+            Skill skill = targets.get(random.nextInt(targets.size()));
+            int level = currentStats.getOrDefault(skill, 1);
+
+            int increase = scale(baseIncrease(difficulty) + random.nextInt(rolls(difficulty)), level);
+            int targetLevel = Math.min(99, level + increase);
+            String[] text = text(skill, level, targetLevel);
+            return Task.builder()
+                    .id("personalized_" + skill.name().toLowerCase() + "_" + System.currentTimeMillis())
+                    .name(text[0])
+                    .description(text[1])
+                    .difficulty(difficulty)
+                    .category(text[2] != null ? TaskCategory.COMBAT : TaskCategory.SKILLING)
+                    .source(TaskSource.CUSTOM)
+                    .experienceReward(1000 + random.nextInt(1000))
+                    .pointsReward(25 + random.nextInt(25))
+                    .completed(false)
+                    .visible(true)
+                    .build();
+        }
+
+        static int baseIncrease(TaskDifficulty difficulty) {
+            switch (difficulty) {
+                case EASY: return 1;
+                case MEDIUM: return 3;
+                case HARD: return 5;
+                case ELITE: return 10;
+                case MASTER: return 15;
+                default: return 1;
+            }
+        }
+
+        static int rolls(TaskDifficulty difficulty) {
+            switch (difficulty) {
+                case EASY: return 2;
+                case MEDIUM: return 3;
+                case HARD: return 5;
+                case ELITE: return 5;
+                case MASTER: return 10;
+                default: return 1;
+            }
+        }
+
+        static int scale(int baseIncrease, int currentLevel) {
+            if (currentLevel >= 80) {
+                return Math.max(1, baseIncrease / 2);
+            } else if (currentLevel >= 70) {
+                return Math.max(1, baseIncrease * 2 / 3);
+            } else if (currentLevel >= 50) {
+                return Math.max(1, baseIncrease * 3 / 4);
+            }
+            return baseIncrease;
+        }
+
+        /**
+         * @return name, description, and a non-null third element for combat tasks
+         */
+        static String[] text(Skill skill, int level, int targetLevel) {
+            switch (skill) {
+                case ATTACK:
+                case STRENGTH:
+                case DEFENCE:
+                case RANGED:
+                case MAGIC:
+                case PRAYER:
+                case HITPOINTS:
+                    return new String[]{"Reach level " + targetLevel + " " + skill.getName(),
+                            "Train your " + skill.getName() + " skill to level " + targetLevel + " to become stronger!", "combat"};
+                case MINING:
+                case FISHING:
+                case WOODCUTTING:
+                case HUNTER:
+                case FARMING:
+                    String resource = resource(skill, level);
+                    return new String[]{verb(skill) + " " + resource,
+                            verb(skill) + " " + resource + " until you reach level " + targetLevel + "!", null};
+                case COOKING:
+                case FIREMAKING:
+                case SMITHING:
+                case CRAFTING:
+                case FLETCHING:
+                case HERBLORE:
+                case RUNECRAFT:
+                case CONSTRUCTION:
+                    String product = product(skill, level);
+                    return new String[]{"Make " + product, "Create " + product + " until you reach level " + targetLevel + "!", null};
+                case AGILITY:
+                    String course = course(level);
+                    return new String[]{"Complete laps of the " + course,
+                            "Complete laps of the " + course + " until you reach level " + targetLevel + "!", null};
+                case THIEVING:
+                    String target = thievingTarget(level);
+                    return new String[]{"Pickpocket " + target, "Pickpocket " + target + " until you reach level " + targetLevel + "!", null};
+                case SLAYER:
+                    return new String[]{"Complete Slayer tasks",
+                            "Complete Slayer tasks from an appropriate master until level " + targetLevel + "!", null};
+                default:
+                    return new String[]{"Train " + skill.getName() + " to level " + targetLevel,
+                            "Increase your " + skill.getName() + " skill to level " + targetLevel + " to grow stronger!", null};
+            }
+        }
+
+        private static String verb(Skill skill) {
+            switch (skill) {
+                case MINING: return "Mine";
+                case FISHING: return "Catch";
+                case WOODCUTTING: return "Cut";
+                case HUNTER: return "Hunt";
+                case FARMING: return "Grow";
+                default: return "Gather";
+            }
+        }
+
+        private static String resource(Skill skill, int level) {
+            switch (skill) {
+                case MINING:
+                    if (level < 15) return "copper and tin ore";
+                    if (level < 30) return "iron ore";
+                    if (level < 40) return "coal";
+                    if (level < 55) return "mithril ore";
+                    if (level < 70) return "adamantite ore";
+                    if (level < 85) return "runite ore";
+                    return "amethyst";
+                case FISHING:
+                    if (level < 20) return "shrimp and anchovies";
+                    if (level < 40) return "trout and salmon";
+                    if (level < 60) return "lobsters";
+                    if (level < 76) return "swordfish and tuna";
+                    if (level < 85) return "sharks";
+                    return "anglerfish or minnows";
+                case WOODCUTTING:
+                    if (level < 15) return "regular logs";
+                    if (level < 30) return "oak logs";
+                    if (level < 45) return "willow logs";
+                    if (level < 60) return "maple logs";
+                    if (level < 75) return "yew logs";
+                    return "magic logs";
+                case HUNTER:
+                    if (level < 20) return "crimson swifts";
+                    if (level < 40) return "tropical wagtails";
+                    if (level < 60) return "chinchompas";
+                    if (level < 80) return "red chinchompas";
+                    return "black chinchompas";
+                case FARMING:
+                    if (level < 20) return "low-level crops";
+                    if (level < 40) return "mid-level crops";
+                    if (level < 60) return "higher-level crops";
+                    if (level < 80) return "fruit trees";
+                    return "high-level herbs and trees";
+                default:
+                    return "resources";
+            }
+        }
+
+        private static String product(Skill skill, int level) {
+            switch (skill) {
+                case COOKING:
+                    if (level < 20) return "shrimp and meat";
+                    if (level < 40) return "trout and salmon";
+                    if (level < 60) return "lobsters";
+                    if (level < 80) return "sharks";
+                    return "anglerfish or manta rays";
+                case FIREMAKING:
+                    if (level < 15) return "regular logs";
+                    if (level < 30) return "oak logs";
+                    if (level < 45) return "willow logs";
+                    if (level < 60) return "maple logs";
+                    if (level < 75) return "yew logs";
+                    return "magic logs or redwood logs";
+                case SMITHING:
+                    if (level < 15) return "bronze items";
+                    if (level < 30) return "iron items";
+                    if (level < 50) return "steel items";
+                    if (level < 70) return "mithril items";
+                    if (level < 85) return "adamant items";
+                    return "rune items";
+                case CRAFTING:
+                    if (level < 20) return "leather items";
+                    if (level < 40) return "jewelry";
+                    if (level < 60) return "dragonhide items";
+                    if (level < 80) return "battlestaves";
+                    return "high-level jewelry";
+                case FLETCHING:
+                    if (level < 30) return "arrow shafts and low-level bows";
+                    if (level < 50) return "oak bows and arrows";
+                    if (level < 70) return "yew bows and bolts";
+                    if (level < 85) return "magic bows";
+                    return "dragon bolts or redwood shields";
+                case HERBLORE:
+                    if (level < 30) return "low-level potions";
+                    if (level < 45) return "prayer potions";
+                    if (level < 65) return "super potions";
+                    if (level < 80) return "saradomin brews";
+                    return "super combat potions or stamina potions";
+                case RUNECRAFT:
+                    if (level < 20) return "air runes";
+                    if (level < 35) return "cosmic runes";
+                    if (level < 50) return "law runes";
+                    if (level < 65) return "death runes";
+                    if (level < 77) return "blood runes";
+                    return "soul runes or combination runes";
+                case CONSTRUCTION:
+                    if (level < 30) return "basic furniture";
+                    if (level < 50) return "oak furniture";
+                    if (level < 70) return "teak furniture";
+                    if (level < 85) return "mahogany furniture";
+                    return "high-level rooms or furniture";
+                default:
+                    return "items";
+            }
+        }
+
+        private static String course(int level) {
+            if (level < 20) return "Gnome Stronghold Course";
+            if (level < 30) return "Draynor Village Rooftop Course";
+            if (level < 40) return "Varrock Rooftop Course";
+            if (level < 50) return "Canifis Rooftop Course";
+            if (level < 60) return "Falador Rooftop Course";
+            if (level < 70) return "Seers' Village Rooftop Course";
+            if (level < 80) return "Pollnivneach Rooftop Course";
+            if (level < 90) return "Rellekka Rooftop Course";
+            return "Ardougne Rooftop Course";
+        }
+
+        private static String thievingTarget(int level) {
+            if (level < 20) return "Men/Women";
+            if (level < 25) return "Farmers";
+            if (level < 35) return "Warriors";
+            if (level < 45) return "Rogues";
+            if (level < 55) return "Master Farmers";
+            if (level < 65) return "Guards";
+            if (level < 75) return "Paladins";
+            if (level < 85) return "Heroes";
+            return "Elves";
+        }
+    }
+}
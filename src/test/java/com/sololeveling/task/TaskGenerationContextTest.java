@@ -0,0 +1,152 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Skill;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks a fixed seed reproduces generated tasks, and that the persisted id sequence stays unique across
+ * sessions while its blocks are reserved ahead of time
+ */
+public class TaskGenerationContextTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameSeedGeneratesTheSameTasks() {
+        List<Task> first = new TaskManager(new TaskGenerationContext(42)).generate(500, stats(), completed());
+        List<Task> second = new TaskManager(new TaskGenerationContext(42)).generate(500, stats(), completed());
+        List<Task> other = new TaskManager(new TaskGenerationContext(7)).generate(500, stats(), completed());
+
+        assertEquals(500, first.size());
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void reseedingRestartsTheRandomStream() {
+        TaskGenerationContext context = new TaskGenerationContext(42);
+        long[] draws = draw(context);
+        context.setSeed(42);
+        assertArrayEquals(draws, draw(context));
+    }
+
+    @Test
+    public void idsContinueFromTheLastSession() throws IOException {
+        File file = new File(folder.getRoot(), "sequence.dat");
+        TaskGenerationContext context = new TaskGenerationContext(file, 1);
+        context.load(Runnable::run);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals("skill_" + i, context.nextId("skill_"));
+        }
+        context.save();
+
+        assertEquals("skill_11", nextIdAfterRestart(file));
+    }
+
+    @Test
+    public void crashSkipsTheRestOfTheReservedBlock() throws IOException {
+        File file = new File(folder.getRoot(), "sequence.dat");
+        TaskGenerationContext context = new TaskGenerationContext(file, 1);
+        context.load(Runnable::run);
+        context.nextId("skill_");
+        context.nextId("skill_");
+
+        // No save, as after a crash
+        assertEquals("skill_1025", nextIdAfterRestart(file));
+    }
+
+    @Test
+    public void nextBlockIsReservedOnTheExecutorHalfwayThrough() throws IOException {
+        File file = new File(folder.getRoot(), "sequence.dat");
+        Queue<Runnable> executor = new ArrayDeque<>();
+        TaskGenerationContext context = new TaskGenerationContext(file, 1);
+        context.load(executor::add);
+
+        for (int i = 0; i < 511; i++) {
+            context.nextId("skill_");
+        }
+        assertEquals(0, executor.size());
+        context.nextId("skill_");
+        assertEquals(1, executor.size());
+        assertEquals("skill_1025", nextIdAfterRestart(file));
+
+        executor.remove().run();
+        assertEquals("skill_2049", nextIdAfterRestart(file));
+        // Ids run on into the block reserved ahead without writing again
+        for (int i = 0; i < 1_000; i++) {
+            context.nextId("skill_");
+        }
+        assertEquals("skill_2049", nextIdAfterRestart(file));
+        assertEquals(0, executor.size());
+    }
+
+    @Test
+    public void idsThatOvertakeTheExecutorReserveTheBlockThemselves() throws IOException {
+        File file = new File(folder.getRoot(), "sequence.dat");
+        Queue<Runnable> executor = new ArrayDeque<>();
+        TaskGenerationContext context = new TaskGenerationContext(file, 1);
+        context.load(executor::add);
+
+        for (int i = 0; i < 1_025; i++) {
+            context.nextId("skill_");
+        }
+        assertEquals("skill_2049", nextIdAfterRestart(file));
+
+        // The late reservation sees the block is already on disk
+        executor.remove().run();
+        assertEquals("skill_2049", nextIdAfterRestart(file));
+    }
+
+    /**
+     * The first id a new session would hand out, loaded from a copy since loading reserves a block of its own
+     */
+    private String nextIdAfterRestart(File file) throws IOException {
+        File copy = new File(folder.newFolder(), file.getName());
+        Files.copy(file.toPath(), copy.toPath());
+        TaskGenerationContext restarted = new TaskGenerationContext(copy, 1);
+        restarted.load(Runnable::run);
+        return restarted.nextId("skill_");
+    }
+
+    private static long[] draw(TaskGenerationContext context) {
+        long[] draws = new long[4];
+        for (int i = 0; i < draws.length; i++) {
+            draws[i] = context.random().nextLong();
+        }
+        return draws;
+    }
+
+    private static Map<Skill, Integer> stats() {
+        Map<Skill, Integer> stats = new EnumMap<>(Skill.class);
+        int level = 1;
+        for (Skill skill : Skill.values()) {
+            if (skill != Skill.OVERALL) {
+                stats.put(skill, level);
+                level = level % 99 + 7;
+            }
+        }
+        return stats;
+    }
+
+    private static Map<TaskDifficulty, Integer> completed() {
+        Map<TaskDifficulty, Integer> completed = new EnumMap<>(TaskDifficulty.class);
+        completed.put(TaskDifficulty.EASY, 7);
+        completed.put(TaskDifficulty.MEDIUM, 2);
+        return completed;
+    }
+}
@@ -0,0 +1,102 @@
+package com.sololeveling.task;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TaskSamplersTest {
+    private static final int SAMPLES = 200_000;
+    private static final int CATEGORIES = TaskCategory.values().length;
+
+    private final TaskSamplers samplers = new TaskSamplers();
+
+    @Test
+    public void difficultiesFollowTheDefaultWeights() {
+        long[] counts = sampleDifficulties(1);
+
+        // 4 degrees of freedom, p = 0.001
+        AliasSamplerTest.assertChiSquareBelow(counts, new double[]{40, 30, 20, 5, 5}, 18.47);
+    }
+
+    @Test
+    public void configuredWeightsReplaceTheDefaults() {
+        double[] weights = {0, 0, 1, 1, 2};
+        samplers.setDifficultyWeights(weights);
+        long[] counts = sampleDifficulties(2);
+
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[1]);
+        AliasSamplerTest.assertChiSquareBelow(counts, weights, 13.82);
+    }
+
+    @Test
+    public void categoriesAreUniformByDefault() {
+        long[] counts = sampleCategories(3);
+
+        double[] uniform = new double[CATEGORIES];
+        Arrays.fill(uniform, 1);
+        AliasSamplerTest.assertChiSquareBelow(counts, uniform, 24.32);
+    }
+
+    @Test
+    public void completionsBoostTheirCategoryAtMostTwofold() {
+        for (int i = 0; i < 50; i++) {
+            samplers.recordCompletion(Task.builder().category(TaskCategory.COMBAT).build());
+        }
+        long[] counts = sampleCategories(4);
+
+        // Every recent completion was combat, so its weight has doubled and no more
+        double[] expected = new double[CATEGORIES];
+        Arrays.fill(expected, 1);
+        expected[TaskCategory.COMBAT.ordinal()] = 2;
+        AliasSamplerTest.assertChiSquareBelow(counts, expected, 24.32);
+    }
+
+    @Test
+    public void turningAdaptiveOffForgetsCompletions() {
+        for (int i = 0; i < 50; i++) {
+            samplers.recordCompletion(Task.builder().category(TaskCategory.QUEST).build());
+        }
+        samplers.setAdaptive(false);
+        samplers.recordCompletion(Task.builder().category(TaskCategory.QUEST).build());
+        long[] counts = sampleCategories(5);
+
+        double[] uniform = new double[CATEGORIES];
+        Arrays.fill(uniform, 1);
+        AliasSamplerTest.assertChiSquareBelow(counts, uniform, 24.32);
+    }
+
+    @Test
+    public void parsesConfiguredWeights() {
+        assertArrayEquals(new double[]{1, 2.5, 0}, TaskSamplers.parseWeights(" 1, 2.5 ,0", 3), 0);
+        assertNull(TaskSamplers.parseWeights("", 3));
+        assertNull(TaskSamplers.parseWeights(null, 3));
+        assertNull(TaskSamplers.parseWeights("1,2", 3));
+        assertNull(TaskSamplers.parseWeights("1,-2,3", 3));
+        assertNull(TaskSamplers.parseWeights("1,x,3", 3));
+        assertNull(TaskSamplers.parseWeights("1,NaN,3", 3));
+    }
+
+    private long[] sampleDifficulties(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] counts = new long[TaskDifficulty.values().length];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[samplers.sampleDifficulty(random).ordinal()]++;
+        }
+        return counts;
+    }
+
+    private long[] sampleCategories(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] counts = new long[CATEGORIES];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[samplers.sampleCategory(random).ordinal()]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,164 @@
+package com.sololeveling.task;
+
+import net.runelite.api.Skill;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pins how much heap a {@link TaskTable} holding a 50k-task catalog takes once every task has been read, measured
+ * with JOL against the same tasks as objects, and checks its views read back the tasks stored and keep following
+ * them as rows are removed.
+ */
+public class TaskTableFootprintTest {
+    private static final int TASKS = 50_000;
+    // Measured at about a quarter of the objects and 85 bytes a task; these leave headroom for other JVMs
+    private static final double MAX_RATIO = 1 / 3.0;
+    private static final long MAX_BYTES_PER_TASK = 120;
+
+    private static final String[] MONSTERS = {"goblins", "cows", "hill giants", "moss giants", "lesser demons",
+            "greater demons", "black dragons", "abyssal demons"};
+
+    @Test
+    public void catalogFitsInAFractionOfTheObjectHeap() {
+        List<Task> objects = catalog();
+        TaskTable table = new TaskTable();
+        for (Task task : objects) {
+            table.add(task);
+        }
+        // Measured after the reads the planner, exports and overlay make, not just after loading
+        for (Task task : table.asList()) {
+            task.getId();
+            task.getName();
+            task.getDescription();
+            task.getRelatedQuestId();
+            task.getAdditionalData();
+        }
+
+        long objectBytes = GraphLayout.parseInstance(objects).totalSize();
+        long tableBytes = GraphLayout.parseInstance(table).totalSize();
+        String footprint = String.format("table %,d bytes, objects %,d bytes", tableBytes, objectBytes);
+        assertTrue(footprint, tableBytes <= objectBytes * MAX_RATIO);
+        assertTrue(footprint, tableBytes <= MAX_BYTES_PER_TASK * TASKS);
+    }
+
+    @Test
+    public void viewsReadBackTheTasksStored() {
+        List<Task> objects = catalog();
+        TaskTable table = new TaskTable();
+        for (Task task : objects) {
+            table.add(task);
+        }
+
+        assertEquals(TASKS, table.size());
+        for (int row = 0; row < TASKS; row += 97) {
+            assertEquals(objects.get(row), table.get(row));
+            assertEquals(objects.get(row).hashCode(), table.get(row).hashCode());
+            assertEquals(row, table.find(objects.get(row).getId()));
+        }
+        assertEquals(-1, table.find("missing"));
+
+        Task view = table.get(1);
+        view.setCompleted(true);
+        view.setVisible(false);
+        assertTrue(table.isCompleted(1));
+        assertFalse(table.isVisible(1));
+
+        table.remove(0);
+        assertEquals(TASKS - 1, table.size());
+        assertEquals(-1, table.find(objects.get(0).getId()));
+        assertEquals(0, table.find(objects.get(1).getId()));
+        assertTrue(table.get(0).isCompleted());
+    }
+
+    @Test
+    public void viewsFollowTheirTaskWhenEarlierRowsAreRemoved() {
+        List<Task> objects = catalog().subList(0, 1_000);
+        TaskTable table = new TaskTable();
+        for (Task task : objects) {
+            table.add(task);
+        }
+
+        Task first = table.get(0);
+        Task held = table.get(500);
+        Task last = table.get(999);
+        table.remove(800);
+        table.remove(3);
+        table.remove(0);
+
+        assertEquals(objects.get(500), held);
+        assertEquals(objects.get(999), last);
+        held.setCompleted(!objects.get(500).isCompleted());
+        held.setExperienceReward(123_456);
+        assertEquals(objects.get(500).getId(), table.get(498).getId());
+        assertEquals(!objects.get(500).isCompleted(), table.isCompleted(498));
+        assertEquals(123_456, table.get(498).getExperienceReward());
+        assertEquals(objects.get(499), table.get(497));
+
+        // Rows added later get views of their own, and the views held still find theirs
+        assertEquals(997, table.add(objects.get(0)));
+        assertEquals(objects.get(0), table.get(997));
+        assertEquals(objects.get(999), last);
+
+        try {
+            first.getName();
+            fail("Read a removed task");
+        } catch (IllegalStateException expected) {
+            // Row 0 is gone
+        }
+    }
+
+    @Test
+    public void viewsReuseRecentlyDecodedStrings() {
+        TaskTable table = new TaskTable();
+        for (Task task : catalog().subList(0, 100)) {
+            table.add(task);
+        }
+
+        Task view = table.get(8);
+        assertSame(view.getName(), view.getName());
+        // Every 40th task has the same description
+        assertSame(view.getDescription(), table.get(48).getDescription());
+        assertSame(view.getAdditionalData(), table.get(0).getAdditionalData());
+    }
+
+    /**
+     * Tasks as a catalog loaded from data would hold them: every task with its own strings, many of them repeated
+     */
+    private static List<Task> catalog() {
+        TaskDifficulty[] difficulties = TaskDifficulty.values();
+        TaskCategory[] categories = TaskCategory.values();
+        TaskSource[] sources = TaskSource.values();
+        Skill[] skills = Skill.values();
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            String monster = MONSTERS[i % MONSTERS.length];
+            int count = 10 + (i % 40) * 5;
+            tasks.add(Task.builder()
+                    .id("catalog_" + i)
+                    .name("Defeat " + count + " " + monster)
+                    .description("Defeat " + count + " " + monster + " anywhere in Gielinor to prove your strength.")
+                    .difficulty(difficulties[i % difficulties.length])
+                    .category(categories[i % categories.length])
+                    .source(sources[i % sources.length])
+                    .completed(i % 7 == 0)
+                    .visible(i % 11 != 0)
+                    .experienceReward(500 + (i % 20) * 250)
+                    .pointsReward(10 + (i % 10) * 5)
+                    .relatedQuestId(i % 5 == 0 ? "quest_" + (i % 60) : null)
+                    .skill(i % 3 == 0 ? skills[i % skills.length] : null)
+                    .targetLevel(i % 3 == 0 ? 1 + i % 99 : 0)
+                    .additionalData("monster:" + monster)
+                    .build());
+        }
+        return tasks;
+    }
+}
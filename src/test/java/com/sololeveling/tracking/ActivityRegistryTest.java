@@ -0,0 +1,131 @@
+package com.sololeveling.tracking;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Records activities into an {@link ActivityRegistry} while a fake clock moves across minute, hour and day
+ * boundaries, and checks each window drops counts as they age out
+ */
+public class ActivityRegistryTest {
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    // Midnight UTC
+    private static final long MIDNIGHT = 1_699_920_000_000L;
+
+    private long now = MIDNIGHT + 10 * HOUR;
+
+    @Test
+    public void lastHourDropsMinutesAsTheyAgeOut() {
+        ActivityRegistry registry = new ActivityRegistry(TimeZone.getTimeZone("UTC"));
+        int kills = registry.intern("Zulrah");
+        record(registry, kills, 30_000);
+        record(registry, kills, 30 * MINUTE - 30_000);
+        record(registry, kills, 29 * MINUTE + 59_000);
+        assertEquals(3, registry.getLastHour(kills, now));
+
+        // 11:00:30, so the 10:00 minute has left the window
+        now += 31_000;
+        assertEquals(2, registry.getLastHour(kills, now));
+        now += 31 * MINUTE;
+        assertEquals(1, registry.getLastHour(kills, now));
+        now += 29 * MINUTE;
+        assertEquals(0, registry.getLastHour(kills, now));
+        assertEquals(3, registry.getTotal(kills));
+    }
+
+    @Test
+    public void lastDayDropsHoursAsTheyAgeOut() {
+        ActivityRegistry registry = new ActivityRegistry(TimeZone.getTimeZone("UTC"));
+        int kills = registry.intern("Vorkath");
+        record(registry, kills, 0);
+        record(registry, kills, 13 * HOUR);
+        record(registry, kills, 2 * HOUR);
+
+        // 09:59 the next day still covers 10:00 today
+        now = MIDNIGHT + DAY + 9 * HOUR + 59 * MINUTE;
+        assertEquals(3, registry.getLastDay(kills, now));
+        now += MINUTE;
+        assertEquals(2, registry.getLastDay(kills, now));
+        now = MIDNIGHT + DAY + 23 * HOUR;
+        assertEquals(1, registry.getLastDay(kills, now));
+        now += 2 * HOUR;
+        assertEquals(0, registry.getLastDay(kills, now));
+    }
+
+    @Test
+    public void todayStartsAtLocalMidnight() {
+        // Ten hours ahead of UTC, so local midnight is 14:00 UTC
+        ActivityRegistry registry = new ActivityRegistry(TimeZone.getTimeZone("GMT+10"));
+        int kills = registry.intern("Barrows");
+        now = MIDNIGHT + 13 * HOUR;
+        record(registry, kills, 0);
+        record(registry, kills, 59 * MINUTE);
+        assertEquals(2, registry.getToday(kills, now));
+
+        record(registry, kills, 2 * MINUTE);
+        assertEquals(1, registry.getToday(kills, now));
+        assertEquals(3, registry.getLastDays(kills, 2, now));
+        assertEquals(3, registry.getLastDay(kills, now));
+
+        now += 3 * DAY;
+        assertEquals(0, registry.getToday(kills, now));
+        assertEquals(3, registry.getLastDays(kills, 7, now));
+        assertEquals(0, registry.getLastDays(kills, 3, now));
+    }
+
+    @Test
+    public void longGapsClearEveryWindowButKeepTheTotal() {
+        ActivityRegistry registry = new ActivityRegistry(TimeZone.getTimeZone("UTC"));
+        int kills = registry.intern("Zulrah");
+        registry.record(kills, 5, now);
+
+        now += 40 * DAY;
+        assertEquals(0, registry.getLastHour(kills, now));
+        assertEquals(0, registry.getLastDay(kills, now));
+        assertEquals(0, registry.getToday(kills, now));
+        assertEquals(0, registry.getLastDays(kills, 31, now));
+        assertEquals(5, registry.getTotal(kills));
+
+        // A count from before the window only adds to the total
+        registry.record(kills, 2, now - 2 * DAY);
+        assertEquals(0, registry.getLastDay(kills, now));
+        assertEquals(2, registry.getLastDays(kills, 3, now));
+        registry.record(kills, 4, now - 2 * HOUR);
+        assertEquals(0, registry.getLastHour(kills, now));
+        assertEquals(4, registry.getLastDay(kills, now));
+        assertEquals(11, registry.getTotal(kills));
+    }
+
+    @Test
+    public void activitiesCountSeparately() {
+        ActivityRegistry registry = new ActivityRegistry(TimeZone.getTimeZone("UTC"));
+        int zulrah = registry.intern("Zulrah");
+        int vorkath = registry.intern("Vorkath");
+        assertEquals(zulrah, registry.intern("Zulrah"));
+        registry.record(zulrah, 2, now);
+        registry.record(vorkath, 1, now);
+        registry.addTotal("Vorkath", 10);
+
+        assertEquals(2, registry.getLastHour(zulrah, now));
+        assertEquals(1, registry.getLastHour(vorkath, now));
+        assertEquals(Integer.valueOf(11), registry.getTotals().get("Vorkath"));
+
+        registry.clear();
+        assertEquals(0, registry.getLastHour(zulrah, now));
+        assertEquals(0, registry.getTotal(vorkath));
+        assertEquals(vorkath, registry.intern("Vorkath"));
+    }
+
+    /**
+     * Move the clock forward and record one
+     */
+    private void record(ActivityRegistry registry, int id, long after) {
+        now += after;
+        registry.record(id, 1, now);
+    }
+}
@@ -0,0 +1,135 @@
+package com.sololeveling.tracking;
+
+import net.runelite.api.Skill;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes and reads {@link PlayerProfile}s through a {@link ProfileStore} in a temporary directory
+ */
+public class ProfileStoreTest {
+    private static final long ACCOUNT = 0x1234_5678_9ABCL;
+    private static final long OTHER_ACCOUNT = 0x0FED_CBA9L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ScheduledExecutorService executor;
+    private ProfileStore store;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        store = new ProfileStore(executor, new File(folder.getRoot(), "profiles"));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void profileRoundTrips() {
+        PlayerProfile profile = profile(ACCOUNT, 1_000);
+        store.write(profile);
+
+        PlayerProfile read = store.read(ACCOUNT);
+        assertEquals(profile, read);
+        assertEquals(13_034_431L, (long) read.getSkillExperience().get(Skill.SLAYER));
+        assertEquals(Integer.valueOf(99), read.getSkillLevels().get(Skill.SLAYER));
+        assertTrue(read.getCompletedQuests().get("Dragon Slayer I"));
+    }
+
+    @Test
+    public void savesAndLoadsOnTheExecutor() throws Exception {
+        PlayerProfile profile = profile(ACCOUNT, 1_000);
+        store.save(profile);
+
+        CompletableFuture<PlayerProfile> loaded = new CompletableFuture<>();
+        store.load(ACCOUNT, loaded::complete);
+        assertEquals(profile, loaded.get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<PlayerProfile> missing = new CompletableFuture<>();
+        store.load(OTHER_ACCOUNT, missing::complete);
+        assertNull(missing.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void profileForAnotherAccountIsIgnored() throws IOException {
+        store.write(profile(ACCOUNT, 1_000));
+        File directory = new File(folder.getRoot(), "profiles");
+        Files.copy(new File(directory, Long.toHexString(ACCOUNT) + ".dat").toPath(),
+                new File(directory, Long.toHexString(OTHER_ACCOUNT) + ".dat").toPath());
+
+        assertNull(store.read(OTHER_ACCOUNT));
+        assertEquals(ACCOUNT, store.read(ACCOUNT).getAccountHash());
+    }
+
+    @Test
+    public void olderSaveDoesNotReplaceANewerOne() {
+        PlayerProfile newer = profile(ACCOUNT, 2_000);
+        store.write(newer);
+        // Queued before the newer one but run after it
+        store.write(profile(ACCOUNT, 1_000));
+        assertEquals(newer, store.read(ACCOUNT));
+
+        PlayerProfile later = profile(ACCOUNT, 3_000);
+        store.write(later);
+        assertEquals(later, store.read(ACCOUNT));
+
+        // Other accounts keep their own order
+        PlayerProfile other = profile(OTHER_ACCOUNT, 500);
+        store.write(other);
+        assertEquals(other, store.read(OTHER_ACCOUNT));
+        // One file per account, and no temp files left behind
+        assertEquals(2, new File(folder.getRoot(), "profiles").list().length);
+    }
+
+    @Test
+    public void unknownFormatIsIgnored() throws IOException {
+        store.write(profile(ACCOUNT, 1_000));
+        File file = new File(new File(folder.getRoot(), "profiles"), Long.toHexString(ACCOUNT) + ".dat");
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[4] = 2;
+        Files.write(file.toPath(), bytes);
+        assertNull(store.read(ACCOUNT));
+
+        Files.write(file.toPath(), new byte[]{'S', 'L', 'P', 'F', 1, 0});
+        assertNull(store.read(ACCOUNT));
+    }
+
+    private static PlayerProfile profile(long accountHash, long savedAt) {
+        Map<String, Boolean> quests = new LinkedHashMap<>();
+        quests.put("Dragon Slayer I", true);
+        quests.put("Monkey Madness II", false);
+        Map<Skill, Integer> levels = new EnumMap<>(Skill.class);
+        Map<Skill, Long> experience = new EnumMap<>(Skill.class);
+        levels.put(Skill.ATTACK, 75);
+        experience.put(Skill.ATTACK, 1_210_421L);
+        levels.put(Skill.SLAYER, 99);
+        experience.put(Skill.SLAYER, 13_034_431L);
+        Map<String, Integer> activities = new LinkedHashMap<>();
+        activities.put("Zulrah", 12);
+        activities.put("Barrows", 3);
+        return new PlayerProfile(accountHash, savedAt, 3_600_000L + savedAt, 6_000, 42, quests, levels, experience,
+                activities);
+    }
+}
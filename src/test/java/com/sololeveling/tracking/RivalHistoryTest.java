@@ -0,0 +1,130 @@
+package com.sololeveling.tracking;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Appends samples to a {@link RivalHistory} and reads them back at points in time, after pruning and after a
+ * round trip through its binary form
+ */
+public class RivalHistoryTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void samplesReadBackAtEachPointInTime() {
+        RivalHistory history = new RivalHistory(4);
+        assertNull(history.getAt(START));
+        assertEquals(0, history.getLatestTime());
+
+        assertTrue(history.append(START, new long[]{1_000, 0, 50, 13_034_431}));
+        assertTrue(history.append(START + MINUTE, new long[]{1_000, 25, 50, 13_034_431}));
+        // Nothing changed, so nothing is stored
+        assertFalse(history.append(START + 2 * MINUTE, new long[]{1_000, 25, 50, 13_034_431}));
+        assertTrue(history.append(START + 3 * MINUTE, new long[]{1_200, 25, 40, 13_100_000}));
+
+        assertEquals(3, history.getSampleCount());
+        assertEquals(START + 3 * MINUTE, history.getLatestTime());
+        assertArrayEquals(new long[]{1_200, 25, 40, 13_100_000}, history.getLatest());
+        // Before the first sample, gains are measured from it
+        assertArrayEquals(new long[]{1_000, 0, 50, 13_034_431}, history.getAt(START - MINUTE));
+        assertArrayEquals(new long[]{1_000, 0, 50, 13_034_431}, history.getAt(START + MINUTE - 1));
+        assertArrayEquals(new long[]{1_000, 25, 50, 13_034_431}, history.getAt(START + MINUTE));
+        assertArrayEquals(new long[]{1_000, 25, 50, 13_034_431}, history.getAt(START + 2 * MINUTE));
+        assertArrayEquals(new long[]{1_200, 25, 40, 13_100_000}, history.getAt(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void samplesChangingOneSkillCostAFewBytes() {
+        RivalHistory history = new RivalHistory(24);
+        long[] experience = new long[24];
+        for (int i = 0; i < experience.length; i++) {
+            experience[i] = 5_000_000 + i;
+        }
+        history.append(START, experience);
+        int keyframe = history.getEncodedSize();
+
+        for (int i = 1; i <= 1_000; i++) {
+            experience[7] += 300;
+            history.append(START + i * 30 * MINUTE, experience);
+        }
+        assertEquals(1_001, history.getSampleCount());
+        // Seconds since the last sample, the change mask and one delta
+        assertTrue("encoded in " + history.getEncodedSize(), history.getEncodedSize() - keyframe <= 1_000 * 7);
+        assertEquals(5_000_007 + 300_000, history.getLatest()[7]);
+    }
+
+    @Test
+    public void pruningKeepsTheLastSampleBeforeTheCutoffAsTheBaseline() {
+        RivalHistory history = new RivalHistory(2);
+        for (int i = 0; i < 5; i++) {
+            history.append(START + i * MINUTE, new long[]{100 * (i + 1), 7});
+        }
+
+        history.pruneBefore(START + 3 * MINUTE - 1);
+        assertEquals(3, history.getSampleCount());
+        assertArrayEquals(new long[]{300, 7}, history.getAt(START));
+        assertArrayEquals(new long[]{400, 7}, history.getAt(START + 3 * MINUTE));
+        assertArrayEquals(new long[]{500, 7}, history.getLatest());
+        assertEquals(START + 4 * MINUTE, history.getLatestTime());
+
+        // Appends carry on from the latest sample
+        assertTrue(history.append(START + 5 * MINUTE, new long[]{600, 8}));
+        assertArrayEquals(new long[]{500, 7}, history.getAt(START + 5 * MINUTE - 1));
+        assertArrayEquals(new long[]{600, 8}, history.getAt(START + 5 * MINUTE));
+    }
+
+    @Test
+    public void pruningWithNothingToDropKeepsEverySample() {
+        RivalHistory history = new RivalHistory(1);
+        history.append(START, new long[]{10});
+        history.append(START + MINUTE, new long[]{20});
+
+        history.pruneBefore(START - MINUTE);
+        assertEquals(2, history.getSampleCount());
+        // One sample before the cutoff is the baseline already
+        history.pruneBefore(START + 1_000);
+        assertEquals(2, history.getSampleCount());
+        assertArrayEquals(new long[]{10}, history.getAt(START));
+    }
+
+    @Test
+    public void historyRoundTrips() throws IOException {
+        RivalHistory history = new RivalHistory(3);
+        history.append(START, new long[]{0, 83, 1_154});
+        history.append(START + MINUTE, new long[]{0, 174, 1_154});
+        history.append(START + 90 * MINUTE, new long[]{50, 174, 1_000});
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        history.writeTo(new DataOutputStream(bytes));
+        RivalHistory read = RivalHistory.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(history.getSampleCount(), read.getSampleCount());
+        assertEquals(history.getEncodedSize(), read.getEncodedSize());
+        assertEquals(history.getLatestTime(), read.getLatestTime());
+        assertArrayEquals(history.getLatest(), read.getLatest());
+        for (long time = START - MINUTE; time <= START + 100 * MINUTE; time += 10 * MINUTE) {
+            assertArrayEquals(history.getAt(time), read.getAt(time));
+        }
+
+        assertFalse(read.append(START + 91 * MINUTE, new long[]{50, 174, 1_000}));
+        assertTrue(read.append(START + 92 * MINUTE, new long[]{60, 174, 1_000}));
+        assertArrayEquals(new long[]{50, 174, 1_000}, read.getAt(START + 91 * MINUTE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atMostThirtyTwoSkillsAreTracked() {
+        new RivalHistory(33);
+    }
+}
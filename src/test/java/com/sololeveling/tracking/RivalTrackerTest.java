@@ -0,0 +1,143 @@
+package com.sololeveling.tracking;
+
+import com.sololeveling.api.OsrsApiManager;
+import com.sololeveling.api.StubOsrsServer;
+import net.runelite.api.Skill;
+import net.runelite.client.callback.ClientThread;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Polls rivals from {@link StubOsrsServer} with a fake clock, and checks each rival's interval doubles while
+ * their XP stands still and resets once they gain some
+ */
+public class RivalTrackerTest {
+    private static final long BASE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    // Past the longest interval plus its jitter, so every rival is due again
+    private static final long ALL_DUE = 9 * BASE_INTERVAL;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final OkHttpClient okHttpClient = new OkHttpClient();
+    // Runs listener callbacks straight away instead of on a game client
+    private final ClientThread clientThread = new ClientThread() {
+        @Override
+        public void invokeLater(Runnable runnable) {
+            runnable.run();
+        }
+    };
+
+    private ScheduledExecutorService scheduler;
+    private StubOsrsServer server;
+    private File historyFile;
+
+    @Before
+    public void setUp() throws IOException {
+        scheduler = Executors.newScheduledThreadPool(2);
+        server = StubOsrsServer.start();
+        historyFile = new File(folder.getRoot(), "rivals.dat");
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        scheduler.shutdownNow();
+        okHttpClient.dispatcher().executorService().shutdown();
+    }
+
+    @Test
+    public void intervalDoublesWhileIdleAndResetsOnGains() throws Exception {
+        RivalTracker tracker = tracker();
+        tracker.setRivals(Collections.singletonList("Zezima"));
+        tracker.setPollInterval(1);
+
+        poll(tracker);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(BASE_INTERVAL, tracker.getPollInterval("Zezima"));
+
+        // Not due again until the interval has passed
+        poll(tracker);
+        assertEquals(1, server.getRequestCount());
+
+        long expected = BASE_INTERVAL;
+        for (int i = 0; i < 4; i++) {
+            now.addAndGet(ALL_DUE);
+            poll(tracker);
+            expected = Math.min(expected * 2, 8 * BASE_INTERVAL);
+            assertEquals(expected, tracker.getPollInterval("zezima"));
+        }
+        assertEquals(8 * BASE_INTERVAL, tracker.getPollInterval("Zezima"));
+        assertEquals(5, server.getRequestCount());
+
+        server.gainExperience(2_500);
+        now.addAndGet(ALL_DUE);
+        poll(tracker);
+        assertEquals(BASE_INTERVAL, tracker.getPollInterval("Zezima"));
+        List<RivalTracker.RivalGain> gains = tracker.getGainsSince("Zezima", 0);
+        assertEquals(Collections.singletonList(new RivalTracker.RivalGain("Zezima", Skill.ATTACK, 2_500)), gains);
+    }
+
+    @Test
+    public void unrankedRivalsArePolledRarely() throws Exception {
+        RivalTracker tracker = tracker();
+        tracker.setRivals(Arrays.asList("Zezima", "missing rival"));
+        tracker.setPollInterval(1);
+
+        poll(tracker);
+        assertEquals(BASE_INTERVAL, tracker.getPollInterval("Zezima"));
+        assertEquals(8 * BASE_INTERVAL, tracker.getPollInterval("missing rival"));
+    }
+
+    @Test
+    public void historySurvivesARestart() throws Exception {
+        RivalTracker tracker = tracker();
+        tracker.setRivals(Collections.singletonList("Zezima"));
+        tracker.setPollInterval(1);
+        poll(tracker);
+        server.gainExperience(1_000);
+        now.addAndGet(ALL_DUE);
+        poll(tracker);
+        tracker.stop();
+        assertTrue(historyFile.exists());
+
+        RivalTracker restarted = tracker();
+        restarted.setRivals(Collections.singletonList("Zezima"));
+        restarted.start();
+        restarted.stop();
+        assertEquals(tracker.getGainsSince("Zezima", 0), restarted.getGainsSince("Zezima", 0));
+    }
+
+    private RivalTracker tracker() {
+        OsrsApiManager apiManager = server.newApiManager(okHttpClient, clientThread, scheduler);
+        // Expire snapshots straight away, so every due rival is looked up again
+        apiManager.configureHiscoresCache(0, 100);
+        return new RivalTracker(apiManager, scheduler, historyFile, now::get);
+    }
+
+    /**
+     * Poll once and wait for the results, a moment after the last poll so its snapshots have expired
+     */
+    private static void poll(RivalTracker tracker) throws Exception {
+        Thread.sleep(2);
+        tracker.poll().get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,170 @@
+package com.sololeveling.tracking;
+
+import net.runelite.api.Skill;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Simulates months of daily play into a {@link SkillHistory}, then reports how fast XP is recorded, how large the
+ * history is once saved and how fast graph ranges are read back. Before measuring queries it checks every
+ * resolution against a plain map of the last XP per period, and that the history survives a save and reload.
+ * Run the main method directly; pass the number of days to simulate as the first argument (default 90).
+ */
+public class SkillHistoryBenchmark {
+    private static final long START = 1_700_000_000_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long TICK_MILLIS = 600;
+    private static final int SESSION_HOURS = 4;
+    private static final int QUERY_ROUNDS = 2_000;
+
+    public static void main(String[] args) throws IOException {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 90;
+        Skill[] skills = trackedSkills();
+        Random random = new Random(42);
+
+        SkillHistory history = new SkillHistory();
+        Map<SkillHistory.Resolution, TreeMap<Long, long[]>> expected = new EnumMap<>(SkillHistory.Resolution.class);
+        for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+            expected.put(resolution, new TreeMap<>());
+        }
+
+        long[] experience = new long[skills.length];
+        for (int i = 0; i < skills.length; i++) {
+            experience[i] = 100_000 + random.nextInt(1_000_000);
+        }
+
+        // A session a day: every skill reported at login, then XP drops every few ticks in a couple of skills
+        long recordNanos = 0;
+        int records = 0;
+        long now = START;
+        for (int day = 0; day < days; day++) {
+            now = START + day * DAY_MILLIS + (18 + random.nextInt(3)) * 3_600_000L;
+            int first = random.nextInt(skills.length);
+            int second = random.nextInt(skills.length);
+            long start = System.nanoTime();
+            for (int i = 0; i < skills.length; i++) {
+                history.record(skills[i], experience[i], now);
+            }
+            recordNanos += System.nanoTime() - start;
+            records += skills.length;
+            remember(expected, now, experience);
+
+            long end = now + SESSION_HOURS * 3_600_000L;
+            while (now < end) {
+                now += TICK_MILLIS * (2 + random.nextInt(4));
+                int trained = random.nextInt(4) == 0 ? second : first;
+                experience[trained] += 20 + random.nextInt(60);
+                start = System.nanoTime();
+                history.record(skills[trained], experience[trained], now);
+                recordNanos += System.nanoTime() - start;
+                records++;
+                remember(expected, now, experience);
+            }
+        }
+
+        verify(history, expected, skills, now);
+        byte[] saved = save(history);
+        SkillHistory reloaded = load(saved);
+        verify(reloaded, expected, skills, now);
+
+        System.out.printf("%d days, %,d records  %8.1f ns/record%n", days, records, (double) recordNanos / records);
+        for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+            System.out.printf("%-6s %,9d points%n", resolution, history.getPointCount(resolution));
+        }
+        System.out.printf("saved size %,d bytes (%.2f MB)%n", saved.length, saved.length / 1e6);
+
+        query(history, skills, SkillHistory.Resolution.MINUTE, now - 7 * DAY_MILLIS, now, "last week by minute");
+        query(history, skills, SkillHistory.Resolution.HOUR, now - 30 * DAY_MILLIS, now, "last month by hour");
+        query(history, skills, SkillHistory.Resolution.DAY, START, now, "everything by day");
+    }
+
+    private static Skill[] trackedSkills() {
+        return Arrays.stream(Skill.values())
+                .filter(skill -> skill != Skill.OVERALL)
+                .toArray(Skill[]::new);
+    }
+
+    private static void remember(Map<SkillHistory.Resolution, TreeMap<Long, long[]>> expected, long now,
+            long[] experience) {
+        for (Map.Entry<SkillHistory.Resolution, TreeMap<Long, long[]>> entry : expected.entrySet()) {
+            entry.getValue().put(Math.floorDiv(now, entry.getKey().getPeriodMillis()), experience.clone());
+        }
+    }
+
+    /**
+     * Every skill's XP read back from the history must match the last XP recorded in each period. The history
+     * skips repeated points, so each expected point is compared with the latest stored point at or before it.
+     */
+    private static void verify(SkillHistory history, Map<SkillHistory.Resolution, TreeMap<Long, long[]>> expected,
+            Skill[] skills, long now) {
+        for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+            // Older minutes and hours may have aged out, so only check what is certain to be retained
+            long from = resolution.getRetentionMillis() == Long.MAX_VALUE
+                    ? START : now - resolution.getRetentionMillis() + DAY_MILLIS;
+            long fromPeriod = Math.floorDiv(from, resolution.getPeriodMillis());
+            Map<Long, long[]> points = expected.get(resolution).tailMap(fromPeriod);
+            for (int i = 0; i < skills.length; i++) {
+                SkillHistory.Range range = history.getRange(skills[i], resolution, from, now);
+                check(range.size() > 0 && range.size() <= points.size(), resolution + " point count");
+                int index = -1;
+                for (Map.Entry<Long, long[]> point : points.entrySet()) {
+                    long time = point.getKey() * resolution.getPeriodMillis();
+                    while (index + 1 < range.size() && range.getTimes()[index + 1] <= time) {
+                        index++;
+                    }
+                    check(index >= 0 && range.getExperience()[index] == point.getValue()[i],
+                            resolution + " " + skills[i] + " at " + time);
+                }
+            }
+        }
+    }
+
+    private static byte[] save(SkillHistory history) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        history.copy().writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static SkillHistory load(byte[] saved) throws IOException {
+        return SkillHistory.readFrom(new DataInputStream(new ByteArrayInputStream(saved)));
+    }
+
+    private static void query(SkillHistory history, Skill[] skills, SkillHistory.Resolution resolution, long from,
+            long to, String name) {
+        // Warm up before measuring
+        for (int i = 0; i < QUERY_ROUNDS; i++) {
+            consume(history.getRange(skills[i % skills.length], resolution, from, to).size());
+        }
+
+        long start = System.nanoTime();
+        long points = 0;
+        for (int i = 0; i < QUERY_ROUNDS; i++) {
+            points += history.getRange(skills[i % skills.length], resolution, from, to).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(points);
+        System.out.printf("%-20s %6d points  %10.1f us/query%n", name, points / QUERY_ROUNDS,
+                elapsed / 1e3 / QUERY_ROUNDS);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Skill history mismatch: " + what);
+        }
+    }
+
+    private static volatile long blackhole;
+
+    private static void consume(long value) {
+        blackhole += value;
+    }
+}
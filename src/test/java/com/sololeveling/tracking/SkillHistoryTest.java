@@ -0,0 +1,323 @@
+package com.sololeveling.tracking;
+
+import net.runelite.api.Skill;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link SkillHistory}'s encoded blocks read back the points stored, across block boundaries and irregular
+ * deltas, and that saved histories reload, including ones saved with a different set of skill columns.
+ */
+public class SkillHistoryTest {
+    private static final SkillHistory.Resolution MINUTE = SkillHistory.Resolution.MINUTE;
+    private static final long MINUTE_MILLIS = MINUTE.getPeriodMillis();
+    private static final long START = 19_675 * 86_400_000L;
+    // Enough points to seal several 128-point blocks and leave a partly filled one open
+    private static final int POINTS = 700;
+
+    private static final Skill[] SKILLS = Arrays.stream(Skill.values())
+            .filter(skill -> skill != Skill.OVERALL)
+            .toArray(Skill[]::new);
+
+    @Test
+    public void pointsReadBackAcrossBlockBoundaries() throws IOException {
+        long[][] points = randomPoints(new Random(7), POINTS);
+        SkillHistory history = history(points);
+
+        assertEquals(POINTS, history.getPointCount(MINUTE));
+        assertTrue(history.getEncodedSize() > 0);
+        assertFullRange(history, points);
+
+        List<Long> changes = new ArrayList<>();
+        history.forEachChange(MINUTE, (time, skill, experience) -> changes.add(time));
+        assertEquals(START, (long) changes.get(0));
+        assertEquals(START + (POINTS - 1) * MINUTE_MILLIS, (long) changes.get(changes.size() - 1));
+    }
+
+    @Test
+    public void irregularAndNegativeDeltasRoundTrip() {
+        long[] experience = {0, 13_034_431, 13_034_430, 200_000_000, 5, 5, 199_999_999, 0, 1, Long.MAX_VALUE / 4, 0};
+        // Gaps that shrink and grow, so the delta of delta of the periods goes negative too
+        long[] gaps = {1, 1, 60, 2, 1, 240, 3, 1, 7, 1, 1};
+        long[][] points = new long[experience.length * 30][];
+        long time = START;
+        for (int i = 0; i < points.length; i++) {
+            time += gaps[i % gaps.length] * MINUTE_MILLIS;
+            points[i] = point(time, experience[i % experience.length] + 3 * i);
+        }
+        SkillHistory history = history(points);
+
+        assertEquals(points.length, history.getPointCount(MINUTE));
+        assertFullRange(history, points);
+    }
+
+    @Test
+    public void rangesStartAndEndInsideBlocks() {
+        long[][] points = randomPoints(new Random(11), POINTS);
+        SkillHistory history = history(points);
+
+        int[][] ranges = {{0, 0}, {127, 128}, {128, 255}, {200, 450}, {640, POINTS - 1}, {5, POINTS - 1}};
+        for (int[] range : ranges) {
+            SkillHistory.Range read = history.getRange(Skill.SLAYER, MINUTE, points[range[0]][0],
+                    points[range[1]][0] + MINUTE_MILLIS - 1);
+            assertEquals(range[1] - range[0] + 1, read.size());
+            for (int i = 0; i < read.size(); i++) {
+                assertEquals(points[range[0] + i][0], read.getTimes()[i]);
+                assertEquals(points[range[0] + i][1 + Skill.SLAYER.ordinal()], read.getExperience()[i]);
+            }
+        }
+
+        assertEquals(0, history.getRange(Skill.SLAYER, MINUTE, 0, START - 1).size());
+        assertEquals(0, history.getRange(Skill.SLAYER, MINUTE, START + POINTS * MINUTE_MILLIS, Long.MAX_VALUE).size());
+        assertEquals(0, history.getRange(Skill.OVERALL, MINUTE, START, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void repeatedAndOutOfOrderPointsAreNotStored() {
+        SkillHistory history = new SkillHistory();
+        record(history, START, experience(100));
+        record(history, START + MINUTE_MILLIS, experience(100));
+        record(history, START + 2 * MINUTE_MILLIS, experience(150));
+        record(history, START + 2 * MINUTE_MILLIS + 1_000, experience(175));
+        record(history, START + MINUTE_MILLIS, experience(120));
+
+        SkillHistory.Range range = history.getRange(Skill.ATTACK, MINUTE, START, Long.MAX_VALUE);
+        assertArrayEquals(new long[]{START, START + 2 * MINUTE_MILLIS}, range.getTimes());
+        assertArrayEquals(new long[]{100, 175}, range.getExperience());
+    }
+
+    @Test
+    public void nothingIsStoredUntilEverySkillIsRecorded() {
+        SkillHistory history = new SkillHistory();
+        for (int i = 0; i < SKILLS.length - 1; i++) {
+            history.record(SKILLS[i], 1_000, START);
+        }
+        assertEquals(0, history.getPointCount(MINUTE));
+
+        history.record(SKILLS[SKILLS.length - 1], 1_000, START);
+        for (SkillHistory.Resolution resolution : SkillHistory.Resolution.values()) {
+            assertEquals(1, history.getPointCount(resolution));
+        }
+    }
+
+    @Test
+    public void savedHistoryReloadsAndKeepsFillingTheOpenBlock() throws IOException {
+        long[][] points = randomPoints(new Random(3), POINTS);
+        SkillHistory history = history(points);
+
+        SkillHistory reloaded = SkillHistory.readFrom(input(save(history)));
+        assertEquals(POINTS, reloaded.getPointCount(MINUTE));
+        assertFullRange(reloaded, points);
+        assertArrayEquals(save(history), save(reloaded));
+
+        // Points recorded after the reload continue past the saved ones, sealing the reopened block when full
+        long[][] more = Arrays.copyOf(points, POINTS + 200);
+        Random random = new Random(5);
+        for (int i = POINTS; i < more.length; i++) {
+            more[i] = nextPoint(random, more[i - 1], START + i * MINUTE_MILLIS);
+            record(reloaded, more[i][0], Arrays.copyOfRange(more[i], 1, more[i].length));
+        }
+        assertEquals(more.length, reloaded.getPointCount(MINUTE));
+        assertFullRange(reloaded, more);
+    }
+
+    @Test
+    public void savedHistoryWithoutANewSkillReloadsWithItMissing() throws IOException {
+        long[][] points = randomPoints(new Random(17), POINTS);
+        SkillHistory history = history(points);
+
+        // As saved by a client from before the last skill was added
+        Skill added = SKILLS[SKILLS.length - 1];
+        String[] names = new String[SKILLS.length - 1];
+        int[] columns = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = SKILLS[i].name();
+            columns[i] = i;
+        }
+        SkillHistory reloaded = SkillHistory.readFrom(input(rewriteColumns(save(history), names, columns)));
+
+        assertEquals(POINTS, reloaded.getPointCount(MINUTE));
+        for (Skill skill : new Skill[]{SKILLS[0], Skill.SLAYER, SKILLS[SKILLS.length - 2]}) {
+            SkillHistory.Range range = reloaded.getRange(skill, MINUTE, START, Long.MAX_VALUE);
+            for (int i = 0; i < POINTS; i++) {
+                assertEquals(points[i][1 + skill.ordinal()], range.getExperience()[i]);
+            }
+        }
+        long[] missing = reloaded.getRange(added, MINUTE, START, Long.MAX_VALUE).getExperience();
+        assertArrayEquals(new long[POINTS], missing);
+
+        // The new skill has no XP to carry forward, so recording waits for it
+        long now = START + POINTS * MINUTE_MILLIS;
+        reloaded.record(SKILLS[0], points[POINTS - 1][1 + SKILLS[0].ordinal()] + 1, now);
+        assertEquals(POINTS, reloaded.getPointCount(MINUTE));
+        reloaded.record(added, 500, now);
+        assertEquals(POINTS + 1, reloaded.getPointCount(MINUTE));
+    }
+
+    @Test
+    public void savedHistoryWithAnUnknownSkillDropsIt() throws IOException {
+        long[][] points = randomPoints(new Random(19), POINTS);
+        SkillHistory history = history(points);
+
+        // As saved by a newer client with a skill this one doesn't know, stored first and in a different order
+        String[] names = new String[SKILLS.length + 1];
+        int[] columns = new int[names.length];
+        names[0] = "FLETCHERY";
+        columns[0] = 3;
+        for (int i = 0; i < SKILLS.length; i++) {
+            names[i + 1] = SKILLS[SKILLS.length - 1 - i].name();
+            columns[i + 1] = SKILLS.length - 1 - i;
+        }
+        SkillHistory reloaded = SkillHistory.readFrom(input(rewriteColumns(save(history), names, columns)));
+
+        assertEquals(POINTS, reloaded.getPointCount(MINUTE));
+        assertFullRange(reloaded, points);
+    }
+
+    private static void assertFullRange(SkillHistory history, long[][] points) {
+        long[] times = new long[points.length];
+        for (int i = 0; i < points.length; i++) {
+            times[i] = points[i][0];
+        }
+        for (Skill skill : SKILLS) {
+            SkillHistory.Range range = history.getRange(skill, MINUTE, START, Long.MAX_VALUE);
+            long[] experience = new long[points.length];
+            for (int i = 0; i < points.length; i++) {
+                experience[i] = points[i][1 + skill.ordinal()];
+            }
+            assertArrayEquals(skill.name(), times, range.getTimes());
+            assertArrayEquals(skill.name(), experience, range.getExperience());
+        }
+    }
+
+    private static SkillHistory history(long[][] points) {
+        SkillHistory history = new SkillHistory();
+        for (long[] point : points) {
+            record(history, point[0], Arrays.copyOfRange(point, 1, point.length));
+        }
+        return history;
+    }
+
+    /**
+     * Record every skill's XP, indexed by skill ordinal, at the same time
+     */
+    private static void record(SkillHistory history, long time, long[] experience) {
+        for (Skill skill : SKILLS) {
+            history.record(skill, experience[skill.ordinal()], time);
+        }
+    }
+
+    /**
+     * Points a minute apart, each the time followed by XP by skill ordinal, with a few skills trained at a time
+     */
+    private static long[][] randomPoints(Random random, int count) {
+        long[][] points = new long[count][];
+        points[0] = point(START, 0);
+        for (int i = 0; i < SKILLS.length; i++) {
+            points[0][1 + SKILLS[i].ordinal()] = random.nextInt(14_000_000);
+        }
+        for (int i = 1; i < count; i++) {
+            points[i] = nextPoint(random, points[i - 1], START + i * MINUTE_MILLIS);
+        }
+        return points;
+    }
+
+    private static long[] nextPoint(Random random, long[] previous, long time) {
+        long[] point = previous.clone();
+        point[0] = time;
+        int trained = 1 + random.nextInt(3);
+        for (int i = 0; i < trained; i++) {
+            int gained = 1 + random.nextInt(random.nextBoolean() ? 50 : 50_000);
+            point[1 + SKILLS[random.nextInt(SKILLS.length)].ordinal()] += gained;
+        }
+        return point;
+    }
+
+    private static long[] point(long time, long experience) {
+        long[] point = new long[1 + Skill.values().length];
+        point[0] = time;
+        for (Skill skill : SKILLS) {
+            point[1 + skill.ordinal()] = experience;
+        }
+        return point;
+    }
+
+    private static long[] experience(long experience) {
+        return Arrays.copyOfRange(point(0, experience), 1, 1 + Skill.values().length);
+    }
+
+    private static byte[] save(SkillHistory history) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        history.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] saved) {
+        return new DataInputStream(new ByteArrayInputStream(saved));
+    }
+
+    /**
+     * Rewrite a saved history as if saved with other skill columns: each named column holds the saved column at
+     * the same position in {@code columns}. Columns are encoded independently, so their bytes are copied as is.
+     */
+    private static byte[] rewriteColumns(byte[] saved, String[] names, int[] columns) throws IOException {
+        DataInputStream in = input(saved);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        int savedColumns = in.readUnsignedByte();
+        for (int i = 0; i < savedColumns; i++) {
+            in.readUTF();
+        }
+        out.writeByte(names.length);
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+
+        int series = in.readUnsignedByte();
+        out.writeByte(series);
+        for (int r = 0; r < series; r++) {
+            int blocks = in.readInt();
+            out.writeInt(blocks);
+            for (int b = 0; b < blocks; b++) {
+                out.writeShort(in.readUnsignedShort());
+                out.writeLong(in.readLong());
+                out.writeLong(in.readLong());
+
+                // The periods, then one column per skill
+                byte[][] data = new byte[savedColumns + 1][];
+                int[] lengths = new int[data.length];
+                for (int column = 0; column < data.length; column++) {
+                    lengths[column] = in.readUnsignedShort();
+                }
+                for (int column = 0; column < data.length; column++) {
+                    data[column] = new byte[lengths[column]];
+                    in.readFully(data[column]);
+                }
+
+                out.writeShort(data[0].length);
+                for (int column : columns) {
+                    out.writeShort(data[column + 1].length);
+                }
+                out.write(data[0]);
+                for (int column : columns) {
+                    out.write(data[column + 1]);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
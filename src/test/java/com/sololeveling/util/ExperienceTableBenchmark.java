@@ -0,0 +1,128 @@
+package com.sololeveling.util;
+
+import java.util.Random;
+
+/**
+ * Throughput benchmark for {@link ExperienceTable} lookups against evaluating the experience formula directly,
+ * which sums the curve level by level until it passes the XP. Checks both agree on every level boundary first.
+ * The formula is slow enough that it only does a fraction of the table's lookups per round.
+ * Run the main method directly; pass the number of lookups per round as the first argument (default 10000000).
+ */
+public class ExperienceTableBenchmark {
+    private static final int ROUNDS = 10;
+    private static final int FORMULA_FRACTION = 64;
+
+    public static void main(String[] args) {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        verify();
+
+        // Spread the XP over the whole curve, so the formula pays for high levels as it would in a real account
+        Random random = new Random(42);
+        long[] xp = new long[4096];
+        for (int i = 0; i < xp.length; i++) {
+            xp[i] = random.nextInt(ExperienceTable.MAX_EXPERIENCE + 1);
+        }
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            runTable(xp, lookups);
+            runFormula(xp, lookups / FORMULA_FRACTION);
+        }
+
+        long tableNanos = 0;
+        long formulaNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            tableNanos += runTable(xp, lookups);
+            formulaNanos += runFormula(xp, lookups / FORMULA_FRACTION);
+        }
+
+        report("table", tableNanos / ROUNDS, lookups);
+        report("formula", formulaNanos / ROUNDS, lookups / FORMULA_FRACTION);
+    }
+
+    private static long runTable(long[] xp, int lookups) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < lookups; i++) {
+            sum += ExperienceTable.getLevelForXp(xp[i & (xp.length - 1)]);
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sum);
+        return elapsed;
+    }
+
+    private static long runFormula(long[] xp, int lookups) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < lookups; i++) {
+            sum += levelForXp(xp[i & (xp.length - 1)]);
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sum);
+        return elapsed;
+    }
+
+    /**
+     * Check the table against the formula at, just below and just above every level boundary
+     */
+    private static void verify() {
+        for (int level = 1; level <= ExperienceTable.MAX_VIRTUAL_LEVEL; level++) {
+            int xp = xpForLevel(level);
+            check(ExperienceTable.getXpForLevel(level) == xp, "xp for level " + level);
+            check(ExperienceTable.getLevelForXp(xp) == level, "level at " + xp + " xp");
+            if (level > 1) {
+                check(ExperienceTable.getLevelForXp(xp - 1) == level - 1, "level below " + xp + " xp");
+            }
+            check(ExperienceTable.getLevelForXp(xp + 1) == levelForXp(xp + 1), "level above " + xp + " xp");
+        }
+        int maxXp = ExperienceTable.MAX_EXPERIENCE;
+        check(ExperienceTable.getLevelForXp(maxXp) == ExperienceTable.MAX_VIRTUAL_LEVEL, "max xp");
+        check(ExperienceTable.getRealLevelForXp(maxXp) == ExperienceTable.MAX_REAL_LEVEL, "real level");
+        check(ExperienceTable.getLevelForXp(-1) == 1, "negative xp");
+        check(ExperienceTable.getXpToNextLevel(0) == 83, "xp to level 2");
+        check(ExperienceTable.getLevelProgress(ExperienceTable.getXpForLevel(50)) == 0, "progress at a level");
+        check(ExperienceTable.getLevelProgress(ExperienceTable.MAX_EXPERIENCE) == 1, "progress at max");
+    }
+
+    /**
+     * The experience formula, evaluated from scratch
+     */
+    private static int xpForLevel(int level) {
+        int points = 0;
+        for (int l = 1; l < level; l++) {
+            points += (int) Math.floor(l + 300 * Math.pow(2, l / 7.0));
+        }
+        return points / 4;
+    }
+
+    private static int levelForXp(long xp) {
+        int points = 0;
+        int level = 1;
+        while (level < ExperienceTable.MAX_VIRTUAL_LEVEL) {
+            points += (int) Math.floor(level + 300 * Math.pow(2, level / 7.0));
+            if (points / 4 > xp) {
+                break;
+            }
+            level++;
+        }
+        return level;
+    }
+
+    private static void report(String name, long nanos, int lookups) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-8s %8.2f ms/round  %14.0f lookups/s  %8.2f ns/lookup%n",
+                name, nanos / 1e6, lookups / seconds, (double) nanos / lookups);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Experience table mismatch: " + what);
+        }
+    }
+
+    private static volatile long blackhole;
+
+    private static void consume(long value) {
+        blackhole += value;
+    }
+}
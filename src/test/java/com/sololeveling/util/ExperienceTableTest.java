@@ -0,0 +1,75 @@
+package com.sololeveling.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link ExperienceTable} against known values from the game's experience table, and the search against a
+ * plain scan at every level boundary
+ */
+public class ExperienceTableTest {
+    @Test
+    public void xpForLevelMatchesTheGame() {
+        assertEquals(0, ExperienceTable.getXpForLevel(1));
+        assertEquals(83, ExperienceTable.getXpForLevel(2));
+        assertEquals(174, ExperienceTable.getXpForLevel(3));
+        assertEquals(1_154, ExperienceTable.getXpForLevel(10));
+        assertEquals(101_333, ExperienceTable.getXpForLevel(50));
+        assertEquals(6_517_253, ExperienceTable.getXpForLevel(92));
+        assertEquals(13_034_431, ExperienceTable.getXpForLevel(99));
+        assertEquals(14_391_160, ExperienceTable.getXpForLevel(100));
+        assertEquals(188_884_740, ExperienceTable.getXpForLevel(126));
+    }
+
+    @Test
+    public void levelsOutsideTheTableAreClamped() {
+        assertEquals(0, ExperienceTable.getXpForLevel(0));
+        assertEquals(0, ExperienceTable.getXpForLevel(-3));
+        assertEquals(188_884_740, ExperienceTable.getXpForLevel(127));
+    }
+
+    @Test
+    public void levelForXpMatchesTheGame() {
+        assertEquals(1, ExperienceTable.getLevelForXp(0));
+        assertEquals(1, ExperienceTable.getLevelForXp(82));
+        assertEquals(2, ExperienceTable.getLevelForXp(83));
+        assertEquals(98, ExperienceTable.getLevelForXp(13_034_430));
+        assertEquals(99, ExperienceTable.getLevelForXp(13_034_431));
+        assertEquals(125, ExperienceTable.getLevelForXp(188_884_739));
+        assertEquals(126, ExperienceTable.getLevelForXp(188_884_740));
+        assertEquals(126, ExperienceTable.getLevelForXp(200_000_000));
+        assertEquals(1, ExperienceTable.getLevelForXp(-1));
+        assertEquals(126, ExperienceTable.getLevelForXp(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void searchAgreesWithAScanAtEveryBoundary() {
+        for (int level = 2; level <= ExperienceTable.MAX_VIRTUAL_LEVEL; level++) {
+            int xp = ExperienceTable.getXpForLevel(level);
+            assertEquals(level - 1, ExperienceTable.getLevelForXp(xp - 1));
+            assertEquals(level, ExperienceTable.getLevelForXp(xp));
+            assertEquals(level, ExperienceTable.getLevelForXp(xp + 1));
+        }
+    }
+
+    @Test
+    public void realLevelStopsAtNinetyNine() {
+        assertEquals(98, ExperienceTable.getRealLevelForXp(13_034_430));
+        assertEquals(99, ExperienceTable.getRealLevelForXp(13_034_431));
+        assertEquals(99, ExperienceTable.getRealLevelForXp(200_000_000));
+    }
+
+    @Test
+    public void progressThroughALevel() {
+        assertEquals(83, ExperienceTable.getXpToNextLevel(0));
+        assertEquals(1, ExperienceTable.getXpToNextLevel(82));
+        assertEquals(91, ExperienceTable.getXpToNextLevel(83));
+        assertEquals(0, ExperienceTable.getXpToNextLevel(200_000_000));
+
+        assertEquals(0, ExperienceTable.getLevelProgress(0), 0);
+        assertEquals(45 / 91.0, ExperienceTable.getLevelProgress(128), 1e-9);
+        assertEquals(0, ExperienceTable.getLevelProgress(13_034_431), 0);
+        assertEquals(1, ExperienceTable.getLevelProgress(200_000_000), 0);
+    }
+}